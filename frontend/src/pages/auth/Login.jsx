@@ -79,10 +79,13 @@ export default function LoginEmpleado() {
         tenantKey: formData.tenantKey
       });
 
+      // El tenant va en el header: el backend lo resuelve sin leer el body
       const response = await api.post('/auth/login', {
         usuario: formData.usuario,
         password: formData.password,
         tenantKey: formData.tenantKey
+      }, {
+        headers: { 'X-Tenant-Key': formData.tenantKey }
       });
 
       console.log('✅ Respuesta completa del login:', response.data);
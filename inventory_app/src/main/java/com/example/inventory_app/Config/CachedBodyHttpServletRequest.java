@@ -6,6 +6,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Wrapper para HttpServletRequest que permite leer el body múltiples veces.
@@ -13,13 +15,16 @@ import java.io.*;
  * El body se lee una vez y se cachea en memoria, permitiendo múltiples lecturas.
  * Esto es necesario cuando un Filter necesita leer el body para extraer datos,
  * pero el Controller también necesita leerlo para deserializar el JSON.
+ * TenantFilter sólo lo usa cuando el tenant sale del body (sin X-Tenant-Key ni subdominio).
+ *
+ * Las lecturas son por bloques (read(byte[], int, int)), no byte a byte.
  * 
  * @author DamianG
  * @version 1.0
  */
 public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
 
-    private byte[] cachedBody;
+    private final byte[] cachedBody;
 
     public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
         super(request);
@@ -36,7 +41,19 @@ public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
     @Override
     public BufferedReader getReader() throws IOException {
         ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(this.cachedBody);
-        return new BufferedReader(new InputStreamReader(byteArrayInputStream));
+        String encoding = getCharacterEncoding();
+        return new BufferedReader(new InputStreamReader(byteArrayInputStream,
+            encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int getContentLength() {
+        return cachedBody.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return cachedBody.length;
     }
 
     /**
@@ -76,5 +93,20 @@ public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
         public int read() throws IOException {
             return cachedBodyInputStream.read();
         }
+
+        @Override
+        public int read(byte[] destino, int desde, int cantidad) {
+            return cachedBodyInputStream.read(destino, desde, cantidad);
+        }
+
+        @Override
+        public byte[] readAllBytes() {
+            return cachedBodyInputStream.readAllBytes();
+        }
+
+        @Override
+        public int available() {
+            return cachedBodyInputStream.available();
+        }
     }
 }
@@ -0,0 +1,49 @@
+package com.example.inventory_app.Config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Optional;
+
+/**
+ * Estrategia para resolver el tenant de un request.
+ *
+ * TenantFilter define, por ruta, qué estrategias se prueban y en qué orden
+ * (header X-Tenant-Key, subdominio, claims del JWT o campo del body); gana la
+ * primera que resuelve.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface EstrategiaTenant {
+
+    /**
+     * Nombre corto para logs ("header", "subdominio", "token", "body").
+     */
+    String nombre();
+
+    /**
+     * Intenta resolver el tenant del request.
+     * @param request Request actual
+     * @return Tenant resuelto, o vacío si esta estrategia no aplica
+     */
+    Optional<TenantResuelto> resolver(HttpServletRequest request);
+
+    /**
+     * Indica si la estrategia necesita leer el body. TenantFilter sólo envuelve
+     * el request en {@link CachedBodyHttpServletRequest} cuando llega a una de estas.
+     */
+    default boolean leeBody() {
+        return false;
+    }
+
+    /**
+     * Datos del tenant que se dejan como atributos del request para los controllers.
+     */
+    record TenantResuelto(String schemaName, Long empresaId, String tenantKey,
+                          Long empleadoId, String tipoUsuario) {
+
+        public TenantResuelto(String schemaName, Long empresaId, String tenantKey) {
+            this(schemaName, empresaId, tenantKey, null, null);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.inventory_app.Config;
+
+import com.example.inventory_app.Config.EstrategiaTenant.TenantResuelto;
+import com.example.inventory_app.Entities.Empresa;
+import com.example.inventory_app.Repositories.EmpresaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traduce un tenantKey a su empresa y schema, consultando el schema public.
+ *
+ * Lo usan las estrategias que reciben el tenantKey (header, subdominio, body).
+ * El schema de un tenantKey no cambia, así que se guarda un minuto en memoria:
+ * en un pico de logins no se consulta la empresa en cada uno. Las claves
+ * inexistentes y las empresas sin schema asignado no se guardan; quien asigna
+ * o elimina un schema invalida la entrada.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Component
+public class ResolutorTenantKey {
+
+    private static final long VIGENCIA_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int MAX_ENTRADAS = 10_000;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    private final ConcurrentMap<String, Entrada> cache = new ConcurrentHashMap<>();
+
+    private record Entrada(TenantResuelto tenant, long expira) { }
+
+    /**
+     * Busca la empresa de un tenantKey.
+     * @param tenantKey Tenant key recibido
+     * @return Tenant de la empresa, o vacío si no existe
+     */
+    public Optional<TenantResuelto> resolver(String tenantKey) {
+        if (tenantKey == null || tenantKey.isBlank()) {
+            return Optional.empty();
+        }
+        String clave = tenantKey.trim();
+        long ahora = System.currentTimeMillis();
+        Entrada entrada = cache.get(clave);
+        if (entrada != null && entrada.expira() > ahora) {
+            return Optional.of(entrada.tenant());
+        }
+
+        Optional<Empresa> empresaOpt = TenantContext.ejecutarEnTenant("public",
+            () -> empresaRepository.findByTenantKey(clave));
+        if (empresaOpt.isEmpty()) {
+            cache.remove(clave);
+            return Optional.empty();
+        }
+
+        Empresa empresa = empresaOpt.get();
+        TenantResuelto tenant = new TenantResuelto(empresa.getSchemaName(), empresa.getId(), clave);
+        if (empresa.getSchemaName() == null) {
+            // Registro en curso: el schema se asigna después de guardar la empresa
+            return Optional.of(tenant);
+        }
+        if (cache.size() >= MAX_ENTRADAS) {
+            // Lleno: se descartan las vencidas; si siguen vigentes todas, ésta no se guarda
+            cache.values().removeIf(e -> e.expira() <= ahora);
+            if (cache.size() >= MAX_ENTRADAS) {
+                return Optional.of(tenant);
+            }
+        }
+        cache.put(clave, new Entrada(tenant, ahora + VIGENCIA_MS));
+        return Optional.of(tenant);
+    }
+
+    /**
+     * Descarta el tenantKey guardado, para que la próxima resolución lea la empresa.
+     * @param tenantKey Tenant key de la empresa
+     */
+    public void invalidar(String tenantKey) {
+        if (tenantKey != null) {
+            cache.remove(tenantKey.trim());
+        }
+    }
+
+    /**
+     * Descarta los tenantKey guardados que apuntan a un schema (p.ej. al eliminarlo).
+     * @param schemaName Schema de la empresa
+     */
+    public void invalidarSchema(String schemaName) {
+        cache.values().removeIf(e -> e.tenant().schemaName().equals(schemaName));
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.inventory_app.Config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -88,11 +89,13 @@ public class SecurityConfig {
 
     /**
      * Configura el codificador de contraseñas BCrypt.
+     * Los hashes con otro costo se actualizan al iniciar sesión (VerificacionPasswordService).
+     * @param costo Costo (log2 de rondas), auth.bcrypt.costo
      * @return BCryptPasswordEncoder
      */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${auth.bcrypt.costo:10}") int costo) {
+        return new BCryptPasswordEncoder(costo);
     }
 
     /**
@@ -105,7 +108,7 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*")); // Usar patterns en lugar de origins
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "ETag", "Last-Modified"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -30,6 +30,8 @@ public class SimpleCorsFilter implements Filter {
         response.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS");
         response.setHeader("Access-Control-Allow-Headers", "*");
         response.setHeader("Access-Control-Allow-Credentials", "true");
+        // ETag / Last-Modified visibles para GET condicionales desde el frontend
+        response.setHeader("Access-Control-Expose-Headers", "Authorization, Content-Type, ETag, Last-Modified");
         response.setHeader("Access-Control-Max-Age", "3600");
         
         // Si es OPTIONS, responder inmediatamente con 200 OK
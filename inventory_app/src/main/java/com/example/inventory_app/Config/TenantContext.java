@@ -1,5 +1,7 @@
 package com.example.inventory_app.Config;
 
+import java.util.function.Supplier;
+
 /**
  * Contexto del Tenant (Empresa) - Almacena el schema actual por hilo de ejecución.
  * 
@@ -107,6 +109,30 @@ public class TenantContext {
         return tenant != null && !tenant.isEmpty() && !DEFAULT_TENANT.equals(tenant);
     }
 
+    /**
+     * Ejecuta una operación con un tenant establecido y luego restaura el tenant anterior.
+     * 
+     * Útil en hilos de fondo (precargas, tareas programadas) o cuando un servicio
+     * necesita consultar otro schema sin perder el tenant del request actual.
+     * 
+     * @param tenantId Schema en el que ejecutar la operación
+     * @param operacion Operación a ejecutar
+     * @return Resultado de la operación
+     */
+    public static <T> T ejecutarEnTenant(String tenantId, Supplier<T> operacion) {
+        String anterior = CURRENT_TENANT.get();
+        setCurrentTenant(tenantId);
+        try {
+            return operacion.get();
+        } finally {
+            if (anterior != null) {
+                CURRENT_TENANT.set(anterior);
+            } else {
+                CURRENT_TENANT.remove();
+            }
+        }
+    }
+
     /**
      * Restablece el tenant al valor por defecto (public).
      * Útil para operaciones que necesitan trabajar con el schema público.
@@ -1,10 +1,7 @@
 package com.example.inventory_app.Config;
 
-import com.example.inventory_app.Entities.Empresa;
-import com.example.inventory_app.Repositories.EmpresaRepository;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import io.jsonwebtoken.Claims;
+import com.example.inventory_app.Config.EstrategiaTenant.TenantResuelto;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,9 +12,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 /**
  * Filtro para configurar el contexto del Tenant (Multi-Tenancy).
@@ -28,11 +25,17 @@ import java.util.Optional;
  * - Esto garantiza que el TenantContext esté listo cuando Hibernate se active
  * 
  * FUNCIONAMIENTO:
- * 1. Extrae el JWT del header Authorization
- * 2. Extrae los claims: schemaName, empresaId, empresaEmail, tenantKey
- * 3. Establece TenantContext.setCurrentTenant(schemaName)
- * 4. Agrega los datos como request attributes para los controllers
- * 5. Al finalizar, limpia el TenantContext (finally)
+ * 1. Busca la ruta del request en la tabla de rutas: cada ruta indica qué
+ *    estrategias de resolución ({@link EstrategiaTenant}) se prueban y en qué orden
+ *    - Login de empleado: header X-Tenant-Key, subdominio y, como respaldo, el body
+ *    - Endpoints públicos: ninguna (schema 'public')
+ *    - Resto: claims del JWT
+ * 2. Establece TenantContext.setCurrentTenant(schemaName) con la primera que resuelve
+ * 3. Agrega los datos como request attributes para los controllers
+ * 4. Al finalizar, limpia el TenantContext (finally)
+ * 
+ * El body sólo se cachea (CachedBodyHttpServletRequest) si se llega a la
+ * estrategia del body; con X-Tenant-Key el request pasa intacto al controller.
  * 
  * @author DamianG
  * @version 1.0
@@ -43,23 +46,54 @@ import java.util.Optional;
 public class TenantFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtService jwtService;
+    private TenantPorHeader tenantPorHeader;
+
+    @Autowired
+    private TenantPorSubdominio tenantPorSubdominio;
 
     @Autowired
-    private EmpresaRepository empresaRepository;
+    private TenantPorToken tenantPorToken;
+
+    @Autowired
+    private TenantPorBody tenantPorBody;
+
+    private List<RutaTenant> rutas;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<EstrategiaTenant> estrategiasPorDefecto;
 
     /**
-     * Endpoints públicos que NO requieren JWT pero operan en schema 'public'.
+     * Ruta (método opcional + patrón de URI) y estrategias que se prueban en orden.
+     * Una lista vacía deja el request en el schema 'public'.
      */
-    private static final List<String> PUBLIC_ENDPOINTS = Arrays.asList(
-        "/api/auth/register",
-        "/api/auth/empresa/registro",
-        "/api/auth/empresa/login",
-        "/api/auth/empresa/",
-        "/api/productos/publico"
-    );
+    private record RutaTenant(String metodo, Pattern patron, List<EstrategiaTenant> estrategias) {
+
+        boolean coincide(HttpServletRequest request) {
+            return (metodo == null || metodo.equalsIgnoreCase(request.getMethod()))
+                && patron.matcher(request.getRequestURI()).matches();
+        }
+    }
+
+    @PostConstruct
+    public void configurarRutas() {
+        rutas = List.of(
+            // Login de empleado: el tenantKey llega en header, subdominio o body (respaldo)
+            new RutaTenant("POST", Pattern.compile(".*/api/auth/login"),
+                List.of(tenantPorHeader, tenantPorSubdominio, tenantPorBody)),
+            // Endpoints públicos (schema public)
+            new RutaTenant(null, Pattern.compile(
+                ".*/api/auth/empresa/registro" +
+                "|.*/api/auth/empresa/login" +
+                "|.*/api/auth/empresa/[0-9]+/verificar" +
+                "|.*/api/auth/empresa/[0-9]+/tiene-empleados" +
+                "|.*/api/auth/verificar-email.*" +
+                "|.*/api/auth/reenviar-verificacion" +
+                "|.*/api/suscripciones/planes.*" +
+                "|.*/api/auth/login" +
+                "|.*/api/productos/publico/.*"), List.of())
+        );
+        // Endpoints protegidos con JWT
+        estrategiasPorDefecto = List.of(tenantPorToken);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -71,42 +105,46 @@ public class TenantFilter extends OncePerRequestFilter {
         System.out.println("▓ [TENANT-FILTER] Request URI: " + requestURI);
         
         try {
-            // CASO ESPECIAL: Login de empleado - necesita leer el body
-            if ("/api/auth/login".equals(requestURI) && "POST".equalsIgnoreCase(request.getMethod())) {
-                System.out.println("▓ [TENANT-FILTER] ⚡ Login de empleado - extrayendo tenantKey del body");
-                
-                // Envolver request para poder leer el body múltiples veces
-                CachedBodyHttpServletRequest wrappedRequest = new CachedBodyHttpServletRequest(request);
-                handleEmpleadoLogin(wrappedRequest);
-                
-                System.out.println("▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓\n");
-                
-                // IMPORTANTE: Pasar el wrapped request al resto de la cadena
-                filterChain.doFilter(wrappedRequest, response);
-                return; // Salir después de procesar
+            List<EstrategiaTenant> estrategias = rutas.stream()
+                .filter(ruta -> ruta.coincide(request))
+                .findFirst()
+                .map(RutaTenant::estrategias)
+                .orElse(estrategiasPorDefecto);
+            
+            HttpServletRequest actual = request;
+            TenantResuelto tenant = null;
+            for (EstrategiaTenant estrategia : estrategias) {
+                if (estrategia.leeBody() && !(actual instanceof CachedBodyHttpServletRequest)) {
+                    // Sólo aquí se lee el body; el controller lo vuelve a leer del wrapper
+                    actual = new CachedBodyHttpServletRequest(actual);
+                }
+                Optional<TenantResuelto> resuelto = resolver(estrategia, actual);
+                if (resuelto.isPresent()) {
+                    tenant = resuelto.get();
+                    System.out.println("▓ [TENANT-FILTER] ✓ Tenant resuelto por " + estrategia.nombre()
+                        + ": " + tenant.schemaName());
+                    break;
+                }
             }
-            // Endpoints públicos (schema public)
-            else if (requestURI.matches(".*/api/auth/empresa/registro") ||
-                     requestURI.matches(".*/api/auth/empresa/login") ||
-                     requestURI.matches(".*/api/auth/empresa/[0-9]+/verificar") ||
-                     requestURI.matches(".*/api/auth/empresa/[0-9]+/tiene-empleados") ||
-                     requestURI.matches(".*/api/auth/verificar-email.*") ||
-                     requestURI.matches(".*/api/auth/reenviar-verificacion") ||
-                     requestURI.matches(".*/api/suscripciones/planes.*") ||
-                     requestURI.matches(".*/api/auth/login") ||  // Login de empleados
-                     requestURI.matches(".*/api/productos/publico/.*")) {
-                System.out.println("▓ [TENANT-FILTER] ✓ Endpoint público - usando schema 'public'");
+            
+            if (tenant != null) {
+                TenantContext.setCurrentTenant(tenant.schemaName());
+                
+                // Agregar datos como request attributes
+                actual.setAttribute("schemaName", tenant.schemaName());
+                actual.setAttribute("empresaId", tenant.empresaId());
+                actual.setAttribute("tenantKey", tenant.tenantKey());
+                actual.setAttribute("empleadoId", tenant.empleadoId());
+                actual.setAttribute("tipoUsuario", tenant.tipoUsuario());
+            } else {
+                System.out.println("▓ [TENANT-FILTER] ✓ Sin tenant - usando schema 'public'");
                 TenantContext.resetToDefault();
             }
-            // Endpoints protegidos con JWT
-            else {
-                handleJwtRequest(request);
-            }
             
             System.out.println("▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓▓\n");
             
-            // Continuar con la cadena de filtros
-            filterChain.doFilter(request, response);
+            // Continuar con la cadena de filtros (con el wrapper si se leyó el body)
+            filterChain.doFilter(actual, response);
             
         } finally {
             // *** CRÍTICO: Limpiar el TenantContext al finalizar el request ***
@@ -116,101 +154,14 @@ public class TenantFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Maneja el login de empleado extrayendo el tenantKey del body.
-     * Busca la empresa y establece el schema correcto.
+     * Ejecuta una estrategia; un error (BD, token inválido) equivale a no resolver.
      */
-    private void handleEmpleadoLogin(CachedBodyHttpServletRequest request) throws IOException {
+    private Optional<TenantResuelto> resolver(EstrategiaTenant estrategia, HttpServletRequest request) {
         try {
-            // Obtener el body cacheado
-            byte[] bodyBytes = request.getCachedBody();
-            String body = new String(bodyBytes, request.getCharacterEncoding() != null ? request.getCharacterEncoding() : "UTF-8");
-            
-            if (body != null && !body.isEmpty()) {
-                JsonNode jsonNode = objectMapper.readTree(body);
-                
-                // Verificar que el campo tenantKey existe
-                if (jsonNode.has("tenantKey")) {
-                    String tenantKey = jsonNode.get("tenantKey").asText();
-                    
-                    System.out.println("▓ [TENANT-FILTER] TenantKey extraído: " + tenantKey);
-                    
-                    // Buscar empresa por tenantKey (en schema public)
-                    TenantContext.resetToDefault();
-                    Optional<Empresa> empresaOpt = empresaRepository.findByTenantKey(tenantKey);
-                    
-                    if (empresaOpt.isPresent()) {
-                        Empresa empresa = empresaOpt.get();
-                        String schemaName = empresa.getSchemaName();
-                        
-                        System.out.println("▓ [TENANT-FILTER] Empresa encontrada: " + empresa.getNombre());
-                        System.out.println("▓ [TENANT-FILTER] ✓✓✓ Configurando schema: " + schemaName);
-                        
-                        // Establecer el schema del tenant
-                        TenantContext.setCurrentTenant(schemaName);
-                        
-                        // Agregar datos como request attributes
-                        request.setAttribute("schemaName", schemaName);
-                        request.setAttribute("empresaId", empresa.getId());
-                        request.setAttribute("tenantKey", tenantKey);
-                    } else {
-                        System.out.println("▓ [TENANT-FILTER] ✗ Empresa no encontrada - usando schema 'public'");
-                        TenantContext.resetToDefault();
-                    }
-                } else {
-                    System.out.println("▓ [TENANT-FILTER] ⚠ Campo 'tenantKey' no encontrado - usando schema 'public'");
-                    TenantContext.resetToDefault();
-                }
-            } else {
-                System.out.println("▓ [TENANT-FILTER] ⚠ Body vacío - usando schema 'public'");
-                TenantContext.resetToDefault();
-            }
+            return estrategia.resolver(request);
         } catch (Exception e) {
-            System.err.println("▓ [TENANT-FILTER] ✗ Error al procesar login: " + e.getMessage());
-            e.printStackTrace();
-            TenantContext.resetToDefault();
-        }
-    }
-
-    /**
-     * Maneja requests con JWT extrayendo el schema del token.
-     */
-    private void handleJwtRequest(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            
-            try {
-                // Extraer claims usando métodos públicos de JwtService
-                String schemaName = jwtService.extractClaim(token, claims -> claims.get("schemaName", String.class));
-                Long empresaId = jwtService.extractClaim(token, claims -> claims.get("empresaId", Long.class));
-                Long empleadoId = jwtService.extractClaim(token, claims -> claims.get("empleadoId", Long.class));
-                String tipoUsuario = jwtService.extractClaim(token, claims -> claims.get("tipoUsuario", String.class));
-                
-                System.out.println("╔════════════════════════════════════════════════════════════════════════");
-                System.out.println("║ [TENANT-FILTER] JWT Claims Extraídos:");
-                System.out.println("║ - schemaName: " + schemaName);
-                System.out.println("║ - empresaId: " + empresaId);
-                System.out.println("║ - empleadoId: " + empleadoId);
-                System.out.println("║ - tipoUsuario: " + tipoUsuario);
-                System.out.println("╚════════════════════════════════════════════════════════════════════════");
-                
-                if (schemaName != null && !schemaName.equals("public")) {
-                    TenantContext.setCurrentTenant(schemaName);
-                    
-                    // Agregar información al request
-                    request.setAttribute("schemaName", schemaName);
-                    request.setAttribute("empresaId", empresaId);
-                    request.setAttribute("empleadoId", empleadoId);
-                    request.setAttribute("tipoUsuario", tipoUsuario);
-                }
-            } catch (Exception e) {
-                System.out.println("▓ [TENANT-FILTER] ✗ Error al extraer claims del JWT: " + e.getMessage());
-                TenantContext.resetToDefault();
-            }
-        } else {
-            System.out.println("▓ [TENANT-FILTER] ⚠ No hay JWT - usando schema 'public'");
-            TenantContext.resetToDefault();
+            System.err.println("▓ [TENANT-FILTER] ✗ Error en estrategia " + estrategia.nombre() + ": " + e.getMessage());
+            return Optional.empty();
         }
     }
 }
@@ -120,7 +120,7 @@ public class TenantInterceptor implements HandlerInterceptor {
      * 
      * IMPORTANTE:
      * - Endpoints de EMPRESA: Trabajan en schema PUBLIC (empresas, suscripciones)
-     * - Endpoints de EMPLEADO login: El controller configura TenantContext basándose en tenantKey del body
+     * - Endpoints de EMPLEADO login: TenantFilter configura TenantContext con el tenantKey (X-Tenant-Key, subdominio o body)
      * - Endpoints de EMPLEADO register: DESHABILITADO, usar endpoint protegido
      * 
      * @param requestUri URI del request
@@ -130,7 +130,7 @@ public class TenantInterceptor implements HandlerInterceptor {
         System.out.println("[TENANT-INTERCEPTOR] Evaluando si es público: " + requestUri);
         
         // Endpoints de autenticación de EMPLEADOS
-        // NOTA: /api/auth/login configura TenantContext manualmente usando tenantKey del body
+        // NOTA: en /api/auth/login el TenantFilter resuelve el tenant (X-Tenant-Key, subdominio o body)
         // NOTA: /api/auth/register está DESHABILITADO, retorna 403
         if (requestUri.equals("/api/auth/login") || 
             requestUri.equals("/api/auth/register")) {
@@ -0,0 +1,70 @@
+package com.example.inventory_app.Config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Resuelve el tenant desde el campo "tenantKey" del body JSON (respaldo para
+ * clientes que no envían X-Tenant-Key).
+ *
+ * Recorre el body con el parser streaming de Jackson y se detiene en cuanto
+ * encuentra el campo de primer nivel: no arma el árbol JSON completo.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Component
+public class TenantPorBody implements EstrategiaTenant {
+
+    private static final String CAMPO = "tenantKey";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Autowired
+    private ResolutorTenantKey resolutorTenantKey;
+
+    @Override
+    public String nombre() {
+        return "body";
+    }
+
+    @Override
+    public boolean leeBody() {
+        return true;
+    }
+
+    @Override
+    public Optional<TenantResuelto> resolver(HttpServletRequest request) {
+        if (!(request instanceof CachedBodyHttpServletRequest cacheado) || cacheado.getCachedBody().length == 0) {
+            return Optional.empty();
+        }
+        return resolutorTenantKey.resolver(buscarTenantKey(cacheado.getCachedBody()));
+    }
+
+    private String buscarTenantKey(byte[] body) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                if (CAMPO.equals(campo)) {
+                    return valor == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                // Objetos o arreglos anidados se saltan sin leerlos
+                parser.skipChildren();
+            }
+            return null;
+        } catch (Exception e) {
+            System.out.println("▓ [TENANT-FILTER] ⚠ Body no es JSON válido: " + e.getMessage());
+            return null;
+        }
+    }
+}
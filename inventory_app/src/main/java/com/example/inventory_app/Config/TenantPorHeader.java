@@ -0,0 +1,32 @@
+package com.example.inventory_app.Config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Resuelve el tenant desde el header X-Tenant-Key.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Component
+public class TenantPorHeader implements EstrategiaTenant {
+
+    public static final String HEADER = "X-Tenant-Key";
+
+    @Autowired
+    private ResolutorTenantKey resolutorTenantKey;
+
+    @Override
+    public String nombre() {
+        return "header";
+    }
+
+    @Override
+    public Optional<TenantResuelto> resolver(HttpServletRequest request) {
+        return resolutorTenantKey.resolver(request.getHeader(HEADER));
+    }
+}
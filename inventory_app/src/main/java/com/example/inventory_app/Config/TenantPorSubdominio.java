@@ -0,0 +1,49 @@
+package com.example.inventory_app.Config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Resuelve el tenant desde el subdominio: {tenantKey}.{tenant.dominio-base}.
+ * Sin dominio base configurado no aplica.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Component
+public class TenantPorSubdominio implements EstrategiaTenant {
+
+    @Autowired
+    private ResolutorTenantKey resolutorTenantKey;
+
+    @Value("${tenant.dominio-base:}")
+    private String dominioBase;
+
+    @Override
+    public String nombre() {
+        return "subdominio";
+    }
+
+    @Override
+    public Optional<TenantResuelto> resolver(HttpServletRequest request) {
+        String host = request.getServerName();
+        if (dominioBase == null || dominioBase.isBlank() || host == null) {
+            return Optional.empty();
+        }
+        String sufijo = "." + dominioBase.trim().toLowerCase();
+        String servidor = host.toLowerCase();
+        if (!servidor.endsWith(sufijo)) {
+            return Optional.empty();
+        }
+        String subdominio = servidor.substring(0, servidor.length() - sufijo.length());
+        // Sólo el primer nivel: "abc.otro.dominio" no es un tenant
+        if (subdominio.isEmpty() || subdominio.contains(".")) {
+            return Optional.empty();
+        }
+        return resolutorTenantKey.resolver(subdominio);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.inventory_app.Config;
+
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Resuelve el tenant desde los claims del JWT (header Authorization).
+ * No consulta la BD: el token ya trae schemaName y empresaId.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Component
+public class TenantPorToken implements EstrategiaTenant {
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Override
+    public String nombre() {
+        return "token";
+    }
+
+    @Override
+    public Optional<TenantResuelto> resolver(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return Optional.empty();
+        }
+
+        try {
+            // Parsear y verificar el token UNA sola vez y leer todos los claims del resultado
+            Claims claims = jwtService.extractClaim(authHeader.substring(7), c -> c);
+            String schemaName = claims.get("schemaName", String.class);
+            if (schemaName == null || schemaName.equals("public")) {
+                return Optional.empty();
+            }
+            return Optional.of(new TenantResuelto(
+                schemaName,
+                claims.get("empresaId", Long.class),
+                claims.get("tenantKey", String.class),
+                claims.get("empleadoId", Long.class),
+                claims.get("tipoUsuario", String.class)));
+        } catch (Exception e) {
+            System.out.println("▓ [TENANT-FILTER] ✗ Error al extraer claims del JWT: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
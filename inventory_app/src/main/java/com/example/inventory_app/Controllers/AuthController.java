@@ -4,6 +4,8 @@ import com.example.inventory_app.Controllers.dto.EmpresaResponseDTO;
 import com.example.inventory_app.Entities.Empleado;
 import com.example.inventory_app.Services.EmpleadoService;
 import com.example.inventory_app.Services.EmpresaService;
+import com.example.inventory_app.Services.IndiceEscaneoService;
+import com.example.inventory_app.Services.VerificacionPasswordService;
 import com.example.inventory_app.Config.JwtService;
 import com.example.inventory_app.Controllers.dto.EmpleadoLoginDTO;
 import com.example.inventory_app.Controllers.dto.EmpleadoRegistroDTO;
@@ -13,6 +15,7 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -43,6 +46,12 @@ public class AuthController {
     @Autowired
     private JwtService jwtService;
 
+    @Autowired
+    private IndiceEscaneoService indiceEscaneoService;
+
+    @Autowired
+    private VerificacionPasswordService verificacionPasswordService;
+
     /**
      * POST /api/auth/login
      * 
@@ -116,6 +125,9 @@ public class AuthController {
             );
             
             System.out.println("[AUTH-CONTROLLER] Token JWT generado para empleado");
+
+            // Precarga en segundo plano del índice de escaneo del POS (sólo la primera vez por tenant)
+            indiceEscaneoService.precargar(schemaName);
             
             // Crear respuesta
             LoginResponse response = new LoginResponse(
@@ -130,6 +142,12 @@ public class AuthController {
             
             return ResponseEntity.ok(response);
             
+        } catch (VerificacionPasswordService.SaturadoException e) {
+            System.err.println("[AUTH-CONTROLLER] Login rechazado por saturación: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "2").body(
+                crearErrorResponse("LOGIN_SATURADO", e.getMessage())
+            );
+            
         } catch (IllegalArgumentException e) {
             System.err.println("[AUTH-CONTROLLER] Error de autenticación: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
@@ -145,6 +163,21 @@ public class AuthController {
         }
     }
     
+    /**
+     * GET /api/auth/login/estadisticas
+     * 
+     * Métricas del pool de verificación de contraseñas: percentiles de espera y
+     * duración del login, CPU consumido, rechazos por saturación y hashes actualizados.
+     */
+    @GetMapping("/login/estadisticas")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> estadisticasLogin() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "verificacion", verificacionPasswordService.obtenerEstadisticas()
+        ));
+    }
+    
     /**
      * POST /api/auth/register - DESHABILITADO
      * 
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para la gestión de cajas.
@@ -30,12 +31,24 @@ public class CajaController {
         return ResponseEntity.ok(cajaService.abrirCaja(caja));
     }
 
+    /**
+     * Cierra la caja y devuelve el reporte Z (arqueo por método de pago).
+     */
     @PatchMapping("/{id}/cerrar")
-    public ResponseEntity<Caja> cerrarCaja(
+    public ResponseEntity<Map<String, Object>> cerrarCaja(
             @PathVariable Long id,
             @RequestParam BigDecimal montoFinal,
             @RequestParam(required = false) String observaciones) {
-        return ResponseEntity.ok(cajaService.cerrarCaja(id, montoFinal, observaciones));
+        cajaService.cerrarCaja(id, montoFinal, observaciones);
+        return ResponseEntity.ok(cajaService.obtenerReporteZ(id));
+    }
+
+    /**
+     * Reporte Z de la caja (parcial si sigue abierta).
+     */
+    @GetMapping("/{id}/reporte-z")
+    public ResponseEntity<Map<String, Object>> obtenerReporteZ(@PathVariable Long id) {
+        return ResponseEntity.ok(cajaService.obtenerReporteZ(id));
     }
 
     @GetMapping("/{id}")
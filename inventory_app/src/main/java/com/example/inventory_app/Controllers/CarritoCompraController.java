@@ -4,16 +4,18 @@ import com.example.inventory_app.Config.TenantContext;
 import com.example.inventory_app.Entities.CarritoCompra;
 import com.example.inventory_app.Entities.Producto;
 import com.example.inventory_app.Services.CarritoCompraService;
+import com.example.inventory_app.Services.CarritoEnMemoriaService;
 import com.example.inventory_app.Services.ProductoService;
+import com.example.inventory_app.Services.ReservaStockService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +41,8 @@ public class CarritoCompraController {
 
     private final CarritoCompraService carritoService;
     private final ProductoService productoService;
+    private final ReservaStockService reservaStockService;
+    private final CarritoEnMemoriaService carritoEnMemoriaService;
 
     /**
      * Agregar producto al carrito del empleado autenticado.
@@ -72,13 +76,14 @@ public class CarritoCompraController {
             // Obtener información del producto
             Producto producto = productoService.findById(productoId)
                 .orElse(null);
+            CarritoEnMemoriaService.Resumen resumen = carritoService.obtenerResumen(empleadoId);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Producto agregado al carrito",
                 "item", crearItemResponse(item, producto),
-                "totalCarrito", carritoService.calcularTotalCarrito(empleadoId),
-                "cantidadItems", carritoService.contarItems(empleadoId),
+                "totalCarrito", resumen.total(),
+                "cantidadItems", resumen.cantidadItems(),
                 "schemaName", schemaName
             ));
             
@@ -90,6 +95,58 @@ public class CarritoCompraController {
         }
     }
 
+    /**
+     * Agregar varios productos al carrito en una sola petición (ráfagas de escáner).
+     * Cada línea indica productoId o codigo, y cantidad (1 si se omite).
+     * Si una línea no es válida o no hay stock, no se agrega ninguna.
+     */
+    @PostMapping("/agregar-lote")
+    public ResponseEntity<?> agregarLote(
+            @RequestBody Map<String, Object> request,
+            HttpServletRequest httpRequest) {
+        
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+            Long empleadoId = (Long) httpRequest.getAttribute("empleadoId");
+            
+            if (empleadoId == null) {
+                return ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .body(crearErrorResponse("Se requiere autenticación de empleado"));
+            }
+            
+            if (!(request.get("items") instanceof List<?> items)) {
+                return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(crearErrorResponse("Se requiere la lista 'items'"));
+            }
+            
+            List<CarritoCompraService.LineaLote> lineas = items.stream()
+                .map(linea -> crearLineaLote((Map<?, ?>) linea))
+                .collect(Collectors.toList());
+            
+            log.info("=== AGREGAR LOTE AL CARRITO === Empleado ID: {}, líneas: {}, schema: {}",
+                empleadoId, lineas.size(), schemaName);
+            
+            CarritoCompraService.VistaCarrito vista = carritoService.agregarProductos(empleadoId, lineas);
+            
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Productos agregados al carrito",
+                "items", crearItemsResponse(vista),
+                "cantidadItems", vista.cantidadItems(),
+                "total", vista.total(),
+                "schemaName", schemaName
+            ));
+            
+        } catch (Exception e) {
+            log.error("ERROR al agregar lote al carrito: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * Obtener el carrito del empleado autenticado.
      */
@@ -105,23 +162,14 @@ public class CarritoCompraController {
                     .body(crearErrorResponse("Se requiere autenticación de empleado"));
             }
             
-            List<CarritoCompra> items = carritoService.obtenerCarritoPorEmpleado(empleadoId);
-            
-            // Enriquecer con información de productos
-            List<Map<String, Object>> itemsConProducto = items.stream()
-                .map(item -> {
-                    Producto producto = productoService.findById(item.getProductoId()).orElse(null);
-                    return crearItemResponse(item, producto);
-                })
-                .collect(Collectors.toList());
-            
-            BigDecimal total = carritoService.calcularTotalCarrito(empleadoId);
+            // Items y total del carrito con sus productos leídos en bloque
+            CarritoCompraService.VistaCarrito vista = carritoService.obtenerVista(empleadoId);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
-                "items", itemsConProducto,
-                "cantidadItems", items.size(),
-                "total", total,
+                "items", crearItemsResponse(vista),
+                "cantidadItems", vista.cantidadItems(),
+                "total", vista.total(),
                 "schemaName", schemaName
             ));
             
@@ -159,7 +207,7 @@ public class CarritoCompraController {
                 "success", true,
                 "message", "Cantidad actualizada",
                 "item", crearItemResponse(item, producto),
-                "totalCarrito", carritoService.calcularTotalCarrito(empleadoId),
+                "totalCarrito", carritoService.obtenerResumen(empleadoId).total(),
                 "schemaName", schemaName
             ));
             
@@ -184,14 +232,15 @@ public class CarritoCompraController {
             Long empleadoId = (Long) request.getAttribute("empleadoId");
             
             carritoService.eliminarItem(id);
+            CarritoEnMemoriaService.Resumen resumen = carritoService.obtenerResumen(empleadoId);
             
             log.info("✓ Item eliminado del carrito");
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Item eliminado del carrito",
-                "totalCarrito", carritoService.calcularTotalCarrito(empleadoId),
-                "cantidadItems", carritoService.contarItems(empleadoId),
+                "totalCarrito", resumen.total(),
+                "cantidadItems", resumen.cantidadItems(),
                 "schemaName", schemaName
             ));
             
@@ -251,13 +300,12 @@ public class CarritoCompraController {
                     .body(crearErrorResponse("Se requiere autenticación de empleado"));
             }
             
-            BigDecimal total = carritoService.calcularTotalCarrito(empleadoId);
-            Long cantidad = carritoService.contarItems(empleadoId);
+            CarritoEnMemoriaService.Resumen resumen = carritoService.obtenerResumen(empleadoId);
             
             return ResponseEntity.ok(Map.of(
                 "success", true,
-                "total", total,
-                "cantidadItems", cantidad,
+                "total", resumen.total(),
+                "cantidadItems", resumen.cantidadItems(),
                 "schemaName", schemaName
             ));
             
@@ -269,6 +317,45 @@ public class CarritoCompraController {
         }
     }
 
+    /**
+     * Estadísticas de reservas de stock (reservas vigentes por empresa, rechazos, vencimientos)
+     * y de los carritos en memoria (pendientes de escribir, escrituras agrupadas).
+     */
+    @GetMapping("/reservas/estadisticas")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> estadisticasReservas() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "reservas", reservaStockService.obtenerEstadisticas(),
+            "carritos", carritoEnMemoriaService.obtenerEstadisticas()
+        ));
+    }
+
+    /**
+     * Convierte una línea del lote ({productoId | codigo, cantidad}).
+     */
+    private CarritoCompraService.LineaLote crearLineaLote(Map<?, ?> linea) {
+        Object productoId = linea.get("productoId");
+        Object codigo = linea.get("codigo");
+        Object cantidad = linea.get("cantidad");
+        return new CarritoCompraService.LineaLote(
+            productoId != null ? Long.valueOf(productoId.toString()) : null,
+            codigo != null ? codigo.toString() : null,
+            cantidad != null ? Integer.valueOf(cantidad.toString()) : 1);
+    }
+
+    /**
+     * Items del carrito con la información de sus productos.
+     */
+    private List<Map<String, Object>> crearItemsResponse(CarritoCompraService.VistaCarrito vista) {
+        return vista.items().stream()
+            .map(item -> {
+                Producto producto = vista.productos().get(item.getProductoId());
+                return crearItemResponse(item, producto);
+            })
+            .collect(Collectors.toList());
+    }
+
     /**
      * Crea respuesta con información del item y producto.
      */
@@ -280,13 +367,16 @@ public class CarritoCompraController {
         response.put("precioUnitario", item.getPrecioUnitario());
         response.put("subtotal", item.getSubtotal());
         response.put("createdAt", item.getCreatedAt());
+        response.put("reservadoHasta", item.getReservadoHasta());
         
         if (producto != null) {
             Map<String, Object> productoInfo = new HashMap<>();
             productoInfo.put("codigo", producto.getCodigo());
             productoInfo.put("nombre", producto.getNombre());
             productoInfo.put("categoria", producto.getCategoria());
-            productoInfo.put("stockDisponible", producto.getStock());
+            // Stock menos lo reservado por otros carritos
+            productoInfo.put("stockDisponible",
+                reservaStockService.disponible(producto.getId(), item.getEmpleadoId(), producto.getStock()));
             productoInfo.put("activo", producto.isActivo());
             response.put("producto", productoInfo);
         }
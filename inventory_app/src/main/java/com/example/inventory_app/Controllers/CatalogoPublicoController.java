@@ -0,0 +1,82 @@
+package com.example.inventory_app.Controllers;
+
+import com.example.inventory_app.Services.CatalogoPublicoService;
+import com.example.inventory_app.Services.CatalogoPublicoService.Snapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catálogo público de productos para tiendas web (sin autenticación).
+ *
+ * La empresa se identifica por su tenantKey en la URL. La respuesta sale de un
+ * snapshot en memoria ya comprimido (ver CatalogoPublicoService), con ETag fuerte
+ * y Cache-Control público para que navegadores y CDN la reutilicen. La versión
+ * gzip y la sin comprimir tienen ETags distintos (terminado en -gzip el primero).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/productos/publico")
+@Slf4j
+@CrossOrigin(origins = "*")
+public class CatalogoPublicoController {
+
+    @Autowired
+    private CatalogoPublicoService catalogoPublicoService;
+
+    @Value("${catalogo.publico.max-age-segundos:60}")
+    private long maxAgeSegundos;
+
+    /**
+     * Catálogo de productos activos de la empresa (sin precios de compra).
+     */
+    @GetMapping("/{tenantKey}/catalogo")
+    public ResponseEntity<byte[]> obtenerCatalogo(
+            @PathVariable String tenantKey,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+
+        Optional<Snapshot> snapshot = catalogoPublicoService.obtener(tenantKey);
+        if (snapshot.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Snapshot catalogo = snapshot.get();
+        CacheControl cacheControl = CacheControl.maxAge(maxAgeSegundos, TimeUnit.SECONDS)
+            .cachePublic()
+            .staleWhileRevalidate(maxAgeSegundos * 5, TimeUnit.SECONDS);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? catalogo.etagGzip() : catalogo.etag();
+
+        if (webRequest.checkNotModified(etag, catalogo.generado())) {
+            return ResponseEntity.status(304)
+                .cacheControl(cacheControl)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .build();
+        }
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .cacheControl(cacheControl)
+            .eTag(etag)
+            .lastModified(catalogo.generado())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(catalogo.gzip());
+        }
+        return respuesta.body(catalogo.json());
+    }
+}
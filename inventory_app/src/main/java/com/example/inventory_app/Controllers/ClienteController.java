@@ -2,14 +2,18 @@ package com.example.inventory_app.Controllers;
 
 import com.example.inventory_app.Config.TenantContext;
 import com.example.inventory_app.Entities.Cliente;
+import com.example.inventory_app.Services.ClienteResumenService;
 import com.example.inventory_app.Services.ClienteService;
+import com.example.inventory_app.Services.VersionDatosService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -35,6 +39,8 @@ import java.util.Map;
 public class ClienteController {
 
     private final ClienteService clienteService;
+    private final ClienteResumenService clienteResumenService;
+    private final VersionDatosService versionDatosService;
 
     /**
      * Crea un nuevo cliente en el schema de la empresa/empleado autenticado.
@@ -85,16 +91,23 @@ public class ClienteController {
 
     /**
      * Obtiene todos los clientes del tenant actual.
+     * Soporta GET condicional: si el cliente envía el ETag vigente responde 304 sin consultar la BD.
      */
     @GetMapping
-    public ResponseEntity<?> listarClientes() {
+    public ResponseEntity<?> listarClientes(WebRequest webRequest) {
         try {
             String schemaName = TenantContext.getCurrentTenant();
+
+            String etag = versionDatosService.calcularEtag("todos", VersionDatosService.CLIENTES);
+            if (webRequest.checkNotModified(etag, versionDatosService.ultimaModificacion(VersionDatosService.CLIENTES))) {
+                return null;
+            }
+
             log.info("Listando clientes del schema: {}", schemaName);
 
             List<Cliente> clientes = clienteService.findAll();
 
-            return ResponseEntity.ok(Map.of(
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(Map.of(
                     "success", true,
                     "clientes", clientes,
                     "total", clientes.size(),
@@ -109,6 +122,40 @@ public class ClienteController {
         }
     }
 
+    /**
+     * Sugerencias de clientes mientras se escribe en la caja: documento,
+     * teléfono, nombre o apellido que empiezan con el texto (una o varias palabras).
+     * Sale del índice en memoria de IndiceClientesService, sin consultar la BD.
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<?> sugerirClientes(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite) {
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+
+            if (limite < 1 || limite > 50) {
+                return ResponseEntity
+                        .status(HttpStatus.BAD_REQUEST)
+                        .body(crearErrorResponse("El límite debe estar entre 1 y 50"));
+            }
+
+            var sugerencias = clienteService.sugerir(q, limite);
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "sugerencias", sugerencias,
+                    "total", sugerencias.size(),
+                    "schemaName", schemaName
+            ));
+
+        } catch (Exception e) {
+            log.error("ERROR al sugerir clientes: {}", e.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error al buscar clientes"));
+        }
+    }
+
     /**
      * Obtiene un cliente por ID del tenant actual.
      */
@@ -138,6 +185,65 @@ public class ClienteController {
         }
     }
 
+    /**
+     * Resumen de compras del cliente para su ficha: valor total, visitas,
+     * ticket promedio, primera y última compra y categorías favoritas.
+     * Se lee de acumulados mantenidos con cada factura (no recorre facturas).
+     */
+    @GetMapping("/{id}/resumen")
+    public ResponseEntity<?> obtenerResumen(@PathVariable Long id) {
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+
+            if (clienteService.findById(id).isEmpty()) {
+                return ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .body(crearErrorResponse("Cliente no encontrado"));
+            }
+
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "resumen", clienteResumenService.obtenerResumen(id),
+                    "schemaName", schemaName
+            ));
+
+        } catch (Exception e) {
+            log.error("ERROR al obtener resumen del cliente: {}", e.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error al obtener resumen del cliente"));
+        }
+    }
+
+    /**
+     * Historial de facturas del cliente, más recientes primero, paginado por cursor.
+     */
+    @GetMapping("/{id}/historial")
+    public ResponseEntity<?> obtenerHistorial(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+
+            Map<String, Object> respuesta = new HashMap<>(clienteResumenService.obtenerHistorial(id, cursor, limite));
+            respuesta.put("success", true);
+            respuesta.put("clienteId", id);
+            respuesta.put("schemaName", schemaName);
+            return ResponseEntity.ok(respuesta);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("ERROR al obtener historial del cliente: {}", e.getMessage());
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error al obtener historial del cliente"));
+        }
+    }
+
     /**
      * Busca un cliente por documento en el tenant actual.
      */
@@ -275,14 +381,21 @@ public class ClienteController {
 
     /**
      * Lista clientes activos del tenant actual.
+     * Soporta GET condicional (ETag / Last-Modified).
      */
     @GetMapping("/activos")
-    public ResponseEntity<?> listarClientesActivos() {
+    public ResponseEntity<?> listarClientesActivos(WebRequest webRequest) {
         try {
             String schemaName = TenantContext.getCurrentTenant();
+
+            String etag = versionDatosService.calcularEtag("activos", VersionDatosService.CLIENTES);
+            if (webRequest.checkNotModified(etag, versionDatosService.ultimaModificacion(VersionDatosService.CLIENTES))) {
+                return null;
+            }
+
             List<Cliente> clientes = clienteService.findAllActive();
 
-            return ResponseEntity.ok(Map.of(
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(Map.of(
                     "success", true,
                     "clientes", clientes,
                     "total", clientes.size(),
@@ -2,6 +2,7 @@ package com.example.inventory_app.Controllers;
 
 import com.example.inventory_app.Controllers.dto.*;
 import com.example.inventory_app.Services.EmpresaService;
+import com.example.inventory_app.Services.VerificacionPasswordService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -144,6 +145,13 @@ public class EmpresaController {
             
             return ResponseEntity.ok(response);
             
+        } catch (VerificacionPasswordService.SaturadoException e) {
+            // Demasiados logins simultáneos: reintentar en unos segundos
+            System.err.println("[CONTROLLER] Login rechazado por saturación: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "2").body(
+                crearErrorResponse("LOGIN_SATURADO", e.getMessage())
+            );
+            
         } catch (IllegalArgumentException e) {
             // Credenciales inválidas
             System.err.println("[CONTROLLER] Login fallido: " + e.getMessage());
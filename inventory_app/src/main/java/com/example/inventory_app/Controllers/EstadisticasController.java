@@ -1,16 +1,20 @@
 package com.example.inventory_app.Controllers;
 
+import com.example.inventory_app.Services.AnalisisVentasService;
 import com.example.inventory_app.Services.FacturaService;
 import com.example.inventory_app.Services.ProductoService;
 import com.example.inventory_app.Services.ClienteService;
 import com.example.inventory_app.Services.EmpleadoService;
+import com.example.inventory_app.Services.ValorizacionInventarioService;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -36,13 +40,19 @@ public class EstadisticasController {
     @Autowired
     private EmpleadoService empleadoService;
 
+    @Autowired
+    private AnalisisVentasService analisisVentasService;
+
+    @Autowired
+    private ValorizacionInventarioService valorizacionInventarioService;
+
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> obtenerDashboard() {
         Map<String, Object> estadisticas = new HashMap<>();
         
         // Estadísticas de productos
         estadisticas.put("totalProductos", productoService.findAll().size());
-        estadisticas.put("productosBajoStock", productoService.findProductosConBajoStock().size());
+        estadisticas.put("productosBajoStock", productoService.contarProductosConBajoStock());
         
         // Estadísticas de clientes
         estadisticas.put("totalClientes", clienteService.findAllActive().size());
@@ -63,4 +73,61 @@ public class EstadisticasController {
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") Date fecha) {
         return ResponseEntity.ok(facturaService.calcularTotalVentasDia(fecha));
     }
+
+    /**
+     * Productos más vendidos en los últimos {@code dias}.
+     * @param criterio "monto" (por defecto) o "cantidad"
+     */
+    @GetMapping("/productos/top")
+    public ResponseEntity<Map<String, Object>> obtenerTopProductos(
+            @RequestParam(defaultValue = "30") int dias,
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(defaultValue = "monto") String criterio) {
+        List<Map<String, Object>> ranking = analisisVentasService.obtenerTopProductos(dias, limite, criterio);
+
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("dias", dias);
+        respuesta.put("criterio", criterio);
+        respuesta.put("productos", ranking);
+        respuesta.put("total", ranking.size());
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Productos activos con menor rotación en los últimos {@code dias}.
+     */
+    @GetMapping("/productos/lentos")
+    public ResponseEntity<Map<String, Object>> obtenerProductosLentos(
+            @RequestParam(defaultValue = "30") int dias,
+            @RequestParam(defaultValue = "20") int limite) {
+        List<Map<String, Object>> ranking = analisisVentasService.obtenerProductosLentos(dias, limite);
+
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("dias", dias);
+        respuesta.put("productos", ranking);
+        respuesta.put("total", ranking.size());
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Clasificación ABC de productos por monto vendido en los últimos {@code dias}.
+     * @param clase Filtro opcional del detalle (A, B o C)
+     */
+    @GetMapping("/productos/abc")
+    public ResponseEntity<Map<String, Object>> obtenerClasificacionAbc(
+            @RequestParam(defaultValue = "90") int dias,
+            @RequestParam(required = false) String clase,
+            @RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(analisisVentasService.obtenerClasificacionAbc(dias, clase, limite));
+    }
+
+    /**
+     * Valorización del inventario (costo, venta y margen) por categoría y total.
+     * @param fecha Día de cierre (yyyy-MM-dd); sin fecha, el stock actual
+     */
+    @GetMapping("/inventario/valorizacion")
+    public ResponseEntity<Map<String, Object>> obtenerValorizacionInventario(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return ResponseEntity.ok(valorizacionInventarioService.valorizar(fecha));
+    }
 }
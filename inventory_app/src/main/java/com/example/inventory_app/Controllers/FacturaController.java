@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -61,6 +62,7 @@ public class FacturaController {
                 facturaMap.put("fechaEmision", factura.getFecha());
                 facturaMap.put("estado", factura.getEstado());
                 facturaMap.put("metodoPago", factura.getMetodoPago());
+                facturaMap.put("cajaId", factura.getCajaId());
                 facturaMap.put("subtotal", factura.getSubtotal());
                 facturaMap.put("impuesto", factura.getImpuesto());
                 facturaMap.put("descuento", factura.getDescuento());
@@ -194,6 +196,7 @@ public class FacturaController {
             facturaResponse.put("fechaEmision", facturaGuardada.getFecha());
             facturaResponse.put("estado", facturaGuardada.getEstado());
             facturaResponse.put("metodoPago", facturaGuardada.getMetodoPago());
+            facturaResponse.put("cajaId", facturaGuardada.getCajaId());
             facturaResponse.put("subtotal", facturaGuardada.getSubtotal());
             facturaResponse.put("impuesto", facturaGuardada.getImpuesto());
             facturaResponse.put("descuento", facturaGuardada.getDescuento());
@@ -410,11 +413,18 @@ public class FacturaController {
         try {
             String schemaName = TenantContext.getCurrentTenant();
             
-            if (facturaService.findById(id).isEmpty()) {
+            Optional<Factura> factura = facturaService.findById(id);
+            if (factura.isEmpty()) {
                 return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
                     .body(crearErrorResponse("Factura no encontrada"));
             }
+
+            if ("ANULADA".equals(factura.get().getEstado())) {
+                return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(crearErrorResponse("La factura ya se encuentra anulada"));
+            }
             
             facturaService.anularFactura(id);
             
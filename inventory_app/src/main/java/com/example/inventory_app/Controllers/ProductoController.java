@@ -1,22 +1,44 @@
 package com.example.inventory_app.Controllers;
 
 import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Controllers.dto.ActualizacionMasivaDTO;
 import com.example.inventory_app.Entities.Producto;
 import com.example.inventory_app.Entities.CategoriaProducto;
+import com.example.inventory_app.Repositories.ProductoRepository;
+import com.example.inventory_app.Repositories.ProductoRepositoryCustom.FiltroProductos;
+import com.example.inventory_app.Services.ActualizacionMasivaProductoService;
+import com.example.inventory_app.Services.AlertaStockService;
+import com.example.inventory_app.Services.CatalogoProductoCache;
+import com.example.inventory_app.Services.ContencionStockService;
+import com.example.inventory_app.Services.EventosProductoService;
+import com.example.inventory_app.Services.ImportacionProductoService;
+import com.example.inventory_app.Services.IndiceEscaneoService;
+import com.example.inventory_app.Services.MovimientoStockService;
 import com.example.inventory_app.Services.ProductoService;
+import com.example.inventory_app.Services.SuscripcionService;
+import com.example.inventory_app.Services.VersionDatosService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Controller REST para gestión de productos en contexto multi-tenant.
@@ -38,6 +60,16 @@ import java.util.Map;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final VersionDatosService versionDatosService;
+    private final CatalogoProductoCache catalogoProductoCache;
+    private final IndiceEscaneoService indiceEscaneoService;
+    private final ContencionStockService contencionStockService;
+    private final ImportacionProductoService importacionProductoService;
+    private final SuscripcionService suscripcionService;
+    private final ActualizacionMasivaProductoService actualizacionMasivaProductoService;
+    private final AlertaStockService alertaStockService;
+    private final EventosProductoService eventosProductoService;
+    private final MovimientoStockService movimientoStockService;
 
     /**
      * Crea un nuevo producto en el schema de la empresa/empleado autenticado.
@@ -87,24 +119,171 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Importación masiva de productos (CSV o NDJSON en el cuerpo de la petición).
+     * Inserta los códigos nuevos y actualiza los existentes; las filas inválidas se
+     * devuelven con su número de línea y no frenan al resto del archivo.
+     *
+     * @param formato csv | ndjson (por defecto se deduce del Content-Type)
+     */
+    @PostMapping("/importar")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> importarProductos(
+            @RequestParam(required = false) String formato,
+            HttpServletRequest request) {
+
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+            Long empresaId = (Long) request.getAttribute("empresaId");
+
+            if (schemaName == null || schemaName.equals("public")) {
+                return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error: No se pudo determinar el tenant"));
+            }
+
+            if (formato == null) {
+                String contentType = request.getContentType();
+                formato = contentType != null && contentType.contains("json") ? "ndjson" : "csv";
+            }
+            if (!formato.equalsIgnoreCase("csv") && !formato.equalsIgnoreCase("ndjson")) {
+                return ResponseEntity.badRequest()
+                    .body(crearErrorResponse("Formato no soportado: " + formato + " (csv | ndjson)"));
+            }
+
+            log.info("=== IMPORTAR PRODUCTOS ({}) en {} ===", formato, schemaName);
+
+            Integer maxProductos = obtenerMaxProductos(empresaId, schemaName);
+            Map<String, Object> resultado = importacionProductoService.importar(
+                request.getInputStream(), formato, maxProductos);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Importación finalizada",
+                "resultado", resultado
+            ));
+
+        } catch (IllegalStateException e) {
+            log.warn("Importación rechazada: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.FORBIDDEN)
+                .body(crearErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("ERROR al importar productos: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse("Error al importar productos: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Límite de productos del plan de la empresa (-1 = ilimitado, null si no hay empresa en el token).
+     * SuscripcionService trabaja en el schema public y limpia el TenantContext,
+     * por eso se consulta antes de la importación y luego se restaura el tenant.
+     */
+    private Integer obtenerMaxProductos(Long empresaId, String schemaName) {
+        if (empresaId == null) {
+            return null;
+        }
+        try {
+            return suscripcionService.obtenerSuscripcionPorEmpresaId(empresaId).getMaxProductos();
+        } finally {
+            TenantContext.setCurrentTenant(schemaName);
+        }
+    }
+
+    /**
+     * Actualización masiva de precios/atributos (ej: +8% precioVenta de una categoría).
+     * Se aplica en una sola sentencia; con simular = true sólo devuelve el diff.
+     */
+    @PostMapping("/actualizacion-masiva")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> actualizacionMasiva(@Valid @RequestBody ActualizacionMasivaDTO solicitud) {
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+            if (schemaName == null || schemaName.equals("public")) {
+                return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error: No se pudo determinar el tenant"));
+            }
+
+            log.info("=== ACTUALIZACIÓN MASIVA en {} (simular={}) ===", schemaName, solicitud.isSimular());
+
+            Map<String, Object> resultado = actualizacionMasivaProductoService.actualizar(solicitud);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", solicitud.isSimular() ? "Simulación (sin cambios guardados)" : "Productos actualizados",
+                "resultado", resultado
+            ));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("ERROR en actualización masiva: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse("Error en actualización masiva: " + e.getMessage()));
+        }
+    }
+
     /**
      * Obtiene todos los productos del tenant actual.
+     * Soporta GET condicional: si el cliente envía el ETag vigente responde 304 sin consultar la BD.
+     *
+     * Con fields, orden, cursor, limite, categoria o activo responde una página (keyset)
+     * que sólo lee de la BD los campos pedidos.
      */
     @GetMapping
-    public ResponseEntity<?> listarProductos() {
+    public ResponseEntity<?> listarProductos(
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limite,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) Boolean activo,
+            WebRequest webRequest) {
         try {
             String schemaName = TenantContext.getCurrentTenant();
+
+            boolean paginado = fields != null || orden != null || cursor != null || limite != null
+                || categoria != null || activo != null;
+            String variante = paginado
+                ? "pagina-" + Integer.toHexString(Objects.hash(fields, orden, cursor, limite, categoria, activo))
+                : "todos";
+
+            String etag = versionDatosService.calcularEtag(variante, VersionDatosService.PRODUCTOS);
+            if (webRequest.checkNotModified(etag, versionDatosService.ultimaModificacion(VersionDatosService.PRODUCTOS))) {
+                return null;
+            }
+
+            if (paginado) {
+                CategoriaProducto filtroCategoria = categoria != null
+                    ? CategoriaProducto.valueOf(categoria.toUpperCase())
+                    : null;
+                Map<String, Object> pagina = new HashMap<>(productoService.listarPagina(
+                    fields, orden, cursor, limite != null ? limite : 50,
+                    new FiltroProductos(filtroCategoria, activo, null, null, null)));
+                pagina.put("success", true);
+                pagina.put("schemaName", schemaName);
+                return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(pagina);
+            }
+
             log.info("Listando productos del schema: {}", schemaName);
             
             List<Producto> productos = productoService.findAll();
             
-            return ResponseEntity.ok(Map.of(
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(Map.of(
                 "success", true,
                 "productos", productos,
                 "total", productos.size(),
                 "schemaName", schemaName
             ));
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(e.getMessage()));
         } catch (Exception e) {
             log.error("ERROR al listar productos: {}", e.getMessage());
             return ResponseEntity
@@ -113,6 +292,52 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Exploración del catálogo: página de productos activos + conteos por categoría,
+     * rango de precio y con/sin stock, en una sola petición.
+     */
+    @GetMapping("/explorar")
+    public ResponseEntity<?> explorarCatalogo(
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(required = false) Boolean conStock,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limite,
+            WebRequest webRequest) {
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+
+            String etag = versionDatosService.calcularEtag(
+                "explorar-" + Integer.toHexString(Objects.hash(categoria, precioMin, precioMax, conStock,
+                    fields, orden, cursor, limite)),
+                VersionDatosService.PRODUCTOS);
+            if (webRequest.checkNotModified(etag, versionDatosService.ultimaModificacion(VersionDatosService.PRODUCTOS))) {
+                return null;
+            }
+
+            CategoriaProducto filtroCategoria = categoria != null
+                ? CategoriaProducto.valueOf(categoria.toUpperCase())
+                : null;
+            Map<String, Object> resultado = new HashMap<>(productoService.explorar(fields, orden, cursor, limite,
+                new FiltroProductos(filtroCategoria, true, precioMin, precioMax, conStock)));
+            resultado.put("success", true);
+            resultado.put("schemaName", schemaName);
+
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(resultado);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("ERROR al explorar catálogo: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse("Error al explorar catálogo"));
+        }
+    }
+
     /**
      * Obtiene un producto por ID del tenant actual.
      */
@@ -171,6 +396,57 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Consulta de escaneo para el POS: precio, stock y estado por código de barras.
+     *
+     * Responde desde el índice en memoria del tenant; mientras el índice se está
+     * cargando usa la ruta normal (caché/BD) y dispara la precarga.
+     */
+    @GetMapping("/escaneo/{codigo}")
+    public ResponseEntity<?> escanear(@PathVariable String codigo) {
+        try {
+            String schemaName = TenantContext.getCurrentTenant();
+
+            IndiceEscaneoService.ProductoEscaneo producto = indiceEscaneoService.buscar(schemaName, codigo);
+            if (producto == null && !indiceEscaneoService.estaCargado(schemaName)) {
+                indiceEscaneoService.precargar(schemaName);
+                producto = productoService.findByCodigo(codigo)
+                    .map(p -> new IndiceEscaneoService.ProductoEscaneo(p.getId(), p.getCodigo(), p.getNombre(),
+                            p.getPrecioVenta(), p.getStock() != null ? p.getStock() : 0, p.isActivo()))
+                    .orElse(null);
+            }
+
+            if (producto == null) {
+                return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(crearErrorResponse("Producto no encontrado"));
+            }
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "producto", producto
+            ));
+
+        } catch (Exception e) {
+            log.error("ERROR en escaneo de producto: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse("Error al buscar producto"));
+        }
+    }
+
+    /**
+     * Estadísticas del índice de escaneo (tenants cargados, consultas, aciertos).
+     */
+    @GetMapping("/escaneo/estadisticas")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> estadisticasEscaneo() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "indice", indiceEscaneoService.obtenerEstadisticas()
+        ));
+    }
+
     /**
      * Actualiza un producto existente del tenant actual.
      */
@@ -208,6 +484,13 @@ public class ProductoController {
                 "schemaName", schemaName
             ));
                     
+        } catch (OptimisticLockingFailureException e) {
+            // La versión enviada quedó vieja: otro usuario/terminal modificó el producto
+            log.warn("Conflicto de versión al actualizar producto {}: {}", id, e.getMessage());
+            contencionStockService.registrarConflictoVersion(TenantContext.getCurrentTenant(), id);
+            return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(crearErrorResponse("El producto fue modificado por otro usuario. Recargue e intente de nuevo"));
         } catch (Exception e) {
             log.error("ERROR al actualizar producto: {}", e.getMessage());
             return ResponseEntity
@@ -236,6 +519,12 @@ public class ProductoController {
                 "schemaName", schemaName
             ));
             
+        } catch (ConcurrencyFailureException e) {
+            // Se agotaron los reintentos (deadlock o timeout de lock persistente)
+            log.warn("Contención al actualizar stock del producto {}: {}", id, e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(crearErrorResponse("El producto está siendo actualizado por otra terminal. Intente de nuevo"));
         } catch (Exception e) {
             log.error("ERROR al actualizar stock: {}", e.getMessage());
             return ResponseEntity
@@ -244,6 +533,76 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Kardex de un producto: movimientos de stock en un rango de fechas,
+     * con el stock al inicio y al final del rango.
+     */
+    @GetMapping("/{id}/kardex")
+    public ResponseEntity<?> obtenerKardex(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(defaultValue = "200") int limite) {
+        try {
+            Map<String, Object> kardex = movimientoStockService.obtenerMovimientos(
+                id, desde, hasta != null ? hasta : LocalDateTime.now(), limite);
+
+            Map<String, Object> respuesta = new HashMap<>(kardex);
+            respuesta.put("success", true);
+            return ResponseEntity.ok(respuesta);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            log.error("ERROR al obtener kardex: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse("Error al obtener kardex"));
+        }
+    }
+
+    /**
+     * Stock de un producto en una fecha pasada (reconstruido desde el kardex).
+     */
+    @GetMapping("/{id}/stock-historico")
+    public ResponseEntity<?> obtenerStockHistorico(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        try {
+            Map<String, Object> stock = movimientoStockService.obtenerStockEnFecha(id, fecha);
+
+            Map<String, Object> respuesta = new HashMap<>(stock);
+            respuesta.put("success", true);
+            if (stock.get("stock") == null) {
+                respuesta.put("message", "Sin historial de stock para esa fecha");
+            }
+            return ResponseEntity.ok(respuesta);
+
+        } catch (Exception e) {
+            log.error("ERROR al obtener stock histórico: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse("Error al obtener stock histórico"));
+        }
+    }
+
+    /**
+     * Métricas de contención de stock: productos con más espera acumulada en ajustes
+     * (ventas simultáneas del mismo producto), rechazos, reintentos y conflictos de versión.
+     */
+    @GetMapping("/stock/contencion")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> contencionStock(@RequestParam(defaultValue = "20") int limite) {
+        String schemaName = TenantContext.getCurrentTenant();
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "productos", contencionStockService.obtenerMasContendidos(schemaName, Math.max(limite, 1)),
+            "resumen", contencionStockService.obtenerResumen()
+        ));
+    }
+
     /**
      * Elimina un producto del tenant actual.
      */
@@ -304,14 +663,21 @@ public class ProductoController {
 
     /**
      * Lista productos con bajo stock del tenant actual.
+     * Soporta GET condicional (ETag / Last-Modified).
      */
     @GetMapping("/bajo-stock")
-    public ResponseEntity<?> listarBajoStock() {
+    public ResponseEntity<?> listarBajoStock(WebRequest webRequest) {
         try {
             String schemaName = TenantContext.getCurrentTenant();
+
+            String etag = versionDatosService.calcularEtag("bajo-stock", VersionDatosService.PRODUCTOS);
+            if (webRequest.checkNotModified(etag, versionDatosService.ultimaModificacion(VersionDatosService.PRODUCTOS))) {
+                return null;
+            }
+
             List<Producto> productos = productoService.findProductosConBajoStock();
             
-            return ResponseEntity.ok(Map.of(
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(Map.of(
                 "success", true,
                 "productos", productos,
                 "total", productos.size(),
@@ -326,6 +692,71 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Últimas alertas de stock del tenant: productos que entraron en bajo stock o se repusieron.
+     */
+    @GetMapping("/bajo-stock/alertas")
+    public ResponseEntity<?> alertasBajoStock(@RequestParam(defaultValue = "20") int limite) {
+        String schemaName = TenantContext.getCurrentTenant();
+        List<Map<String, Object>> alertas = alertaStockService.obtenerUltimas(schemaName, limite);
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "alertas", alertas,
+            "total", alertas.size()
+        ));
+    }
+
+    /**
+     * Stream SSE de cambios de stock/precio del tenant para las terminales POS.
+     * Al reconectarse, el cliente envía Last-Event-ID (o ?ultimoId=) y recibe lo que se perdió.
+     */
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> eventosProductos(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String ultimoId) {
+
+        String schemaName = TenantContext.getCurrentTenant();
+        if (schemaName == null || schemaName.equals("public")) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+
+        try {
+            SseEmitter emitter = eventosProductoService.suscribir(
+                schemaName, lastEventId != null ? lastEventId : ultimoId);
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header("X-Accel-Buffering", "no") // Sin buffer en proxies nginx
+                .body(emitter);
+        } catch (IllegalStateException e) {
+            log.warn("Conexión de eventos rechazada en {}: {}", schemaName, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+        }
+    }
+
+    /**
+     * Conexiones SSE abiertas y eventos publicados.
+     */
+    @GetMapping("/eventos/estadisticas")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> estadisticasEventos() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "eventos", eventosProductoService.obtenerEstadisticas()
+        ));
+    }
+
+    /**
+     * Estadísticas de la caché de catálogo (aciertos, fallos, desalojos, memoria).
+     */
+    @GetMapping("/cache/estadisticas")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EMPRESA')")
+    public ResponseEntity<?> estadisticasCache() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "cache", catalogoProductoCache.obtenerEstadisticas()
+        ));
+    }
+
     /**
      * Busca productos por rango de precio del tenant actual.
      */
@@ -378,6 +809,32 @@ public class ProductoController {
         }
     }
 
+    /**
+     * Búsqueda rankeada para typeahead sobre nombre, código y descripción.
+     * Usa índices trigram; el código exacto aparece primero.
+     */
+    @GetMapping("/busqueda")
+    public ResponseEntity<?> buscarProductos(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite) {
+        try {
+            List<ProductoRepository.ProductoBusquedaView> resultados = productoService.buscar(q, limite);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "productos", resultados,
+                "total", resultados.size(),
+                "busqueda", q
+            ));
+
+        } catch (Exception e) {
+            log.error("ERROR en búsqueda de productos: {}", e.getMessage());
+            return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(crearErrorResponse("Error al buscar productos"));
+        }
+    }
+
     /**
      * Crea una respuesta de error estandarizada.
      */
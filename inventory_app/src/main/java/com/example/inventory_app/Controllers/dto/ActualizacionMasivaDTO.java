@@ -0,0 +1,75 @@
+package com.example.inventory_app.Controllers.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para actualizaciones masivas de productos
+ * (ej: +8% al precio de venta de una categoría, stock mínimo 5 para varios códigos).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActualizacionMasivaDTO {
+
+    @NotNull(message = "El filtro es obligatorio")
+    @Valid
+    private FiltroDTO filtro;
+
+    @NotEmpty(message = "Debe indicar al menos un cambio")
+    @Valid
+    private List<CambioDTO> cambios;
+
+    /**
+     * true: calcula y devuelve el diff sin guardar nada.
+     */
+    private boolean simular;
+
+    /**
+     * Productos a modificar. Los criterios se combinan con AND;
+     * para tocar todo el catálogo hay que indicar todos = true.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FiltroDTO {
+
+        private String categoria;
+
+        @Size(max = 10000, message = "Máximo 10000 códigos por petición")
+        private List<String> codigos;
+
+        @Size(max = 10000, message = "Máximo 10000 IDs por petición")
+        private List<Long> ids;
+
+        private Boolean activo;
+
+        private boolean todos;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CambioDTO {
+
+        /**
+         * precioVenta | precioCompra | stockMinimo | categoria | activo
+         */
+        @NotBlank(message = "El campo es obligatorio")
+        private String campo;
+
+        /**
+         * FIJAR | PORCENTAJE | SUMAR
+         */
+        @NotBlank(message = "La operación es obligatoria")
+        private String operacion;
+
+        @NotNull(message = "El valor es obligatorio")
+        private String valor;
+    }
+}
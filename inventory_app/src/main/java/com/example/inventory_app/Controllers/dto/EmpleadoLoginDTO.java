@@ -35,9 +35,10 @@ public class EmpleadoLoginDTO {
     /**
      * Tenant Key de la empresa.
      * Se usa para identificar el schema donde buscar al empleado.
+     * Opcional si llega en el header X-Tenant-Key o en el subdominio
+     * (TenantFilter deja el tenant resuelto en los atributos del request).
      * 
      * Ejemplo: "abc123def456"
      */
-    @NotBlank(message = "El tenant key es obligatorio")
     private String tenantKey;
 }
@@ -29,6 +29,7 @@ public class FacturaResponseDTO {
     private BigDecimal descuento;
     private BigDecimal total;
     private String metodoPago;
+    private Long cajaId;
     private String estado;
     private String notas;
     private List<DetalleResponseDTO> detalles;
@@ -64,6 +65,7 @@ public class FacturaResponseDTO {
         dto.setDescuento(factura.getDescuento());
         dto.setTotal(factura.getTotal());
         dto.setMetodoPago(factura.getMetodoPago());
+        dto.setCajaId(factura.getCajaId());
         dto.setEstado(factura.getEstado());
         dto.setNotas(factura.getNotas());
         dto.setCreatedAt(factura.getCreatedAt());
@@ -45,9 +45,26 @@ public class Caja {
     @Column(name = "monto_final", precision = 10, scale = 2)
     private BigDecimal montoFinal;
 
-    @Column(name = "total_ventas", precision = 10, scale = 2)
+    /**
+     * Sólo se modifica con el incremento atómico de CajaRepository.sumarVenta:
+     * no se incluye en los UPDATE de la entidad (un cierre con una copia vieja
+     * no pisa ventas registradas mientras tanto).
+     */
+    @Column(name = "total_ventas", precision = 10, scale = 2, updatable = false)
     private BigDecimal totalVentas;
 
+    /**
+     * Arqueo al cierre: monto inicial más el efectivo vendido en el turno.
+     */
+    @Column(name = "monto_esperado", precision = 12, scale = 2)
+    private BigDecimal montoEsperado;
+
+    /**
+     * Arqueo al cierre: monto final contado menos monto esperado.
+     */
+    @Column(precision = 12, scale = 2)
+    private BigDecimal diferencia;
+
     @Column(length = 20)
     private String estado;
 
@@ -0,0 +1,64 @@
+package com.example.inventory_app.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Entidad CajaResumenPago (schema: tenant).
+ * Acumulados del turno de una caja por método de pago: ventas vigentes,
+ * descuentos, impuestos y anulaciones. Se mantiene de forma incremental al
+ * crear/anular facturas, de modo que el cierre (reporte Z) no recorre facturas.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Entity
+@Table(name = "caja_resumen_pagos")
+@IdClass(CajaResumenPago.Clave.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CajaResumenPago implements Serializable {
+
+    @Id
+    @Column(name = "caja_id", nullable = false)
+    private Long cajaId;
+
+    @Id
+    @Column(name = "metodo_pago", nullable = false, length = 50)
+    private String metodoPago;
+
+    @Column(nullable = false)
+    private Integer ventas = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal descuentos = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal impuestos = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer anuladas = 0;
+
+    @Column(name = "total_anulado", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAnulado = BigDecimal.ZERO;
+
+    /**
+     * Clave compuesta (caja, método de pago).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long cajaId;
+        private String metodoPago;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.inventory_app.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Entidad CarritoCabecera (schema: tenant).
+ * Cantidad de items y total del carrito de un empleado.
+ * Se escribe en la misma transacción que los items del carrito
+ * (ver CarritoEnMemoriaService), de modo que el resumen se lee de una fila.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Entity
+@Table(name = "carrito_cabeceras")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarritoCabecera implements Serializable {
+
+    @Id
+    @Column(name = "empleado_id", nullable = false)
+    private Long empleadoId;
+
+    @Column(name = "cantidad_items", nullable = false)
+    private Integer cantidadItems = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date updatedAt;
+}
@@ -52,6 +52,14 @@ public class CarritoCompra implements Serializable {
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdAt;
 
+    /**
+     * Vencimiento de la reserva de stock de este item (ver ReservaStockService).
+     * Permite reconstruir las reservas vigentes al reiniciar la aplicación.
+     */
+    @Column(name = "reservado_hasta")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date reservadoHasta;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = new Date();
@@ -0,0 +1,55 @@
+package com.example.inventory_app.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Entidad ClienteCategoria (schema: tenant).
+ * Compras vigentes de un cliente en una categoría: facturas que la incluyen,
+ * unidades y monto. Se mantiene al crear/anular facturas y da las categorías
+ * favoritas del cliente.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Entity
+@Table(name = "cliente_categorias")
+@IdClass(ClienteCategoria.Clave.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClienteCategoria implements Serializable {
+
+    @Id
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    @Id
+    @Column(nullable = false, length = 50)
+    private String categoria;
+
+    @Column(nullable = false)
+    private Integer compras = 0;
+
+    @Column(nullable = false)
+    private Integer unidades = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    /**
+     * Clave compuesta (cliente, categoría).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long clienteId;
+        private String categoria;
+    }
+}
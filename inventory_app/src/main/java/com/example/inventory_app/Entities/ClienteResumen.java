@@ -0,0 +1,48 @@
+package com.example.inventory_app.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Entidad ClienteResumen (schema: tenant).
+ * Compras vigentes de un cliente: cantidad (visitas), valor total, anulaciones
+ * y fechas de la primera y última compra. Se mantiene de forma incremental al
+ * crear/anular facturas, de modo que la ficha del cliente no recorre facturas.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Entity
+@Table(name = "cliente_resumen")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClienteResumen implements Serializable {
+
+    @Id
+    @Column(name = "cliente_id", nullable = false)
+    private Long clienteId;
+
+    @Column(nullable = false)
+    private Integer compras = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer anuladas = 0;
+
+    @Column(name = "primera_compra")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date primeraCompra;
+
+    @Column(name = "ultima_compra")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date ultimaCompra;
+}
@@ -71,6 +71,12 @@ public class Factura implements Serializable {
     @Column(columnDefinition = "TEXT")
     private String notas;
 
+    /**
+     * Caja abierta del empleado al emitir la factura (null si no tenía caja abierta).
+     */
+    @Column(name = "caja_id")
+    private Long cajaId;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdAt;
@@ -76,6 +76,14 @@ public class Producto implements Serializable {
     @Column(name = "activo", nullable = false)
     private boolean activo = true;
 
+    /**
+     * Versión para bloqueo optimista. La incrementan Hibernate (ediciones completas)
+     * y el UPDATE atómico de stock de ProductoRepository.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Se ejecuta automáticamente antes de persistir (INSERT).
      */
@@ -94,6 +102,30 @@ public class Producto implements Serializable {
         this.updatedAt = new Date();
     }
 
+    /**
+     * Crea una copia desacoplada del producto (sin vínculo con el contexto de persistencia).
+     * Se usa para compartir instancias entre hilos (caché, eventos) sin exponer la entidad original.
+     *
+     * @return Copia del producto
+     */
+    public Producto copiar() {
+        Producto copia = new Producto();
+        copia.id = this.id;
+        copia.codigo = this.codigo;
+        copia.nombre = this.nombre;
+        copia.descripcion = this.descripcion;
+        copia.precioCompra = this.precioCompra;
+        copia.precioVenta = this.precioVenta;
+        copia.stock = this.stock;
+        copia.stockMinimo = this.stockMinimo;
+        copia.categoria = this.categoria;
+        copia.createdAt = this.createdAt != null ? new Date(this.createdAt.getTime()) : null;
+        copia.updatedAt = this.updatedAt != null ? new Date(this.updatedAt.getTime()) : null;
+        copia.activo = this.activo;
+        copia.version = this.version;
+        return copia;
+    }
+
     // Getters y setters personalizados si Lombok no los genera correctamente
     public boolean isActivo() {
         return activo;
@@ -0,0 +1,24 @@
+package com.example.inventory_app.Entities;
+
+/**
+ * Enumeración que define el origen de un movimiento del kardex (movimientos_stock).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public enum TipoMovimientoStock {
+    /** Stock existente al iniciar el kardex */
+    INICIAL,
+    /** Alta de un producto nuevo */
+    ALTA,
+    /** Venta (creación de factura) */
+    VENTA,
+    /** Devolución al anular una factura */
+    ANULACION,
+    /** Ajuste manual de stock (PATCH /api/productos/{id}/stock) */
+    AJUSTE,
+    /** Edición del producto con un stock distinto */
+    EDICION,
+    /** Importación masiva */
+    IMPORTACION
+}
@@ -0,0 +1,53 @@
+package com.example.inventory_app.Entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Entidad VentaProductoDiaria (schema: tenant).
+ * Acumulado diario de unidades y monto vendidos por producto.
+ * Se mantiene de forma incremental al crear/anular facturas, de modo que los
+ * rankings y la clasificación ABC no necesitan recorrer detalle_facturas.
+ *
+ * @author Sistema Multi-Tenant
+ * @version 1.0
+ */
+@Entity
+@Table(name = "ventas_producto_diarias")
+@IdClass(VentaProductoDiaria.Clave.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaProductoDiaria implements Serializable {
+
+    @Id
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(nullable = false)
+    private Integer cantidad = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal monto = BigDecimal.ZERO;
+
+    /**
+     * Clave compuesta (producto, día).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long productoId;
+        private LocalDate fecha;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.inventory_app.Events;
+
+import com.example.inventory_app.Entities.Producto;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Evento publicado cuando cambia un producto de un tenant.
+ *
+ * Lo publica ProductoServiceImpl dentro de la transacción de escritura; los
+ * listeners deben usar @TransactionalEventListener(AFTER_COMMIT) para reaccionar
+ * sólo a cambios confirmados.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Getter
+@ToString(exclude = "producto")
+public class ProductoCambiadoEvent {
+
+    /**
+     * Tipo de cambio aplicado.
+     */
+    public enum TipoCambio {
+        CREADO,
+        ACTUALIZADO,
+        STOCK,
+        DESACTIVADO,
+        ELIMINADO,
+        /** Cambio masivo: todo el catálogo del tenant debe considerarse modificado */
+        CATALOGO
+    }
+
+    private final String tenant;
+    private final Long productoId;
+    private final TipoCambio tipo;
+
+    /**
+     * Copia del producto tras el cambio (null para ELIMINADO y CATALOGO).
+     */
+    private final Producto producto;
+
+    public ProductoCambiadoEvent(String tenant, Long productoId, TipoCambio tipo, Producto producto) {
+        this.tenant = tenant;
+        this.productoId = productoId;
+        this.tipo = tipo;
+        this.producto = producto != null ? producto.copiar() : null;
+    }
+
+    /**
+     * Evento de cambio masivo sobre el catálogo del tenant.
+     */
+    public static ProductoCambiadoEvent catalogo(String tenant) {
+        return new ProductoCambiadoEvent(tenant, null, TipoCambio.CATALOGO, null);
+    }
+
+    /**
+     * @return true si el cambio afecta a todo el catálogo del tenant
+     */
+    public boolean esCatalogoCompleto() {
+        return tipo == TipoCambio.CATALOGO;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.inventory_app.Events;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Evento publicado cuando un producto cruza su stock mínimo, en cualquier dirección:
+ * entra en bajo stock (stock < stockMinimo) o sale de él (reposición o cambio del mínimo).
+ *
+ * Se publica dentro de la transacción de escritura; los listeners deben usar
+ * @TransactionalEventListener(AFTER_COMMIT).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Getter
+@ToString
+public class StockUmbralCruzadoEvent {
+
+    private final String tenant;
+    private final Long productoId;
+    private final String codigo;
+    private final String nombre;
+    private final int stock;
+    private final int stockMinimo;
+
+    /**
+     * true: el producto entró en bajo stock. false: salió de bajo stock.
+     */
+    private final boolean bajoStock;
+
+    public StockUmbralCruzadoEvent(String tenant, Long productoId, String codigo, String nombre,
+                                   int stock, int stockMinimo, boolean bajoStock) {
+        this.tenant = tenant;
+        this.productoId = productoId;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.stock = stock;
+        this.stockMinimo = stockMinimo;
+        this.bajoStock = bajoStock;
+    }
+}
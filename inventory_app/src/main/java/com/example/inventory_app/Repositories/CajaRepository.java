@@ -2,9 +2,11 @@ package com.example.inventory_app.Repositories;
 
 import com.example.inventory_app.Entities.Caja;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -54,4 +56,46 @@ public interface CajaRepository extends JpaRepository<Caja, Long> {
      * @return true si existe una caja abierta, false si no
      */
     boolean existsByEmpleadoIdAndEstado(Long empleadoId, String estado);
+
+    /**
+     * Busca la caja abierta de un empleado (la más reciente si hubiera más de una).
+     * @param empleadoId ID del empleado
+     * @return ID de la caja abierta
+     */
+    @Query(value = "SELECT id FROM cajas WHERE empleado_id = :empleadoId AND estado = 'ABIERTA' " +
+            "ORDER BY fecha_apertura DESC LIMIT 1",
+            nativeQuery = true)
+    Optional<Long> findIdCajaAbierta(@Param("empleadoId") Long empleadoId);
+
+    /**
+     * Suma (o resta, con monto negativo) una venta al total de una caja abierta,
+     * con un único UPDATE atómico: ventas concurrentes nunca se pisan.
+     * @param id ID de la caja
+     * @param monto Monto a sumar
+     * @return Filas afectadas (0 si la caja no existe o no está abierta)
+     */
+    @Modifying
+    @Query(value = "UPDATE cajas SET total_ventas = COALESCE(total_ventas, 0) + :monto " +
+            "WHERE id = :id AND estado = 'ABIERTA'",
+            nativeQuery = true)
+    int sumarVenta(@Param("id") Long id, @Param("monto") BigDecimal monto);
+
+    /**
+     * Cierra una caja abierta. Espera a que terminen las ventas en curso sobre la
+     * caja (lock de la fila) y, una vez cerrada, ninguna venta nueva se le suma.
+     * @param id ID de la caja
+     * @param fechaCierre Fecha de cierre
+     * @param montoFinal Monto final contado
+     * @param observaciones Observaciones del cierre
+     * @return Filas afectadas (0 si la caja no existe o no está abierta)
+     */
+    @Modifying
+    @Query(value = "UPDATE cajas SET estado = 'CERRADA', fecha_cierre = :fechaCierre, " +
+            "monto_final = :montoFinal, observaciones = :observaciones " +
+            "WHERE id = :id AND estado = 'ABIERTA'",
+            nativeQuery = true)
+    int cerrar(@Param("id") Long id,
+               @Param("fechaCierre") Date fechaCierre,
+               @Param("montoFinal") BigDecimal montoFinal,
+               @Param("observaciones") String observaciones);
 }
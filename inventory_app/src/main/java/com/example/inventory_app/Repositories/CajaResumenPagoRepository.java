@@ -0,0 +1,62 @@
+package com.example.inventory_app.Repositories;
+
+import com.example.inventory_app.Entities.CajaResumenPago;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Repositorio para los acumulados del turno por caja y método de pago.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Repository
+public interface CajaResumenPagoRepository extends JpaRepository<CajaResumenPago, CajaResumenPago.Clave> {
+
+    /**
+     * Suma (o resta, con valores negativos) una venta o anulación al acumulado
+     * de la caja y método de pago, con un único upsert atómico.
+     * @param cajaId ID de la caja
+     * @param metodoPago Método de pago normalizado
+     * @param ventas Ventas a sumar
+     * @param total Monto vendido a sumar
+     * @param descuentos Descuentos a sumar
+     * @param impuestos Impuestos a sumar
+     * @param anuladas Anulaciones a sumar
+     * @param totalAnulado Monto anulado a sumar
+     * @return Filas afectadas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO caja_resumen_pagos " +
+            "(caja_id, metodo_pago, ventas, total, descuentos, impuestos, anuladas, total_anulado) " +
+            "VALUES (:cajaId, :metodoPago, :ventas, :total, :descuentos, :impuestos, :anuladas, :totalAnulado) " +
+            "ON CONFLICT (caja_id, metodo_pago) DO UPDATE SET " +
+            "ventas = caja_resumen_pagos.ventas + EXCLUDED.ventas, " +
+            "total = caja_resumen_pagos.total + EXCLUDED.total, " +
+            "descuentos = caja_resumen_pagos.descuentos + EXCLUDED.descuentos, " +
+            "impuestos = caja_resumen_pagos.impuestos + EXCLUDED.impuestos, " +
+            "anuladas = caja_resumen_pagos.anuladas + EXCLUDED.anuladas, " +
+            "total_anulado = caja_resumen_pagos.total_anulado + EXCLUDED.total_anulado",
+            nativeQuery = true)
+    int acumular(@Param("cajaId") Long cajaId,
+                 @Param("metodoPago") String metodoPago,
+                 @Param("ventas") Integer ventas,
+                 @Param("total") BigDecimal total,
+                 @Param("descuentos") BigDecimal descuentos,
+                 @Param("impuestos") BigDecimal impuestos,
+                 @Param("anuladas") Integer anuladas,
+                 @Param("totalAnulado") BigDecimal totalAnulado);
+
+    /**
+     * Acumulados de una caja, uno por método de pago.
+     * @param cajaId ID de la caja
+     * @return Acumulados ordenados por método de pago
+     */
+    List<CajaResumenPago> findByCajaIdOrderByMetodoPago(Long cajaId);
+}
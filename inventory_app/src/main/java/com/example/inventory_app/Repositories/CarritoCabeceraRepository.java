@@ -0,0 +1,17 @@
+package com.example.inventory_app.Repositories;
+
+import com.example.inventory_app.Entities.CarritoCabecera;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para la entidad CarritoCabecera.
+ * Las filas las escribe CarritoEnMemoriaService junto con los items;
+ * aquí sólo se leen.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Repository
+public interface CarritoCabeceraRepository extends JpaRepository<CarritoCabecera, Long> {
+}
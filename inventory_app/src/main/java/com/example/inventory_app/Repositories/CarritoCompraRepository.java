@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,13 @@ public interface CarritoCompraRepository extends JpaRepository<CarritoCompra, Lo
      */
     Optional<CarritoCompra> findByEmpleadoIdAndProductoId(Long empleadoId, Long productoId);
     
+    /**
+     * Busca los items con reserva de stock vigente (recuperación al arrancar).
+     * @param fecha Instante de referencia
+     * @return Items cuya reserva vence después de la fecha
+     */
+    List<CarritoCompra> findByReservadoHastaAfter(Date fecha);
+
     /**
      * Elimina carritos por ID de empleado.
      * @param empleadoId ID del empleado
@@ -0,0 +1,56 @@
+package com.example.inventory_app.Repositories;
+
+import com.example.inventory_app.Entities.ClienteCategoria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Repositorio para las compras por cliente y categoría.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Repository
+public interface ClienteCategoriaRepository extends JpaRepository<ClienteCategoria, ClienteCategoria.Clave> {
+
+    /**
+     * Suma (o resta, con valores negativos) una factura al acumulado del cliente
+     * en una categoría, con un único upsert atómico.
+     * @param clienteId ID del cliente
+     * @param categoria Categoría normalizada
+     * @param compras Facturas a sumar (1 o -1)
+     * @param unidades Unidades a sumar
+     * @param total Monto a sumar
+     * @return Filas afectadas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cliente_categorias (cliente_id, categoria, compras, unidades, total) " +
+            "VALUES (:clienteId, :categoria, :compras, :unidades, :total) " +
+            "ON CONFLICT (cliente_id, categoria) DO UPDATE SET " +
+            "compras = cliente_categorias.compras + EXCLUDED.compras, " +
+            "unidades = cliente_categorias.unidades + EXCLUDED.unidades, " +
+            "total = cliente_categorias.total + EXCLUDED.total",
+            nativeQuery = true)
+    int acumular(@Param("clienteId") Long clienteId,
+                 @Param("categoria") String categoria,
+                 @Param("compras") Integer compras,
+                 @Param("unidades") Integer unidades,
+                 @Param("total") BigDecimal total);
+
+    /**
+     * Categorías en las que más gastó un cliente (sólo con compras vigentes).
+     * @param clienteId ID del cliente
+     * @param limite Cantidad máxima de categorías
+     * @return Categorías ordenadas por monto
+     */
+    @Query(value = "SELECT * FROM cliente_categorias WHERE cliente_id = :clienteId AND compras > 0 " +
+            "ORDER BY total DESC, categoria LIMIT :limite",
+            nativeQuery = true)
+    List<ClienteCategoria> findFavoritas(@Param("clienteId") Long clienteId, @Param("limite") int limite);
+}
@@ -2,6 +2,8 @@ package com.example.inventory_app.Repositories;
 
 import com.example.inventory_app.Entities.Cliente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -50,4 +52,30 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
      * @return Lista de clientes que residen en la ciudad especificada
      */
     List<Cliente> findByCiudad(String ciudad);
+
+    /**
+     * Clientes activos cuyo documento, teléfono, nombre o apellido (o una palabra
+     * de nombre o apellido) empieza con un prefijo. Respaldo del índice en memoria
+     * de IndiceClientesService, con su misma normalización: sin acentos (unaccent),
+     * minúsculas y sin signos; documento y teléfono compactos, nombre y apellido
+     * separados en palabras.
+     * @param prefijo Prefijo normalizado seguido de '%'
+     * @param palabra Mismo prefijo precedido de '% ' (inicio de cualquier palabra)
+     * @param limite Cantidad máxima de clientes
+     * @return Clientes que coinciden
+     */
+    @Query(value = "SELECT * FROM clientes WHERE activo = true AND (" +
+            "regexp_replace(lower(public.unaccent(CAST('public.unaccent' AS regdictionary), documento)), " +
+            "  '[^a-z0-9]+', '', 'g') LIKE :prefijo " +
+            "OR regexp_replace(lower(public.unaccent(CAST('public.unaccent' AS regdictionary), telefono)), " +
+            "  '[^a-z0-9]+', '', 'g') LIKE :prefijo " +
+            "OR ' ' || regexp_replace(lower(public.unaccent(CAST('public.unaccent' AS regdictionary), apellido)), " +
+            "  '[^a-z0-9]+', ' ', 'g') LIKE :palabra " +
+            "OR ' ' || regexp_replace(lower(public.unaccent(CAST('public.unaccent' AS regdictionary), nombre)), " +
+            "  '[^a-z0-9]+', ' ', 'g') LIKE :palabra) " +
+            "ORDER BY apellido, nombre LIMIT :limite",
+            nativeQuery = true)
+    List<Cliente> buscarPorPrefijo(@Param("prefijo") String prefijo,
+                                   @Param("palabra") String palabra,
+                                   @Param("limite") int limite);
 }
@@ -0,0 +1,65 @@
+package com.example.inventory_app.Repositories;
+
+import com.example.inventory_app.Entities.ClienteResumen;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Repositorio para el resumen de compras por cliente.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Repository
+public interface ClienteResumenRepository extends JpaRepository<ClienteResumen, Long> {
+
+    /**
+     * Suma una compra al resumen del cliente con un único upsert atómico.
+     * @param clienteId ID del cliente
+     * @param total Total de la factura
+     * @param fecha Fecha de la factura
+     * @return Filas afectadas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cliente_resumen (cliente_id, compras, total, anuladas, primera_compra, ultima_compra) " +
+            "VALUES (:clienteId, 1, :total, 0, :fecha, :fecha) " +
+            "ON CONFLICT (cliente_id) DO UPDATE SET " +
+            "compras = cliente_resumen.compras + 1, " +
+            "total = cliente_resumen.total + EXCLUDED.total, " +
+            "primera_compra = LEAST(cliente_resumen.primera_compra, EXCLUDED.primera_compra), " +
+            "ultima_compra = GREATEST(cliente_resumen.ultima_compra, EXCLUDED.ultima_compra)",
+            nativeQuery = true)
+    int sumarCompra(@Param("clienteId") Long clienteId,
+                    @Param("total") BigDecimal total,
+                    @Param("fecha") Date fecha);
+
+    /**
+     * Descuenta una factura anulada del resumen. Las fechas de primera y última
+     * compra se recalculan sobre las demás facturas completadas del cliente
+     * (dos lecturas del índice (cliente_id, fecha)).
+     * @param clienteId ID del cliente
+     * @param facturaId ID de la factura anulada (excluida del recálculo)
+     * @param total Total de la factura
+     * @return Filas afectadas
+     */
+    @Modifying
+    @Query(value = "UPDATE cliente_resumen SET " +
+            "compras = compras - 1, " +
+            "total = total - :total, " +
+            "anuladas = anuladas + 1, " +
+            "primera_compra = (SELECT min(f.fecha) FROM facturas f WHERE f.cliente_id = :clienteId " +
+            "                  AND f.estado = 'COMPLETADA' AND f.id <> :facturaId), " +
+            "ultima_compra = (SELECT max(f.fecha) FROM facturas f WHERE f.cliente_id = :clienteId " +
+            "                 AND f.estado = 'COMPLETADA' AND f.id <> :facturaId) " +
+            "WHERE cliente_id = :clienteId",
+            nativeQuery = true)
+    int restarCompra(@Param("clienteId") Long clienteId,
+                     @Param("facturaId") Long facturaId,
+                     @Param("total") BigDecimal total);
+}
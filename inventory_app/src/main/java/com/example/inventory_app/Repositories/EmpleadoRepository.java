@@ -2,6 +2,9 @@ package com.example.inventory_app.Repositories;
 
 import com.example.inventory_app.Entities.Empleado;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -56,4 +59,16 @@ public interface EmpleadoRepository extends JpaRepository<Empleado, Long> {
      * @return true si existe, false si no
      */
     boolean existsByDocumento(String documento);
+
+    /**
+     * Reemplaza el hash de la contraseña sólo si sigue siendo el esperado
+     * (no pisa un cambio de contraseña concurrente).
+     * @param id ID del empleado
+     * @param anterior Hash que se espera encontrar
+     * @param nuevo Nuevo hash
+     * @return Filas actualizadas (0 si el hash ya había cambiado)
+     */
+    @Modifying
+    @Query("UPDATE Empleado e SET e.password = :nuevo WHERE e.id = :id AND e.password = :anterior")
+    int actualizarHashPassword(@Param("id") Long id, @Param("anterior") String anterior, @Param("nuevo") String nuevo);
 }
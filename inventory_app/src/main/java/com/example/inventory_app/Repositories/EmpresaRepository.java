@@ -2,8 +2,12 @@ package com.example.inventory_app.Repositories;
 
 import com.example.inventory_app.Entities.Empresa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -55,6 +59,13 @@ public interface EmpresaRepository extends JpaRepository<Empresa, Long> {
     Optional<Empresa> findBySchemaName(String schemaName);
     
     Optional<Empresa> findByTokenVerificacion(String tokenVerificacion);
+
+    /**
+     * Busca todas las empresas activas.
+     * 
+     * @return Lista de empresas activas
+     */
+    List<Empresa> findByActivaTrue();
     
     /**
      * Verifica si existe una empresa con el email dado.
@@ -79,4 +90,16 @@ public interface EmpresaRepository extends JpaRepository<Empresa, Long> {
      * @return true si existe
      */
     boolean existsByTenantKey(String tenantKey);
+
+    /**
+     * Reemplaza el hash de la contraseña sólo si sigue siendo el esperado
+     * (no pisa un cambio de contraseña concurrente).
+     * @param id ID de la empresa
+     * @param anterior Hash que se espera encontrar
+     * @param nuevo Nuevo hash
+     * @return Filas actualizadas (0 si el hash ya había cambiado)
+     */
+    @Modifying
+    @Query("UPDATE Empresa e SET e.password = :nuevo WHERE e.id = :id AND e.password = :anterior")
+    int actualizarHashPassword(@Param("id") Long id, @Param("anterior") String anterior, @Param("nuevo") String nuevo);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -74,10 +75,52 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
     Double calcularTotalVentasDia(@Param("fecha") Date fecha);
     
     /**
-     * Busca las facturas completadas por un cliente en orden descendente por fecha.
+     * Primera página del historial de compras de un cliente (más recientes primero).
+     * Sólo lee cabeceras: no carga los detalles de cada factura.
      * @param clienteId ID del cliente
-     * @return Lista de facturas completadas por el cliente
+     * @param limite Cantidad máxima de facturas
+     * @return Facturas del cliente
      */
-    @Query("SELECT f FROM Factura f WHERE f.clienteId = :clienteId AND f.estado = 'COMPLETADA' ORDER BY f.fecha DESC")
-    List<Factura> findFacturasCompletadasPorCliente(@Param("clienteId") Long clienteId);
+    @Query(value = "SELECT f.id AS id, f.numero_factura AS numeroFactura, f.fecha AS fecha, f.total AS total, " +
+            "       f.metodo_pago AS metodoPago, f.estado AS estado, " +
+            "       (SELECT count(*) FROM detalle_facturas d WHERE d.factura_id = f.id) AS lineas " +
+            "FROM facturas f " +
+            "WHERE f.cliente_id = :clienteId " +
+            "ORDER BY f.fecha DESC, f.id DESC LIMIT :limite",
+            nativeQuery = true)
+    List<HistorialFacturaView> findHistorialCliente(@Param("clienteId") Long clienteId,
+                                                    @Param("limite") int limite);
+
+    /**
+     * Página siguiente del historial (paginación por clave sobre (fecha, id)).
+     * @param clienteId ID del cliente
+     * @param fecha Fecha de la última factura de la página anterior
+     * @param id ID de la última factura de la página anterior
+     * @param limite Cantidad máxima de facturas
+     * @return Facturas del cliente anteriores a (fecha, id)
+     */
+    @Query(value = "SELECT f.id AS id, f.numero_factura AS numeroFactura, f.fecha AS fecha, f.total AS total, " +
+            "       f.metodo_pago AS metodoPago, f.estado AS estado, " +
+            "       (SELECT count(*) FROM detalle_facturas d WHERE d.factura_id = f.id) AS lineas " +
+            "FROM facturas f " +
+            "WHERE f.cliente_id = :clienteId AND (f.fecha, f.id) < (:fecha, :id) " +
+            "ORDER BY f.fecha DESC, f.id DESC LIMIT :limite",
+            nativeQuery = true)
+    List<HistorialFacturaView> findHistorialClienteAntesDe(@Param("clienteId") Long clienteId,
+                                                           @Param("fecha") Date fecha,
+                                                           @Param("id") Long id,
+                                                           @Param("limite") int limite);
+
+    /**
+     * Fila del historial de compras de un cliente.
+     */
+    interface HistorialFacturaView {
+        Long getId();
+        String getNumeroFactura();
+        Date getFecha();
+        BigDecimal getTotal();
+        String getMetodoPago();
+        String getEstado();
+        Long getLineas();
+    }
 }
@@ -2,11 +2,16 @@ package com.example.inventory_app.Repositories;
 
 import com.example.inventory_app.Entities.Producto;
 import com.example.inventory_app.Entities.CategoriaProducto;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +23,7 @@ import java.util.Optional;
  * @version 1.0
  */
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
     
     /**
      * Busca un producto por su código.
@@ -26,6 +31,14 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      * @return Optional con el producto si existe
      */
     Optional<Producto> findByCodigo(String codigo);
+
+    /**
+     * Busca en una consulta los productos con alguno de los IDs o de los códigos.
+     * @param ids IDs de productos
+     * @param codigos Códigos de productos
+     * @return Productos encontrados
+     */
+    List<Producto> findByIdInOrCodigoIn(Collection<Long> ids, Collection<String> codigos);
     
     /**
      * Busca productos por categoría.
@@ -39,7 +52,13 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      * @return Lista de productos activos
      */
     List<Producto> findByActivoTrue();
-    
+
+    /**
+     * Cuenta los productos activos.
+     * @return Cantidad de productos activos
+     */
+    long countByActivoTrue();
+
     /**
      * Busca productos con stock menor al mínimo establecido y activos.
      * @param stockMinimo Stock mínimo
@@ -71,8 +90,133 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     
     /**
      * Busca productos con stock menor al mínimo establecido.
+     * El predicado coincide con el índice parcial idx_productos_bajo_stock
+     * (ver db/add_indice_bajo_stock.sql): sólo se leen los productos en bajo stock.
      * @return Lista de productos con bajo stock
      */
     @Query("SELECT p FROM Producto p WHERE p.stock < p.stockMinimo AND p.activo = true")
     List<Producto> findProductosConBajoStock();
+
+    /**
+     * Cantidad de productos con bajo stock (mismo predicado e índice parcial).
+     */
+    @Query("SELECT COUNT(p) FROM Producto p WHERE p.stock < p.stockMinimo AND p.activo = true")
+    long countProductosConBajoStock();
+
+    /**
+     * Ajuste atómico de stock: suma el delta sólo si el resultado no queda negativo,
+     * desactiva/reactiva según el nuevo stock e incrementa la versión, en una sola sentencia.
+     *
+     * Dos terminales vendiendo el mismo producto no pierden actualizaciones: el UPDATE
+     * toma el lock de la fila y la segunda ve el stock ya descontado. No hay lectura previa,
+     * así el lock se mantiene sólo lo que dura la transacción del llamador.
+     *
+     * Devuelve la fila resultante como proyección (no como entidad) para no mezclarla
+     * con una instancia ya cargada en el contexto de persistencia.
+     *
+     * @param id ID del producto
+     * @param delta Cantidad a sumar (negativa para ventas)
+     * @return Fila actualizada, o vacío si no existe o el stock no alcanza
+     */
+    @Query(value = "UPDATE productos SET stock = stock + :delta, " +
+            "       activo = (stock + :delta) > 0, " +
+            "       version = version + 1, " +
+            "       updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = :id AND stock + :delta >= 0 " +
+            "RETURNING id, codigo, nombre, descripcion, precio_compra AS precioCompra, " +
+            "          precio_venta AS precioVenta, stock, stock_minimo AS stockMinimo, categoria, " +
+            "          created_at AS createdAt, updated_at AS updatedAt, activo, version",
+            nativeQuery = true)
+    Optional<ProductoFilaView> ajustarStock(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * Búsqueda rankeada de productos activos por nombre, código y descripción.
+     *
+     * Usa los índices GIN trigram sobre lower(nombre|codigo|descripcion)
+     * (ver db/create_busqueda_trigram_productos.sql). Las funciones y operadores de
+     * pg_trgm van calificados con public porque el search_path es el del tenant.
+     *
+     * Orden: código exacto, luego prefijo de nombre/código, luego similitud.
+     *
+     * @param q Texto normalizado (minúsculas, sin espacios extremos)
+     * @param contiene Patrón LIKE '%q%' con comodines escapados
+     * @param prefijo Patrón LIKE 'q%' con comodines escapados
+     * @param limite Máximo de resultados
+     * @return Resultados ordenados por relevancia
+     */
+    @Query(value = "SELECT p.id AS id, p.codigo AS codigo, p.nombre AS nombre, p.categoria AS categoria, " +
+            "       p.precio_venta AS precioVenta, p.stock AS stock, " +
+            "       (CASE WHEN lower(p.codigo) = :q THEN 2.0 ELSE 0 END " +
+            "        + CASE WHEN lower(p.nombre) LIKE :prefijo ESCAPE '\\' " +
+            "                 OR lower(p.codigo) LIKE :prefijo ESCAPE '\\' THEN 0.5 ELSE 0 END " +
+            "        + GREATEST(public.word_similarity(:q, lower(p.nombre)), " +
+            "                   public.similarity(lower(p.codigo), :q), " +
+            "                   0.5 * public.word_similarity(:q, COALESCE(lower(p.descripcion), '')))) AS relevancia " +
+            "FROM productos p " +
+            "WHERE p.activo = true " +
+            "  AND (lower(p.nombre) LIKE :contiene ESCAPE '\\' " +
+            "       OR lower(p.codigo) LIKE :contiene ESCAPE '\\' " +
+            "       OR lower(p.descripcion) LIKE :contiene ESCAPE '\\' " +
+            "       OR :q OPERATOR(public.<%) lower(p.nombre)) " +
+            "ORDER BY relevancia DESC, p.nombre, p.id " +
+            "LIMIT :limite",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = "2000"))
+    List<ProductoBusquedaView> buscarPorSimilitud(@Param("q") String q,
+                                                  @Param("contiene") String contiene,
+                                                  @Param("prefijo") String prefijo,
+                                                  @Param("limite") int limite);
+
+    /**
+     * Carga los datos mínimos de todos los productos para el índice de escaneo.
+     * @return Proyección (id, código, nombre, precio, stock, activo, versión)
+     */
+    @Query("SELECT p.id AS id, p.codigo AS codigo, p.nombre AS nombre, p.precioVenta AS precioVenta, " +
+           "p.stock AS stock, p.activo AS activo, p.version AS version FROM Producto p")
+    List<ProductoEscaneoView> findAllParaEscaneo();
+
+    /**
+     * Fila completa de productos devuelta por {@link #ajustarStock(Long, int)}.
+     */
+    interface ProductoFilaView {
+        Long getId();
+        String getCodigo();
+        String getNombre();
+        String getDescripcion();
+        BigDecimal getPrecioCompra();
+        BigDecimal getPrecioVenta();
+        Integer getStock();
+        Integer getStockMinimo();
+        String getCategoria();
+        Date getCreatedAt();
+        Date getUpdatedAt();
+        Boolean getActivo();
+        Long getVersion();
+    }
+
+    /**
+     * Datos mínimos de un producto para el índice de escaneo.
+     */
+    interface ProductoEscaneoView {
+        Long getId();
+        String getCodigo();
+        String getNombre();
+        BigDecimal getPrecioVenta();
+        Integer getStock();
+        Boolean getActivo();
+        Long getVersion();
+    }
+
+    /**
+     * Resultado liviano de búsqueda (typeahead).
+     */
+    interface ProductoBusquedaView {
+        Long getId();
+        String getCodigo();
+        String getNombre();
+        String getCategoria();
+        BigDecimal getPrecioVenta();
+        Integer getStock();
+        Double getRelevancia();
+    }
 }
@@ -0,0 +1,64 @@
+package com.example.inventory_app.Repositories;
+
+import com.example.inventory_app.Entities.CategoriaProducto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Consultas de productos que se arman dinámicamente (implementadas en ProductoRepositoryImpl).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Filtros opcionales de listados y facetas (null = sin filtrar por ese criterio).
+     *
+     * @param conStock true: stock > 0; false: stock = 0
+     */
+    record FiltroProductos(CategoriaProducto categoria, Boolean activo,
+                           BigDecimal precioMin, BigDecimal precioMax, Boolean conStock) {
+
+        public static FiltroProductos ninguno() {
+            return new FiltroProductos(null, null, null, null, null);
+        }
+    }
+
+    /**
+     * Página de productos con paginación por clave (keyset) y proyección de campos.
+     * Sólo se leen de la BD las columnas pedidas.
+     *
+     * @param campos Propiedades de Producto a devolver (ya validadas); siempre incluye id
+     * @param porNombre true: orden por (nombre, id); false: por id
+     * @param descendente Orden descendente
+     * @param despuesId Id del último producto de la página anterior (null en la primera)
+     * @param despuesNombre Nombre del último producto de la página anterior (orden por nombre)
+     * @param filtro Filtros opcionales
+     * @param limite Máximo de filas
+     * @return Filas como mapas campo → valor, en el orden pedido
+     */
+    List<Map<String, Object>> buscarPagina(Set<String> campos, boolean porNombre, boolean descendente,
+                                           Long despuesId, String despuesNombre,
+                                           FiltroProductos filtro, int limite);
+
+    /**
+     * Conteos de facetas de productos activos en UNA consulta (GROUPING SETS):
+     * por categoría, por rango de precio y con/sin stock.
+     *
+     * Cada faceta se cuenta con los demás filtros aplicados pero no el propio
+     * (ej: los conteos por categoría respetan el rango de precio elegido, no la categoría),
+     * para que la pantalla muestre cuántos productos habría al cambiar esa opción.
+     *
+     * Al quedar sin stock un producto se desactiva, así que la opción "sin stock"
+     * cuenta los productos con stock 0 aunque estén inactivos; el resto, sólo activos.
+     *
+     * @param filtro Filtros elegidos (activo se ignora)
+     * @param limitesPrecio Límites ascendentes de los rangos de precio
+     * @return Filas con: faceta ("categoria" | "rango" | "stock" | "total"), valor, total
+     */
+    List<Object[]> contarFacetas(FiltroProductos filtro, List<BigDecimal> limitesPrecio);
+}
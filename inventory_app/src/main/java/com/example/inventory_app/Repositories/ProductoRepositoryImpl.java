@@ -0,0 +1,151 @@
+package com.example.inventory_app.Repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de {@link ProductoRepositoryCustom}.
+ *
+ * La página se arma en JPQL con un SELECT de tuplas: Hibernate sólo trae las
+ * columnas pedidas (ej: sin la descripción TEXT), y la página siguiente se busca
+ * desde la última clave ((nombre, id) o id) en vez de usar OFFSET.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> buscarPagina(Set<String> campos, boolean porNombre, boolean descendente,
+                                                  Long despuesId, String despuesNombre,
+                                                  FiltroProductos filtro, int limite) {
+        // Los nombres de campos vienen de una lista blanca (ProductoServiceImpl)
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        String separador = "";
+        for (String campo : campos) {
+            jpql.append(separador).append("p.").append(campo).append(" AS ").append(campo);
+            separador = ", ";
+        }
+        jpql.append(" FROM Producto p WHERE 1 = 1");
+
+        Map<String, Object> parametros = new HashMap<>();
+        if (filtro.categoria() != null) {
+            jpql.append(" AND p.categoria = :categoria");
+            parametros.put("categoria", filtro.categoria());
+        }
+        if (filtro.activo() != null) {
+            jpql.append(" AND p.activo = :activo");
+            parametros.put("activo", filtro.activo());
+        }
+        if (filtro.precioMin() != null) {
+            jpql.append(" AND p.precioVenta >= :precioMin");
+            parametros.put("precioMin", filtro.precioMin());
+        }
+        if (filtro.precioMax() != null) {
+            jpql.append(" AND p.precioVenta <= :precioMax");
+            parametros.put("precioMax", filtro.precioMax());
+        }
+        if (filtro.conStock() != null) {
+            jpql.append(filtro.conStock() ? " AND p.stock > 0" : " AND p.stock = 0");
+        }
+
+        String comparacion = descendente ? "<" : ">";
+        String sentido = descendente ? " DESC" : "";
+        if (despuesId != null) {
+            parametros.put("despuesId", despuesId);
+            if (porNombre) {
+                jpql.append(" AND (p.nombre ").append(comparacion).append(" :despuesNombre")
+                    .append(" OR (p.nombre = :despuesNombre AND p.id ").append(comparacion).append(" :despuesId))");
+                parametros.put("despuesNombre", despuesNombre);
+            } else {
+                jpql.append(" AND p.id ").append(comparacion).append(" :despuesId");
+            }
+        }
+        jpql.append(porNombre
+            ? " ORDER BY p.nombre" + sentido + ", p.id" + sentido
+            : " ORDER BY p.id" + sentido);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        parametros.forEach(query::setParameter);
+        query.setMaxResults(limite);
+
+        List<Tuple> tuplas = query.getResultList();
+        List<Map<String, Object>> filas = new ArrayList<>(tuplas.size());
+        for (Tuple tupla : tuplas) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            for (String campo : campos) {
+                fila.put(campo, tupla.get(campo));
+            }
+            filas.add(fila);
+        }
+        return filas;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Object[]> contarFacetas(FiltroProductos filtro, List<BigDecimal> limitesPrecio) {
+        Map<String, Object> parametros = new HashMap<>();
+
+        String enCategoria = "TRUE";
+        if (filtro.categoria() != null) {
+            enCategoria = "categoria = :categoria";
+            parametros.put("categoria", filtro.categoria().name());
+        }
+        List<String> condicionesPrecio = new ArrayList<>();
+        if (filtro.precioMin() != null) {
+            condicionesPrecio.add("precio_venta >= :precioMin");
+            parametros.put("precioMin", filtro.precioMin());
+        }
+        if (filtro.precioMax() != null) {
+            condicionesPrecio.add("precio_venta <= :precioMax");
+            parametros.put("precioMax", filtro.precioMax());
+        }
+        String enPrecio = condicionesPrecio.isEmpty() ? "TRUE" : String.join(" AND ", condicionesPrecio);
+        // Sin stock el producto queda inactivo: "sin stock" incluye a los inactivos con stock 0
+        String enStock = filtro.conStock() == null ? "activo"
+            : (filtro.conStock() ? "activo AND stock > 0" : "stock = 0");
+
+        // Los límites son BigDecimal ya parseados: se escriben como literales numéricos
+        String limites = limitesPrecio.stream().map(BigDecimal::toPlainString).collect(Collectors.joining(","));
+
+        String sql =
+            "SELECT CASE WHEN GROUPING(categoria) = 0 THEN 'categoria' " +
+            "            WHEN GROUPING(rango) = 0 THEN 'rango' " +
+            "            WHEN GROUPING(con_stock) = 0 THEN 'stock' ELSE 'total' END AS faceta, " +
+            "       COALESCE(categoria, rango::text, con_stock::text) AS valor, " +
+            "       CASE WHEN GROUPING(categoria) = 0 THEN count(*) FILTER (WHERE f_precio AND f_stock) " +
+            "            WHEN GROUPING(rango) = 0 THEN count(*) FILTER (WHERE f_categoria AND f_stock) " +
+            "            WHEN GROUPING(con_stock) = 0 THEN count(*) FILTER (WHERE f_categoria AND f_precio " +
+            "                                                                  AND (activo OR NOT con_stock)) " +
+            "            ELSE count(*) FILTER (WHERE f_categoria AND f_precio AND f_stock) END AS total " +
+            "FROM ( " +
+            "  SELECT categoria, activo, " +
+            "         width_bucket(precio_venta, ARRAY[" + limites + "]::numeric[]) AS rango, " +
+            "         stock > 0 AS con_stock, " +
+            "         (" + enCategoria + ") AS f_categoria, " +
+            "         (" + enPrecio + ") AS f_precio, " +
+            "         (" + enStock + ") AS f_stock " +
+            "  FROM productos WHERE activo = true OR stock = 0 " +
+            ") p " +
+            "GROUP BY GROUPING SETS ((categoria), (rango), (con_stock), ())";
+
+        Query query = entityManager.createNativeQuery(sql);
+        parametros.forEach(query::setParameter);
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.inventory_app.Repositories;
+
+import com.example.inventory_app.Entities.VentaProductoDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para los acumulados diarios de ventas por producto.
+ * Las consultas de ranking trabajan sobre ventas_producto_diarias (una fila por
+ * producto y día), nunca sobre detalle_facturas.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Repository
+public interface VentaProductoDiariaRepository extends JpaRepository<VentaProductoDiaria, VentaProductoDiaria.Clave> {
+
+    /**
+     * Suma (o resta, con valores negativos) unidades y monto al acumulado del día.
+     * @param productoId ID del producto
+     * @param fecha Día de la venta
+     * @param cantidad Unidades a sumar
+     * @param monto Monto a sumar
+     * @return Filas afectadas
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_producto_diarias (producto_id, fecha, cantidad, monto) " +
+            "VALUES (:productoId, :fecha, :cantidad, :monto) " +
+            "ON CONFLICT (producto_id, fecha) DO UPDATE SET " +
+            "cantidad = ventas_producto_diarias.cantidad + EXCLUDED.cantidad, " +
+            "monto = ventas_producto_diarias.monto + EXCLUDED.monto",
+            nativeQuery = true)
+    int acumular(@Param("productoId") Long productoId,
+                 @Param("fecha") LocalDate fecha,
+                 @Param("cantidad") Integer cantidad,
+                 @Param("monto") BigDecimal monto);
+
+    /**
+     * Productos más vendidos desde una fecha, ordenados por monto.
+     * Agrega primero sobre los acumulados y sólo une con productos las filas del top.
+     */
+    @Query(value = "WITH agg AS (" +
+            "  SELECT producto_id, SUM(cantidad) AS cantidad, SUM(monto) AS monto " +
+            "  FROM ventas_producto_diarias WHERE fecha >= :desde " +
+            "  GROUP BY producto_id ORDER BY SUM(monto) DESC, producto_id LIMIT :limite) " +
+            "SELECT p.id AS productoId, p.codigo AS codigo, p.nombre AS nombre, p.categoria AS categoria, " +
+            "       p.stock AS stock, p.stock_minimo AS stockMinimo, a.cantidad AS cantidad, a.monto AS monto " +
+            "FROM agg a JOIN productos p ON p.id = a.producto_id " +
+            "ORDER BY a.monto DESC, p.id",
+            nativeQuery = true)
+    List<RankingProductoView> findTopPorMonto(@Param("desde") LocalDate desde, @Param("limite") int limite);
+
+    /**
+     * Productos más vendidos desde una fecha, ordenados por unidades.
+     */
+    @Query(value = "WITH agg AS (" +
+            "  SELECT producto_id, SUM(cantidad) AS cantidad, SUM(monto) AS monto " +
+            "  FROM ventas_producto_diarias WHERE fecha >= :desde " +
+            "  GROUP BY producto_id ORDER BY SUM(cantidad) DESC, producto_id LIMIT :limite) " +
+            "SELECT p.id AS productoId, p.codigo AS codigo, p.nombre AS nombre, p.categoria AS categoria, " +
+            "       p.stock AS stock, p.stock_minimo AS stockMinimo, a.cantidad AS cantidad, a.monto AS monto " +
+            "FROM agg a JOIN productos p ON p.id = a.producto_id " +
+            "ORDER BY a.cantidad DESC, p.id",
+            nativeQuery = true)
+    List<RankingProductoView> findTopPorCantidad(@Param("desde") LocalDate desde, @Param("limite") int limite);
+
+    /**
+     * Productos activos con menor rotación desde una fecha (incluye los que no vendieron nada).
+     * A igual rotación aparecen primero los que más stock inmovilizan.
+     */
+    @Query(value = "SELECT p.id AS productoId, p.codigo AS codigo, p.nombre AS nombre, p.categoria AS categoria, " +
+            "       p.stock AS stock, p.stock_minimo AS stockMinimo, " +
+            "       COALESCE(a.cantidad, 0) AS cantidad, COALESCE(a.monto, 0) AS monto " +
+            "FROM productos p LEFT JOIN (" +
+            "  SELECT producto_id, SUM(cantidad) AS cantidad, SUM(monto) AS monto " +
+            "  FROM ventas_producto_diarias WHERE fecha >= :desde GROUP BY producto_id) a " +
+            "  ON a.producto_id = p.id " +
+            "WHERE p.activo = true " +
+            "ORDER BY COALESCE(a.cantidad, 0) ASC, p.stock DESC, p.id " +
+            "LIMIT :limite",
+            nativeQuery = true)
+    List<RankingProductoView> findMenorRotacion(@Param("desde") LocalDate desde, @Param("limite") int limite);
+
+    /**
+     * Clasificación ABC por participación acumulada en el monto vendido.
+     * A: hasta el 80% acumulado, B: hasta el 95%, C: el resto.
+     * Sólo devuelve productos con ventas en la ventana; los demás son C por definición.
+     */
+    @Query(value = "WITH agg AS (" +
+            "  SELECT producto_id, SUM(cantidad) AS cantidad, SUM(monto) AS monto " +
+            "  FROM ventas_producto_diarias WHERE fecha >= :desde " +
+            "  GROUP BY producto_id HAVING SUM(monto) > 0), " +
+            "acum AS (" +
+            "  SELECT producto_id, cantidad, monto, " +
+            "         SUM(monto) OVER (ORDER BY monto DESC, producto_id ROWS UNBOUNDED PRECEDING) AS acumulado, " +
+            "         SUM(monto) OVER () AS total " +
+            "  FROM agg), " +
+            "clasif AS (" +
+            "  SELECT producto_id, cantidad, monto, acumulado / total AS participacion, " +
+            "         CASE WHEN acumulado - monto < total * 0.80 THEN 'A' " +
+            "              WHEN acumulado - monto < total * 0.95 THEN 'B' ELSE 'C' END AS clase " +
+            "  FROM acum) " +
+            "SELECT p.id AS productoId, p.codigo AS codigo, p.nombre AS nombre, p.categoria AS categoria, " +
+            "       p.stock AS stock, p.stock_minimo AS stockMinimo, c.cantidad AS cantidad, c.monto AS monto, " +
+            "       c.participacion AS participacion, c.clase AS clase " +
+            "FROM clasif c JOIN productos p ON p.id = c.producto_id " +
+            "WHERE (CAST(:clase AS VARCHAR) IS NULL OR c.clase = CAST(:clase AS VARCHAR)) " +
+            "ORDER BY c.monto DESC, p.id " +
+            "LIMIT :limite",
+            nativeQuery = true)
+    List<ClasificacionAbcView> findClasificacionAbc(@Param("desde") LocalDate desde,
+                                                    @Param("clase") String clase,
+                                                    @Param("limite") int limite);
+
+    /**
+     * Cantidad de productos por clase ABC en la ventana.
+     */
+    @Query(value = "WITH agg AS (" +
+            "  SELECT producto_id, SUM(monto) AS monto " +
+            "  FROM ventas_producto_diarias WHERE fecha >= :desde " +
+            "  GROUP BY producto_id HAVING SUM(monto) > 0), " +
+            "acum AS (" +
+            "  SELECT monto, " +
+            "         SUM(monto) OVER (ORDER BY monto DESC, producto_id ROWS UNBOUNDED PRECEDING) AS acumulado, " +
+            "         SUM(monto) OVER () AS total " +
+            "  FROM agg) " +
+            "SELECT CASE WHEN acumulado - monto < total * 0.80 THEN 'A' " +
+            "            WHEN acumulado - monto < total * 0.95 THEN 'B' ELSE 'C' END AS clase, " +
+            "       COUNT(*) AS productos, SUM(monto) AS monto " +
+            "FROM acum GROUP BY 1 ORDER BY 1",
+            nativeQuery = true)
+    List<ResumenClaseView> resumirClasificacionAbc(@Param("desde") LocalDate desde);
+
+    /**
+     * Fila de ranking de productos.
+     */
+    interface RankingProductoView {
+        Long getProductoId();
+        String getCodigo();
+        String getNombre();
+        String getCategoria();
+        Integer getStock();
+        Integer getStockMinimo();
+        Long getCantidad();
+        BigDecimal getMonto();
+    }
+
+    /**
+     * Fila de la clasificación ABC.
+     */
+    interface ClasificacionAbcView extends RankingProductoView {
+        BigDecimal getParticipacion();
+        String getClase();
+    }
+
+    /**
+     * Totales por clase ABC.
+     */
+    interface ResumenClaseView {
+        String getClase();
+        Long getProductos();
+        BigDecimal getMonto();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Controllers.dto.ActualizacionMasivaDTO;
+
+import java.util.Map;
+
+/**
+ * Interface para actualizaciones masivas de precios y atributos de productos.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface ActualizacionMasivaProductoService {
+
+    /**
+     * Aplica los cambios a todos los productos del filtro en una sola sentencia UPDATE.
+     * Los productos cuyo resultado sería inválido (precio <= 0, stock mínimo negativo)
+     * no se modifican y se reportan como rechazados.
+     *
+     * @param solicitud Filtro, cambios y modo simulación
+     * @return Cantidad de productos afectados/rechazados y el diff (antes/después) por producto
+     * @throws IllegalArgumentException si el filtro, el campo, la operación o el valor no son válidos
+     */
+    Map<String, Object> actualizar(ActualizacionMasivaDTO solicitud);
+}
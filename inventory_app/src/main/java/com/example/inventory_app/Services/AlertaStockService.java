@@ -0,0 +1,76 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Events.StockUmbralCruzadoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Últimas alertas de stock por tenant (productos que entraron o salieron de bajo stock).
+ *
+ * Escucha {@link StockUmbralCruzadoEvent} después del commit y guarda las últimas
+ * {@value #MAX_ALERTAS} por empresa, de la más nueva a la más vieja.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class AlertaStockService {
+
+    private static final int MAX_ALERTAS = 100;
+
+    private final ConcurrentMap<String, Deque<Map<String, Object>>> alertas = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUmbralCruzado(StockUmbralCruzadoEvent evento) {
+        if (evento.isBajoStock()) {
+            log.warn("[STOCK] {} - {} ({}) en bajo stock: {} < mínimo {}", evento.getTenant(),
+                evento.getNombre(), evento.getCodigo(), evento.getStock(), evento.getStockMinimo());
+        } else {
+            log.info("[STOCK] {} - {} ({}) repuesto: {} (mínimo {})", evento.getTenant(),
+                evento.getNombre(), evento.getCodigo(), evento.getStock(), evento.getStockMinimo());
+        }
+
+        Map<String, Object> alerta = new HashMap<>();
+        alerta.put("productoId", evento.getProductoId());
+        alerta.put("codigo", evento.getCodigo());
+        alerta.put("nombre", evento.getNombre());
+        alerta.put("stock", evento.getStock());
+        alerta.put("stockMinimo", evento.getStockMinimo());
+        alerta.put("tipo", evento.isBajoStock() ? "BAJO_STOCK" : "REPUESTO");
+        alerta.put("fecha", new Date());
+
+        Deque<Map<String, Object>> delTenant = alertas.computeIfAbsent(evento.getTenant(), t -> new ArrayDeque<>());
+        synchronized (delTenant) {
+            delTenant.addFirst(alerta);
+            if (delTenant.size() > MAX_ALERTAS) {
+                delTenant.removeLast();
+            }
+        }
+    }
+
+    /**
+     * Últimas alertas del tenant, de la más nueva a la más vieja.
+     */
+    public List<Map<String, Object>> obtenerUltimas(String tenant, int limite) {
+        Deque<Map<String, Object>> delTenant = alertas.get(tenant);
+        if (delTenant == null) {
+            return List.of();
+        }
+        synchronized (delTenant) {
+            return new ArrayList<>(delTenant).subList(0, Math.min(Math.max(limite, 0), delTenant.size()));
+        }
+    }
+}
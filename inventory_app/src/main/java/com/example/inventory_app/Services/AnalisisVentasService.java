@@ -0,0 +1,55 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Entities.Factura;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface para el análisis de ventas por producto (rankings y clasificación ABC).
+ * Trabaja sobre acumulados diarios que se actualizan con cada factura.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface AnalisisVentasService {
+
+    /**
+     * Suma las líneas de una factura a los acumulados diarios.
+     * Debe llamarse dentro de la misma transacción que crea la factura.
+     * @param factura Factura creada
+     */
+    void registrarVenta(Factura factura);
+
+    /**
+     * Descuenta las líneas de una factura anulada de los acumulados del día de la venta.
+     * @param factura Factura anulada
+     */
+    void revertirVenta(Factura factura);
+
+    /**
+     * Productos más vendidos en los últimos días.
+     * @param dias Ventana en días
+     * @param limite Cantidad máxima de productos
+     * @param criterio "monto" o "cantidad"
+     * @return Ranking con métricas de reposición
+     */
+    List<Map<String, Object>> obtenerTopProductos(int dias, int limite, String criterio);
+
+    /**
+     * Productos activos con menor rotación en los últimos días.
+     * @param dias Ventana en días
+     * @param limite Cantidad máxima de productos
+     * @return Ranking con métricas de reposición
+     */
+    List<Map<String, Object>> obtenerProductosLentos(int dias, int limite);
+
+    /**
+     * Clasificación ABC por monto vendido en los últimos días.
+     * @param dias Ventana en días
+     * @param clase Filtro opcional (A, B o C)
+     * @param limite Cantidad máxima de productos en el detalle
+     * @return Resumen por clase y detalle de productos
+     */
+    Map<String, Object> obtenerClasificacionAbc(int dias, String clase, int limite);
+}
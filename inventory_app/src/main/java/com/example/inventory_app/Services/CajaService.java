@@ -1,9 +1,11 @@
 package com.example.inventory_app.Services;
 
 import com.example.inventory_app.Entities.Caja;
+import com.example.inventory_app.Entities.Factura;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,7 +24,8 @@ public interface CajaService {
     Caja abrirCaja(Caja caja);
     
     /**
-     * Cierra una caja.
+     * Cierra una caja y registra el arqueo (efectivo esperado y diferencia)
+     * a partir de los acumulados del turno.
      * @param id ID de la caja
      * @param montoFinal Monto final en caja
      * @param observaciones Observaciones del cierre
@@ -79,4 +82,29 @@ public interface CajaService {
      * @return Caja actualizada
      */
     Caja actualizarTotalVentas(Long id, BigDecimal montoVenta);
+
+    /**
+     * Asocia una factura nueva a la caja abierta de su empleado y suma su total
+     * a la caja, en la transacción de la factura.
+     * @param factura Factura (con total calculado) a registrar
+     * @return ID de la caja, o null si el empleado no tiene caja abierta
+     */
+    Long registrarVenta(Factura factura);
+
+    /**
+     * Descuenta de su caja el total de una factura anulada. Si la caja ya se
+     * cerró no se modifica.
+     * @param factura Factura anulada
+     */
+    void revertirVenta(Factura factura);
+
+    /**
+     * Reporte Z de una caja: ventas, anulaciones, descuentos e impuestos por
+     * método de pago, efectivo esperado y diferencia con el monto final.
+     * Se arma con los acumulados del turno (sin recorrer facturas); en una caja
+     * abierta muestra el estado parcial.
+     * @param id ID de la caja
+     * @return Reporte de la caja
+     */
+    Map<String, Object> obtenerReporteZ(Long id);
 }
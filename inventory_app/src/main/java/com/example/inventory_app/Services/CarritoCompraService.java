@@ -1,9 +1,11 @@
 package com.example.inventory_app.Services;
 
 import com.example.inventory_app.Entities.CarritoCompra;
+import com.example.inventory_app.Entities.Producto;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -26,4 +28,37 @@ public interface CarritoCompraService {
     BigDecimal calcularTotalCarrito(Long empleadoId);
     
     Long contarItems(Long empleadoId);
+
+    /**
+     * Cantidad de items y total del carrito (de memoria o de su cabecera, sin leer los items).
+     */
+    CarritoEnMemoriaService.Resumen obtenerResumen(Long empleadoId);
+
+    /**
+     * Carrito completo para mostrar: items, sus productos (una lectura en bloque)
+     * y el total, tomados del mismo estado del carrito.
+     */
+    VistaCarrito obtenerVista(Long empleadoId);
+
+    /**
+     * Agrega varios productos al carrito de una vez (ráfagas de escáner). Los productos
+     * se leen en bloque y se valida el stock de todas las líneas antes de cambiar nada:
+     * si una falla, el carrito queda como estaba.
+     * @param lineas Productos (por ID o código) y cantidades; un producto repetido se suma
+     * @return Carrito actualizado
+     */
+    VistaCarrito agregarProductos(Long empleadoId, List<LineaLote> lineas);
+
+    /**
+     * Línea de un lote: producto por ID o por código, y cantidad a sumar.
+     */
+    record LineaLote(Long productoId, String codigo, Integer cantidad) {
+    }
+
+    /**
+     * Items del carrito con los productos por ID, cantidad de items y total.
+     */
+    record VistaCarrito(List<CarritoCompra> items, Map<Long, Producto> productos,
+                        long cantidadItems, BigDecimal total) {
+    }
 }
@@ -0,0 +1,611 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.CarritoCompra;
+import com.example.inventory_app.Repositories.CarritoCabeceraRepository;
+import com.example.inventory_app.Repositories.CarritoCompraRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Carritos de compra en memoria, por tenant y empleado, con persistencia diferida.
+ *
+ * El carrito es estado de trabajo de corta vida de un empleado: agregar, cambiar
+ * o quitar items opera sólo en memoria (con total y cantidad de items al día) y
+ * marca el carrito como pendiente. Una tarea programada escribe los carritos
+ * pendientes en carrito_compras cada pocos cientos de milisegundos: muchos cambios
+ * del mismo carrito entre dos escrituras se agrupan en una sola.
+ *
+ * Cada escritura actualiza también carrito_cabeceras (cantidad de items y total
+ * por empleado) en la misma transacción que los items.
+ *
+ * Recuperación: un carrito que no está en memoria (reinicio, o descartado por
+ * inactividad) se carga desde carrito_compras la primera vez que se usa. Para
+ * el resumen alcanza con su fila de carrito_cabeceras.
+ *
+ * IDs de items: se reservan en bloques de la misma secuencia que usa la columna
+ * id, así un item tiene su id definitivo desde que se agrega.
+ *
+ * IMPORTANTE: lo que cambió después de la última escritura se pierde si el proceso
+ * termina abruptamente (un apagado normal escribe todo lo pendiente).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class CarritoEnMemoriaService {
+
+    private static final int TAMANO_BLOQUE_IDS = 50;
+
+    private static final Pattern DEFAULT_SECUENCIA = Pattern.compile("^nextval\\('[A-Za-z0-9_.\"]+'::regclass\\)$");
+
+    private static final String DEFAULT_COLUMNA_ID =
+        "SELECT column_default FROM information_schema.columns " +
+        "WHERE table_schema = current_schema() AND table_name = 'carrito_compras' AND column_name = 'id'";
+
+    private static final String BORRAR_QUITADOS =
+        "DELETE FROM carrito_compras WHERE empleado_id = ANY(?) AND id <> ALL(?)";
+
+    private static final String GUARDAR_ITEMS =
+        "INSERT INTO carrito_compras (id, empleado_id, producto_id, cantidad, precio_unitario, created_at, reservado_hasta) " +
+        "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::int[], ?::numeric[], ?::timestamp[], ?::timestamp[]) " +
+        "ON CONFLICT (id) DO UPDATE SET " +
+        "  cantidad = EXCLUDED.cantidad, precio_unitario = EXCLUDED.precio_unitario, " +
+        "  reservado_hasta = EXCLUDED.reservado_hasta " +
+        "WHERE (carrito_compras.cantidad, carrito_compras.precio_unitario, carrito_compras.reservado_hasta) " +
+        "  IS DISTINCT FROM (EXCLUDED.cantidad, EXCLUDED.precio_unitario, EXCLUDED.reservado_hasta)";
+
+    private static final String GUARDAR_CABECERAS =
+        "INSERT INTO carrito_cabeceras (empleado_id, cantidad_items, total, updated_at) " +
+        "SELECT c.*, CURRENT_TIMESTAMP FROM unnest(?::bigint[], ?::int[], ?::numeric[]) AS c " +
+        "ON CONFLICT (empleado_id) DO UPDATE SET " +
+        "  cantidad_items = EXCLUDED.cantidad_items, total = EXCLUDED.total, updated_at = EXCLUDED.updated_at " +
+        "WHERE (carrito_cabeceras.cantidad_items, carrito_cabeceras.total) " +
+        "  IS DISTINCT FROM (EXCLUDED.cantidad_items, EXCLUDED.total)";
+
+    @Value("${carrito.memoria.inactividad-minutos:60}")
+    private long inactividadMinutos;
+
+    @Autowired
+    private CarritoCompraRepository carritoRepository;
+
+    @Autowired
+    private CarritoCabeceraRepository cabeceraRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Transacción propia: las escrituras y la reserva de IDs no se suman a la
+     * transacción de quien esté usando el carrito (ni a su tenant).
+     */
+    private TransactionTemplate transaccionPropia;
+
+    private final ConcurrentMap<String, CarritosTenant> tenants = new ConcurrentHashMap<>();
+
+    private final LongAdder escrituras = new LongAdder();
+    private final LongAdder cambiosAgrupados = new LongAdder();
+    private final LongAdder cargasDesdeBd = new LongAdder();
+    private final LongAdder resumenesDesdeCabecera = new LongAdder();
+    private final LongAdder erroresEscritura = new LongAdder();
+
+    /**
+     * Carrito de un empleado. Se accede con el monitor del propio carrito
+     * (dentro de {@link #modificar} y {@link #leer}).
+     */
+    public static final class Carrito {
+        private final Long empleadoId;
+        private final Map<Long, CarritoCompra> porProducto = new LinkedHashMap<>();
+        private BigDecimal total = BigDecimal.ZERO;
+        private long cambios;
+        private long ultimoUso = System.currentTimeMillis();
+        private boolean descartado;
+
+        private Carrito(Long empleadoId) {
+            this.empleadoId = empleadoId;
+        }
+
+        public Long getEmpleadoId() {
+            return empleadoId;
+        }
+
+        /**
+         * Item del producto (copia) o null si no está en el carrito.
+         */
+        public CarritoCompra item(Long productoId) {
+            CarritoCompra item = porProducto.get(productoId);
+            return item != null ? copiar(item) : null;
+        }
+
+        /**
+         * Item por su id (copia) o null si no está en el carrito.
+         */
+        public CarritoCompra itemPorId(Long id) {
+            return porProducto.values().stream()
+                .filter(item -> item.getId().equals(id))
+                .findFirst()
+                .map(Carrito::copiar)
+                .orElse(null);
+        }
+
+        /**
+         * Items en orden de agregado (copias).
+         */
+        public List<CarritoCompra> items() {
+            return porProducto.values().stream().map(Carrito::copiar).toList();
+        }
+
+        public BigDecimal total() {
+            return total;
+        }
+
+        public long cantidadItems() {
+            return porProducto.size();
+        }
+
+        private void poner(CarritoCompra item) {
+            CarritoCompra anterior = porProducto.put(item.getProductoId(), copiar(item));
+            if (anterior != null) {
+                total = total.subtract(anterior.getSubtotal());
+            }
+            total = total.add(item.getSubtotal());
+            cambios++;
+        }
+
+        private CarritoCompra quitar(Long productoId) {
+            CarritoCompra anterior = porProducto.remove(productoId);
+            if (anterior != null) {
+                total = total.subtract(anterior.getSubtotal());
+                cambios++;
+            }
+            return anterior;
+        }
+
+        private void vaciar() {
+            if (!porProducto.isEmpty()) {
+                porProducto.clear();
+                total = BigDecimal.ZERO;
+                cambios++;
+            }
+        }
+
+        private static CarritoCompra copiar(CarritoCompra item) {
+            return new CarritoCompra(item.getId(), item.getEmpleadoId(), item.getProductoId(), item.getCantidad(),
+                item.getPrecioUnitario(), item.getCreatedAt(), item.getReservadoHasta());
+        }
+    }
+
+    /**
+     * Cantidad de items y total de un carrito.
+     */
+    public record Resumen(long cantidadItems, BigDecimal total) {
+    }
+
+    /**
+     * Cabecera de un carrito tal como se escribe junto con sus items.
+     */
+    private record Cabecera(Long empleadoId, int cantidadItems, BigDecimal total) {
+    }
+
+    /**
+     * Operaciones de escritura sobre un carrito. Todas se aplican sobre el estado en memoria.
+     */
+    public final class Edicion {
+        private final CarritosTenant tenant;
+        private final Carrito carrito;
+
+        private Edicion(CarritosTenant tenant, Carrito carrito) {
+            this.tenant = tenant;
+            this.carrito = carrito;
+        }
+
+        public Carrito carrito() {
+            return carrito;
+        }
+
+        /**
+         * Agrega o reemplaza el item de su producto. Un item nuevo (sin id) recibe uno.
+         */
+        public CarritoCompra poner(CarritoCompra item) {
+            if (item.getId() == null) {
+                CarritoCompra existente = carrito.porProducto.get(item.getProductoId());
+                item.setId(existente != null ? existente.getId() : tenant.nuevoId());
+            }
+            if (item.getCreatedAt() == null) {
+                item.setCreatedAt(new Date());
+            }
+            item.setEmpleadoId(carrito.empleadoId);
+            carrito.poner(item);
+            tenant.itemsPorId.put(item.getId(), carrito.empleadoId);
+            return Carrito.copiar(item);
+        }
+
+        public CarritoCompra quitar(Long productoId) {
+            CarritoCompra quitado = carrito.quitar(productoId);
+            if (quitado != null) {
+                tenant.itemsPorId.remove(quitado.getId());
+            }
+            return quitado;
+        }
+
+        public void vaciar() {
+            carrito.porProducto.values().forEach(item -> tenant.itemsPorId.remove(item.getId()));
+            carrito.vaciar();
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        transaccionPropia = new TransactionTemplate(transactionManager);
+        transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Modifica el carrito de un empleado del tenant actual (cargándolo si no está en memoria)
+     * y lo marca para escribirse en la base de datos.
+     */
+    public <T> T modificar(Long empleadoId, Function<Edicion, T> accion) {
+        CarritosTenant tenant = tenantActual();
+        while (true) {
+            Carrito carrito = obtener(tenant, empleadoId);
+            synchronized (carrito) {
+                if (carrito.descartado) {
+                    // Se descartó por inactividad entre la búsqueda y el lock: se vuelve a cargar
+                    continue;
+                }
+                return aplicar(tenant, carrito, accion);
+            }
+        }
+    }
+
+    private <T> T aplicar(CarritosTenant tenant, Carrito carrito, Function<Edicion, T> accion) {
+        long cambiosAntes = carrito.cambios;
+        T resultado = accion.apply(new Edicion(tenant, carrito));
+        carrito.ultimoUso = System.currentTimeMillis();
+        if (carrito.cambios != cambiosAntes && !tenant.pendientes.add(carrito.empleadoId)) {
+            // Ya estaba pendiente: este cambio sale en la misma escritura
+            cambiosAgrupados.increment();
+        }
+        return resultado;
+    }
+
+    /**
+     * Lee el carrito de un empleado del tenant actual (cargándolo si no está en memoria).
+     */
+    public <T> T leer(Long empleadoId, Function<Carrito, T> lectura) {
+        CarritosTenant tenant = tenantActual();
+        while (true) {
+            Carrito carrito = obtener(tenant, empleadoId);
+            synchronized (carrito) {
+                if (carrito.descartado) {
+                    continue;
+                }
+                carrito.ultimoUso = System.currentTimeMillis();
+                return lectura.apply(carrito);
+            }
+        }
+    }
+
+    /**
+     * Cantidad de items y total del carrito de un empleado del tenant actual.
+     * Si el carrito no está en memoria se lee su fila de carrito_cabeceras (sin
+     * cargar los items); sólo un carrito sin cabecera se carga completo.
+     */
+    public Resumen resumen(Long empleadoId) {
+        CarritosTenant tenant = tenantActual();
+        Carrito carrito = tenant.carritos.get(empleadoId);
+        if (carrito != null) {
+            synchronized (carrito) {
+                if (!carrito.descartado) {
+                    return new Resumen(carrito.cantidadItems(), carrito.total);
+                }
+            }
+        }
+
+        // Fuera de memoria no tiene cambios sin escribir: la cabecera está al día
+        Resumen guardado = cabeceraRepository.findById(empleadoId)
+            .map(cabecera -> new Resumen(cabecera.getCantidadItems(), cabecera.getTotal()))
+            .orElse(null);
+        if (guardado != null) {
+            resumenesDesdeCabecera.increment();
+            return guardado;
+        }
+        return leer(empleadoId, c -> new Resumen(c.cantidadItems(), c.total));
+    }
+
+    /**
+     * Empleado dueño de un item del tenant actual. Busca en memoria y, si el
+     * carrito no está cargado, en la base de datos.
+     *
+     * @return ID del empleado o null si el item no existe
+     */
+    public Long empleadoDelItem(Long itemId) {
+        CarritosTenant tenant = tenantActual();
+        Long empleadoId = tenant.itemsPorId.get(itemId);
+        if (empleadoId != null) {
+            return empleadoId;
+        }
+        Long enBd = carritoRepository.findById(itemId).map(CarritoCompra::getEmpleadoId).orElse(null);
+        // Si su carrito ya está en memoria, la fila es vieja (el item fue quitado)
+        return enBd != null && !tenant.carritos.containsKey(enBd) ? enBd : null;
+    }
+
+    /**
+     * Escribe los carritos pendientes de todos los tenants y descarta de memoria
+     * los carritos sin cambios que no se usan hace rato.
+     */
+    @Scheduled(fixedDelayString = "${carrito.persistencia.intervalo-ms:500}")
+    public void escribirPendientes() {
+        long limiteInactividad = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(inactividadMinutos);
+        tenants.forEach((schema, tenant) -> {
+            if (!tenant.pendientes.isEmpty()) {
+                escribir(schema, tenant);
+            }
+            tenant.carritos.values().removeIf(carrito -> {
+                synchronized (carrito) {
+                    boolean descartar = carrito.ultimoUso < limiteInactividad
+                        && !tenant.pendientes.contains(carrito.empleadoId);
+                    if (descartar) {
+                        carrito.descartado = true;
+                        carrito.porProducto.values().forEach(item -> tenant.itemsPorId.remove(item.getId()));
+                    }
+                    return descartar;
+                }
+            });
+        });
+    }
+
+    /**
+     * Al apagar, escribe todo lo pendiente.
+     */
+    @PreDestroy
+    public void detener() {
+        tenants.forEach(this::escribir);
+    }
+
+    /**
+     * Estadísticas del almacén de carritos.
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> carritosPorTenant = new LinkedHashMap<>();
+        tenants.forEach((schema, tenant) -> carritosPorTenant.put(schema, Map.of(
+            "enMemoria", tenant.carritos.size(),
+            "pendientes", tenant.pendientes.size())));
+
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+        estadisticas.put("carritos", carritosPorTenant);
+        estadisticas.put("escrituras", escrituras.sum());
+        estadisticas.put("cambiosAgrupados", cambiosAgrupados.sum());
+        estadisticas.put("cargasDesdeBd", cargasDesdeBd.sum());
+        estadisticas.put("resumenesDesdeCabecera", resumenesDesdeCabecera.sum());
+        estadisticas.put("erroresEscritura", erroresEscritura.sum());
+        return estadisticas;
+    }
+
+    private CarritosTenant tenantActual() {
+        String schema = TenantContext.getCurrentTenant();
+        return tenants.computeIfAbsent(schema, CarritosTenant::new);
+    }
+
+    private Carrito obtener(CarritosTenant tenant, Long empleadoId) {
+        Carrito carrito = tenant.carritos.get(empleadoId);
+        if (carrito != null) {
+            return carrito;
+        }
+
+        // Primera vez (o después de descartarlo): se carga desde carrito_compras
+        Carrito cargado = new Carrito(empleadoId);
+        for (CarritoCompra item : carritoRepository.findByEmpleadoId(empleadoId)) {
+            cargado.poner(item);
+        }
+        cargado.cambios = 0;
+        cargasDesdeBd.increment();
+
+        Carrito existente = tenant.carritos.putIfAbsent(empleadoId, cargado);
+        if (existente != null) {
+            return existente;
+        }
+        cargado.porProducto.values().forEach(item -> tenant.itemsPorId.put(item.getId(), empleadoId));
+        return cargado;
+    }
+
+    /**
+     * Escribe los carritos pendientes de un tenant en una transacción: borra los items
+     * quitados, hace upsert de los presentes y actualiza las cabeceras.
+     */
+    private void escribir(String schema, CarritosTenant tenant) {
+        List<Long> empleados = new ArrayList<>(tenant.pendientes);
+        if (empleados.isEmpty()) {
+            return;
+        }
+        // Se desmarcan antes de copiar: un cambio posterior vuelve a marcarlos
+        tenant.pendientes.removeAll(empleados);
+
+        // Un carrito pendiente nunca se descarta, así que todos siguen en memoria
+        List<Cabecera> cabeceras = new ArrayList<>();
+        List<CarritoCompra> items = new ArrayList<>();
+        for (Long empleadoId : empleados) {
+            Carrito carrito = tenant.carritos.get(empleadoId);
+            if (carrito != null) {
+                synchronized (carrito) {
+                    items.addAll(carrito.items());
+                    cabeceras.add(new Cabecera(empleadoId, carrito.porProducto.size(), carrito.total));
+                }
+            }
+        }
+
+        try {
+            TenantContext.ejecutarEnTenant(schema, () -> transaccionPropia.execute(estado -> {
+                entityManager.unwrap(Session.class).doWork(conexion -> guardar(conexion, cabeceras, items));
+                return null;
+            }));
+            escrituras.increment();
+        } catch (RuntimeException e) {
+            // Se reintenta en la próxima ejecución
+            tenant.pendientes.addAll(empleados);
+            erroresEscritura.increment();
+            log.error("Error escribiendo carritos de {}: {}", schema, e.getMessage());
+        }
+    }
+
+    private static void guardar(Connection conexion, List<Cabecera> cabeceras, List<CarritoCompra> items)
+            throws SQLException {
+        int c = cabeceras.size();
+        Long[] empleados = new Long[c];
+        Integer[] cantidadesItems = new Integer[c];
+        BigDecimal[] totales = new BigDecimal[c];
+        for (int i = 0; i < c; i++) {
+            empleados[i] = cabeceras.get(i).empleadoId();
+            cantidadesItems[i] = cabeceras.get(i).cantidadItems();
+            totales[i] = cabeceras.get(i).total();
+        }
+
+        int n = items.size();
+        Long[] ids = new Long[n];
+        Long[] empleadoIds = new Long[n];
+        Long[] productoIds = new Long[n];
+        Integer[] cantidades = new Integer[n];
+        BigDecimal[] precios = new BigDecimal[n];
+        Timestamp[] creados = new Timestamp[n];
+        Timestamp[] reservados = new Timestamp[n];
+        for (int i = 0; i < n; i++) {
+            CarritoCompra item = items.get(i);
+            ids[i] = item.getId();
+            empleadoIds[i] = item.getEmpleadoId();
+            productoIds[i] = item.getProductoId();
+            cantidades[i] = item.getCantidad();
+            precios[i] = item.getPrecioUnitario();
+            creados[i] = new Timestamp(item.getCreatedAt().getTime());
+            reservados[i] = item.getReservadoHasta() != null ? new Timestamp(item.getReservadoHasta().getTime()) : null;
+        }
+
+        // Primero el borrado: un producto quitado y vuelto a agregar tiene otro id
+        try (PreparedStatement ps = conexion.prepareStatement(BORRAR_QUITADOS)) {
+            ps.setArray(1, conexion.createArrayOf("bigint", empleados));
+            ps.setArray(2, conexion.createArrayOf("bigint", ids));
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conexion.prepareStatement(GUARDAR_CABECERAS)) {
+            ps.setArray(1, conexion.createArrayOf("bigint", empleados));
+            ps.setArray(2, conexion.createArrayOf("integer", cantidadesItems));
+            ps.setArray(3, conexion.createArrayOf("numeric", totales));
+            ps.executeUpdate();
+        }
+        if (n == 0) {
+            return;
+        }
+        try (PreparedStatement ps = conexion.prepareStatement(GUARDAR_ITEMS)) {
+            ps.setArray(1, conexion.createArrayOf("bigint", ids));
+            ps.setArray(2, conexion.createArrayOf("bigint", empleadoIds));
+            ps.setArray(3, conexion.createArrayOf("bigint", productoIds));
+            ps.setArray(4, conexion.createArrayOf("integer", cantidades));
+            ps.setArray(5, conexion.createArrayOf("numeric", precios));
+            ps.setArray(6, conexion.createArrayOf("timestamp", creados));
+            ps.setArray(7, conexion.createArrayOf("timestamp", reservados));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Carritos en memoria de un tenant.
+     */
+    private final class CarritosTenant {
+        private final String schema;
+        private final ConcurrentMap<Long, Carrito> carritos = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, Long> itemsPorId = new ConcurrentHashMap<>();
+        private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Bloque de IDs reservados de la secuencia [siguienteId, ultimoId].
+         */
+        private long siguienteId;
+        private long ultimoId = -1;
+        private String expresionId;
+
+        private CarritosTenant(String schema) {
+            this.schema = schema;
+        }
+
+        private synchronized long nuevoId() {
+            if (siguienteId > ultimoId) {
+                reservarBloque();
+            }
+            return siguienteId++;
+        }
+
+        /**
+         * Reserva un bloque de valores de la secuencia de carrito_compras.id
+         * (la misma expresión DEFAULT de la columna) en una consulta.
+         */
+        private void reservarBloque() {
+            List<Long> bloque = TenantContext.ejecutarEnTenant(schema, () -> transaccionPropia.execute(estado ->
+                entityManager.unwrap(Session.class).doReturningWork(conexion -> {
+                    if (expresionId == null) {
+                        expresionId = resolverExpresionId(conexion);
+                    }
+                    List<Long> valores = new ArrayList<>(TAMANO_BLOQUE_IDS);
+                    try (Statement st = conexion.createStatement();
+                         ResultSet rs = st.executeQuery("SELECT " + expresionId +
+                             " FROM generate_series(1, " + TAMANO_BLOQUE_IDS + ") ORDER BY 1")) {
+                        while (rs.next()) {
+                            valores.add(rs.getLong(1));
+                        }
+                    }
+                    return valores;
+                })));
+            // Con varias instancias los valores pueden no ser contiguos: se usa el tramo contiguo inicial
+            long primero = bloque.get(0);
+            long ultimo = primero;
+            for (int i = 1; i < bloque.size() && bloque.get(i) == ultimo + 1; i++) {
+                ultimo = bloque.get(i);
+            }
+            siguienteId = primero;
+            ultimoId = ultimo;
+        }
+
+        private String resolverExpresionId(Connection conexion) throws SQLException {
+            try (Statement st = conexion.createStatement(); ResultSet rs = st.executeQuery(DEFAULT_COLUMNA_ID)) {
+                if (rs.next() && rs.getString(1) != null && DEFAULT_SECUENCIA.matcher(rs.getString(1)).matches()) {
+                    return rs.getString(1);
+                }
+            }
+            // Columna identity (sin DEFAULT nextval)
+            return "nextval(pg_get_serial_sequence('carrito_compras', 'id'))";
+        }
+    }
+}
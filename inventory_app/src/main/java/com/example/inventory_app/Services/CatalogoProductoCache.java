@@ -0,0 +1,271 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Entities.Producto;
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché en memoria del catálogo de productos, por tenant.
+ *
+ * - Índices: (tenant, id) → producto y (tenant, código) → id.
+ * - Memoria acotada GLOBALMENTE (todos los tenants comparten el presupuesto):
+ *   cada entrada pesa según el tamaño estimado del producto y se desalojan
+ *   las menos usadas recientemente hasta volver al límite.
+ * - Invalidación al confirmar cada escritura de ProductoServiceImpl
+ *   (evento {@link ProductoCambiadoEvent}).
+ * - Siempre entrega copias: quien lee puede modificar el objeto sin afectar la caché.
+ *
+ * Carrera lectura/escritura: quien carga desde la BD toma la generación del tenant
+ * ANTES de consultar; si entre tanto se confirmó una escritura en ese tenant la
+ * generación cambió y el valor (posiblemente viejo) no se guarda.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class CatalogoProductoCache {
+
+    /**
+     * Costo fijo estimado por entrada: objeto Producto, BigDecimals, fechas,
+     * nodo del LinkedHashMap, clave y entrada del índice por código.
+     */
+    private static final int PESO_BASE = 480;
+
+    @Value("${catalogo.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${catalogo.cache.habilitada:true}")
+    private boolean habilitada;
+
+    /**
+     * LRU global (orden de acceso). Protegido por el monitor de la propia caché.
+     */
+    private final LinkedHashMap<ClaveProducto, Entrada> entradas = new LinkedHashMap<>(1024, 0.75f, true);
+
+    /**
+     * (tenant, código) → id. Se mantiene junto con {@link #entradas}.
+     */
+    private final Map<ClaveCodigo, Long> idsPorCodigo = new HashMap<>();
+
+    private final ConcurrentMap<String, AtomicLong> generaciones = new ConcurrentHashMap<>();
+
+    private long pesoActual;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder cargas = new LongAdder();
+    private final LongAdder cargasDescartadas = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    /**
+     * Busca un producto por ID.
+     *
+     * @return Copia del producto o null si no está en caché
+     */
+    public Producto obtener(String tenant, Long id) {
+        if (!habilitada || id == null) {
+            return null;
+        }
+        Entrada entrada;
+        synchronized (this) {
+            entrada = entradas.get(new ClaveProducto(tenant, id));
+        }
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        return entrada.producto.copiar();
+    }
+
+    /**
+     * Busca un producto por código.
+     *
+     * @return Copia del producto o null si no está en caché
+     */
+    public Producto obtenerPorCodigo(String tenant, String codigo) {
+        if (!habilitada || codigo == null) {
+            return null;
+        }
+        Entrada entrada = null;
+        synchronized (this) {
+            Long id = idsPorCodigo.get(new ClaveCodigo(tenant, codigo));
+            if (id != null) {
+                entrada = entradas.get(new ClaveProducto(tenant, id));
+            }
+        }
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        return entrada.producto.copiar();
+    }
+
+    /**
+     * Generación actual del tenant. Debe leerse ANTES de consultar la BD
+     * y pasarse a {@link #guardar(String, Producto, long)}.
+     */
+    public long generacion(String tenant) {
+        return contadorGeneracion(tenant).get();
+    }
+
+    /**
+     * Guarda un producto leído de la BD si no hubo escrituras en el tenant desde
+     * que se tomó la generación.
+     */
+    public void guardar(String tenant, Producto producto, long generacionLeida) {
+        if (!habilitada || producto == null || producto.getId() == null) {
+            return;
+        }
+        Producto copia = producto.copiar();
+        int peso = estimarPeso(copia);
+
+        synchronized (this) {
+            if (contadorGeneracion(tenant).get() != generacionLeida) {
+                cargasDescartadas.increment();
+                return;
+            }
+            ClaveProducto clave = new ClaveProducto(tenant, copia.getId());
+            Entrada anterior = entradas.put(clave, new Entrada(copia, peso));
+            if (anterior != null) {
+                pesoActual -= anterior.peso;
+                idsPorCodigo.remove(new ClaveCodigo(tenant, anterior.producto.getCodigo()));
+            }
+            pesoActual += peso;
+            if (copia.getCodigo() != null) {
+                idsPorCodigo.put(new ClaveCodigo(tenant, copia.getCodigo()), copia.getId());
+            }
+            desalojarExcedente();
+        }
+        cargas.increment();
+    }
+
+    /**
+     * Invalida las entradas afectadas por un cambio confirmado.
+     * fallbackExecution: también se ejecuta si el cambio se publicó sin transacción.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoCambiado(ProductoCambiadoEvent evento) {
+        if (evento.esCatalogoCompleto() || evento.getProductoId() == null) {
+            invalidarTenant(evento.getTenant());
+        } else {
+            invalidar(evento.getTenant(), evento.getProductoId());
+        }
+    }
+
+    /**
+     * Elimina un producto de la caché.
+     */
+    public synchronized void invalidar(String tenant, Long id) {
+        contadorGeneracion(tenant).incrementAndGet();
+        Entrada anterior = entradas.remove(new ClaveProducto(tenant, id));
+        if (anterior != null) {
+            pesoActual -= anterior.peso;
+            idsPorCodigo.remove(new ClaveCodigo(tenant, anterior.producto.getCodigo()));
+        }
+        invalidaciones.increment();
+    }
+
+    /**
+     * Elimina todos los productos de un tenant (cambios masivos).
+     */
+    public synchronized void invalidarTenant(String tenant) {
+        contadorGeneracion(tenant).incrementAndGet();
+        Iterator<Map.Entry<ClaveProducto, Entrada>> it = entradas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ClaveProducto, Entrada> e = it.next();
+            if (e.getKey().tenant.equals(tenant)) {
+                pesoActual -= e.getValue().peso;
+                it.remove();
+            }
+        }
+        idsPorCodigo.keySet().removeIf(clave -> clave.tenant.equals(tenant));
+        invalidaciones.increment();
+    }
+
+    /**
+     * Estadísticas globales y por tenant.
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Integer> entradasPorTenant = new TreeMap<>();
+        int totalEntradas;
+        long peso;
+        synchronized (this) {
+            totalEntradas = entradas.size();
+            peso = pesoActual;
+            entradas.keySet().forEach(clave -> entradasPorTenant.merge(clave.tenant, 1, Integer::sum));
+        }
+
+        long hits = aciertos.sum();
+        long misses = fallos.sum();
+
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("habilitada", habilitada);
+        estadisticas.put("entradas", totalEntradas);
+        estadisticas.put("pesoBytes", peso);
+        estadisticas.put("maxBytes", maxBytes);
+        estadisticas.put("aciertos", hits);
+        estadisticas.put("fallos", misses);
+        estadisticas.put("tasaAciertos", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        estadisticas.put("cargas", cargas.sum());
+        estadisticas.put("cargasDescartadas", cargasDescartadas.sum());
+        estadisticas.put("desalojos", desalojos.sum());
+        estadisticas.put("invalidaciones", invalidaciones.sum());
+        estadisticas.put("entradasPorTenant", entradasPorTenant);
+        return estadisticas;
+    }
+
+    /**
+     * Desaloja las entradas menos usadas (de cualquier tenant) hasta respetar el límite.
+     * Debe llamarse con el monitor tomado.
+     */
+    private void desalojarExcedente() {
+        Iterator<Map.Entry<ClaveProducto, Entrada>> it = entradas.entrySet().iterator();
+        while (pesoActual > maxBytes && it.hasNext()) {
+            Map.Entry<ClaveProducto, Entrada> eldest = it.next();
+            pesoActual -= eldest.getValue().peso;
+            idsPorCodigo.remove(new ClaveCodigo(eldest.getKey().tenant, eldest.getValue().producto.getCodigo()));
+            it.remove();
+            desalojos.increment();
+        }
+    }
+
+    private AtomicLong contadorGeneracion(String tenant) {
+        return generaciones.computeIfAbsent(tenant, t -> new AtomicLong());
+    }
+
+    private static int estimarPeso(Producto producto) {
+        int caracteres = longitud(producto.getCodigo())
+                + longitud(producto.getNombre())
+                + longitud(producto.getDescripcion());
+        // Strings compactos (Latin-1) usan 1 byte por carácter; se asume el peor caso UTF-16
+        return PESO_BASE + caracteres * 2;
+    }
+
+    private static int longitud(String texto) {
+        return texto != null ? texto.length() : 0;
+    }
+
+    private record ClaveProducto(String tenant, Long id) { }
+
+    private record ClaveCodigo(String tenant, String codigo) { }
+
+    private record Entrada(Producto producto, int peso) { }
+}
@@ -0,0 +1,293 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.Empresa;
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import com.example.inventory_app.Repositories.EmpresaRepository;
+import com.example.inventory_app.Repositories.ProductoRepository;
+import com.example.inventory_app.Repositories.ProductoRepositoryCustom.FiltroProductos;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catálogo público de productos por empresa (tiendas web), servido desde memoria.
+ *
+ * Por cada empresa consultada se guarda un snapshot: el JSON del catálogo ya
+ * comprimido en gzip y su ETag (hash del contenido). Las peticiones públicas no
+ * tocan PostgreSQL: sólo la primera de una empresa genera el snapshot (una sola
+ * vez aunque lleguen muchas a la vez).
+ *
+ * El snapshot se genera siempre en un hilo propio, nunca en el de la petición: la
+ * sesión abierta de la petición (open-in-view) ya quedó ligada al schema public y
+ * no puede leer los productos de la empresa.
+ *
+ * Cuando cambian productos de una empresa (después del commit) el snapshot se
+ * marca pendiente y una tarea programada lo regenera cada pocos segundos,
+ * agrupando ráfagas de cambios en una sola regeneración. Mientras tanto se
+ * sigue sirviendo el anterior. La misma tarea reintenta las empresas cuyo primer
+ * snapshot falló.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class CatalogoPublicoService {
+
+    /**
+     * Campos publicados: nunca el precio de compra.
+     */
+    private static final Set<String> CAMPOS_PUBLICOS = new LinkedHashSet<>(List.of(
+        "id", "codigo", "nombre", "descripcion", "precioVenta", "categoria", "stock"));
+
+    private static final long NEGATIVO_TTL_MS = 60_000;
+
+    @Value("${catalogo.publico.max-empresas:500}")
+    private int maxEmpresas;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Snapshot>> enCurso = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> inexistentes = new ConcurrentHashMap<>();
+    private final Set<String> schemasPendientes = ConcurrentHashMap.newKeySet();
+    private final Set<String> fallidos = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService generador = Executors.newFixedThreadPool(2, r -> {
+        Thread hilo = new Thread(r, "catalogo-publico");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    /**
+     * Snapshot comprimido del catálogo de una empresa.
+     */
+    public record Snapshot(String tenantKey, String schemaName, byte[] gzip, String etag,
+                           long generado, int productos) {
+
+        /**
+         * JSON sin comprimir (para clientes que no aceptan gzip).
+         */
+        public byte[] json() {
+            try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                return entrada.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * ETag del cuerpo comprimido: distinto del JSON sin comprimir, porque son
+         * representaciones diferentes del mismo recurso.
+         */
+        public String etagGzip() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+    }
+
+    /**
+     * Snapshot del catálogo de una empresa activa.
+     *
+     * @param tenantKey Clave pública de la empresa
+     * @return Snapshot o vacío si la empresa no existe o no está activa
+     */
+    public Optional<Snapshot> obtener(String tenantKey) {
+        Snapshot snapshot = snapshots.get(tenantKey);
+        if (snapshot != null) {
+            return Optional.of(snapshot);
+        }
+
+        Long noExiste = inexistentes.get(tenantKey);
+        if (noExiste != null && System.currentTimeMillis() - noExiste < NEGATIVO_TTL_MS) {
+            return Optional.empty();
+        }
+
+        CompletableFuture<Snapshot> futuro = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existente = enCurso.putIfAbsent(tenantKey, futuro);
+        if (existente != null) {
+            // Otra petición ya lo está generando: esperar ese resultado
+            futuro = existente;
+        } else {
+            CompletableFuture<Snapshot> propio = futuro;
+            generador.execute(() -> {
+                try {
+                    propio.complete(generarParaTenantKey(tenantKey));
+                } catch (RuntimeException e) {
+                    propio.completeExceptionally(e);
+                } finally {
+                    enCurso.remove(tenantKey, propio);
+                }
+            });
+        }
+
+        try {
+            return Optional.ofNullable(futuro.join());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * Marca pendiente el snapshot de la empresa cuyo catálogo cambió.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoCambiado(ProductoCambiadoEvent evento) {
+        schemasPendientes.add(evento.getTenant());
+    }
+
+    /**
+     * Regenera en segundo plano los snapshots con cambios pendientes.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.publico.regeneracion-ms:5000}")
+    public void regenerarPendientes() {
+        reintentarFallidos();
+        if (schemasPendientes.isEmpty()) {
+            return;
+        }
+        for (Snapshot actual : List.copyOf(snapshots.values())) {
+            if (!schemasPendientes.remove(actual.schemaName())) {
+                continue;
+            }
+            try {
+                Snapshot nuevo = generar(actual.tenantKey(), actual.schemaName());
+                snapshots.replace(actual.tenantKey(), nuevo);
+                log.info("Catálogo público de {} regenerado: {} productos, {} bytes gzip",
+                    actual.tenantKey(), nuevo.productos(), nuevo.gzip().length);
+            } catch (RuntimeException e) {
+                // Se reintenta en la próxima ejecución; se sigue sirviendo el anterior
+                schemasPendientes.add(actual.schemaName());
+                log.error("Error regenerando catálogo público de {}: {}", actual.tenantKey(), e.getMessage());
+            }
+        }
+        // Los schemas sin snapshot quedan marcados (a lo sumo uno por empresa): si su primer
+        // snapshot se generó justo antes del cambio, se regenera en la próxima ejecución
+    }
+
+    @PreDestroy
+    public void detener() {
+        generador.shutdownNow();
+    }
+
+    /**
+     * Vuelve a generar los snapshots de empresas cuya primera generación falló,
+     * para no depender de que llegue otra petición.
+     */
+    private void reintentarFallidos() {
+        for (String tenantKey : List.copyOf(fallidos)) {
+            fallidos.remove(tenantKey);
+            if (snapshots.containsKey(tenantKey) || enCurso.containsKey(tenantKey)) {
+                continue;
+            }
+            try {
+                // Si vuelve a fallar queda marcado para la próxima ejecución
+                if (generarParaTenantKey(tenantKey) != null) {
+                    log.info("Catálogo público de {} generado tras un error previo", tenantKey);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error reintentando catálogo público de {}: {}", tenantKey, e.getMessage());
+            }
+        }
+    }
+
+    private Snapshot generarParaTenantKey(String tenantKey) {
+        Optional<Empresa> empresa = empresaRepository.findByTenantKey(tenantKey)
+            .filter(e -> e.isActiva() && e.getSchemaName() != null);
+        if (empresa.isEmpty()) {
+            if (inexistentes.size() > 10_000) {
+                inexistentes.clear();
+            }
+            inexistentes.put(tenantKey, System.currentTimeMillis());
+            return null;
+        }
+
+        String schemaName = empresa.get().getSchemaName();
+        // Lo que cambie desde acá vuelve a marcarlo pendiente
+        schemasPendientes.remove(schemaName);
+        Snapshot snapshot;
+        try {
+            snapshot = generar(tenantKey, schemaName);
+        } catch (RuntimeException e) {
+            fallidos.add(tenantKey);
+            throw e;
+        }
+        fallidos.remove(tenantKey);
+        guardar(snapshot);
+        return snapshot;
+    }
+
+    private void guardar(Snapshot snapshot) {
+        if (snapshots.size() >= maxEmpresas) {
+            // Se descarta el snapshot más viejo; se volverá a generar si se consulta
+            snapshots.values().stream()
+                .min(Comparator.comparingLong(Snapshot::generado))
+                .ifPresent(viejo -> snapshots.remove(viejo.tenantKey()));
+        }
+        snapshots.put(snapshot.tenantKey(), snapshot);
+    }
+
+    private Snapshot generar(String tenantKey, String schemaName) {
+        List<Map<String, Object>> productos = TenantContext.ejecutarEnTenant(schemaName, () ->
+            productoRepository.buscarPagina(CAMPOS_PUBLICOS, true, false, null, null,
+                new FiltroProductos(null, true, null, null, null), Integer.MAX_VALUE));
+
+        // Sin fecha de generación en el cuerpo: si el contenido no cambió, el ETag tampoco
+        Map<String, Object> catalogo = new LinkedHashMap<>();
+        catalogo.put("empresa", tenantKey);
+        catalogo.put("total", productos.size());
+        catalogo.put("productos", productos);
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(catalogo);
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+                gzip.write(json);
+            }
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            String etag = "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+
+            return new Snapshot(tenantKey, schemaName, salida.toByteArray(), etag,
+                System.currentTimeMillis(), productos.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Entities.Factura;
+
+import java.util.Map;
+
+/**
+ * Interface para el resumen de compras de cada cliente (ficha del cliente)
+ * y su historial de facturas paginado.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface ClienteResumenService {
+
+    /**
+     * Suma una factura al resumen del cliente y a sus categorías.
+     * Debe llamarse dentro de la misma transacción que crea la factura.
+     * @param factura Factura creada
+     */
+    void registrarVenta(Factura factura);
+
+    /**
+     * Descuenta una factura anulada del resumen del cliente y de sus categorías.
+     * @param factura Factura anulada
+     */
+    void revertirVenta(Factura factura);
+
+    /**
+     * Resumen del cliente: valor total, visitas, ticket promedio, primera y
+     * última compra y categorías favoritas.
+     * @param clienteId ID del cliente
+     * @return Resumen (en cero si el cliente no tiene compras)
+     */
+    Map<String, Object> obtenerResumen(Long clienteId);
+
+    /**
+     * Historial de facturas del cliente, más recientes primero, paginado por clave.
+     * @param clienteId ID del cliente
+     * @param cursor Cursor devuelto por la página anterior (null = primera página)
+     * @param limite Cantidad máxima de facturas
+     * @return Página con las facturas y el cursor de la siguiente
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    Map<String, Object> obtenerHistorial(Long clienteId, String cursor, int limite);
+}
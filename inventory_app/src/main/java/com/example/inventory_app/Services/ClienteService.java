@@ -53,6 +53,15 @@ public interface ClienteService {
      * @return Lista de clientes que coinciden
      */
     List<Cliente> findByCiudad(String ciudad);
+
+    /**
+     * Autocompletado de clientes activos para facturar: documento, teléfono,
+     * nombre o apellido que empiezan con lo escrito, ordenados por relevancia.
+     * @param busqueda Texto escrito (una o varias palabras)
+     * @param limite Cantidad máxima de sugerencias
+     * @return Sugerencias ordenadas
+     */
+    List<IndiceClientesService.Sugerencia> sugerir(String busqueda, int limite);
     
     /**
      * Obtiene todos los clientes.
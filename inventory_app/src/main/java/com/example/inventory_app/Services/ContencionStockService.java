@@ -0,0 +1,156 @@
+package com.example.inventory_app.Services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de contención de stock por producto (SKU) y tenant.
+ *
+ * Registra, para cada ajuste de stock, el tiempo que tardó el UPDATE atómico
+ * (incluye la espera por el lock de la fila cuando varias terminales venden el
+ * mismo producto), los rechazos por stock insuficiente, los reintentos por
+ * fallas de concurrencia y los conflictos de versión en ediciones completas.
+ *
+ * La cantidad de productos seguidos está acotada: al llegar al límite los
+ * productos nuevos sólo suman a los totales globales.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+public class ContencionStockService {
+
+    @Value("${stock.contencion.max-productos:10000}")
+    private int maxProductos;
+
+    private final ConcurrentMap<ClaveSku, MetricaSku> metricas = new ConcurrentHashMap<>();
+
+    private final LongAdder ajustesTotales = new LongAdder();
+    private final LongAdder productosDescartados = new LongAdder();
+
+    /**
+     * Registra un ajuste de stock.
+     *
+     * @param nanos Duración del UPDATE (incluye la espera por el lock de la fila)
+     * @param aplicado false si se rechazó por stock insuficiente
+     */
+    public void registrarAjuste(String tenant, Long productoId, long nanos, boolean aplicado) {
+        ajustesTotales.increment();
+        MetricaSku metrica = obtener(tenant, productoId);
+        if (metrica == null) {
+            return;
+        }
+        metrica.ajustes.increment();
+        if (!aplicado) {
+            metrica.rechazosSinStock.increment();
+        }
+        metrica.esperaTotalNanos.add(nanos);
+        metrica.esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Registra un reintento por falla de concurrencia (deadlock, timeout de lock, versión).
+     */
+    public void registrarReintento(String tenant, Long productoId) {
+        MetricaSku metrica = obtener(tenant, productoId);
+        if (metrica != null) {
+            metrica.reintentos.increment();
+        }
+    }
+
+    /**
+     * Registra una edición rechazada por versión vieja (bloqueo optimista).
+     */
+    public void registrarConflictoVersion(String tenant, Long productoId) {
+        MetricaSku metrica = obtener(tenant, productoId);
+        if (metrica != null) {
+            metrica.conflictosVersion.increment();
+        }
+    }
+
+    /**
+     * Productos del tenant con más tiempo acumulado en ajustes de stock.
+     *
+     * @param tenant Schema del tenant
+     * @param limite Máximo de productos a devolver
+     * @return Métricas por producto, de mayor a menor espera total
+     */
+    public List<Map<String, Object>> obtenerMasContendidos(String tenant, int limite) {
+        List<Map.Entry<ClaveSku, MetricaSku>> delTenant = new ArrayList<>();
+        metricas.forEach((clave, metrica) -> {
+            if (clave.tenant.equals(tenant)) {
+                delTenant.add(Map.entry(clave, metrica));
+            }
+        });
+        delTenant.sort(Comparator.comparingLong(
+                (Map.Entry<ClaveSku, MetricaSku> e) -> e.getValue().esperaTotalNanos.sum()).reversed());
+
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (Map.Entry<ClaveSku, MetricaSku> e : delTenant.subList(0, Math.min(limite, delTenant.size()))) {
+            MetricaSku m = e.getValue();
+            long ajustes = m.ajustes.sum();
+            long esperaTotal = m.esperaTotalNanos.sum();
+
+            Map<String, Object> fila = new HashMap<>();
+            fila.put("productoId", e.getKey().productoId);
+            fila.put("ajustes", ajustes);
+            fila.put("rechazosSinStock", m.rechazosSinStock.sum());
+            fila.put("reintentos", m.reintentos.sum());
+            fila.put("conflictosVersion", m.conflictosVersion.sum());
+            fila.put("esperaTotalMs", esperaTotal / 1_000_000.0);
+            fila.put("esperaPromedioMs", ajustes > 0 ? esperaTotal / 1_000_000.0 / ajustes : 0.0);
+            fila.put("esperaMaximaMs", m.esperaMaximaNanos.get() / 1_000_000.0);
+            resultado.add(fila);
+        }
+        return resultado;
+    }
+
+    /**
+     * Totales globales.
+     */
+    public Map<String, Object> obtenerResumen() {
+        Map<String, Object> resumen = new HashMap<>();
+        resumen.put("ajustesTotales", ajustesTotales.sum());
+        resumen.put("productosSeguidos", metricas.size());
+        resumen.put("maxProductos", maxProductos);
+        resumen.put("productosDescartados", productosDescartados.sum());
+        return resumen;
+    }
+
+    private MetricaSku obtener(String tenant, Long productoId) {
+        if (productoId == null) {
+            return null;
+        }
+        ClaveSku clave = new ClaveSku(tenant, productoId);
+        MetricaSku metrica = metricas.get(clave);
+        if (metrica != null) {
+            return metrica;
+        }
+        if (metricas.size() >= maxProductos) {
+            productosDescartados.increment();
+            return null;
+        }
+        return metricas.computeIfAbsent(clave, k -> new MetricaSku());
+    }
+
+    private record ClaveSku(String tenant, Long productoId) { }
+
+    private static final class MetricaSku {
+        private final LongAdder ajustes = new LongAdder();
+        private final LongAdder rechazosSinStock = new LongAdder();
+        private final LongAdder reintentos = new LongAdder();
+        private final LongAdder conflictosVersion = new LongAdder();
+        private final LongAdder esperaTotalNanos = new LongAdder();
+        private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    }
+}
@@ -60,9 +60,15 @@ public class EmpresaService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private VerificacionPasswordService verificacionPasswordService;
+
     @Autowired
     private com.example.inventory_app.Config.JwtService jwtService;
 
+    @Autowired
+    private com.example.inventory_app.Config.ResolutorTenantKey resolutorTenantKey;
+
     /**
      * Registra una nueva empresa en el sistema.
      * 
@@ -121,6 +127,7 @@ public class EmpresaService {
             String schemaName = empresa.generarSchemaName();
             empresa.setSchemaName(schemaName);
             empresa = empresaRepository.save(empresa);
+            resolutorTenantKey.invalidar(empresa.getTenantKey());
 
             // Crear suscripción de prueba (15 días)
             Suscripcion suscripcion = suscripcionService.crearSuscripcionPrueba(empresa);
@@ -171,8 +178,8 @@ public class EmpresaService {
             Empresa empresa = empresaRepository.findByEmail(dto.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("Credenciales inválidas"));
 
-            // Verificar contraseña
-            if (!passwordEncoder.matches(dto.getPassword(), empresa.getPassword())) {
+            // Verificar contraseña (pool acotado de verificación BCrypt)
+            if (!verificacionPasswordService.verificar(dto.getPassword(), empresa.getPassword())) {
                 throw new IllegalArgumentException("Credenciales inválidas");
             }
 
@@ -182,6 +189,11 @@ public class EmpresaService {
                 throw new IllegalArgumentException("Acceso denegado: " + razon);
             }
 
+            Long empresaId = empresa.getId();
+            String hashActual = empresa.getPassword();
+            verificacionPasswordService.reencriptarSiCorresponde(dto.getPassword(), hashActual, "public",
+                nuevo -> empresaRepository.actualizarHashPassword(empresaId, hashActual, nuevo));
+
             // Actualizar último acceso
             empresa.setUltimoAcceso(LocalDateTime.now());
             empresaRepository.save(empresa);
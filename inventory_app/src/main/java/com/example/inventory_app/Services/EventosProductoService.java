@@ -0,0 +1,504 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Entities.Producto;
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stream de cambios de productos (Server-Sent Events) para las terminales POS.
+ *
+ * En lugar de recargar GET /api/productos, cada terminal mantiene una conexión
+ * abierta y recibe eventos compactos (id, stock, precio, activo, versión) cuando
+ * se confirma un cambio (ProductoServiceImpl, y FacturaServiceImpl a través de
+ * los ajustes de stock).
+ *
+ * Diseño:
+ * - Por tenant, un anillo con los últimos eventos numerados (secuencia propia):
+ *   una terminal que se reconecta con Last-Event-ID recibe lo que se perdió.
+ *   Si el hueco ya no está en el anillo (o el servidor se reinició) recibe
+ *   "catalogo" y debe recargar todo.
+ * - Por conexión, una cola acotada: si un cliente lento la llena, se descarta
+ *   y se le envía "catalogo" (nunca crece la memoria por un cliente lento).
+ *   Si la vuelve a llenar antes de ponerse al día, se cierra su conexión.
+ * - Los envíos los hacen pocos hilos compartidos; una conexión ociosa no ocupa
+ *   hilos (async de Servlet), sólo su SseEmitter y la cola vacía.
+ * - Un envío que tarda más de productos.eventos.envio-max-ms (cliente que no lee
+ *   y llenó el buffer TCP) se da por perdido: la conexión deja de recibir eventos
+ *   y se suma un hilo al pool mientras ese envío siga bloqueado, para que un
+ *   cliente lento nunca frene a los demás.
+ * - Un latido (comentario SSE) mantiene viva la conexión a través de proxies.
+ *
+ * Los eventos de dos commits concurrentes pueden llegar en cualquier orden: el
+ * cliente debe ignorar un evento con versión menor a la que ya tiene.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class EventosProductoService {
+
+    public static final String EVENTO_PRODUCTO = "producto";
+    public static final String EVENTO_CATALOGO = "catalogo";
+    public static final String EVENTO_CONECTADO = "conectado";
+
+    private static final Evento LATIDO = new Evento(-1, null, null);
+
+    @Value("${productos.eventos.buffer-tenant:1024}")
+    private int bufferTenant;
+
+    @Value("${productos.eventos.buffer-conexion:256}")
+    private int bufferConexion;
+
+    @Value("${productos.eventos.max-conexiones:10000}")
+    private int maxConexiones;
+
+    @Value("${productos.eventos.timeout-minutos:30}")
+    private long timeoutMinutos;
+
+    @Value("${productos.eventos.latido-segundos:25}")
+    private long latidoSegundos;
+
+    @Value("${productos.eventos.hilos-envio:2}")
+    private int hilosEnvio;
+
+    @Value("${productos.eventos.envio-max-ms:5000}")
+    private long envioMaxMs;
+
+    /**
+     * Tope de hilos agregados por envíos bloqueados (el resto de los lentos igual se descarta).
+     */
+    private static final int MAX_HILOS_EXTRA = 32;
+
+    private static final long BLOQUEADO = Long.MIN_VALUE;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Identifica este arranque del servidor: los IDs de otro arranque no se pueden reanudar.
+     */
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ConcurrentMap<String, CanalTenant> canales = new ConcurrentHashMap<>();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private final LongAdder eventosPublicados = new LongAdder();
+    private final LongAdder desbordes = new LongAdder();
+    private final LongAdder reanudaciones = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final AtomicInteger enviosBloqueados = new AtomicInteger();
+
+    private ThreadPoolExecutor envios;
+
+    private final ScheduledExecutorService latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "eventos-productos-latido");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @PostConstruct
+    void iniciar() {
+        envios = new ThreadPoolExecutor(hilosEnvio, hilosEnvio, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread hilo = new Thread(r, "eventos-productos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        latidos.scheduleAtFixedRate(this::enviarLatidos, latidoSegundos, latidoSegundos, TimeUnit.SECONDS);
+        long vigilancia = Math.max(50, envioMaxMs / 2);
+        latidos.scheduleAtFixedRate(this::vigilarEnvios, vigilancia, vigilancia, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void detener() {
+        latidos.shutdownNow();
+        envios.shutdownNow();
+        canales.values().forEach(canal -> canal.suscriptores.forEach(s -> s.emitter.complete()));
+    }
+
+    /**
+     * Abre un stream de eventos para el tenant.
+     *
+     * @param tenant Schema del tenant
+     * @param ultimoId Último ID recibido (Last-Event-ID) o null en la primera conexión
+     * @return Emisor SSE (lo devuelve el controller)
+     * @throws IllegalStateException si se alcanzó el máximo de conexiones
+     */
+    public SseEmitter suscribir(String tenant, String ultimoId) {
+        if (conexiones.incrementAndGet() > maxConexiones) {
+            conexiones.decrementAndGet();
+            throw new IllegalStateException("Máximo de conexiones de eventos alcanzado");
+        }
+
+        SseEmitter emitter = crearEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutos));
+        CanalTenant canal = canales.computeIfAbsent(tenant, t -> new CanalTenant(bufferTenant));
+        Suscriptor suscriptor = new Suscriptor(emitter, canal);
+        emitter.onCompletion(() -> quitar(suscriptor));
+        emitter.onTimeout(() -> quitar(suscriptor));
+        emitter.onError(e -> quitar(suscriptor));
+
+        // Registro y reenvío bajo el lock del canal: ningún evento queda entre medio
+        synchronized (canal) {
+            long seq = parsearSecuencia(ultimoId);
+            if (seq < 0) {
+                suscriptor.encolar(new Evento(canal.ultimaSecuencia(), EVENTO_CONECTADO, "{}"));
+            } else {
+                List<Evento> perdidos = canal.desde(seq);
+                if (perdidos == null || perdidos.size() > bufferConexion) {
+                    suscriptor.encolar(new Evento(canal.ultimaSecuencia(), EVENTO_CATALOGO, "{}"));
+                } else {
+                    reanudaciones.increment();
+                    perdidos.forEach(suscriptor::encolar);
+                }
+            }
+            canal.suscriptores.add(suscriptor);
+        }
+        programar(suscriptor);
+        return emitter;
+    }
+
+    /**
+     * Publica los cambios confirmados de productos a las terminales del tenant.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoCambiado(ProductoCambiadoEvent evento) {
+        CanalTenant canal = canales.get(evento.getTenant());
+        if (canal == null) {
+            // Ninguna terminal del tenant se conectó nunca: no hay nada que guardar
+            return;
+        }
+
+        String tipo = evento.esCatalogoCompleto() ? EVENTO_CATALOGO : EVENTO_PRODUCTO;
+        Map<String, Object> datos = new LinkedHashMap<>();
+        if (!evento.esCatalogoCompleto()) {
+            datos.put("productoId", evento.getProductoId());
+            Producto producto = evento.getProducto();
+            if (producto == null) {
+                datos.put("eliminado", true);
+            } else {
+                datos.put("stock", producto.getStock());
+                datos.put("precioVenta", producto.getPrecioVenta());
+                datos.put("activo", producto.isActivo());
+                datos.put("version", producto.getVersion());
+            }
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo serializar el evento de producto {}: {}", evento.getProductoId(), e.getMessage());
+            return;
+        }
+
+        List<Suscriptor> aProgramar;
+        synchronized (canal) {
+            Evento nuevo = canal.agregar(tipo, json);
+            aProgramar = new ArrayList<>(canal.suscriptores.size());
+            for (Suscriptor s : canal.suscriptores) {
+                s.encolar(nuevo);
+                aProgramar.add(s);
+            }
+        }
+        eventosPublicados.increment();
+        aProgramar.forEach(this::programar);
+    }
+
+    /**
+     * Conexiones abiertas y contadores.
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("conexiones", conexiones.get());
+        estadisticas.put("maxConexiones", maxConexiones);
+        estadisticas.put("tenants", canales.size());
+        estadisticas.put("eventosPublicados", eventosPublicados.sum());
+        estadisticas.put("reanudaciones", reanudaciones.sum());
+        estadisticas.put("desbordes", desbordes.sum());
+        estadisticas.put("descartadas", descartadas.sum());
+        estadisticas.put("hilosEnvio", envios.getPoolSize());
+        estadisticas.put("enviosBloqueados", enviosBloqueados.get());
+        return estadisticas;
+    }
+
+    SseEmitter crearEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * Secuencia de un Last-Event-ID ("arranque-secuencia").
+     *
+     * @return La secuencia, -1 si no hay ID, o 0 si es de otro arranque (fuerza recarga)
+     */
+    private long parsearSecuencia(String ultimoId) {
+        if (ultimoId == null || ultimoId.isBlank()) {
+            return -1;
+        }
+        int guion = ultimoId.lastIndexOf('-');
+        if (guion <= 0 || !ultimoId.substring(0, guion).equals(arranque)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(ultimoId.substring(guion + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void programar(Suscriptor suscriptor) {
+        if (suscriptor.programado.compareAndSet(false, true)) {
+            try {
+                envios.execute(() -> drenar(suscriptor));
+            } catch (RuntimeException e) {
+                // Apagando el servidor
+                suscriptor.programado.set(false);
+            }
+        }
+    }
+
+    private void drenar(Suscriptor suscriptor) {
+        while (true) {
+            Evento evento;
+            synchronized (suscriptor) {
+                evento = suscriptor.cerrado.get() ? null : suscriptor.cola.poll();
+                if (evento == null) {
+                    // Se puso al día: un nuevo desborde vuelve a ser el primero
+                    suscriptor.desbordado = false;
+                    suscriptor.programado.set(false);
+                    break;
+                }
+            }
+            suscriptor.enviandoDesde.set(System.nanoTime());
+            try {
+                if (evento == LATIDO) {
+                    suscriptor.emitter.send(SseEmitter.event().comment("latido"));
+                } else {
+                    suscriptor.emitter.send(SseEmitter.event()
+                        .id(arranque + "-" + evento.seq)
+                        .name(evento.tipo)
+                        .data(evento.json, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado
+                quitar(suscriptor);
+                synchronized (suscriptor) {
+                    suscriptor.cola.clear();
+                    suscriptor.programado.set(false);
+                }
+                return;
+            } finally {
+                if (suscriptor.enviandoDesde.getAndSet(0) == BLOQUEADO) {
+                    // El envío bloqueado terminó: se devuelve el hilo agregado por vigilarEnvios
+                    ajustarHilos(-1);
+                }
+            }
+        }
+        if (suscriptor.descartado) {
+            try {
+                suscriptor.emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("Conexión SSE descartada ya cerrada: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Descarta las conexiones con un envío bloqueado hace más de envio-max-ms.
+     * No se completa el emitter acá (espera el mismo lock que el envío bloqueado):
+     * lo hace el hilo del envío cuando éste termina o falla.
+     */
+    void vigilarEnvios() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(envioMaxMs);
+        try {
+            for (CanalTenant canal : canales.values()) {
+                for (Suscriptor s : canal.suscriptores) {
+                    long desde = s.enviandoDesde.get();
+                    // El CAS falla si el envío terminó entre medio: sólo uno de los dos ajusta los hilos
+                    if (desde != 0 && desde != BLOQUEADO && desde - limite < 0
+                            && s.enviandoDesde.compareAndSet(desde, BLOQUEADO)) {
+                        descartar(s);
+                        ajustarHilos(1);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error vigilando envíos SSE: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Suma o resta un hilo de envío por cada envío bloqueado, hasta MAX_HILOS_EXTRA.
+     */
+    private synchronized void ajustarHilos(int delta) {
+        int tamano = hilosEnvio + Math.min(enviosBloqueados.addAndGet(delta), MAX_HILOS_EXTRA);
+        if (tamano > envios.getMaximumPoolSize()) {
+            envios.setMaximumPoolSize(tamano);
+            envios.setCorePoolSize(tamano);
+        } else if (tamano < envios.getMaximumPoolSize()) {
+            envios.setCorePoolSize(tamano);
+            envios.setMaximumPoolSize(tamano);
+        }
+    }
+
+    /**
+     * Cierra una conexión que no da abasto: deja de recibir eventos y su cola se vacía.
+     * El cliente se reconecta con Last-Event-ID (reanuda o recibe "catalogo").
+     */
+    private void descartar(Suscriptor suscriptor) {
+        suscriptor.descartado = true;
+        quitar(suscriptor);
+        synchronized (suscriptor) {
+            suscriptor.cola.clear();
+        }
+        descartadas.increment();
+        log.debug("Conexión SSE descartada por cliente lento");
+    }
+
+    private void enviarLatidos() {
+        try {
+            for (CanalTenant canal : canales.values()) {
+                for (Suscriptor s : canal.suscriptores) {
+                    if (s.encolarLatido()) {
+                        programar(s);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error enviando latidos SSE: {}", e.getMessage());
+        }
+    }
+
+    private void quitar(Suscriptor suscriptor) {
+        if (suscriptor.cerrado.compareAndSet(false, true)) {
+            suscriptor.canal.suscriptores.remove(suscriptor);
+            conexiones.decrementAndGet();
+        }
+    }
+
+    private record Evento(long seq, String tipo, String json) { }
+
+    /**
+     * Eventos recientes y conexiones abiertas de un tenant.
+     * agregar/desde se llaman con el lock del canal tomado.
+     */
+    private static final class CanalTenant {
+        private final Evento[] anillo;
+        private long siguiente = 1;
+        private final Set<Suscriptor> suscriptores = ConcurrentHashMap.newKeySet();
+
+        private CanalTenant(int capacidad) {
+            this.anillo = new Evento[capacidad];
+        }
+
+        private Evento agregar(String tipo, String json) {
+            Evento evento = new Evento(siguiente, tipo, json);
+            anillo[(int) (siguiente % anillo.length)] = evento;
+            siguiente++;
+            return evento;
+        }
+
+        private long ultimaSecuencia() {
+            return siguiente - 1;
+        }
+
+        /**
+         * Eventos posteriores a la secuencia dada, o null si ya no están en el anillo.
+         */
+        private List<Evento> desde(long seq) {
+            long primero = Math.max(1, siguiente - anillo.length);
+            if (seq + 1 < primero || seq > ultimaSecuencia()) {
+                return null;
+            }
+            List<Evento> eventos = new ArrayList<>((int) (ultimaSecuencia() - seq));
+            for (long s = seq + 1; s < siguiente; s++) {
+                eventos.add(anillo[(int) (s % anillo.length)]);
+            }
+            return eventos;
+        }
+    }
+
+    /**
+     * Una conexión SSE con su cola acotada de eventos pendientes.
+     */
+    private final class Suscriptor {
+        private final SseEmitter emitter;
+        private final CanalTenant canal;
+        private final Deque<Evento> cola = new ArrayDeque<>();
+        private final AtomicBoolean programado = new AtomicBoolean();
+        private final AtomicBoolean cerrado = new AtomicBoolean();
+        /**
+         * System.nanoTime() del envío en curso, 0 si no está enviando, o BLOQUEADO
+         * si superó el límite (tiene un hilo extra asignado).
+         */
+        private final AtomicLong enviandoDesde = new AtomicLong();
+        private volatile boolean descartado;
+        private boolean desbordado;
+
+        private Suscriptor(SseEmitter emitter, CanalTenant canal) {
+            this.emitter = emitter;
+            this.canal = canal;
+        }
+
+        private synchronized void encolar(Evento evento) {
+            if (cerrado.get()) {
+                return;
+            }
+            if (cola.size() >= bufferConexion) {
+                desbordes.increment();
+                if (desbordado) {
+                    // Volvió a llenarse sin ponerse al día: se cierra (la cierra el hilo de envío)
+                    descartar(this);
+                    return;
+                }
+                // Cliente lento: lo pendiente deja de importar, debe recargar el catálogo
+                desbordado = true;
+                cola.clear();
+                cola.add(new Evento(evento.seq, EVENTO_CATALOGO, "{}"));
+                return;
+            }
+            cola.add(evento);
+        }
+
+        /**
+         * Encola un latido sólo si no hay nada pendiente de enviar.
+         */
+        private synchronized boolean encolarLatido() {
+            if (cerrado.get() || !cola.isEmpty()) {
+                return false;
+            }
+            cola.add(LATIDO);
+            return true;
+        }
+    }
+}
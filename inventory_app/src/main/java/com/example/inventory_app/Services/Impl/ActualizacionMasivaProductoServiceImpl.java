@@ -0,0 +1,343 @@
+package com.example.inventory_app.Services.Impl;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Controllers.dto.ActualizacionMasivaDTO;
+import com.example.inventory_app.Entities.CategoriaProducto;
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import com.example.inventory_app.Services.ActualizacionMasivaProductoService;
+import com.example.inventory_app.Services.VersionDatosService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementación de las actualizaciones masivas de productos.
+ *
+ * Todo el lote es UNA sentencia (CTEs):
+ * objetivo (filtro + FOR UPDATE) → calculado (valores nuevos) → evaluado (guardas)
+ * → UPDATE de las filas válidas que cambian → diff antes/después.
+ * Los campos y operaciones permitidos están en una lista blanca; los valores
+ * siempre viajan como parámetros.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Transactional
+@Slf4j
+public class ActualizacionMasivaProductoServiceImpl implements ActualizacionMasivaProductoService {
+
+    private static final String PRECIO_MAXIMO = "99999999.99";
+
+    @Value("${productos.actualizacion-masiva.max-diff:500}")
+    private int maxDiff;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private VersionDatosService versionDatosService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Columnas modificables y las operaciones que admite cada una.
+     */
+    private enum Columna {
+        PRECIO_COMPRA("precioCompra", "precio_compra", true),
+        PRECIO_VENTA("precioVenta", "precio_venta", true),
+        STOCK_MINIMO("stockMinimo", "stock_minimo", true),
+        CATEGORIA("categoria", "categoria", false),
+        ACTIVO("activo", "activo", false);
+
+        private final String campo;
+        private final String columna;
+        private final boolean numerica;
+
+        Columna(String campo, String columna, boolean numerica) {
+            this.campo = campo;
+            this.columna = columna;
+            this.numerica = numerica;
+        }
+
+        private static Columna desde(String campo) {
+            String normalizado = campo.replace("_", "").toLowerCase(Locale.ROOT);
+            for (Columna c : values()) {
+                if (c.campo.toLowerCase(Locale.ROOT).equals(normalizado)) {
+                    return c;
+                }
+            }
+            throw new IllegalArgumentException("Campo no modificable en forma masiva: " + campo +
+                " (precioVenta, precioCompra, stockMinimo, categoria, activo)");
+        }
+    }
+
+    private enum Operacion { FIJAR, PORCENTAJE, SUMAR }
+
+    /**
+     * Expresión SQL del valor nuevo de una columna y su parámetro.
+     */
+    private record Expresion(String sql, Object parametro) { }
+
+    @Override
+    public Map<String, Object> actualizar(ActualizacionMasivaDTO solicitud) {
+        long inicio = System.currentTimeMillis();
+        String tenant = TenantContext.getCurrentTenant();
+
+        List<Object> parametros = new ArrayList<>();
+        String filtro = construirFiltro(solicitud.getFiltro(), parametros);
+        Map<Columna, Expresion> expresiones = construirExpresiones(solicitud.getCambios());
+        expresiones.values().stream()
+            .filter(e -> e.parametro() != null)
+            .forEach(e -> parametros.add(e.parametro()));
+        parametros.add(maxDiff);
+
+        String sql = construirSentencia(filtro, expresiones);
+        Map<String, Object> resultado = entityManager.unwrap(Session.class)
+            .doReturningWork(conexion -> ejecutar(conexion, sql, parametros, expresiones.keySet()));
+
+        long afectados = (long) resultado.get("afectados");
+        if (solicitud.isSimular()) {
+            // Misma sentencia que la ejecución real: el diff es exacto, pero se descarta
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        } else if (afectados > 0) {
+            versionDatosService.registrarCambio(VersionDatosService.PRODUCTOS);
+            eventPublisher.publishEvent(ProductoCambiadoEvent.catalogo(tenant));
+        }
+
+        resultado.put("simulado", solicitud.isSimular());
+        resultado.put("duracionMs", System.currentTimeMillis() - inicio);
+        log.info("Actualización masiva en {} (simular={}): {} afectados, {} rechazados",
+            tenant, solicitud.isSimular(), afectados, resultado.get("rechazados"));
+        return resultado;
+    }
+
+    private String construirFiltro(ActualizacionMasivaDTO.FiltroDTO filtro, List<Object> parametros) {
+        List<String> condiciones = new ArrayList<>();
+
+        if (filtro.getCategoria() != null && !filtro.getCategoria().isBlank()) {
+            condiciones.add("categoria = ?");
+            parametros.add(categoria(filtro.getCategoria()));
+        }
+        if (filtro.getCodigos() != null && !filtro.getCodigos().isEmpty()) {
+            condiciones.add("codigo = ANY(?)");
+            parametros.add(filtro.getCodigos().toArray(new String[0]));
+        }
+        if (filtro.getIds() != null && !filtro.getIds().isEmpty()) {
+            condiciones.add("id = ANY(?)");
+            parametros.add(filtro.getIds().toArray(new Long[0]));
+        }
+        if (filtro.getActivo() != null) {
+            condiciones.add("activo = ?");
+            parametros.add(filtro.getActivo());
+        }
+
+        if (condiciones.isEmpty()) {
+            if (!filtro.isTodos()) {
+                throw new IllegalArgumentException(
+                    "Debe filtrar por categoría, códigos, IDs o activo (o indicar todos = true)");
+            }
+            return "TRUE";
+        }
+        return String.join(" AND ", condiciones);
+    }
+
+    private Map<Columna, Expresion> construirExpresiones(List<ActualizacionMasivaDTO.CambioDTO> cambios) {
+        Map<Columna, Expresion> expresiones = new EnumMap<>(Columna.class);
+        for (ActualizacionMasivaDTO.CambioDTO cambio : cambios) {
+            Columna columna = Columna.desde(cambio.getCampo());
+            Operacion operacion;
+            try {
+                operacion = Operacion.valueOf(cambio.getOperacion().trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Operación inválida: " + cambio.getOperacion() +
+                    " (FIJAR, PORCENTAJE, SUMAR)");
+            }
+            if (!columna.numerica && operacion != Operacion.FIJAR) {
+                throw new IllegalArgumentException("El campo " + columna.campo + " sólo admite FIJAR");
+            }
+            if (columna == Columna.STOCK_MINIMO && operacion == Operacion.PORCENTAJE) {
+                throw new IllegalArgumentException("El stock mínimo admite FIJAR o SUMAR");
+            }
+            if (expresiones.put(columna, expresion(columna, operacion, cambio.getValor().trim())) != null) {
+                throw new IllegalArgumentException("El campo " + columna.campo + " está repetido");
+            }
+        }
+        return expresiones;
+    }
+
+    private Expresion expresion(Columna columna, Operacion operacion, String valor) {
+        String actual = "o." + columna.columna;
+        switch (columna) {
+            case PRECIO_COMPRA, PRECIO_VENTA -> {
+                BigDecimal numero = decimal(valor);
+                return switch (operacion) {
+                    case FIJAR -> new Expresion("ROUND(?::numeric, 2)", numero);
+                    case PORCENTAJE -> new Expresion("ROUND(" + actual + " * (1 + ?::numeric / 100), 2)", numero);
+                    case SUMAR -> new Expresion("ROUND(" + actual + " + ?::numeric, 2)", numero);
+                };
+            }
+            case STOCK_MINIMO -> {
+                int numero;
+                try {
+                    numero = Integer.parseInt(valor);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("El stock mínimo debe ser un entero: " + valor);
+                }
+                return operacion == Operacion.FIJAR
+                    ? new Expresion("?::integer", numero)
+                    : new Expresion(actual + " + ?::integer", numero);
+            }
+            case CATEGORIA -> {
+                return new Expresion("?::varchar", categoria(valor));
+            }
+            default -> {
+                if (!valor.equalsIgnoreCase("true") && !valor.equalsIgnoreCase("false")) {
+                    throw new IllegalArgumentException("activo debe ser true o false: " + valor);
+                }
+                // Mismo criterio que el resto del sistema: sin stock no puede quedar activo
+                return new Expresion("CASE WHEN o.stock = 0 THEN false ELSE ?::boolean END",
+                    Boolean.parseBoolean(valor));
+            }
+        }
+    }
+
+    private static BigDecimal decimal(String valor) {
+        try {
+            return new BigDecimal(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor numérico inválido: " + valor);
+        }
+    }
+
+    private static String categoria(String valor) {
+        try {
+            return CategoriaProducto.valueOf(valor.trim().toUpperCase(Locale.ROOT)).name();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Categoría inválida: " + valor);
+        }
+    }
+
+    private static String construirSentencia(String filtro, Map<Columna, Expresion> expresiones) {
+        StringBuilder nuevos = new StringBuilder();
+        StringBuilder asignaciones = new StringBuilder();
+        StringBuilder anteriores = new StringBuilder();
+        StringBuilder posteriores = new StringBuilder();
+        StringBuilder diff = new StringBuilder();
+        for (Columna c : Columna.values()) {
+            Expresion e = expresiones.get(c);
+            nuevos.append(", ").append(e != null ? e.sql() : "o." + c.columna).append(" AS n_").append(c.columna);
+            asignaciones.append(c.columna).append(" = e.n_").append(c.columna).append(", ");
+            anteriores.append(anteriores.isEmpty() ? "" : ", ").append(c.columna);
+            posteriores.append(posteriores.isEmpty() ? "" : ", ").append("n_").append(c.columna);
+            diff.append(", e.").append(c.columna).append(", e.n_").append(c.columna);
+        }
+
+        return "WITH objetivo AS ( " +
+               "  SELECT id, codigo, stock, precio_compra, precio_venta, stock_minimo, categoria, activo " +
+               "  FROM productos WHERE " + filtro + " ORDER BY id FOR UPDATE " +
+               "), calculado AS ( " +
+               "  SELECT o.*" + nuevos + " FROM objetivo o " +
+               "), evaluado AS ( " +
+               "  SELECT c.*, " +
+               "    (n_precio_compra > 0 AND n_precio_compra <= " + PRECIO_MAXIMO +
+               "     AND n_precio_venta > 0 AND n_precio_venta <= " + PRECIO_MAXIMO +
+               "     AND n_stock_minimo >= 0) AS valido, " +
+               "    (" + anteriores + ") IS DISTINCT FROM (" + posteriores + ") AS cambia " +
+               "  FROM calculado c " +
+               "), actualizado AS ( " +
+               "  UPDATE productos p SET " + asignaciones +
+               "    updated_at = CURRENT_TIMESTAMP, version = p.version + 1 " +
+               "  FROM evaluado e WHERE p.id = e.id AND e.valido AND e.cambia " +
+               "  RETURNING p.id " +
+               ") " +
+               "SELECT e.id, e.codigo, e.valido, e.cambia" + diff + ", " +
+               "  count(*) OVER () AS candidatos, " +
+               "  count(*) FILTER (WHERE e.valido AND e.cambia) OVER () AS afectados, " +
+               "  count(*) FILTER (WHERE NOT e.valido) OVER () AS rechazados " +
+               "FROM evaluado e " +
+               "ORDER BY e.valido, e.cambia DESC, e.id " +
+               "LIMIT ?";
+    }
+
+    private Map<String, Object> ejecutar(Connection conexion, String sql, List<Object> parametros,
+                                         Set<Columna> modificadas) throws SQLException {
+        long candidatos = 0;
+        long afectados = 0;
+        long rechazados = 0;
+        List<Map<String, Object>> cambios = new ArrayList<>();
+
+        try (PreparedStatement ps = conexion.prepareStatement(sql)) {
+            for (int i = 0; i < parametros.size(); i++) {
+                Object p = parametros.get(i);
+                if (p instanceof String[] codigos) {
+                    ps.setArray(i + 1, conexion.createArrayOf("varchar", codigos));
+                } else if (p instanceof Long[] ids) {
+                    ps.setArray(i + 1, conexion.createArrayOf("bigint", ids));
+                } else {
+                    ps.setObject(i + 1, p);
+                }
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    candidatos = rs.getLong("candidatos");
+                    afectados = rs.getLong("afectados");
+                    rechazados = rs.getLong("rechazados");
+
+                    boolean valido = rs.getBoolean("valido");
+                    boolean cambia = rs.getBoolean("cambia");
+                    if (valido && !cambia) {
+                        // Ordenadas al final: desde acá el resto tampoco cambia
+                        break;
+                    }
+
+                    Map<String, Object> antes = new LinkedHashMap<>();
+                    Map<String, Object> despues = new LinkedHashMap<>();
+                    for (Columna c : modificadas) {
+                        antes.put(c.campo, rs.getObject(c.columna));
+                        despues.put(c.campo, rs.getObject("n_" + c.columna));
+                    }
+
+                    Map<String, Object> fila = new LinkedHashMap<>();
+                    fila.put("id", rs.getLong("id"));
+                    fila.put("codigo", rs.getString("codigo"));
+                    fila.put("estado", valido ? "ACTUALIZADO" : "RECHAZADO");
+                    fila.put("antes", antes);
+                    fila.put("despues", despues);
+                    cambios.add(fila);
+                }
+            }
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("candidatos", candidatos);
+        resultado.put("afectados", afectados);
+        resultado.put("rechazados", rechazados);
+        resultado.put("sinCambios", candidatos - afectados - rechazados);
+        resultado.put("cambios", cambios);
+        resultado.put("diffTruncado", afectados + rechazados > cambios.size());
+        return resultado;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.inventory_app.Services.Impl;
+
+import com.example.inventory_app.Entities.DetalleFactura;
+import com.example.inventory_app.Entities.Factura;
+import com.example.inventory_app.Repositories.ProductoRepository;
+import com.example.inventory_app.Repositories.VentaProductoDiariaRepository;
+import com.example.inventory_app.Repositories.VentaProductoDiariaRepository.ClasificacionAbcView;
+import com.example.inventory_app.Repositories.VentaProductoDiariaRepository.RankingProductoView;
+import com.example.inventory_app.Repositories.VentaProductoDiariaRepository.ResumenClaseView;
+import com.example.inventory_app.Services.AnalisisVentasService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Implementación del análisis de ventas por producto.
+ *
+ * Los acumulados (producto, día) se actualizan con un upsert por producto al
+ * crear o anular una factura; las consultas agregan como máximo
+ * productos × días de la ventana filas, sin importar cuántas facturas existan.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class AnalisisVentasServiceImpl implements AnalisisVentasService {
+
+    private static final int MAX_DIAS = 730;
+    private static final int MAX_LIMITE = 500;
+
+    private final VentaProductoDiariaRepository ventaProductoDiariaRepository;
+    private final ProductoRepository productoRepository;
+
+    /**
+     * Días de venta que el stock debería cubrir; por debajo se sugiere reponer.
+     */
+    @Value("${ventas.analisis.dias-cobertura-objetivo:14}")
+    private int diasCoberturaObjetivo;
+
+    @Override
+    public void registrarVenta(Factura factura) {
+        acumular(factura, 1);
+    }
+
+    @Override
+    public void revertirVenta(Factura factura) {
+        acumular(factura, -1);
+    }
+
+    /**
+     * Agrupa las líneas por producto (una misma factura puede repetirlo) y aplica
+     * un upsert por producto, en orden de ID para que dos facturas concurrentes
+     * bloqueen las filas del acumulado siempre en el mismo orden.
+     */
+    private void acumular(Factura factura, int signo) {
+        if (factura.getDetalles() == null || factura.getDetalles().isEmpty()) {
+            return;
+        }
+
+        LocalDate dia = factura.getFecha() != null
+                ? factura.getFecha().toInstant().atZone(ZoneId.systemDefault()).toLocalDate()
+                : LocalDate.now();
+
+        Map<Long, Integer> cantidades = new TreeMap<>();
+        Map<Long, BigDecimal> montos = new HashMap<>();
+        for (DetalleFactura detalle : factura.getDetalles()) {
+            if (detalle.getProductoId() == null || detalle.getCantidad() == null) {
+                continue;
+            }
+            BigDecimal subtotal = detalle.getSubtotal() != null ? detalle.getSubtotal() : BigDecimal.ZERO;
+            cantidades.merge(detalle.getProductoId(), detalle.getCantidad(), Integer::sum);
+            montos.merge(detalle.getProductoId(), subtotal, BigDecimal::add);
+        }
+
+        cantidades.forEach((productoId, cantidad) -> ventaProductoDiariaRepository.acumular(
+                productoId,
+                dia,
+                signo * cantidad,
+                signo > 0 ? montos.get(productoId) : montos.get(productoId).negate()));
+
+        log.debug("Acumulados de venta actualizados ({}) para {} productos, día {}",
+                signo > 0 ? "+" : "-", cantidades.size(), dia);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerTopProductos(int dias, int limite, String criterio) {
+        int ventana = normalizarDias(dias);
+        LocalDate desde = LocalDate.now().minusDays(ventana - 1L);
+
+        List<RankingProductoView> filas = "cantidad".equalsIgnoreCase(criterio)
+                ? ventaProductoDiariaRepository.findTopPorCantidad(desde, normalizarLimite(limite))
+                : ventaProductoDiariaRepository.findTopPorMonto(desde, normalizarLimite(limite));
+
+        List<Map<String, Object>> resultado = new ArrayList<>(filas.size());
+        int posicion = 1;
+        for (RankingProductoView fila : filas) {
+            Map<String, Object> item = crearFilaRanking(fila, ventana);
+            item.put("posicion", posicion++);
+            resultado.add(item);
+        }
+        return resultado;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> obtenerProductosLentos(int dias, int limite) {
+        int ventana = normalizarDias(dias);
+        LocalDate desde = LocalDate.now().minusDays(ventana - 1L);
+
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (RankingProductoView fila : ventaProductoDiariaRepository.findMenorRotacion(desde, normalizarLimite(limite))) {
+            resultado.add(crearFilaRanking(fila, ventana));
+        }
+        return resultado;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerClasificacionAbc(int dias, String clase, int limite) {
+        int ventana = normalizarDias(dias);
+        LocalDate desde = LocalDate.now().minusDays(ventana - 1L);
+        String filtroClase = clase != null && !clase.isBlank() ? clase.trim().toUpperCase() : null;
+
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        long productosConVenta = 0;
+        for (ResumenClaseView fila : ventaProductoDiariaRepository.resumirClasificacionAbc(desde)) {
+            Map<String, Object> datosClase = new HashMap<>();
+            datosClase.put("productos", fila.getProductos());
+            datosClase.put("monto", fila.getMonto());
+            resumen.put(fila.getClase(), datosClase);
+            productosConVenta += fila.getProductos();
+        }
+
+        // Los productos activos sin ventas en la ventana son clase C
+        long sinVentas = Math.max(0, productoRepository.countByActivoTrue() - productosConVenta);
+
+        List<Map<String, Object>> productos = new ArrayList<>();
+        for (ClasificacionAbcView fila : ventaProductoDiariaRepository.findClasificacionAbc(desde, filtroClase, normalizarLimite(limite))) {
+            Map<String, Object> item = crearFilaRanking(fila, ventana);
+            item.put("clase", fila.getClase());
+            item.put("participacionAcumulada", fila.getParticipacion().setScale(4, RoundingMode.HALF_UP));
+            productos.add(item);
+        }
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("dias", ventana);
+        resultado.put("resumen", resumen);
+        resultado.put("productosSinVentas", sinVentas);
+        resultado.put("productos", productos);
+        return resultado;
+    }
+
+    /**
+     * Arma la fila de ranking con la velocidad de venta y los días de cobertura
+     * del stock actual, que es lo que se usa para decidir reposiciones.
+     */
+    private Map<String, Object> crearFilaRanking(RankingProductoView fila, int dias) {
+        long cantidad = fila.getCantidad() != null ? fila.getCantidad() : 0L;
+        int stock = fila.getStock() != null ? fila.getStock() : 0;
+        int stockMinimo = fila.getStockMinimo() != null ? fila.getStockMinimo() : 0;
+
+        BigDecimal ventaDiaria = BigDecimal.valueOf(cantidad)
+                .divide(BigDecimal.valueOf(dias), 2, RoundingMode.HALF_UP);
+        BigDecimal diasCobertura = ventaDiaria.signum() > 0
+                ? BigDecimal.valueOf(stock).divide(ventaDiaria, 1, RoundingMode.HALF_UP)
+                : null;
+
+        int objetivo = ventaDiaria.multiply(BigDecimal.valueOf(diasCoberturaObjetivo))
+                .setScale(0, RoundingMode.CEILING).intValue();
+        int sugerido = Math.max(Math.max(objetivo, stockMinimo) - stock, 0);
+
+        Map<String, Object> item = new HashMap<>();
+        item.put("productoId", fila.getProductoId());
+        item.put("codigo", fila.getCodigo());
+        item.put("nombre", fila.getNombre());
+        item.put("categoria", fila.getCategoria());
+        item.put("stock", stock);
+        item.put("stockMinimo", stockMinimo);
+        item.put("cantidadVendida", cantidad);
+        item.put("montoVendido", fila.getMonto() != null ? fila.getMonto() : BigDecimal.ZERO);
+        item.put("ventaDiariaPromedio", ventaDiaria);
+        item.put("diasCobertura", diasCobertura);
+        item.put("requiereReposicion", sugerido > 0);
+        item.put("cantidadSugerida", sugerido);
+        return item;
+    }
+
+    private int normalizarDias(int dias) {
+        return Math.min(Math.max(dias, 1), MAX_DIAS);
+    }
+
+    private int normalizarLimite(int limite) {
+        return Math.min(Math.max(limite, 1), MAX_LIMITE);
+    }
+}
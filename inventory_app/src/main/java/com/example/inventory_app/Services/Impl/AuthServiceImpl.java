@@ -6,10 +6,10 @@ import com.example.inventory_app.Entities.Empresa;
 import com.example.inventory_app.Repositories.EmpleadoRepository;
 import com.example.inventory_app.Repositories.EmpresaRepository;
 import com.example.inventory_app.Services.AuthService;
+import com.example.inventory_app.Services.VerificacionPasswordService;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,7 +37,7 @@ public class AuthServiceImpl implements AuthService {
     private EmpleadoRepository empleadoRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private VerificacionPasswordService verificacionPasswordService;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -116,8 +116,8 @@ public class AuthServiceImpl implements AuthService {
             
             Empleado empleado = empleadoOpt.get();
             
-            // Verificar contraseña
-            if (!passwordEncoder.matches(password, empleado.getPassword())) {
+            // Verificar contraseña (pool acotado de verificación BCrypt)
+            if (!verificacionPasswordService.verificar(password, empleado.getPassword())) {
                 System.out.println("[AUTH-SERVICE] ✗ Contraseña incorrecta");
                 return Optional.empty();
             }
@@ -128,9 +128,17 @@ public class AuthServiceImpl implements AuthService {
                 return Optional.empty();
             }
             
+            Long empleadoId = empleado.getId();
+            String hashActual = empleado.getPassword();
+            verificacionPasswordService.reencriptarSiCorresponde(password, hashActual, TenantContext.getCurrentTenant(),
+                nuevo -> empleadoRepository.actualizarHashPassword(empleadoId, hashActual, nuevo));
+            
             System.out.println("[AUTH-SERVICE] ✓ Empleado autenticado: " + empleado.getNombre() + " " + empleado.getApellido());
             return Optional.of(empleado);
             
+        } catch (VerificacionPasswordService.SaturadoException e) {
+            // Saturación: no es un error de credenciales, lo maneja el controller (503)
+            throw e;
         } catch (Exception e) {
             System.err.println("[AUTH-SERVICE] ✗ Error al autenticar: " + e.getMessage());
             e.printStackTrace();
@@ -1,15 +1,22 @@
 package com.example.inventory_app.Services.Impl;
 
 import com.example.inventory_app.Entities.Caja;
+import com.example.inventory_app.Entities.CajaResumenPago;
+import com.example.inventory_app.Entities.DetalleFactura;
+import com.example.inventory_app.Entities.Factura;
 import com.example.inventory_app.Repositories.CajaRepository;
+import com.example.inventory_app.Repositories.CajaResumenPagoRepository;
 import com.example.inventory_app.Services.CajaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,9 +29,15 @@ import java.util.Optional;
 @Transactional
 public class CajaServiceImpl implements CajaService {
 
+    private static final String METODO_EFECTIVO = "EFECTIVO";
+    private static final String SIN_METODO_PAGO = "SIN_ESPECIFICAR";
+
     @Autowired
     private CajaRepository cajaRepository;
 
+    @Autowired
+    private CajaResumenPagoRepository resumenPagoRepository;
+
     @Override
     public Caja abrirCaja(Caja caja) {
         if (tieneCajaAbierta(caja.getEmpleado().getId())) {
@@ -39,20 +52,18 @@ public class CajaServiceImpl implements CajaService {
 
     @Override
     public Caja cerrarCaja(Long id, BigDecimal montoFinal, String observaciones) {
-        return cajaRepository.findById(id)
-            .map(caja -> {
-                if (!"ABIERTA".equals(caja.getEstado())) {
-                    throw new RuntimeException("La caja no está abierta");
-                }
-                
-                caja.setFechaCierre(new Date());
-                caja.setMontoFinal(montoFinal);
-                caja.setObservaciones(observaciones);
-                caja.setEstado("CERRADA");
-                
-                return cajaRepository.save(caja);
-            })
+        // Primero se cierra (espera a las ventas en curso); después los acumulados ya no cambian
+        if (cajaRepository.cerrar(id, new Date(), montoFinal, observaciones) == 0) {
+            cajaRepository.findById(id).orElseThrow(() -> new RuntimeException("Caja no encontrada"));
+            throw new RuntimeException("La caja no está abierta");
+        }
+
+        Caja caja = cajaRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Caja no encontrada"));
+        BigDecimal esperado = efectivoEsperado(caja, resumenPagoRepository.findByCajaIdOrderByMetodoPago(id));
+        caja.setMontoEsperado(esperado);
+        caja.setDiferencia(montoFinal != null ? montoFinal.subtract(esperado) : null);
+        return cajaRepository.save(caja);
     }
 
     @Override
@@ -93,17 +104,130 @@ public class CajaServiceImpl implements CajaService {
 
     @Override
     public Caja actualizarTotalVentas(Long id, BigDecimal montoVenta) {
+        // Incremento atómico en la BD (sin leer-modificar-escribir)
+        if (cajaRepository.sumarVenta(id, montoVenta) == 0) {
+            cajaRepository.findById(id).orElseThrow(() -> new RuntimeException("Caja no encontrada"));
+            throw new RuntimeException("La caja no está abierta");
+        }
         return cajaRepository.findById(id)
-            .map(caja -> {
-                if (!"ABIERTA".equals(caja.getEstado())) {
-                    throw new RuntimeException("La caja no está abierta");
-                }
-                
-                BigDecimal nuevoTotal = caja.getTotalVentas().add(montoVenta);
-                caja.setTotalVentas(nuevoTotal);
-                
-                return cajaRepository.save(caja);
-            })
             .orElseThrow(() -> new RuntimeException("Caja no encontrada"));
     }
+
+    @Override
+    public Long registrarVenta(Factura factura) {
+        if (factura.getEmpleadoId() == null || factura.getTotal() == null) {
+            return null;
+        }
+        Long cajaId = cajaRepository.findIdCajaAbierta(factura.getEmpleadoId()).orElse(null);
+        // Si la caja se cerró entre la búsqueda y el UPDATE, la venta queda sin caja
+        if (cajaId == null || cajaRepository.sumarVenta(cajaId, factura.getTotal()) == 0) {
+            return null;
+        }
+        resumenPagoRepository.acumular(cajaId, metodoPago(factura.getMetodoPago()), 1, factura.getTotal(),
+            descuentos(factura), valorOCero(factura.getImpuesto()), 0, BigDecimal.ZERO);
+        return cajaId;
+    }
+
+    @Override
+    public void revertirVenta(Factura factura) {
+        if (factura.getCajaId() == null || factura.getTotal() == null) {
+            return;
+        }
+        // Una caja cerrada conserva su cierre
+        if (cajaRepository.sumarVenta(factura.getCajaId(), factura.getTotal().negate()) > 0) {
+            resumenPagoRepository.acumular(factura.getCajaId(), metodoPago(factura.getMetodoPago()), -1,
+                factura.getTotal().negate(), descuentos(factura).negate(), valorOCero(factura.getImpuesto()).negate(),
+                1, factura.getTotal());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerReporteZ(Long id) {
+        Caja caja = cajaRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Caja no encontrada"));
+        List<CajaResumenPago> acumulados = resumenPagoRepository.findByCajaIdOrderByMetodoPago(id);
+
+        int ventas = 0;
+        int anuladas = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal descuentos = BigDecimal.ZERO;
+        BigDecimal impuestos = BigDecimal.ZERO;
+        BigDecimal totalAnulado = BigDecimal.ZERO;
+        List<Map<String, Object>> porMetodoPago = new ArrayList<>();
+        for (CajaResumenPago acumulado : acumulados) {
+            ventas += acumulado.getVentas();
+            anuladas += acumulado.getAnuladas();
+            total = total.add(acumulado.getTotal());
+            descuentos = descuentos.add(acumulado.getDescuentos());
+            impuestos = impuestos.add(acumulado.getImpuestos());
+            totalAnulado = totalAnulado.add(acumulado.getTotalAnulado());
+
+            Map<String, Object> metodo = new LinkedHashMap<>();
+            metodo.put("metodoPago", acumulado.getMetodoPago());
+            metodo.put("ventas", acumulado.getVentas());
+            metodo.put("total", acumulado.getTotal());
+            metodo.put("descuentos", acumulado.getDescuentos());
+            metodo.put("impuestos", acumulado.getImpuestos());
+            metodo.put("anuladas", acumulado.getAnuladas());
+            metodo.put("totalAnulado", acumulado.getTotalAnulado());
+            porMetodoPago.add(metodo);
+        }
+
+        // Caja cerrada: el arqueo guardado; abierta: el esperado hasta ahora
+        BigDecimal esperado = caja.getMontoEsperado() != null
+            ? caja.getMontoEsperado()
+            : efectivoEsperado(caja, acumulados);
+
+        Map<String, Object> reporte = new LinkedHashMap<>();
+        reporte.put("cajaId", caja.getId());
+        reporte.put("numeroCaja", caja.getNumeroCaja());
+        reporte.put("estado", caja.getEstado());
+        reporte.put("fechaApertura", caja.getFechaApertura());
+        reporte.put("fechaCierre", caja.getFechaCierre());
+        reporte.put("montoInicial", caja.getMontoInicial());
+        reporte.put("ventas", ventas);
+        reporte.put("totalVentas", total);
+        reporte.put("descuentos", descuentos);
+        reporte.put("impuestos", impuestos);
+        reporte.put("anuladas", anuladas);
+        reporte.put("totalAnulado", totalAnulado);
+        reporte.put("porMetodoPago", porMetodoPago);
+        reporte.put("efectivoEsperado", esperado);
+        reporte.put("montoFinal", caja.getMontoFinal());
+        reporte.put("diferencia", caja.getDiferencia());
+        return reporte;
+    }
+
+    /**
+     * Monto inicial más las ventas vigentes en efectivo del turno.
+     */
+    private static BigDecimal efectivoEsperado(Caja caja, List<CajaResumenPago> acumulados) {
+        BigDecimal efectivo = acumulados.stream()
+            .filter(acumulado -> METODO_EFECTIVO.equals(acumulado.getMetodoPago()))
+            .map(CajaResumenPago::getTotal)
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return valorOCero(caja.getMontoInicial()).add(efectivo);
+    }
+
+    /**
+     * Descuento general de la factura más los descuentos de sus líneas.
+     */
+    private static BigDecimal descuentos(Factura factura) {
+        BigDecimal descuentos = valorOCero(factura.getDescuento());
+        if (factura.getDetalles() != null) {
+            for (DetalleFactura detalle : factura.getDetalles()) {
+                descuentos = descuentos.add(valorOCero(detalle.getDescuento()));
+            }
+        }
+        return descuentos;
+    }
+
+    private static String metodoPago(String metodoPago) {
+        return metodoPago == null || metodoPago.isBlank() ? SIN_METODO_PAGO : metodoPago.trim().toUpperCase();
+    }
+
+    private static BigDecimal valorOCero(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
 }
@@ -2,113 +2,279 @@ package com.example.inventory_app.Services.Impl;
 
 import com.example.inventory_app.Entities.CarritoCompra;
 import com.example.inventory_app.Entities.Producto;
-import com.example.inventory_app.Repositories.CarritoCompraRepository;
-import com.example.inventory_app.Repositories.ProductoRepository;
 import com.example.inventory_app.Services.CarritoCompraService;
+import com.example.inventory_app.Services.CarritoEnMemoriaService;
+import com.example.inventory_app.Services.ProductoService;
+import com.example.inventory_app.Services.ReservaStockService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Implementación del carrito de compras sobre el almacén en memoria
+ * (CarritoEnMemoriaService). Las operaciones no consultan la base de datos:
+ * el producto sale de la caché de catálogo, la reserva del libro de reservas y
+ * el carrito de memoria; la escritura en carrito_compras es diferida.
+ * Total y cantidad de items salen del carrito en memoria o de su cabecera.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
 @Service
-@Transactional
 public class CarritoCompraServiceImpl implements CarritoCompraService {
 
+    private static final int MAX_LINEAS_LOTE = 200;
+
     @Autowired
-    private CarritoCompraRepository carritoRepository;
+    private CarritoEnMemoriaService carritos;
     
+    // Lecturas de producto vía servicio para aprovechar la caché de catálogo
+    @Autowired
+    private ProductoService productoService;
+
     @Autowired
-    private ProductoRepository productoRepository;
+    private ReservaStockService reservaStockService;
 
     @Override
     public CarritoCompra agregarProducto(Long empleadoId, Long productoId, Integer cantidad) {
-        Producto producto = productoRepository.findById(productoId)
+        Producto producto = productoService.findById(productoId)
             .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         
         if (!producto.isActivo()) {
             throw new RuntimeException("El producto no está disponible");
         }
-        
-        if (producto.getStock() < cantidad) {
-            throw new RuntimeException("Stock insuficiente. Disponible: " + producto.getStock());
-        }
 
-        Optional<CarritoCompra> itemExistente = carritoRepository
-            .findByEmpleadoIdAndProductoId(empleadoId, productoId);
-        
-        if (itemExistente.isPresent()) {
-            CarritoCompra item = itemExistente.get();
-            int nuevaCantidad = item.getCantidad() + cantidad;
-            
-            if (producto.getStock() < nuevaCantidad) {
-                throw new RuntimeException("Stock insuficiente. Disponible: " + producto.getStock());
+        return carritos.modificar(empleadoId, edicion -> {
+            CarritoCompra item = edicion.carrito().item(productoId);
+            if (item == null) {
+                item = new CarritoCompra();
+                item.setProductoId(productoId);
+                item.setCantidad(0);
+                item.setPrecioUnitario(producto.getPrecioVenta());
             }
-            
+            int nuevaCantidad = item.getCantidad() + cantidad;
+            validarCantidad(nuevaCantidad);
+
+            // Reserva la cantidad total del item contra el stock no reservado por otros carritos
+            Date reservadoHasta = reservaStockService.reservar(productoId, empleadoId, nuevaCantidad, producto.getStock());
+
             item.setCantidad(nuevaCantidad);
-            return carritoRepository.save(item);
-        } else {
-            CarritoCompra nuevoItem = new CarritoCompra();
-            nuevoItem.setEmpleadoId(empleadoId);
-            nuevoItem.setProductoId(productoId);
-            nuevoItem.setCantidad(cantidad);
-            nuevoItem.setPrecioUnitario(producto.getPrecioVenta());
-            return carritoRepository.save(nuevoItem);
-        }
+            item.setReservadoHasta(reservadoHasta);
+            return edicion.poner(item);
+        });
     }
 
     @Override
     public CarritoCompra actualizarCantidad(Long id, Integer cantidad) {
-        CarritoCompra item = carritoRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Item del carrito no encontrado"));
-        
-        Producto producto = productoRepository.findById(item.getProductoId())
-            .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-        
-        if (producto.getStock() < cantidad) {
-            throw new RuntimeException("Stock insuficiente. Disponible: " + producto.getStock());
+        validarCantidad(cantidad);
+        Long empleadoId = carritos.empleadoDelItem(id);
+        if (empleadoId == null) {
+            throw new RuntimeException("Item del carrito no encontrado");
         }
-        
-        item.setCantidad(cantidad);
-        return carritoRepository.save(item);
+
+        return carritos.modificar(empleadoId, edicion -> {
+            CarritoCompra item = edicion.carrito().itemPorId(id);
+            if (item == null) {
+                throw new RuntimeException("Item del carrito no encontrado");
+            }
+
+            Producto producto = productoService.findById(item.getProductoId())
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+
+            Date reservadoHasta = reservaStockService.reservar(
+                item.getProductoId(), empleadoId, cantidad, producto.getStock());
+
+            item.setCantidad(cantidad);
+            item.setReservadoHasta(reservadoHasta);
+            return edicion.poner(item);
+        });
     }
 
     @Override
     public void eliminarItem(Long id) {
-        carritoRepository.deleteById(id);
+        Long empleadoId = carritos.empleadoDelItem(id);
+        if (empleadoId == null) {
+            return;
+        }
+        carritos.modificar(empleadoId, edicion -> {
+            CarritoCompra item = edicion.carrito().itemPorId(id);
+            if (item != null) {
+                edicion.quitar(item.getProductoId());
+                reservaStockService.liberar(item.getProductoId(), empleadoId);
+            }
+            return item;
+        });
     }
 
     @Override
     public void vaciarCarrito(Long empleadoId) {
-        carritoRepository.deleteByEmpleadoId(empleadoId);
+        carritos.modificar(empleadoId, edicion -> {
+            edicion.vaciar();
+            return null;
+        });
+        reservaStockService.liberarEmpleado(empleadoId);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<CarritoCompra> obtenerCarritoPorEmpleado(Long empleadoId) {
-        return carritoRepository.findByEmpleadoId(empleadoId);
+        return carritos.leer(empleadoId, CarritoEnMemoriaService.Carrito::items);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<CarritoCompra> findById(Long id) {
-        return carritoRepository.findById(id);
+        Long empleadoId = carritos.empleadoDelItem(id);
+        if (empleadoId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(carritos.leer(empleadoId, carrito -> carrito.itemPorId(id)));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public BigDecimal calcularTotalCarrito(Long empleadoId) {
-        List<CarritoCompra> items = carritoRepository.findByEmpleadoId(empleadoId);
-        return items.stream()
-            .map(CarritoCompra::getSubtotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return carritos.resumen(empleadoId).total();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Long contarItems(Long empleadoId) {
-        return carritoRepository.countByEmpleadoId(empleadoId);
+        return carritos.resumen(empleadoId).cantidadItems();
+    }
+
+    @Override
+    public CarritoEnMemoriaService.Resumen obtenerResumen(Long empleadoId) {
+        return carritos.resumen(empleadoId);
+    }
+
+    @Override
+    public VistaCarrito obtenerVista(Long empleadoId) {
+        // Items, cantidad y total en una sola lectura del carrito para que coincidan
+        VistaCarrito vista = carritos.leer(empleadoId, carrito ->
+            new VistaCarrito(carrito.items(), Map.of(), carrito.cantidadItems(), carrito.total()));
+        if (vista.items().isEmpty()) {
+            return vista;
+        }
+        Map<Long, Producto> productos = productoService.findByIds(
+            vista.items().stream().map(CarritoCompra::getProductoId).toList());
+        return new VistaCarrito(vista.items(), productos, vista.cantidadItems(), vista.total());
+    }
+
+    @Override
+    public VistaCarrito agregarProductos(Long empleadoId, List<LineaLote> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            throw new RuntimeException("El lote no tiene productos");
+        }
+        if (lineas.size() > MAX_LINEAS_LOTE) {
+            throw new RuntimeException("El lote admite hasta " + MAX_LINEAS_LOTE + " líneas");
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        Set<String> codigos = new LinkedHashSet<>();
+        for (LineaLote linea : lineas) {
+            if (linea.productoId() != null) {
+                ids.add(linea.productoId());
+            } else if (linea.codigo() != null && !linea.codigo().isBlank()) {
+                codigos.add(linea.codigo().trim());
+            } else {
+                throw new RuntimeException("Cada línea requiere productoId o codigo");
+            }
+            validarCantidad(linea.cantidad());
+        }
+
+        // Una sola lectura (caché de catálogo + una consulta) para todo el lote
+        Map<Long, Producto> productos = new HashMap<>();
+        Map<String, Producto> productosPorCodigo = new HashMap<>();
+        for (Producto producto : productoService.findByIdsOCodigos(ids, codigos)) {
+            productos.put(producto.getId(), producto);
+            productosPorCodigo.put(producto.getCodigo(), producto);
+        }
+
+        // Cantidad a sumar por producto, en el orden en que se escanearon
+        Map<Long, Integer> aSumar = new LinkedHashMap<>();
+        for (LineaLote linea : lineas) {
+            Producto producto = linea.productoId() != null
+                ? productos.get(linea.productoId())
+                : productosPorCodigo.get(linea.codigo().trim());
+            if (producto == null) {
+                throw new RuntimeException("Producto no encontrado: " +
+                    (linea.productoId() != null ? linea.productoId() : linea.codigo().trim()));
+            }
+            if (!producto.isActivo()) {
+                throw new RuntimeException("El producto no está disponible: " + producto.getCodigo());
+            }
+            aSumar.merge(producto.getId(), linea.cantidad(), Integer::sum);
+        }
+
+        carritos.modificar(empleadoId, edicion -> {
+            // Se valida todo el lote contra el stock no reservado por otros antes de tocar nada
+            List<CarritoCompra> nuevos = new ArrayList<>();
+            for (Map.Entry<Long, Integer> entrada : aSumar.entrySet()) {
+                Producto producto = productos.get(entrada.getKey());
+                CarritoCompra item = edicion.carrito().item(producto.getId());
+                if (item == null) {
+                    item = new CarritoCompra();
+                    item.setProductoId(producto.getId());
+                    item.setCantidad(0);
+                    item.setPrecioUnitario(producto.getPrecioVenta());
+                }
+                int nuevaCantidad = item.getCantidad() + entrada.getValue();
+                int disponible = reservaStockService.disponible(producto.getId(), empleadoId, producto.getStock());
+                if (disponible < nuevaCantidad) {
+                    throw new RuntimeException("Stock insuficiente para " + producto.getCodigo() +
+                        ". Disponible: " + disponible);
+                }
+                item.setCantidad(nuevaCantidad);
+                nuevos.add(item);
+            }
+
+            // Otro carrito pudo tomar unidades entre tanto: si una reserva falla se devuelven las anteriores
+            List<CarritoCompra> reservados = new ArrayList<>();
+            try {
+                for (CarritoCompra item : nuevos) {
+                    item.setReservadoHasta(reservaStockService.reservar(item.getProductoId(), empleadoId,
+                        item.getCantidad(), productos.get(item.getProductoId()).getStock()));
+                    reservados.add(item);
+                }
+            } catch (RuntimeException e) {
+                reservados.forEach(item -> restaurarReserva(edicion.carrito(), empleadoId,
+                    productos.get(item.getProductoId())));
+                throw e;
+            }
+
+            nuevos.forEach(edicion::poner);
+            return null;
+        });
+
+        return obtenerVista(empleadoId);
+    }
+
+    /**
+     * Vuelve la reserva de un producto a la cantidad que tiene en el carrito (o la libera).
+     */
+    private void restaurarReserva(CarritoEnMemoriaService.Carrito carrito, Long empleadoId, Producto producto) {
+        CarritoCompra anterior = carrito.item(producto.getId());
+        if (anterior == null) {
+            reservaStockService.liberar(producto.getId(), empleadoId);
+            return;
+        }
+        try {
+            reservaStockService.reservar(producto.getId(), empleadoId, anterior.getCantidad(), producto.getStock());
+        } catch (RuntimeException e) {
+            // Una cantidad menor a la ya reservada sólo falla si el stock bajó; queda la reserva mayor hasta vencer
+        }
+    }
+
+    private static void validarCantidad(Integer cantidad) {
+        if (cantidad == null || cantidad < 1) {
+            throw new RuntimeException("La cantidad debe ser al menos 1");
+        }
     }
 }
@@ -0,0 +1,207 @@
+package com.example.inventory_app.Services.Impl;
+
+import com.example.inventory_app.Entities.ClienteCategoria;
+import com.example.inventory_app.Entities.ClienteResumen;
+import com.example.inventory_app.Entities.DetalleFactura;
+import com.example.inventory_app.Entities.Factura;
+import com.example.inventory_app.Repositories.ClienteCategoriaRepository;
+import com.example.inventory_app.Repositories.ClienteResumenRepository;
+import com.example.inventory_app.Repositories.FacturaRepository;
+import com.example.inventory_app.Repositories.FacturaRepository.HistorialFacturaView;
+import com.example.inventory_app.Services.ClienteResumenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Implementación del resumen de compras por cliente.
+ *
+ * El resumen (una fila por cliente) y los acumulados por categoría se
+ * actualizan con upserts al crear o anular una factura, en la misma
+ * transacción; la ficha del cliente lee esas filas sin tocar sus facturas.
+ * El historial lee sólo cabeceras de a una página, sobre el índice
+ * (cliente_id, fecha, id).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class ClienteResumenServiceImpl implements ClienteResumenService {
+
+    private static final int MAX_LIMITE_HISTORIAL = 100;
+    private static final int CATEGORIAS_FAVORITAS = 3;
+    private static final String SIN_CATEGORIA = "SIN_CATEGORIA";
+
+    private final ClienteResumenRepository clienteResumenRepository;
+    private final ClienteCategoriaRepository clienteCategoriaRepository;
+    private final FacturaRepository facturaRepository;
+
+    @Override
+    public void registrarVenta(Factura factura) {
+        if (factura.getClienteId() == null) {
+            return;
+        }
+        clienteResumenRepository.sumarCompra(factura.getClienteId(), totalDe(factura),
+                factura.getFecha() != null ? factura.getFecha() : new Date());
+        acumularCategorias(factura, 1);
+    }
+
+    @Override
+    public void revertirVenta(Factura factura) {
+        if (factura.getClienteId() == null) {
+            return;
+        }
+        clienteResumenRepository.restarCompra(factura.getClienteId(), factura.getId(), totalDe(factura));
+        acumularCategorias(factura, -1);
+    }
+
+    /**
+     * Agrupa las líneas por categoría (cada categoría cuenta una vez por factura)
+     * y aplica un upsert por categoría, en orden alfabético para que dos facturas
+     * concurrentes del mismo cliente bloqueen las filas en el mismo orden.
+     */
+    private void acumularCategorias(Factura factura, int signo) {
+        if (factura.getDetalles() == null || factura.getDetalles().isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> unidades = new TreeMap<>();
+        Map<String, BigDecimal> montos = new HashMap<>();
+        for (DetalleFactura detalle : factura.getDetalles()) {
+            if (detalle.getCantidad() == null) {
+                continue;
+            }
+            String categoria = normalizarCategoria(detalle.getProductoCategoria());
+            BigDecimal subtotal = detalle.getSubtotal() != null ? detalle.getSubtotal() : BigDecimal.ZERO;
+            unidades.merge(categoria, detalle.getCantidad(), Integer::sum);
+            montos.merge(categoria, subtotal, BigDecimal::add);
+        }
+
+        unidades.forEach((categoria, cantidad) -> clienteCategoriaRepository.acumular(
+                factura.getClienteId(),
+                categoria,
+                signo,
+                signo * cantidad,
+                signo > 0 ? montos.get(categoria) : montos.get(categoria).negate()));
+
+        log.debug("Resumen del cliente {} actualizado ({}) en {} categorías",
+                factura.getClienteId(), signo > 0 ? "+" : "-", unidades.size());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerResumen(Long clienteId) {
+        ClienteResumen resumen = clienteResumenRepository.findById(clienteId)
+                .orElseGet(ClienteResumen::new);
+
+        List<Map<String, Object>> favoritas = new ArrayList<>();
+        for (ClienteCategoria categoria : clienteCategoriaRepository.findFavoritas(clienteId, CATEGORIAS_FAVORITAS)) {
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("categoria", categoria.getCategoria());
+            fila.put("compras", categoria.getCompras());
+            fila.put("unidades", categoria.getUnidades());
+            fila.put("total", categoria.getTotal());
+            favoritas.add(fila);
+        }
+
+        int compras = resumen.getCompras();
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("clienteId", clienteId);
+        datos.put("valorTotal", resumen.getTotal());
+        datos.put("compras", compras);
+        datos.put("ticketPromedio", compras > 0
+                ? resumen.getTotal().divide(BigDecimal.valueOf(compras), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        datos.put("anuladas", resumen.getAnuladas());
+        datos.put("primeraCompra", resumen.getPrimeraCompra());
+        datos.put("ultimaCompra", resumen.getUltimaCompra());
+        datos.put("categoriasFavoritas", favoritas);
+        return datos;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerHistorial(Long clienteId, String cursor, int limite) {
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_HISTORIAL);
+
+        // Se pide una fila de más para saber si hay página siguiente sin contar
+        List<HistorialFacturaView> filas;
+        if (cursor != null && !cursor.isBlank()) {
+            long[] posicion = decodificarCursor(cursor);
+            filas = facturaRepository.findHistorialClienteAntesDe(
+                    clienteId, new Date(posicion[0]), posicion[1], tamano + 1);
+        } else {
+            filas = facturaRepository.findHistorialCliente(clienteId, tamano + 1);
+        }
+
+        String siguienteCursor = null;
+        if (filas.size() > tamano) {
+            filas = filas.subList(0, tamano);
+            HistorialFacturaView ultima = filas.get(tamano - 1);
+            siguienteCursor = codificarCursor(ultima.getFecha(), ultima.getId());
+        }
+
+        List<Map<String, Object>> facturas = new ArrayList<>(filas.size());
+        for (HistorialFacturaView fila : filas) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", fila.getId());
+            item.put("numeroFactura", fila.getNumeroFactura());
+            item.put("fecha", fila.getFecha());
+            item.put("total", fila.getTotal());
+            item.put("metodoPago", fila.getMetodoPago());
+            item.put("estado", fila.getEstado());
+            item.put("lineas", fila.getLineas());
+            facturas.add(item);
+        }
+
+        Map<String, Object> pagina = new HashMap<>();
+        pagina.put("facturas", facturas);
+        pagina.put("total", facturas.size());
+        pagina.put("siguienteCursor", siguienteCursor);
+        pagina.put("limite", tamano);
+        return pagina;
+    }
+
+    private static BigDecimal totalDe(Factura factura) {
+        return factura.getTotal() != null ? factura.getTotal() : BigDecimal.ZERO;
+    }
+
+    private static String normalizarCategoria(String categoria) {
+        if (categoria == null || categoria.isBlank()) {
+            return SIN_CATEGORIA;
+        }
+        String normalizada = categoria.trim().toUpperCase();
+        return normalizada.length() > 50 ? normalizada.substring(0, 50) : normalizada;
+    }
+
+    /**
+     * Cursor opaco: "fechaEnMilisegundos:id" en Base64 URL.
+     */
+    private static String codificarCursor(Date fecha, Long id) {
+        String valor = fecha.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long[] decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split(":", 2);
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("formato desconocido");
+            }
+            return new long[] { Long.parseLong(partes[0]), Long.parseLong(partes[1]) };
+        } catch (IllegalArgumentException e) {
+            // Incluye NumberFormatException y Base64 inválido
+            throw new IllegalArgumentException("Cursor inválido: " + e.getMessage());
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.example.inventory_app.Services.Impl;
 import com.example.inventory_app.Entities.Cliente;
 import com.example.inventory_app.Repositories.ClienteRepository;
 import com.example.inventory_app.Services.ClienteService;
+import com.example.inventory_app.Services.IndiceClientesService;
+import com.example.inventory_app.Services.VersionDatosService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,11 +24,16 @@ import java.util.Optional;
 public class ClienteServiceImpl implements ClienteService {
 
     private final ClienteRepository clienteRepository;
+    private final VersionDatosService versionDatosService;
+    private final IndiceClientesService indiceClientesService;
 
     @Override
     public Cliente save(Cliente cliente) {
         // @PrePersist se encarga de establecer createdAt, updatedAt y activo=true automáticamente
-        return clienteRepository.save(cliente);
+        Cliente guardado = clienteRepository.save(cliente);
+        versionDatosService.registrarCambio(VersionDatosService.CLIENTES);
+        indiceClientesService.actualizar(guardado);
+        return guardado;
     }
 
     @Override
@@ -62,6 +69,8 @@ public class ClienteServiceImpl implements ClienteService {
     @Override
     public void delete(Long id) {
         clienteRepository.deleteById(id);
+        versionDatosService.registrarCambio(VersionDatosService.CLIENTES);
+        indiceClientesService.quitar(id);
     }
 
     @Override
@@ -69,6 +78,8 @@ public class ClienteServiceImpl implements ClienteService {
         clienteRepository.findById(id).ifPresent(cliente -> {
             cliente.setActivo(false);
             clienteRepository.save(cliente);
+            versionDatosService.registrarCambio(VersionDatosService.CLIENTES);
+            indiceClientesService.actualizar(cliente);
         });
     }
 
@@ -83,4 +94,10 @@ public class ClienteServiceImpl implements ClienteService {
     public List<Cliente> findByCiudad(String ciudad) {
         return clienteRepository.findByCiudad(ciudad);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<IndiceClientesService.Sugerencia> sugerir(String busqueda, int limite) {
+        return indiceClientesService.sugerir(busqueda, limite);
+    }
 }
@@ -3,16 +3,16 @@ package com.example.inventory_app.Services.Impl;
 import com.example.inventory_app.Entities.Empleado;
 import com.example.inventory_app.Repositories.EmpleadoRepository;
 import com.example.inventory_app.Services.EmpleadoService;
+import com.example.inventory_app.Services.VerificacionPasswordService;
 import com.example.inventory_app.Config.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +33,9 @@ public class EmpleadoServiceImpl implements EmpleadoService {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private VerificacionPasswordService verificacionPasswordService;
     
     @Autowired
     private org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
@@ -52,9 +55,6 @@ public class EmpleadoServiceImpl implements EmpleadoService {
             com.example.inventory_app.Config.TenantContext.getCurrentTenant());
         
         if (empleado.getId() == null) {
-            log.info("🔑 Nuevo empleado - Password length: {}", empleado.getPassword().length());
-            log.info("🔑 Password bytes: {}", Arrays.toString(empleado.getPassword().getBytes(StandardCharsets.UTF_8)));
-            
             // VALIDAR que la password NO esté ya hasheada
             if (empleado.getPassword().startsWith("$2a$") || empleado.getPassword().length() == 60) {
                 log.error("❌ ERROR: La password YA está hasheada. NO se debe hashear dos veces.");
@@ -63,7 +63,6 @@ public class EmpleadoServiceImpl implements EmpleadoService {
             }
             
             String hashedPassword = passwordEncoder.encode(empleado.getPassword());
-            log.info("🔐 Hash generado: {}", hashedPassword);
             empleado.setPassword(hashedPassword);
             
             empleado.setEstadoActivo(true);
@@ -115,13 +114,14 @@ public class EmpleadoServiceImpl implements EmpleadoService {
         });
     }
 
+    /**
+     * Sin transacción propia: la búsqueda usa la del repositorio y no se retiene
+     * una conexión del pool mientras se espera la verificación BCrypt.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Empleado> verificarCredenciales(String usuario, String password) {
         log.info("🔐 Verificando credenciales para: {}", usuario);
-        log.info("🔑 Password recibida para login: '{}'", password);
-        log.info("🔑 Password length: {}", password.length());
-        log.info("🔑 Password bytes: {}", Arrays.toString(password.getBytes(StandardCharsets.UTF_8)));
         
         Optional<Empleado> empleadoOpt = empleadoRepository.findByUsuario(usuario);
         
@@ -133,23 +133,23 @@ public class EmpleadoServiceImpl implements EmpleadoService {
         Empleado empleado = empleadoOpt.get();
         log.info("✓ Usuario encontrado: {} {}", empleado.getNombre(), empleado.getApellido());
         log.info("Estado activo: {}", empleado.isEstadoActivo());
-        log.info("Hash almacenado: {}...", empleado.getPassword().substring(0, 20));
-        
-        boolean passwordMatch = passwordEncoder.matches(password, empleado.getPassword());
-        log.info("Password coincide: {}", passwordMatch);
         
         if (!empleado.isEstadoActivo()) {
             log.error("✗ Usuario inactivo");
             return Optional.empty();
         }
         
-        if (!passwordMatch) {
-            log.error("❌ DEBUGGING: Password NO coincide");
-            log.error("   Raw password: '{}'", password);
-            log.error("   Stored hash: '{}'", empleado.getPassword());
+        // BCrypt en el pool acotado de verificación (SaturadoException si está lleno)
+        if (!verificacionPasswordService.verificar(password, empleado.getPassword())) {
+            log.error("✗ Contraseña incorrecta");
             return Optional.empty();
         }
         
+        Long empleadoId = empleado.getId();
+        String hashActual = empleado.getPassword();
+        verificacionPasswordService.reencriptarSiCorresponde(password, hashActual, TenantContext.getCurrentTenant(),
+            nuevo -> empleadoRepository.actualizarHashPassword(empleadoId, hashActual, nuevo));
+        
         log.info("✓ Credenciales válidas");
         return Optional.of(empleado);
     }
@@ -2,14 +2,20 @@ package com.example.inventory_app.Services.Impl;
 
 import com.example.inventory_app.Entities.DetalleFactura;
 import com.example.inventory_app.Entities.Factura;
+import com.example.inventory_app.Entities.TipoMovimientoStock;
 import com.example.inventory_app.Repositories.FacturaRepository;
+import com.example.inventory_app.Services.AnalisisVentasService;
+import com.example.inventory_app.Services.CajaService;
+import com.example.inventory_app.Services.ClienteResumenService;
 import com.example.inventory_app.Services.FacturaService;
 import com.example.inventory_app.Services.ProductoService;
+import com.example.inventory_app.Services.ReservaStockService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -22,6 +28,10 @@ public class FacturaServiceImpl implements FacturaService {
 
     private final FacturaRepository facturaRepository;
     private final ProductoService productoService;
+    private final AnalisisVentasService analisisVentasService;
+    private final ReservaStockService reservaStockService;
+    private final CajaService cajaService;
+    private final ClienteResumenService clienteResumenService;
 
     @Override
     public Factura create(Factura factura) {
@@ -34,14 +44,19 @@ public class FacturaServiceImpl implements FacturaService {
         factura.calcularTotales();
         
         log.info("Subtotal: {}, Total: {}", factura.getSubtotal(), factura.getTotal());
+
+        // La venta se suma a la caja abierta del empleado en esta misma transacción
+        factura.setCajaId(cajaService.registrarVenta(factura));
         
         // Guardar factura (cascade guardará los detalles automáticamente)
         Factura facturaGuardada = facturaRepository.save(factura);
         
-        // Actualizar stock de productos
-        factura.getDetalles().forEach(detalle -> {
+        // Actualizar stock de productos, siempre en orden de productoId: dos facturas
+        // con los mismos productos toman los locks de fila en el mismo orden (sin deadlocks)
+        ordenarPorProducto(factura.getDetalles()).forEach(detalle -> {
             try {
-                productoService.actualizarStock(detalle.getProductoId(), -detalle.getCantidad());
+                productoService.actualizarStock(detalle.getProductoId(), -detalle.getCantidad(),
+                    TipoMovimientoStock.VENTA, facturaGuardada.getNumeroFactura());
                 log.info("Stock actualizado para producto ID: {}, cantidad: -{}", 
                     detalle.getProductoId(), detalle.getCantidad());
             } catch (Exception e) {
@@ -49,6 +64,18 @@ public class FacturaServiceImpl implements FacturaService {
                     detalle.getProductoId(), e.getMessage());
             }
         });
+
+        // Acumulados de venta por producto/día (rankings y ABC)
+        analisisVentasService.registrarVenta(facturaGuardada);
+
+        // Resumen de compras del cliente (ficha del cliente)
+        clienteResumenService.registrarVenta(facturaGuardada);
+
+        // Lo vendido ya salió del stock: se liberan las reservas del carrito del empleado
+        if (factura.getEmpleadoId() != null) {
+            reservaStockService.liberarProductos(factura.getEmpleadoId(),
+                factura.getDetalles().stream().map(DetalleFactura::getProductoId).toList());
+        }
         
         return facturaGuardada;
     }
@@ -105,13 +132,18 @@ public class FacturaServiceImpl implements FacturaService {
     @Override
     public void anularFactura(Long id) {
         facturaRepository.findById(id).ifPresent(factura -> {
+            if ("ANULADA".equals(factura.getEstado())) {
+                // Evitar devolver stock y descontar acumulados dos veces
+                throw new RuntimeException("La factura ya se encuentra anulada");
+            }
             factura.setEstado("ANULADA");
             facturaRepository.save(factura);
             
-            // Devolver stock a los productos
-            factura.getDetalles().forEach(detalle -> {
+            // Devolver stock a los productos (mismo orden que en la venta)
+            ordenarPorProducto(factura.getDetalles()).forEach(detalle -> {
                 try {
-                    productoService.actualizarStock(detalle.getProductoId(), detalle.getCantidad());
+                    productoService.actualizarStock(detalle.getProductoId(), detalle.getCantidad(),
+                        TipoMovimientoStock.ANULACION, factura.getNumeroFactura());
                     log.info("Stock devuelto para producto ID: {}, cantidad: +{}", 
                         detalle.getProductoId(), detalle.getCantidad());
                 } catch (Exception e) {
@@ -119,6 +151,10 @@ public class FacturaServiceImpl implements FacturaService {
                         detalle.getProductoId(), e.getMessage());
                 }
             });
+
+            analisisVentasService.revertirVenta(factura);
+            cajaService.revertirVenta(factura);
+            clienteResumenService.revertirVenta(factura);
         });
     }
 
@@ -126,4 +162,11 @@ public class FacturaServiceImpl implements FacturaService {
     public void delete(Long id) {
         facturaRepository.deleteById(id);
     }
+
+    private static List<DetalleFactura> ordenarPorProducto(List<DetalleFactura> detalles) {
+        return detalles.stream()
+            .sorted(Comparator.comparing(DetalleFactura::getProductoId,
+                Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+    }
 }
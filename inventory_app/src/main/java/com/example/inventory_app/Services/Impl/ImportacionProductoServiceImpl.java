@@ -0,0 +1,618 @@
+package com.example.inventory_app.Services.Impl;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.CategoriaProducto;
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import com.example.inventory_app.Services.ImportacionProductoService;
+import com.example.inventory_app.Services.VersionDatosService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Implementación de la importación masiva de productos.
+ *
+ * Flujo (una sola transacción):
+ * 1. Tabla temporal importacion_productos (ON COMMIT DROP)
+ * 2. Lectura en streaming: cada fila se valida y, si es válida, se escribe al COPY
+ *    (no se arma la lista completa en memoria)
+ * 3. Verificación del límite del plan UNA vez para todo el lote
+ * 4. INSERT ... ON CONFLICT (codigo) DO UPDATE desde la tabla temporal;
+ *    las filas idénticas a las existentes no se reescriben y los cambios de
+ *    stock se registran en el kardex en la misma sentencia
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Transactional
+@Slf4j
+public class ImportacionProductoServiceImpl implements ImportacionProductoService {
+
+    private static final int MAX_ERRORES_REPORTE = 1000;
+    private static final int TAMANO_LOTE_COPY = 64 * 1024;
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("99999999.99");
+
+    private static final String CREAR_STAGING =
+        "CREATE TEMP TABLE importacion_productos (" +
+        "  linea INTEGER NOT NULL, codigo VARCHAR(50) NOT NULL, nombre VARCHAR(200) NOT NULL, " +
+        "  descripcion TEXT, precio_compra NUMERIC(10,2) NOT NULL, precio_venta NUMERIC(10,2) NOT NULL, " +
+        "  stock INTEGER NOT NULL, stock_minimo INTEGER NOT NULL, categoria VARCHAR(50) NOT NULL, activo BOOLEAN" +
+        ") ON COMMIT DROP";
+
+    private static final String COPY_STAGING =
+        "COPY importacion_productos (linea, codigo, nombre, descripcion, precio_compra, precio_venta, " +
+        "stock, stock_minimo, categoria, activo) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String CONTAR_NUEVOS =
+        "SELECT count(*) FROM importacion_productos i " +
+        "WHERE NOT EXISTS (SELECT 1 FROM productos p WHERE p.codigo = i.codigo)";
+
+    private static final String CONTAR_PRODUCTOS = "SELECT count(*) FROM productos";
+
+    /**
+     * Upsert por código. xmax = 0 en la fila devuelta indica que fue insertada.
+     * Stock 0 deja el producto inactivo (misma regla que ProductoServiceImpl).
+     * En la misma sentencia se registran en el kardex los cambios de stock: "previo"
+     * ve las filas como estaban antes del upsert.
+     */
+    private static final String MERGE =
+        "WITH previo AS ( " +
+        "  SELECT p.id, p.stock FROM productos p JOIN importacion_productos i ON i.codigo = p.codigo " +
+        "), r AS ( " +
+        "  INSERT INTO productos (codigo, nombre, descripcion, precio_compra, precio_venta, stock, " +
+        "                         stock_minimo, categoria, activo, created_at, updated_at, version) " +
+        "  SELECT codigo, nombre, descripcion, precio_compra, precio_venta, stock, stock_minimo, categoria, " +
+        "         CASE WHEN stock = 0 THEN false ELSE COALESCE(activo, true) END, " +
+        "         CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0 " +
+        "  FROM importacion_productos ORDER BY linea " +
+        "  ON CONFLICT (codigo) DO UPDATE SET " +
+        "    nombre = EXCLUDED.nombre, descripcion = EXCLUDED.descripcion, " +
+        "    precio_compra = EXCLUDED.precio_compra, precio_venta = EXCLUDED.precio_venta, " +
+        "    stock = EXCLUDED.stock, stock_minimo = EXCLUDED.stock_minimo, " +
+        "    categoria = EXCLUDED.categoria, activo = EXCLUDED.activo, " +
+        "    updated_at = CURRENT_TIMESTAMP, version = productos.version + 1 " +
+        "  WHERE (productos.nombre, productos.descripcion, productos.precio_compra, productos.precio_venta, " +
+        "         productos.stock, productos.stock_minimo, productos.categoria, productos.activo) " +
+        "    IS DISTINCT FROM (EXCLUDED.nombre, EXCLUDED.descripcion, EXCLUDED.precio_compra, " +
+        "         EXCLUDED.precio_venta, EXCLUDED.stock, EXCLUDED.stock_minimo, EXCLUDED.categoria, EXCLUDED.activo) " +
+        "  RETURNING id, stock, (xmax = 0) AS insertado " +
+        "), kardex AS ( " +
+        "  INSERT INTO movimientos_stock (producto_id, fecha, tipo, cantidad, stock_resultante, referencia) " +
+        "  SELECT r.id, clock_timestamp(), CASE WHEN r.insertado THEN 'ALTA' ELSE 'IMPORTACION' END, " +
+        "         r.stock - COALESCE(pv.stock, 0), r.stock, 'importacion' " +
+        "  FROM r LEFT JOIN previo pv ON pv.id = r.id " +
+        "  WHERE r.insertado OR r.stock <> pv.stock " +
+        ") " +
+        "SELECT count(*) FILTER (WHERE insertado), count(*) FILTER (WHERE NOT insertado) FROM r";
+
+    @Value("${importacion.productos.max-filas:100000}")
+    private int maxFilas;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private VersionDatosService versionDatosService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Map<String, Object> importar(InputStream entrada, String formato, Integer maxProductos) throws IOException {
+        long inicio = System.currentTimeMillis();
+        String tenant = TenantContext.getCurrentTenant();
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        FuenteFilas fuente = "ndjson".equalsIgnoreCase(formato)
+            ? new LectorNdjson(lector, objectMapper)
+            : new LectorCsv(lector);
+
+        Map<String, Object> resultado;
+        try {
+            resultado = entityManager.unwrap(Session.class)
+                .doReturningWork(conexion -> ejecutar(conexion, fuente, maxProductos));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        long cambios = (long) resultado.get("insertados") + (long) resultado.get("actualizados");
+        if (cambios > 0) {
+            // Cambio masivo: cachés e índices del tenant se recargan completos
+            versionDatosService.registrarCambio(VersionDatosService.PRODUCTOS);
+            eventPublisher.publishEvent(ProductoCambiadoEvent.catalogo(tenant));
+        }
+
+        resultado.put("formato", fuente instanceof LectorNdjson ? "ndjson" : "csv");
+        resultado.put("duracionMs", System.currentTimeMillis() - inicio);
+        log.info("Importación de productos en {}: {}", tenant, resultado);
+        return resultado;
+    }
+
+    private Map<String, Object> ejecutar(Connection conexion, FuenteFilas fuente, Integer maxProductos)
+            throws SQLException {
+        try (Statement st = conexion.createStatement()) {
+            st.execute(CREAR_STAGING);
+        }
+
+        Lote lote = new Lote();
+        CopyIn copy = conexion.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING);
+        try {
+            cargar(fuente, copy, lote);
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+
+        long insertados = 0;
+        long actualizados = 0;
+        if (lote.validas > 0) {
+            verificarLimitePlan(conexion, maxProductos);
+            try (Statement st = conexion.createStatement(); ResultSet rs = st.executeQuery(MERGE)) {
+                rs.next();
+                insertados = rs.getLong(1);
+                actualizados = rs.getLong(2);
+            }
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("filasLeidas", lote.leidas);
+        resultado.put("filasValidas", lote.validas);
+        resultado.put("insertados", insertados);
+        resultado.put("actualizados", actualizados);
+        resultado.put("sinCambios", lote.validas - insertados - actualizados);
+        resultado.put("filasConError", lote.conError);
+        resultado.put("errores", lote.errores);
+        resultado.put("erroresOmitidos", Math.max(lote.conError - lote.errores.size(), 0));
+        return resultado;
+    }
+
+    /**
+     * Lee, valida y escribe al COPY en bloques de {@value #TAMANO_LOTE_COPY} caracteres.
+     */
+    private void cargar(FuenteFilas fuente, CopyIn copy, Lote lote) throws SQLException {
+        Map<String, Integer> lineasPorCodigo = new HashMap<>();
+        StringBuilder buffer = new StringBuilder(TAMANO_LOTE_COPY + 1024);
+
+        try {
+            FilaCruda fila;
+            while ((fila = fuente.siguiente()) != null) {
+                lote.leidas++;
+                if (lote.leidas > maxFilas) {
+                    throw new IllegalArgumentException("El archivo supera el máximo de " + maxFilas + " filas");
+                }
+
+                List<String> errores = new ArrayList<>();
+                FilaProducto producto = fila.error != null ? null : validar(fila.campos, errores);
+                if (fila.error != null) {
+                    errores.add(fila.error);
+                }
+                if (producto != null) {
+                    Integer anterior = lineasPorCodigo.putIfAbsent(producto.codigo, fila.linea);
+                    if (anterior != null) {
+                        errores.add("Código duplicado en el archivo (línea " + anterior + ")");
+                    }
+                }
+
+                if (!errores.isEmpty()) {
+                    lote.registrarError(fila.linea, fila.campos.get("codigo"), errores);
+                    continue;
+                }
+
+                producto.escribirCsv(fila.linea, buffer);
+                lote.validas++;
+                if (buffer.length() >= TAMANO_LOTE_COPY) {
+                    enviar(copy, buffer);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        enviar(copy, buffer);
+    }
+
+    private static void enviar(CopyIn copy, StringBuilder buffer) throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private void verificarLimitePlan(Connection conexion, Integer maxProductos) throws SQLException {
+        if (maxProductos == null || maxProductos < 0) {
+            return;
+        }
+        long nuevos;
+        long actuales;
+        try (Statement st = conexion.createStatement()) {
+            try (ResultSet rs = st.executeQuery(CONTAR_NUEVOS)) {
+                rs.next();
+                nuevos = rs.getLong(1);
+            }
+            try (ResultSet rs = st.executeQuery(CONTAR_PRODUCTOS)) {
+                rs.next();
+                actuales = rs.getLong(1);
+            }
+        }
+        if (actuales + nuevos > maxProductos) {
+            throw new IllegalStateException("Límite de productos del plan excedido: " + actuales +
+                " actuales + " + nuevos + " nuevos > " + maxProductos);
+        }
+    }
+
+    /**
+     * Valida una fila con las mismas reglas que la entidad Producto.
+     *
+     * @return Fila normalizada, o null si tiene errores (agregados a la lista)
+     */
+    private static FilaProducto validar(Map<String, String> campos, List<String> errores) {
+        FilaProducto p = new FilaProducto();
+        p.codigo = texto(campos, "codigo");
+        p.nombre = texto(campos, "nombre");
+        p.descripcion = texto(campos, "descripcion");
+
+        if (p.codigo == null) {
+            errores.add("El código es obligatorio");
+        } else if (p.codigo.length() > 50) {
+            errores.add("El código supera 50 caracteres");
+        }
+        if (p.nombre == null) {
+            errores.add("El nombre es obligatorio");
+        } else if (p.nombre.length() > 200) {
+            errores.add("El nombre supera 200 caracteres");
+        }
+
+        p.precioCompra = precio(campos, "preciocompra", "precio de compra", errores);
+        p.precioVenta = precio(campos, "precioventa", "precio de venta", errores);
+        p.stock = entero(campos, "stock", "stock", null, errores);
+        p.stockMinimo = entero(campos, "stockminimo", "stock mínimo", 0, errores);
+
+        String categoria = texto(campos, "categoria");
+        if (categoria == null) {
+            errores.add("La categoría es obligatoria");
+        } else {
+            try {
+                p.categoria = CategoriaProducto.valueOf(categoria.toUpperCase(Locale.ROOT)).name();
+            } catch (IllegalArgumentException e) {
+                errores.add("Categoría inválida: " + categoria);
+            }
+        }
+
+        String activo = texto(campos, "activo");
+        if (activo != null) {
+            switch (activo.toLowerCase(Locale.ROOT)) {
+                case "true", "1", "si", "sí" -> p.activo = true;
+                case "false", "0", "no" -> p.activo = false;
+                default -> errores.add("Valor de activo inválido: " + activo);
+            }
+        }
+
+        return errores.isEmpty() ? p : null;
+    }
+
+    private static String texto(Map<String, String> campos, String clave) {
+        String valor = campos.get(clave);
+        if (valor == null) {
+            return null;
+        }
+        valor = valor.trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static BigDecimal precio(Map<String, String> campos, String clave, String nombre, List<String> errores) {
+        String valor = texto(campos, clave);
+        if (valor == null) {
+            errores.add("El " + nombre + " es obligatorio");
+            return null;
+        }
+        try {
+            // Acepta coma decimal (CSV con separador ';')
+            String normalizado = valor.indexOf('.') < 0 ? valor.replace(',', '.') : valor;
+            BigDecimal precio = new BigDecimal(normalizado).setScale(2, RoundingMode.HALF_UP);
+            if (precio.signum() <= 0) {
+                errores.add("El " + nombre + " debe ser mayor a 0");
+                return null;
+            }
+            if (precio.compareTo(PRECIO_MAXIMO) > 0) {
+                errores.add("El " + nombre + " supera el máximo permitido");
+                return null;
+            }
+            return precio;
+        } catch (NumberFormatException e) {
+            errores.add("El " + nombre + " no es un número: " + valor);
+            return null;
+        }
+    }
+
+    private static Integer entero(Map<String, String> campos, String clave, String nombre, Integer porDefecto,
+                                  List<String> errores) {
+        String valor = texto(campos, clave);
+        if (valor == null) {
+            if (porDefecto == null) {
+                errores.add("El " + nombre + " es obligatorio");
+            }
+            return porDefecto;
+        }
+        try {
+            int numero = Integer.parseInt(valor);
+            if (numero < 0) {
+                errores.add("El " + nombre + " no puede ser negativo");
+                return null;
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            errores.add("El " + nombre + " no es un entero: " + valor);
+            return null;
+        }
+    }
+
+    /**
+     * Normaliza nombres de columna/campo: "precio_compra", "precioCompra" y
+     * "Precio Compra" quedan como "preciocompra".
+     */
+    private static String normalizarClave(String clave) {
+        StringBuilder sb = new StringBuilder(clave.length());
+        for (int i = 0; i < clave.length(); i++) {
+            char c = clave.charAt(i);
+            if (c != '_' && c != ' ' && c != '-' && c != '\uFEFF') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fila leída del archivo, todavía sin validar.
+     * error != null si la fila no se pudo interpretar (ej: JSON inválido).
+     */
+    private record FilaCruda(int linea, Map<String, String> campos, String error) { }
+
+    private interface FuenteFilas {
+        /**
+         * @return Siguiente fila o null al terminar
+         */
+        FilaCruda siguiente() throws IOException;
+    }
+
+    /**
+     * CSV con encabezado (RFC 4180: comillas dobles, comillas escapadas y saltos de
+     * línea dentro de comillas). Separador ',' o ';' detectado en el encabezado.
+     */
+    private static final class LectorCsv implements FuenteFilas {
+        private final BufferedReader lector;
+        private List<String> columnas;
+        private char separador = ',';
+        private int lineaFisica = 1;
+
+        private LectorCsv(BufferedReader lector) {
+            this.lector = lector;
+        }
+
+        @Override
+        public FilaCruda siguiente() throws IOException {
+            if (columnas == null) {
+                detectarSeparador();
+                List<String> encabezado = leerRegistro();
+                if (encabezado == null) {
+                    return null;
+                }
+                columnas = encabezado.stream().map(ImportacionProductoServiceImpl::normalizarClave).toList();
+            }
+
+            List<String> valores;
+            int linea;
+            do {
+                linea = lineaFisica;
+                valores = leerRegistro();
+                if (valores == null) {
+                    return null;
+                }
+            } while (valores.size() == 1 && valores.get(0).isBlank());
+
+            Map<String, String> campos = new HashMap<>();
+            for (int i = 0; i < columnas.size() && i < valores.size(); i++) {
+                campos.put(columnas.get(i), valores.get(i));
+            }
+            String error = valores.size() > columnas.size()
+                ? "La fila tiene " + valores.size() + " columnas y el encabezado " + columnas.size()
+                : null;
+            return new FilaCruda(linea, campos, error);
+        }
+
+        private void detectarSeparador() throws IOException {
+            lector.mark(8192);
+            String primera = lector.readLine();
+            lector.reset();
+            if (primera != null && primera.chars().filter(c -> c == ';').count()
+                    > primera.chars().filter(c -> c == ',').count()) {
+                separador = ';';
+            }
+        }
+
+        private List<String> leerRegistro() throws IOException {
+            List<String> campos = new ArrayList<>();
+            StringBuilder actual = new StringBuilder();
+            boolean enComillas = false;
+            boolean leyo = false;
+            int c;
+            while ((c = lector.read()) != -1) {
+                leyo = true;
+                char ch = (char) c;
+                if (enComillas) {
+                    if (ch == '"') {
+                        lector.mark(1);
+                        int siguiente = lector.read();
+                        if (siguiente == '"') {
+                            actual.append('"');
+                        } else {
+                            enComillas = false;
+                            if (siguiente != -1) {
+                                lector.reset();
+                            }
+                        }
+                    } else {
+                        if (ch == '\n') {
+                            lineaFisica++;
+                        }
+                        actual.append(ch);
+                    }
+                } else if (ch == '"') {
+                    enComillas = true;
+                } else if (ch == separador) {
+                    campos.add(actual.toString());
+                    actual.setLength(0);
+                } else if (ch == '\n') {
+                    lineaFisica++;
+                    campos.add(actual.toString());
+                    return campos;
+                } else if (ch != '\r') {
+                    actual.append(ch);
+                }
+            }
+            if (!leyo) {
+                return null;
+            }
+            campos.add(actual.toString());
+            return campos;
+        }
+    }
+
+    /**
+     * Un objeto JSON por línea.
+     */
+    private static final class LectorNdjson implements FuenteFilas {
+        private final BufferedReader lector;
+        private final ObjectMapper objectMapper;
+        private int linea;
+
+        private LectorNdjson(BufferedReader lector, ObjectMapper objectMapper) {
+            this.lector = lector;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public FilaCruda siguiente() throws IOException {
+            String texto;
+            do {
+                texto = lector.readLine();
+                linea++;
+                if (texto == null) {
+                    return null;
+                }
+            } while (texto.isBlank());
+
+            Map<String, String> campos = new HashMap<>();
+            try {
+                JsonNode nodo = objectMapper.readTree(texto);
+                if (!nodo.isObject()) {
+                    return new FilaCruda(linea, campos, "La línea no es un objeto JSON");
+                }
+                for (Map.Entry<String, JsonNode> campo : nodo.properties()) {
+                    if (!campo.getValue().isNull()) {
+                        campos.put(normalizarClave(campo.getKey()), campo.getValue().asText());
+                    }
+                }
+                return new FilaCruda(linea, campos, null);
+            } catch (JsonProcessingException e) {
+                return new FilaCruda(linea, campos, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * Fila válida lista para el COPY.
+     */
+    private static final class FilaProducto {
+        private String codigo;
+        private String nombre;
+        private String descripcion;
+        private BigDecimal precioCompra;
+        private BigDecimal precioVenta;
+        private Integer stock;
+        private Integer stockMinimo;
+        private String categoria;
+        private Boolean activo;
+
+        private void escribirCsv(int linea, StringBuilder sb) {
+            sb.append(linea).append(',');
+            citar(sb, codigo).append(',');
+            citar(sb, nombre).append(',');
+            citar(sb, descripcion).append(',');
+            sb.append(precioCompra.toPlainString()).append(',')
+              .append(precioVenta.toPlainString()).append(',')
+              .append(stock).append(',')
+              .append(stockMinimo).append(',')
+              .append(categoria).append(',');
+            if (activo != null) {
+                sb.append(activo);
+            }
+            sb.append('\n');
+        }
+
+        private static StringBuilder citar(StringBuilder sb, String valor) {
+            // En COPY CSV un campo vacío sin comillas es NULL
+            if (valor == null) {
+                return sb;
+            }
+            return sb.append('"').append(valor.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    /**
+     * Contadores y reporte de errores del lote.
+     */
+    private static final class Lote {
+        private long leidas;
+        private long validas;
+        private long conError;
+        private final List<Map<String, Object>> errores = new ArrayList<>();
+
+        private void registrarError(int linea, String codigo, List<String> mensajes) {
+            conError++;
+            if (errores.size() >= MAX_ERRORES_REPORTE) {
+                return;
+            }
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("linea", linea);
+            error.put("codigo", codigo);
+            error.put("errores", mensajes);
+            errores.add(error);
+        }
+    }
+}
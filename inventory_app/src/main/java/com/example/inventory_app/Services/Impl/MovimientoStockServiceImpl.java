@@ -0,0 +1,341 @@
+package com.example.inventory_app.Services.Impl;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.TipoMovimientoStock;
+import com.example.inventory_app.Services.MovimientoStockService;
+import com.example.inventory_app.Services.SchemaManagementService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación del kardex (movimientos_stock).
+ *
+ * Escritura: los movimientos de una transacción se acumulan y se insertan con
+ * una sola sentencia (unnest de arrays) antes del commit. Una factura de 30
+ * líneas es un INSERT, no 30.
+ *
+ * Lectura: movimientos_stock está particionado por mes y stock_snapshots guarda
+ * el stock de cada producto al inicio de cada mes. El stock en una fecha D es el
+ * del último movimiento entre el snapshot anterior a D y D (a lo sumo un mes de
+ * historial, con poda de particiones); si no hubo movimientos, el del snapshot.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Transactional
+@Slf4j
+public class MovimientoStockServiceImpl implements MovimientoStockService {
+
+    private static final int MAX_LIMITE = 1000;
+
+    /**
+     * Cota inferior cuando todavía no hay snapshots (kardex de menos de un mes).
+     */
+    private static final LocalDateTime INICIO_HISTORIAL = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    /**
+     * Clave del buffer de movimientos ligado a la transacción actual.
+     */
+    private static final Object CLAVE_PENDIENTES = new Object();
+
+    /**
+     * clock_timestamp(): la hora real de la escritura, no la del inicio de la transacción.
+     */
+    private static final String INSERTAR =
+        "INSERT INTO movimientos_stock (producto_id, fecha, tipo, cantidad, stock_resultante, referencia) " +
+        "SELECT producto_id, clock_timestamp(), tipo, cantidad, stock_resultante, referencia " +
+        "FROM unnest(?::bigint[], ?::varchar[], ?::int[], ?::int[], ?::varchar[]) WITH ORDINALITY " +
+        "  AS m(producto_id, tipo, cantidad, stock_resultante, referencia, orden) " +
+        "ORDER BY orden";
+
+    private static final String SNAPSHOT_ANTERIOR =
+        "SELECT fecha, stock FROM stock_snapshots " +
+        "WHERE producto_id = ? AND fecha <= ? ORDER BY fecha DESC LIMIT 1";
+
+    /**
+     * Cotas como parámetros: el planner descarta las particiones fuera del rango.
+     * El último es el de mayor id: los movimientos de un producto se insertan al
+     * confirmar, con su fila bloqueada, así que el id sigue el orden real aunque
+     * las fechas de transacciones concurrentes se crucen.
+     */
+    private static final String ULTIMO_MOVIMIENTO =
+        "SELECT fecha, stock_resultante FROM movimientos_stock " +
+        "WHERE producto_id = ? AND fecha >= ? AND fecha < ? " +
+        "ORDER BY id DESC LIMIT 1";
+
+    private static final String MOVIMIENTOS_RANGO =
+        "SELECT id, fecha, tipo, cantidad, stock_resultante, referencia FROM movimientos_stock " +
+        "WHERE producto_id = ? AND fecha >= ? AND fecha < ? " +
+        "ORDER BY fecha, id LIMIT ?";
+
+    private static final String EXISTE_SNAPSHOT =
+        "SELECT EXISTS (SELECT 1 FROM stock_snapshots WHERE fecha = ?)";
+
+    private static final String ULTIMO_SNAPSHOT = "SELECT max(fecha) FROM stock_snapshots WHERE fecha < ?";
+
+    /**
+     * Snapshot del mes = snapshot anterior actualizado con el último movimiento
+     * de cada producto desde entonces.
+     */
+    private static final String GENERAR_SNAPSHOT =
+        "INSERT INTO stock_snapshots (producto_id, fecha, stock) " +
+        "SELECT COALESCE(u.producto_id, b.producto_id), ?, COALESCE(u.stock_resultante, b.stock) " +
+        "FROM (SELECT producto_id, stock FROM stock_snapshots WHERE fecha = ?) b " +
+        "FULL JOIN ( " +
+        "  SELECT DISTINCT ON (producto_id) producto_id, stock_resultante FROM movimientos_stock " +
+        "  WHERE fecha >= ? AND fecha < ? ORDER BY producto_id, id DESC " +
+        ") u ON u.producto_id = b.producto_id " +
+        "ON CONFLICT (producto_id, fecha) DO NOTHING";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private SchemaManagementService schemaManagementService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private record Movimiento(Long productoId, TipoMovimientoStock tipo, int cantidad,
+                              int stockResultante, String referencia) {
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @SuppressWarnings("unchecked")
+    public void registrar(Long productoId, TipoMovimientoStock tipo, int cantidad, int stockResultante,
+                          String referencia) {
+        if (cantidad == 0 && tipo != TipoMovimientoStock.INICIAL && tipo != TipoMovimientoStock.ALTA) {
+            return;
+        }
+        Movimiento movimiento = new Movimiento(productoId, tipo, cantidad, stockResultante, referencia);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            escribir(List.of(movimiento));
+            return;
+        }
+
+        List<Movimiento> pendientes = (List<Movimiento>) TransactionSynchronizationManager.getResource(CLAVE_PENDIENTES);
+        if (pendientes == null) {
+            List<Movimiento> lote = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(CLAVE_PENDIENTES, lote);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Si falla, la transacción se revierte: stock y kardex siempre coinciden
+                    escribir(lote);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CLAVE_PENDIENTES);
+                }
+            });
+            pendientes = lote;
+        }
+        pendientes.add(movimiento);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerStockEnFecha(Long productoId, LocalDateTime fecha) {
+        return entityManager.unwrap(Session.class).doReturningWork(conexion -> {
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("productoId", productoId);
+            resultado.put("fecha", fecha);
+            // "Hasta D inclusive" es "antes del instante siguiente"
+            resultado.put("stock", stockAntesDe(conexion, productoId, fecha.plusNanos(1000)));
+            return resultado;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta,
+                                                  int limite) {
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("'desde' debe ser anterior a 'hasta'");
+        }
+        int tope = Math.max(1, Math.min(limite, MAX_LIMITE));
+
+        return entityManager.unwrap(Session.class).doReturningWork(conexion -> {
+            List<Map<String, Object>> movimientos = new ArrayList<>();
+            try (PreparedStatement ps = conexion.prepareStatement(MOVIMIENTOS_RANGO)) {
+                ps.setLong(1, productoId);
+                ps.setTimestamp(2, Timestamp.valueOf(desde));
+                ps.setTimestamp(3, Timestamp.valueOf(hasta));
+                ps.setInt(4, tope + 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Map<String, Object> fila = new LinkedHashMap<>();
+                        fila.put("id", rs.getLong("id"));
+                        fila.put("fecha", rs.getTimestamp("fecha").toLocalDateTime());
+                        fila.put("tipo", rs.getString("tipo"));
+                        fila.put("cantidad", rs.getInt("cantidad"));
+                        fila.put("stockResultante", rs.getInt("stock_resultante"));
+                        fila.put("referencia", rs.getString("referencia"));
+                        movimientos.add(fila);
+                    }
+                }
+            }
+            boolean hayMas = movimientos.size() > tope;
+            if (hayMas) {
+                movimientos.remove(movimientos.size() - 1);
+            }
+
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("productoId", productoId);
+            resultado.put("desde", desde);
+            resultado.put("hasta", hasta);
+            resultado.put("stockInicial", stockAntesDe(conexion, productoId, desde));
+            resultado.put("stockFinal", hayMas ? null : stockAntesDe(conexion, productoId, hasta));
+            resultado.put("movimientos", movimientos);
+            resultado.put("hayMas", hayMas);
+            return resultado;
+        });
+    }
+
+    /**
+     * Todos los días: particiones de los próximos meses y snapshot del mes actual.
+     * Cada empresa en su propia transacción; un error no frena a las demás.
+     */
+    @Override
+    @Scheduled(cron = "${kardex.mantenimiento.cron:0 30 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void mantenerKardex() {
+        LocalDate mes = LocalDate.now().withDayOfMonth(1);
+        int generados = 0;
+        for (String schema : schemaManagementService.listarSchemasDeTenants()) {
+            try {
+                schemaManagementService.asegurarParticionesKardex(schema);
+                Integer filas = TenantContext.ejecutarEnTenant(schema, () ->
+                    transactionTemplate.execute(estado -> generarSnapshot(mes)));
+                generados += filas != null ? filas : 0;
+            } catch (RuntimeException e) {
+                log.error("Error en mantenimiento del kardex de {}: {}", schema, e.getMessage());
+            }
+        }
+        log.info("Mantenimiento del kardex: {} filas de snapshot para {}", generados, mes);
+    }
+
+    private Integer generarSnapshot(LocalDate mes) {
+        return entityManager.unwrap(Session.class).doReturningWork(conexion -> {
+            try (PreparedStatement ps = conexion.prepareStatement(EXISTE_SNAPSHOT)) {
+                ps.setDate(1, Date.valueOf(mes));
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getBoolean(1)) {
+                        return 0;
+                    }
+                }
+            }
+
+            Date anterior = null;
+            try (PreparedStatement ps = conexion.prepareStatement(ULTIMO_SNAPSHOT)) {
+                ps.setDate(1, Date.valueOf(mes));
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        anterior = rs.getDate(1);
+                    }
+                }
+            }
+
+            try (PreparedStatement ps = conexion.prepareStatement(GENERAR_SNAPSHOT)) {
+                ps.setDate(1, Date.valueOf(mes));
+                ps.setDate(2, anterior);
+                ps.setTimestamp(3, Timestamp.valueOf(anterior != null
+                    ? anterior.toLocalDate().atStartOfDay() : INICIO_HISTORIAL));
+                ps.setTimestamp(4, Timestamp.valueOf(mes.atStartOfDay()));
+                return ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Stock del producto justo antes de un instante: último movimiento desde el
+     * snapshot más cercano o, si no hubo, el stock del snapshot.
+     *
+     * @return Stock o null si el kardex no tiene historial anterior al instante
+     */
+    private Integer stockAntesDe(Connection conexion, Long productoId, LocalDateTime instante) throws SQLException {
+        LocalDateTime desde = INICIO_HISTORIAL;
+        Integer stockSnapshot = null;
+        try (PreparedStatement ps = conexion.prepareStatement(SNAPSHOT_ANTERIOR)) {
+            ps.setLong(1, productoId);
+            // El snapshot de un día es el stock a las 00:00 (movimientos anteriores a ese día)
+            ps.setDate(2, Date.valueOf(instante.toLocalDate()));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    desde = rs.getDate("fecha").toLocalDate().atStartOfDay();
+                    stockSnapshot = rs.getInt("stock");
+                }
+            }
+        }
+
+        try (PreparedStatement ps = conexion.prepareStatement(ULTIMO_MOVIMIENTO)) {
+            ps.setLong(1, productoId);
+            ps.setTimestamp(2, Timestamp.valueOf(desde));
+            ps.setTimestamp(3, Timestamp.valueOf(instante));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("stock_resultante");
+                }
+            }
+        }
+        return stockSnapshot;
+    }
+
+    private void escribir(List<Movimiento> movimientos) {
+        if (movimientos.isEmpty()) {
+            return;
+        }
+        int n = movimientos.size();
+        Long[] productos = new Long[n];
+        String[] tipos = new String[n];
+        Integer[] cantidades = new Integer[n];
+        Integer[] stocks = new Integer[n];
+        String[] referencias = new String[n];
+        for (int i = 0; i < n; i++) {
+            Movimiento m = movimientos.get(i);
+            productos[i] = m.productoId();
+            tipos[i] = m.tipo().name();
+            cantidades[i] = m.cantidad();
+            stocks[i] = m.stockResultante();
+            referencias[i] = m.referencia();
+        }
+
+        entityManager.unwrap(Session.class).doWork(conexion -> {
+            try (PreparedStatement ps = conexion.prepareStatement(INSERTAR)) {
+                ps.setArray(1, conexion.createArrayOf("bigint", productos));
+                ps.setArray(2, conexion.createArrayOf("varchar", tipos));
+                ps.setArray(3, conexion.createArrayOf("integer", cantidades));
+                ps.setArray(4, conexion.createArrayOf("integer", stocks));
+                ps.setArray(5, conexion.createArrayOf("varchar", referencias));
+                ps.executeUpdate();
+            }
+        });
+    }
+}
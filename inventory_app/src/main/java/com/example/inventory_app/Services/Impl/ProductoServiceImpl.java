@@ -1,16 +1,42 @@
 package com.example.inventory_app.Services.Impl;
 
+import com.example.inventory_app.Config.TenantContext;
 import com.example.inventory_app.Entities.Producto;
 import com.example.inventory_app.Entities.CategoriaProducto;
+import com.example.inventory_app.Entities.TipoMovimientoStock;
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import com.example.inventory_app.Events.ProductoCambiadoEvent.TipoCambio;
+import com.example.inventory_app.Events.StockUmbralCruzadoEvent;
 import com.example.inventory_app.Repositories.ProductoRepository;
+import com.example.inventory_app.Repositories.ProductoRepositoryCustom.FiltroProductos;
+import com.example.inventory_app.Services.CatalogoProductoCache;
+import com.example.inventory_app.Services.ContencionStockService;
+import com.example.inventory_app.Services.MovimientoStockService;
 import com.example.inventory_app.Services.ProductoService;
+import com.example.inventory_app.Services.VersionDatosService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Implementación de los servicios de Producto.
@@ -22,19 +48,75 @@ import java.util.Optional;
 @Transactional
 public class ProductoServiceImpl implements ProductoService {
 
+    private static final int MIN_CARACTERES_BUSQUEDA = 2;
+    private static final int MAX_RESULTADOS_BUSQUEDA = 50;
+
+    private static final int MAX_LIMITE_PAGINA = 500;
+
+    /**
+     * Campos que se pueden pedir en el listado paginado (propiedades de Producto).
+     */
+    private static final List<String> CAMPOS_LISTADO = List.of(
+        "id", "codigo", "nombre", "descripcion", "precioCompra", "precioVenta", "stock",
+        "stockMinimo", "categoria", "activo", "version", "createdAt", "updatedAt");
+
+    /**
+     * Intentos máximos de un ajuste de stock ante deadlocks o timeouts de lock.
+     */
+    private static final int MAX_INTENTOS_STOCK = 4;
+
+    /**
+     * Límites de los rangos de precio de las facetas del catálogo.
+     */
+    @Value("${catalogo.facetas.rangos-precio:5000,20000,50000,100000}")
+    private List<BigDecimal> limitesPrecio;
+
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private VersionDatosService versionDatosService;
+
+    @Autowired
+    private CatalogoProductoCache catalogoProductoCache;
+
+    @Autowired
+    private ContencionStockService contencionStockService;
+
+    @Autowired
+    private MovimientoStockService movimientoStockService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public Producto save(Producto producto) {
         // @PrePersist se encarga de establecer createdAt, updatedAt y activo=true automáticamente
         // Solo manejamos lógica de negocio específica
         
-        if (producto.getId() != null) {
+        // Estado de bajo stock antes de guardar (un producto nuevo parte fuera de bajo stock)
+        boolean bajoStockAnterior = false;
+        int stockAnterior = 0;
+
+        if (producto.getId() == null) {
+            // La versión la asigna Hibernate al insertar
+            producto.setVersion(null);
+        } else {
             // Producto existente - verificar si cambió el stock
             Optional<Producto> productoExistente = productoRepository.findById(producto.getId());
             if (productoExistente.isPresent()) {
                 Producto existente = productoExistente.get();
+                bajoStockAnterior = esBajoStock(existente.getStock(), existente.getStockMinimo(), existente.isActivo());
+                stockAnterior = existente.getStock();
+
+                // Sin versión en el body se edita sobre la versión actual (último en escribir gana).
+                // Con versión, Hibernate rechaza la edición si otro la cambió entre tanto.
+                if (producto.getVersion() == null) {
+                    producto.setVersion(existente.getVersion());
+                }
                 
                 // Solo aplicar lógica automática si el stock cambió
                 if (!existente.getStock().equals(producto.getStock())) {
@@ -48,19 +130,119 @@ public class ProductoServiceImpl implements ProductoService {
             }
         }
         
-        return productoRepository.save(producto);
+        boolean nuevo = producto.getId() == null;
+        Producto guardado = productoRepository.save(producto);
+        movimientoStockService.registrar(guardado.getId(),
+            nuevo ? TipoMovimientoStock.ALTA : TipoMovimientoStock.EDICION,
+            guardado.getStock() - stockAnterior, guardado.getStock(), null);
+        versionDatosService.registrarCambio(VersionDatosService.PRODUCTOS);
+        publicarCambio(guardado.getId(), nuevo ? TipoCambio.CREADO : TipoCambio.ACTUALIZADO, guardado);
+        publicarSiCruzaUmbral(bajoStockAnterior, guardado);
+        return guardado;
     }
 
+    /**
+     * Lectura por ID con caché de catálogo.
+     * SUPPORTS: un acierto en caché no abre transacción ni pide conexión al pool.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Producto> findById(Long id) {
-        return productoRepository.findById(id);
+        String tenant = TenantContext.getCurrentTenant();
+        Producto cacheado = catalogoProductoCache.obtener(tenant, id);
+        if (cacheado != null) {
+            return Optional.of(cacheado);
+        }
+
+        long generacion = catalogoProductoCache.generacion(tenant);
+        Optional<Producto> producto = productoRepository.findById(id);
+        producto.ifPresent(p -> catalogoProductoCache.guardar(tenant, p, generacion));
+        return producto;
     }
 
+    /**
+     * Lectura de varios productos con caché de catálogo: los fallos se leen en una consulta.
+     */
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<Long, Producto> findByIds(Collection<Long> ids) {
+        String tenant = TenantContext.getCurrentTenant();
+        Map<Long, Producto> productos = new HashMap<>();
+        Set<Long> faltantes = new LinkedHashSet<>();
+        for (Long id : ids) {
+            Producto cacheado = catalogoProductoCache.obtener(tenant, id);
+            if (cacheado != null) {
+                productos.put(id, cacheado);
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return productos;
+        }
+
+        long generacion = catalogoProductoCache.generacion(tenant);
+        for (Producto producto : productoRepository.findAllById(faltantes)) {
+            catalogoProductoCache.guardar(tenant, producto, generacion);
+            productos.put(producto.getId(), producto);
+        }
+        return productos;
+    }
+
+    /**
+     * Lectura por IDs y códigos con caché de catálogo: los fallos se leen en una consulta.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Producto> findByIdsOCodigos(Collection<Long> ids, Collection<String> codigos) {
+        String tenant = TenantContext.getCurrentTenant();
+        Map<Long, Producto> productos = new LinkedHashMap<>();
+        Set<Long> idsFaltantes = new LinkedHashSet<>();
+        Set<String> codigosFaltantes = new LinkedHashSet<>();
+        for (Long id : ids) {
+            Producto cacheado = catalogoProductoCache.obtener(tenant, id);
+            if (cacheado != null) {
+                productos.put(id, cacheado);
+            } else {
+                idsFaltantes.add(id);
+            }
+        }
+        for (String codigo : codigos) {
+            Producto cacheado = catalogoProductoCache.obtenerPorCodigo(tenant, codigo);
+            if (cacheado != null) {
+                productos.putIfAbsent(cacheado.getId(), cacheado);
+            } else {
+                codigosFaltantes.add(codigo);
+            }
+        }
+        if (idsFaltantes.isEmpty() && codigosFaltantes.isEmpty()) {
+            return new ArrayList<>(productos.values());
+        }
+
+        long generacion = catalogoProductoCache.generacion(tenant);
+        for (Producto producto : productoRepository.findByIdInOrCodigoIn(idsFaltantes, codigosFaltantes)) {
+            catalogoProductoCache.guardar(tenant, producto, generacion);
+            productos.putIfAbsent(producto.getId(), producto);
+        }
+        return new ArrayList<>(productos.values());
+    }
+
+    /**
+     * Lectura por código con caché de catálogo.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Producto> findByCodigo(String codigo) {
-        return productoRepository.findByCodigo(codigo);
+        String tenant = TenantContext.getCurrentTenant();
+        Producto cacheado = catalogoProductoCache.obtenerPorCodigo(tenant, codigo);
+        if (cacheado != null) {
+            return Optional.of(cacheado);
+        }
+
+        long generacion = catalogoProductoCache.generacion(tenant);
+        Optional<Producto> producto = productoRepository.findByCodigo(codigo);
+        producto.ifPresent(p -> catalogoProductoCache.guardar(tenant, p, generacion));
+        return producto;
     }
 
     @Override
@@ -75,39 +257,81 @@ public class ProductoServiceImpl implements ProductoService {
         return productoRepository.findProductosConBajoStock();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public long contarProductosConBajoStock() {
+        return productoRepository.countProductosConBajoStock();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Producto> findByRangoPrecio(BigDecimal precioMin, BigDecimal precioMax) {
         return productoRepository.findByPrecioVentaBetweenAndActivoTrue(precioMin, precioMax);
     }
 
+    /**
+     * Ajuste atómico de stock (UPDATE condicional, sin leer antes).
+     *
+     * Si ya hay una transacción (ej: creación de factura) el ajuste se suma a ella y
+     * el reintento corresponde a quien la abrió. Si no, cada intento corre en su propia
+     * transacción y los deadlocks/timeouts de lock se reintentan con espera aleatoria.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Producto actualizarStock(Long id, int cantidad) {
-        Producto producto = productoRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-            
-        int nuevoStock = producto.getStock() + cantidad;
-        if (nuevoStock < 0) {
-            throw new RuntimeException("Stock insuficiente");
+        return actualizarStock(id, cantidad, TipoMovimientoStock.AJUSTE, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Producto actualizarStock(Long id, int cantidad, TipoMovimientoStock tipo, String referencia) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return ajustarStock(id, cantidad, tipo, referencia);
         }
-        
-        producto.setStock(nuevoStock);
-        
-        // Lógica automática: Si stock llega a 0, desactivar producto
-        if (nuevoStock == 0) {
-            producto.setActivo(false);
-        } else if (nuevoStock > 0 && !producto.isActivo()) {
-            // Si se agrega stock a un producto inactivo, reactivarlo
-            producto.setActivo(true);
+
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(estado -> ajustarStock(id, cantidad, tipo, referencia));
+            } catch (ConcurrencyFailureException e) {
+                if (intento >= MAX_INTENTOS_STOCK) {
+                    throw e;
+                }
+                contencionStockService.registrarReintento(TenantContext.getCurrentTenant(), id);
+                esperarAntesDeReintentar(intento, e);
+            }
         }
-        
-        return productoRepository.save(producto);
+    }
+
+    private Producto ajustarStock(Long id, int cantidad, TipoMovimientoStock tipo, String referencia) {
+        String tenant = TenantContext.getCurrentTenant();
+
+        long inicio = System.nanoTime();
+        Optional<ProductoRepository.ProductoFilaView> fila = productoRepository.ajustarStock(id, cantidad);
+        contencionStockService.registrarAjuste(tenant, id, System.nanoTime() - inicio, fila.isPresent());
+
+        if (fila.isEmpty()) {
+            throw new RuntimeException(productoRepository.existsById(id)
+                ? "Stock insuficiente"
+                : "Producto no encontrado");
+        }
+
+        Producto guardado = aProducto(fila.get());
+        movimientoStockService.registrar(id, tipo, cantidad, guardado.getStock(), referencia);
+        versionDatosService.registrarCambio(VersionDatosService.PRODUCTOS);
+        publicarCambio(id, TipoCambio.STOCK, guardado);
+        // El UPDATE devuelve la fila nueva: el stock anterior es el actual menos el delta,
+        // y activo se recalcula con la misma regla (stock > 0)
+        int stockAnterior = guardado.getStock() - cantidad;
+        publicarSiCruzaUmbral(esBajoStock(stockAnterior, guardado.getStockMinimo(), stockAnterior > 0), guardado);
+        return guardado;
     }
 
     @Override
     public void delete(Long id) {
         // Eliminación física del producto
         productoRepository.deleteById(id);
+        versionDatosService.registrarCambio(VersionDatosService.PRODUCTOS);
+        publicarCambio(id, TipoCambio.ELIMINADO, null);
     }
 
     @Override
@@ -115,6 +339,8 @@ public class ProductoServiceImpl implements ProductoService {
         productoRepository.findById(id).ifPresent(producto -> {
             producto.setActivo(false);
             productoRepository.save(producto);
+            versionDatosService.registrarCambio(VersionDatosService.PRODUCTOS);
+            publicarCambio(id, TipoCambio.DESACTIVADO, producto);
         });
     }
 
@@ -135,4 +361,226 @@ public class ProductoServiceImpl implements ProductoService {
     public List<Producto> findAll() {
         return productoRepository.findAll();
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoRepository.ProductoBusquedaView> buscar(String texto, int limite) {
+        String q = texto == null ? "" : texto.trim().toLowerCase().replaceAll("\\s+", " ");
+        if (q.length() < MIN_CARACTERES_BUSQUEDA) {
+            return List.of();
+        }
+        // Escapar comodines de LIKE para que '%' o '_' escritos por el usuario sean literales
+        String literal = q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        int maximo = Math.min(Math.max(limite, 1), MAX_RESULTADOS_BUSQUEDA);
+        return productoRepository.buscarPorSimilitud(q, "%" + literal + "%", literal + "%", maximo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> listarPagina(String campos, String orden, String cursor, int limite,
+                                            FiltroProductos filtro) {
+        String ordenEfectivo = orden == null || orden.isBlank() ? "id" : orden.trim();
+        boolean descendente = ordenEfectivo.startsWith("-");
+        boolean porNombre;
+        switch (descendente ? ordenEfectivo.substring(1) : ordenEfectivo) {
+            case "id" -> porNombre = false;
+            case "nombre" -> porNombre = true;
+            default -> throw new IllegalArgumentException("Orden inválido: " + orden + " (id, -id, nombre, -nombre)");
+        }
+
+        // id siempre (es la clave del cursor); nombre también si se ordena por nombre
+        Set<String> seleccion = new LinkedHashSet<>();
+        seleccion.add("id");
+        if (campos == null || campos.isBlank()) {
+            seleccion.addAll(CAMPOS_LISTADO);
+        } else {
+            for (String campo : campos.split(",")) {
+                String pedido = campo.trim();
+                String valido = CAMPOS_LISTADO.stream()
+                    .filter(c -> c.equalsIgnoreCase(pedido))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Campo inválido: " + pedido));
+                seleccion.add(valido);
+            }
+        }
+        if (porNombre) {
+            seleccion.add("nombre");
+        }
+
+        Long despuesId = null;
+        String despuesNombre = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor, porNombre);
+            despuesId = Long.parseLong(partes[1]);
+            despuesNombre = porNombre ? partes[2] : null;
+        }
+
+        int tamano = Math.min(Math.max(limite, 1), MAX_LIMITE_PAGINA);
+        // Se pide una fila de más para saber si hay página siguiente sin contar
+        List<Map<String, Object>> filas = productoRepository.buscarPagina(
+            seleccion, porNombre, descendente, despuesId, despuesNombre, filtro, tamano + 1);
+
+        String siguienteCursor = null;
+        if (filas.size() > tamano) {
+            filas = filas.subList(0, tamano);
+            Map<String, Object> ultima = filas.get(tamano - 1);
+            siguienteCursor = codificarCursor(porNombre, (Long) ultima.get("id"), (String) ultima.get("nombre"));
+        }
+
+        Map<String, Object> pagina = new HashMap<>();
+        pagina.put("productos", filas);
+        pagina.put("total", filas.size());
+        pagina.put("siguienteCursor", siguienteCursor);
+        pagina.put("campos", seleccion);
+        pagina.put("orden", ordenEfectivo);
+        pagina.put("limite", tamano);
+        return pagina;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> explorar(String campos, String orden, String cursor, int limite,
+                                        FiltroProductos filtro) {
+        // Los agotados están inactivos (stock 0 desactiva): "sin stock" no filtra por activo
+        Boolean activo = Boolean.FALSE.equals(filtro.conStock()) ? null : Boolean.TRUE;
+        FiltroProductos activos = new FiltroProductos(
+            filtro.categoria(), activo, filtro.precioMin(), filtro.precioMax(), filtro.conStock());
+        Map<String, Object> resultado = new HashMap<>(listarPagina(campos, orden, cursor, limite, activos));
+
+        Map<String, Long> porCategoria = new LinkedHashMap<>();
+        for (CategoriaProducto c : CategoriaProducto.values()) {
+            porCategoria.put(c.name(), 0L);
+        }
+        long[] porRango = new long[limitesPrecio.size() + 1];
+        long conStock = 0;
+        long sinStock = 0;
+        long coincidencias = 0;
+
+        for (Object[] fila : productoRepository.contarFacetas(activos, limitesPrecio)) {
+            String faceta = (String) fila[0];
+            String valor = (String) fila[1];
+            long total = ((Number) fila[2]).longValue();
+            switch (faceta) {
+                case "categoria" -> porCategoria.put(valor, total);
+                case "rango" -> porRango[Integer.parseInt(valor)] = total;
+                case "stock" -> {
+                    if (Boolean.parseBoolean(valor)) {
+                        conStock = total;
+                    } else {
+                        sinStock = total;
+                    }
+                }
+                default -> coincidencias = total;
+            }
+        }
+
+        List<Map<String, Object>> categorias = new ArrayList<>();
+        porCategoria.forEach((categoria, total) -> categorias.add(Map.of("categoria", categoria, "total", total)));
+
+        // width_bucket: 0 = menor al primer límite, i = [límite i-1, límite i), n = desde el último
+        List<Map<String, Object>> rangos = new ArrayList<>();
+        for (int i = 0; i < porRango.length; i++) {
+            Map<String, Object> rango = new HashMap<>();
+            rango.put("desde", i == 0 ? null : limitesPrecio.get(i - 1));
+            rango.put("hasta", i == limitesPrecio.size() ? null : limitesPrecio.get(i));
+            rango.put("total", porRango[i]);
+            rangos.add(rango);
+        }
+
+        resultado.put("totalCoincidencias", coincidencias);
+        resultado.put("facetas", Map.of(
+            "categorias", categorias,
+            "rangosPrecio", rangos,
+            "stock", Map.of("conStock", conStock, "sinStock", sinStock)
+        ));
+        return resultado;
+    }
+
+    /**
+     * Cursor opaco: "i:id" u "n:id:nombre" en Base64 URL.
+     * Visibilidad de paquete para las pruebas del formato.
+     */
+    static String codificarCursor(boolean porNombre, Long id, String nombre) {
+        String valor = porNombre ? "n:" + id + ":" + nombre : "i:" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodificarCursor(String cursor, boolean porNombre) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split(":", 3);
+            boolean coincide = porNombre
+                ? partes.length == 3 && partes[0].equals("n")
+                : partes.length == 2 && partes[0].equals("i");
+            if (!coincide) {
+                throw new IllegalArgumentException("El cursor no corresponde al orden pedido");
+            }
+            Long.parseLong(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException e) {
+            // Incluye NumberFormatException y Base64 inválido
+            throw new IllegalArgumentException("Cursor inválido: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Espera exponencial con jitter antes de reintentar un ajuste de stock.
+     */
+    private void esperarAntesDeReintentar(int intento, ConcurrencyFailureException causa) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L << intento));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw causa;
+        }
+    }
+
+    /**
+     * Convierte la fila devuelta por el UPDATE de stock en un Producto desacoplado.
+     */
+    private static Producto aProducto(ProductoRepository.ProductoFilaView fila) {
+        Producto producto = new Producto();
+        producto.setId(fila.getId());
+        producto.setCodigo(fila.getCodigo());
+        producto.setNombre(fila.getNombre());
+        producto.setDescripcion(fila.getDescripcion());
+        producto.setPrecioCompra(fila.getPrecioCompra());
+        producto.setPrecioVenta(fila.getPrecioVenta());
+        producto.setStock(fila.getStock());
+        producto.setStockMinimo(fila.getStockMinimo());
+        producto.setCategoria(fila.getCategoria() != null ? CategoriaProducto.valueOf(fila.getCategoria()) : null);
+        producto.setCreatedAt(fila.getCreatedAt());
+        producto.setUpdatedAt(fila.getUpdatedAt());
+        producto.setActivo(Boolean.TRUE.equals(fila.getActivo()));
+        producto.setVersion(fila.getVersion());
+        return producto;
+    }
+
+    /**
+     * Misma condición que el índice parcial y /bajo-stock: activo y stock menor al mínimo.
+     */
+    private static boolean esBajoStock(Integer stock, Integer stockMinimo, boolean activo) {
+        return activo && stock != null && stockMinimo != null && stock < stockMinimo;
+    }
+
+    /**
+     * Publica {@link StockUmbralCruzadoEvent} si el producto entró o salió de bajo stock.
+     */
+    private void publicarSiCruzaUmbral(boolean bajoStockAnterior, Producto producto) {
+        boolean bajoStock = esBajoStock(producto.getStock(), producto.getStockMinimo(), producto.isActivo());
+        if (bajoStock != bajoStockAnterior) {
+            eventPublisher.publishEvent(new StockUmbralCruzadoEvent(
+                TenantContext.getCurrentTenant(), producto.getId(), producto.getCodigo(), producto.getNombre(),
+                producto.getStock(), producto.getStockMinimo(), bajoStock));
+        }
+    }
+
+    /**
+     * Publica el cambio de un producto; los listeners (caché, índices) reaccionan
+     * al confirmarse la transacción.
+     */
+    private void publicarCambio(Long productoId, TipoCambio tipo, Producto producto) {
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(
+            TenantContext.getCurrentTenant(), productoId, tipo, producto));
+    }
 }
@@ -0,0 +1,237 @@
+package com.example.inventory_app.Services.Impl;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Services.ValorizacionInventarioService;
+import com.example.inventory_app.Services.VersionDatosService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementación de la valorización del inventario.
+ *
+ * La agregación se hace en PostgreSQL: una sola consulta agrupada por categoría
+ * (GROUPING SETS con el total) que sólo devuelve una fila por categoría, sin
+ * cargar productos en memoria. En catálogos grandes el planner la reparte entre
+ * workers (agregación paralela) sin ocupar más conexiones del pool.
+ *
+ * Para una fecha pasada el stock de cada producto sale del kardex: snapshot del
+ * mes + último movimiento hasta el cierre del día. Los montos usan los precios
+ * actuales (no hay historial de precios).
+ *
+ * El resultado se guarda en memoria por tenant y fecha junto con la versión de
+ * productos (VersionDatosService): se reutiliza hasta el siguiente cambio, y
+ * peticiones simultáneas de la misma valorización esperan un único cálculo.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class ValorizacionInventarioServiceImpl implements ValorizacionInventarioService {
+
+    private static final int MAX_ENTRADAS_CACHE = 500;
+
+    private static final LocalDateTime INICIO_HISTORIAL = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private static final String VALORIZAR_ACTUAL =
+        "SELECT categoria, count(*), sum(stock), sum(stock * precio_compra), sum(stock * precio_venta) " +
+        "FROM productos " +
+        "WHERE stock > 0 " +
+        "GROUP BY GROUPING SETS ((categoria), ()) " +
+        "ORDER BY categoria NULLS LAST";
+
+    private static final String ULTIMO_SNAPSHOT = "SELECT max(fecha) FROM stock_snapshots WHERE fecha <= ?";
+
+    /**
+     * Stock al cierre: snapshot + último movimiento (mayor id) de cada producto en [snapshot, cierre).
+     */
+    private static final String VALORIZAR_FECHA =
+        "WITH s AS ( " +
+        "  SELECT COALESCE(u.producto_id, b.producto_id) AS producto_id, " +
+        "         COALESCE(u.stock_resultante, b.stock) AS stock " +
+        "  FROM (SELECT producto_id, stock FROM stock_snapshots WHERE fecha = ?) b " +
+        "  FULL JOIN ( " +
+        "    SELECT DISTINCT ON (producto_id) producto_id, stock_resultante FROM movimientos_stock " +
+        "    WHERE fecha >= ? AND fecha < ? ORDER BY producto_id, id DESC " +
+        "  ) u ON u.producto_id = b.producto_id " +
+        ") " +
+        "SELECT p.categoria, count(*), sum(s.stock), sum(s.stock * p.precio_compra), " +
+        "       sum(s.stock * p.precio_venta) " +
+        "FROM s JOIN productos p ON p.id = s.producto_id " +
+        "WHERE s.stock > 0 " +
+        "GROUP BY GROUPING SETS ((p.categoria), ()) " +
+        "ORDER BY p.categoria NULLS LAST";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private VersionDatosService versionDatosService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<String, Valorizacion> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompletableFuture<Valorizacion>> enCurso = new ConcurrentHashMap<>();
+
+    /**
+     * Valorización calculada para una versión de los productos de un tenant.
+     */
+    private record Valorizacion(String version, Map<String, Object> datos, long generado) {
+    }
+
+    @Override
+    public Map<String, Object> valorizar(LocalDate fecha) {
+        LocalDate cierre = fecha == null || !fecha.isBefore(LocalDate.now()) ? null : fecha;
+        String clave = TenantContext.getCurrentTenant() + "|" + (cierre != null ? cierre : "actual");
+        String version = versionDatosService.calcularEtag("valorizacion", VersionDatosService.PRODUCTOS);
+
+        Valorizacion guardada = cache.get(clave);
+        if (guardada != null && guardada.version().equals(version)) {
+            return respuesta(guardada, true);
+        }
+
+        String claveCalculo = clave + "|" + version;
+        CompletableFuture<Valorizacion> futuro = new CompletableFuture<>();
+        CompletableFuture<Valorizacion> existente = enCurso.putIfAbsent(claveCalculo, futuro);
+        if (existente != null) {
+            try {
+                return respuesta(existente.join(), true);
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            Map<String, Object> datos = transactionTemplate.execute(estado ->
+                entityManager.unwrap(Session.class).doReturningWork(conexion -> calcular(conexion, cierre)));
+            Valorizacion nueva = new Valorizacion(version, datos, System.currentTimeMillis());
+            guardar(clave, nueva);
+            futuro.complete(nueva);
+            log.info("Valorización de inventario {} calculada en {} ms", clave, nueva.generado() - inicio);
+            return respuesta(nueva, false);
+        } catch (RuntimeException e) {
+            futuro.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(claveCalculo);
+        }
+    }
+
+    private Map<String, Object> calcular(Connection conexion, LocalDate cierre) throws SQLException {
+        List<Map<String, Object>> categorias = new ArrayList<>();
+        Map<String, Object> total = fila(null, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+
+        try (PreparedStatement ps = prepararConsulta(conexion, cierre); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String categoria = rs.getString(1);
+                Map<String, Object> valores = fila(categoria, rs.getLong(2), rs.getLong(3),
+                    valorOCero(rs.getBigDecimal(4)), valorOCero(rs.getBigDecimal(5)));
+                // La fila de GROUPING SETS sin categoría es el total
+                if (categoria == null) {
+                    total = valores;
+                } else {
+                    categorias.add(valores);
+                }
+            }
+        }
+        total.remove("categoria");
+
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("fecha", cierre);
+        datos.put("origenStock", cierre == null ? "actual" : "kardex");
+        datos.put("categorias", categorias);
+        datos.put("total", total);
+        return datos;
+    }
+
+    private PreparedStatement prepararConsulta(Connection conexion, LocalDate cierre) throws SQLException {
+        if (cierre == null) {
+            return conexion.prepareStatement(VALORIZAR_ACTUAL);
+        }
+
+        // Fin exclusivo: inicio del día siguiente
+        LocalDate finDia = cierre.plusDays(1);
+        Date snapshot = null;
+        try (PreparedStatement ps = conexion.prepareStatement(ULTIMO_SNAPSHOT)) {
+            ps.setDate(1, Date.valueOf(finDia));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    snapshot = rs.getDate(1);
+                }
+            }
+        }
+
+        PreparedStatement ps = conexion.prepareStatement(VALORIZAR_FECHA);
+        ps.setDate(1, snapshot);
+        ps.setTimestamp(2, Timestamp.valueOf(snapshot != null ? snapshot.toLocalDate().atStartOfDay() : INICIO_HISTORIAL));
+        ps.setTimestamp(3, Timestamp.valueOf(finDia.atStartOfDay()));
+        return ps;
+    }
+
+    private static Map<String, Object> fila(String categoria, long productos, long unidades,
+                                            BigDecimal valorCosto, BigDecimal valorVenta) {
+        BigDecimal margen = valorVenta.subtract(valorCosto);
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("categoria", categoria);
+        fila.put("productos", productos);
+        fila.put("unidades", unidades);
+        fila.put("valorCosto", valorCosto);
+        fila.put("valorVenta", valorVenta);
+        fila.put("margen", margen);
+        fila.put("margenPorcentaje", valorVenta.signum() == 0
+            ? BigDecimal.ZERO
+            : margen.multiply(BigDecimal.valueOf(100)).divide(valorVenta, 2, RoundingMode.HALF_UP));
+        return fila;
+    }
+
+    private static BigDecimal valorOCero(BigDecimal valor) {
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+
+    private void guardar(String clave, Valorizacion valorizacion) {
+        if (cache.size() >= MAX_ENTRADAS_CACHE && !cache.containsKey(clave)) {
+            // Se descarta la más vieja; se recalcula si se vuelve a pedir
+            cache.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().generado()))
+                .ifPresent(vieja -> cache.remove(vieja.getKey()));
+        }
+        cache.put(clave, valorizacion);
+    }
+
+    private static Map<String, Object> respuesta(Valorizacion valorizacion, boolean desdeCache) {
+        Map<String, Object> respuesta = new LinkedHashMap<>(valorizacion.datos());
+        respuesta.put("generado", LocalDateTime.ofInstant(Instant.ofEpochMilli(valorizacion.generado()),
+            ZoneId.systemDefault()));
+        respuesta.put("desdeCache", desdeCache);
+        return respuesta;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.inventory_app.Services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Interface para la importación masiva de productos (alta de catálogos grandes).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface ImportacionProductoService {
+
+    /**
+     * Importa productos desde un CSV o NDJSON leído en streaming.
+     * Las filas válidas se cargan con COPY a una tabla temporal y se insertan o
+     * actualizan (por código) en una sola sentencia; las inválidas se reportan.
+     *
+     * @param entrada Contenido del archivo
+     * @param formato "csv" o "ndjson"
+     * @param maxProductos Límite de productos del plan (-1 o null = ilimitado)
+     * @return Resumen (insertados, actualizados, sin cambios) y errores por fila
+     * @throws IOException si falla la lectura de la entrada
+     * @throws IllegalStateException si el lote supera el límite de productos del plan
+     */
+    Map<String, Object> importar(InputStream entrada, String formato, Integer maxProductos) throws IOException;
+}
@@ -0,0 +1,423 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.Cliente;
+import com.example.inventory_app.Repositories.ClienteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de prefijos en memoria para buscar clientes al facturar, por tenant.
+ *
+ * - Claves normalizadas (minúsculas, sin acentos): documento y teléfono (sólo
+ *   letras y dígitos) y cada palabra de nombre y apellido, en un conjunto
+ *   ordenado: los clientes cuyo dato empieza con un prefijo son un rango contiguo.
+ * - Se arma la primera vez que se busca en el tenant (una lectura de clientes)
+ *   y se mantiene con cada alta/edición/baja al confirmar su transacción.
+ * - Memoria acotada GLOBALMENTE: al superar el límite se descarta el índice del
+ *   tenant usado hace más tiempo (se vuelve a armar si se usa). Un tenant que
+ *   solo ya excede el límite no se indexa y sus búsquedas van a la BD.
+ * - La búsqueda en la BD normaliza igual que el índice (unaccent, minúsculas, sin
+ *   signos), así que encuentra los mismos clientes.
+ *
+ * Carrera armado/escritura: un cambio confirmado mientras se arma el índice
+ * espera a que termine y se aplica después (aplicarlo dos veces no cambia nada);
+ * uno confirmado antes de empezar ya está en la lectura de la BD.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class IndiceClientesService {
+
+    /**
+     * Costo fijo estimado por cliente (objeto, mapa por ID) y por clave (nodo de la skip list).
+     */
+    private static final int PESO_CLIENTE = 240;
+    private static final int PESO_CLAVE = 96;
+
+    /**
+     * Tope de claves recorridas por búsqueda (prefijos de una letra en tenants grandes).
+     */
+    private static final int MAX_CANDIDATOS = 2000;
+
+    private static final long REINTENTO_EXCEDIDO_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+
+    @Value("${clientes.indice.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${clientes.indice.habilitado:true}")
+    private boolean habilitado;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    private final ConcurrentMap<String, IndiceTenant> indices = new ConcurrentHashMap<>();
+
+    private final LongAdder busquedas = new LongAdder();
+    private final LongAdder busquedasEnBd = new LongAdder();
+    private final LongAdder armados = new LongAdder();
+    private final LongAdder descartes = new LongAdder();
+
+    /**
+     * Dato del cliente por el que coincidió la búsqueda, en orden de prioridad.
+     */
+    public enum Campo { DOCUMENTO, TELEFONO, APELLIDO, NOMBRE }
+
+    /**
+     * Cliente sugerido para el autocompletado.
+     */
+    public record Sugerencia(Long id, String nombre, String apellido, String documento,
+                             String telefono, Campo coincidencia) {
+    }
+
+    /**
+     * Clave del índice: texto normalizado de un dato de un cliente.
+     */
+    private record Clave(String texto, long clienteId, Campo campo) {
+    }
+
+    private static final Comparator<Clave> ORDEN_CLAVES = Comparator.comparing(Clave::texto)
+        .thenComparingLong(Clave::clienteId)
+        .thenComparing(Clave::campo);
+
+    /**
+     * Cliente indexado con sus claves (para quitarlas al editarlo o borrarlo).
+     */
+    private record ClienteIndexado(Long id, String nombre, String apellido, String documento,
+                                   String telefono, boolean activo, List<Clave> claves, int peso) {
+    }
+
+    /**
+     * Sugerencias de clientes activos del tenant actual cuyos datos empiezan con
+     * las palabras buscadas (todas deben coincidir, en cualquier dato).
+     * Orden: coincidencia exacta, luego documento, teléfono, apellido y nombre.
+     *
+     * Sin índice disponible (deshabilitado o tenant demasiado grande) busca en la BD.
+     */
+    public List<Sugerencia> sugerir(String busqueda, int limite) {
+        busquedas.increment();
+        List<String> palabras = palabras(busqueda);
+        if (palabras.isEmpty()) {
+            return List.of();
+        }
+        String primera = palabras.get(0);
+        IndiceTenant indice = habilitado ? obtener(TenantContext.getCurrentTenant()) : null;
+
+        // Mejor clave de cada candidato para la primera palabra; las demás filtran
+        Map<Long, Clave> mejores = new LinkedHashMap<>();
+        Map<Long, ClienteIndexado> candidatos;
+        if (indice != null) {
+            indice.ultimoUso = System.currentTimeMillis();
+            candidatos = indice.clientes;
+            int recorridas = 0;
+            for (Clave clave : rango(indice.claves, primera)) {
+                if (++recorridas > MAX_CANDIDATOS) {
+                    break;
+                }
+                mejores.merge(clave.clienteId(), clave, (a, b) -> comparar(a, b, primera) <= 0 ? a : b);
+            }
+        } else {
+            busquedasEnBd.increment();
+            candidatos = new HashMap<>();
+            for (Cliente cliente : clienteRepository.buscarPorPrefijo(primera + "%", "% " + primera + "%",
+                    MAX_CANDIDATOS)) {
+                ClienteIndexado indexado = indexar(cliente);
+                candidatos.put(indexado.id(), indexado);
+                indexado.claves().stream()
+                    .filter(clave -> clave.texto().startsWith(primera))
+                    .min((a, b) -> comparar(a, b, primera))
+                    .ifPresent(clave -> mejores.put(indexado.id(), clave));
+            }
+        }
+
+        List<Map.Entry<ClienteIndexado, Clave>> encontrados = new ArrayList<>();
+        for (Map.Entry<Long, Clave> mejor : mejores.entrySet()) {
+            ClienteIndexado cliente = candidatos.get(mejor.getKey());
+            if (cliente != null && cliente.activo() && coincideConTodas(cliente, palabras)) {
+                encontrados.add(Map.entry(cliente, mejor.getValue()));
+            }
+        }
+        encontrados.sort(Comparator
+            .<Map.Entry<ClienteIndexado, Clave>, Clave>comparing(Map.Entry::getValue, (a, b) -> comparar(a, b, primera))
+            .thenComparing(e -> e.getKey().apellido(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(e -> e.getKey().nombre(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+        return encontrados.stream()
+            .limit(limite)
+            .map(e -> new Sugerencia(e.getKey().id(), e.getKey().nombre(), e.getKey().apellido(),
+                e.getKey().documento(), e.getKey().telefono(), e.getValue().campo()))
+            .toList();
+    }
+
+    /**
+     * Actualiza un cliente en el índice de su tenant al confirmar la transacción actual.
+     */
+    public void actualizar(Cliente cliente) {
+        if (cliente == null || cliente.getId() == null) {
+            return;
+        }
+        String tenant = TenantContext.getCurrentTenant();
+        ClienteIndexado indexado = indexar(cliente);
+        alConfirmar(() -> aplicar(tenant, indexado.id(), indexado));
+    }
+
+    /**
+     * Quita un cliente del índice de su tenant al confirmar la transacción actual.
+     */
+    public void quitar(Long clienteId) {
+        String tenant = TenantContext.getCurrentTenant();
+        alConfirmar(() -> aplicar(tenant, clienteId, null));
+    }
+
+    /**
+     * Estadísticas del índice.
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> porTenant = new TreeMap<>();
+        long peso = 0;
+        for (Map.Entry<String, IndiceTenant> e : indices.entrySet()) {
+            IndiceTenant indice = e.getValue();
+            if (indice.listo) {
+                porTenant.put(e.getKey(), Map.of("clientes", indice.clientes.size(), "pesoBytes", indice.peso));
+                peso += indice.peso;
+            }
+        }
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("habilitado", habilitado);
+        estadisticas.put("pesoBytes", peso);
+        estadisticas.put("maxBytes", maxBytes);
+        estadisticas.put("busquedas", busquedas.sum());
+        estadisticas.put("busquedasEnBd", busquedasEnBd.sum());
+        estadisticas.put("armados", armados.sum());
+        estadisticas.put("descartes", descartes.sum());
+        estadisticas.put("tenants", porTenant);
+        return estadisticas;
+    }
+
+    /**
+     * Índice listo del tenant; lo arma si todavía no existe.
+     */
+    private IndiceTenant obtener(String tenant) {
+        IndiceTenant indice = indices.computeIfAbsent(tenant, t -> new IndiceTenant());
+        if (indice.listo) {
+            return indice;
+        }
+        synchronized (indice) {
+            if (!indice.listo && System.currentTimeMillis() >= indice.noArmarHasta) {
+                armar(tenant, indice);
+            }
+            return indice.listo ? indice : null;
+        }
+    }
+
+    /**
+     * Arma el índice desde la BD. Se llama con el monitor del índice tomado.
+     */
+    private void armar(String tenant, IndiceTenant indice) {
+        long inicio = System.currentTimeMillis();
+        List<ClienteIndexado> clientes = clienteRepository.findAll().stream().map(IndiceClientesService::indexar).toList();
+
+        long peso = clientes.stream().mapToLong(ClienteIndexado::peso).sum();
+        if (peso > maxBytes) {
+            indice.noArmarHasta = System.currentTimeMillis() + REINTENTO_EXCEDIDO_MS;
+            log.warn("Índice de clientes de {} no armado: {} bytes estimados superan el límite de {}",
+                tenant, peso, maxBytes);
+            return;
+        }
+
+        clientes.forEach(cliente -> poner(indice, cliente));
+        indice.ultimoUso = System.currentTimeMillis();
+        indice.listo = true;
+        armados.increment();
+        log.info("Índice de clientes de {} armado: {} clientes en {} ms",
+            tenant, indice.clientes.size(), System.currentTimeMillis() - inicio);
+        desalojarExcedente(tenant);
+    }
+
+    private void aplicar(String tenant, Long id, ClienteIndexado cliente) {
+        IndiceTenant indice = indices.get(tenant);
+        if (indice == null) {
+            return;
+        }
+        // Si se está armando, espera al monitor; si todavía no se armó, lo leerá de la BD
+        synchronized (indice) {
+            if (indice.listo) {
+                reemplazar(indice, id, cliente);
+            }
+        }
+    }
+
+    private static void reemplazar(IndiceTenant indice, Long id, ClienteIndexado cliente) {
+        ClienteIndexado anterior = indice.clientes.remove(id);
+        if (anterior != null) {
+            anterior.claves().forEach(indice.claves::remove);
+            indice.peso -= anterior.peso();
+        }
+        if (cliente != null) {
+            poner(indice, cliente);
+        }
+    }
+
+    private static void poner(IndiceTenant indice, ClienteIndexado cliente) {
+        indice.clientes.put(cliente.id(), cliente);
+        indice.claves.addAll(cliente.claves());
+        indice.peso += cliente.peso();
+    }
+
+    /**
+     * Descarta los índices usados hace más tiempo (salvo el del tenant recién armado)
+     * hasta respetar el límite global.
+     */
+    private void desalojarExcedente(String tenantActual) {
+        long total = indices.values().stream().filter(i -> i.listo).mapToLong(i -> i.peso).sum();
+        while (total > maxBytes) {
+            Map.Entry<String, IndiceTenant> masViejo = indices.entrySet().stream()
+                .filter(e -> e.getValue().listo && !e.getKey().equals(tenantActual))
+                .min(Comparator.comparingLong(e -> e.getValue().ultimoUso))
+                .orElse(null);
+            if (masViejo == null) {
+                return;
+            }
+            indices.remove(masViejo.getKey(), masViejo.getValue());
+            total -= masViejo.getValue().peso;
+            descartes.increment();
+        }
+    }
+
+    private static ClienteIndexado indexar(Cliente cliente) {
+        List<Clave> claves = new ArrayList<>();
+        long id = cliente.getId();
+        agregarClave(claves, compacto(cliente.getDocumento()), id, Campo.DOCUMENTO);
+        agregarClave(claves, compacto(cliente.getTelefono()), id, Campo.TELEFONO);
+        palabras(cliente.getApellido()).forEach(palabra -> agregarClave(claves, palabra, id, Campo.APELLIDO));
+        palabras(cliente.getNombre()).forEach(palabra -> agregarClave(claves, palabra, id, Campo.NOMBRE));
+
+        int caracteres = claves.stream().mapToInt(clave -> clave.texto().length()).sum()
+            + longitud(cliente.getNombre()) + longitud(cliente.getApellido())
+            + longitud(cliente.getDocumento()) + longitud(cliente.getTelefono());
+        // Se asume el peor caso UTF-16 (2 bytes por carácter)
+        int peso = PESO_CLIENTE + claves.size() * PESO_CLAVE + caracteres * 2;
+        return new ClienteIndexado(cliente.getId(), cliente.getNombre(), cliente.getApellido(),
+            cliente.getDocumento(), cliente.getTelefono(), cliente.isActivo(), List.copyOf(claves), peso);
+    }
+
+    private static void agregarClave(List<Clave> claves, String texto, long id, Campo campo) {
+        if (texto != null && !texto.isEmpty()) {
+            claves.add(new Clave(texto, id, campo));
+        }
+    }
+
+    /**
+     * Claves que empiezan con el prefijo (rango contiguo del conjunto ordenado).
+     */
+    private static NavigableSet<Clave> rango(ConcurrentSkipListSet<Clave> claves, String prefijo) {
+        return claves.subSet(new Clave(prefijo, Long.MIN_VALUE, Campo.DOCUMENTO), true,
+            new Clave(prefijo + Character.MAX_VALUE, Long.MIN_VALUE, Campo.DOCUMENTO), false);
+    }
+
+    private static boolean coincideConTodas(ClienteIndexado cliente, List<String> palabras) {
+        for (int i = 1; i < palabras.size(); i++) {
+            String palabra = palabras.get(i);
+            if (cliente.claves().stream().noneMatch(clave -> clave.texto().startsWith(palabra))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mejor coincidencia primero: exacta, por prioridad del dato y más corta.
+     */
+    private static int comparar(Clave a, Clave b, String buscado) {
+        boolean exactaA = a.texto().equals(buscado);
+        boolean exactaB = b.texto().equals(buscado);
+        if (exactaA != exactaB) {
+            return exactaA ? -1 : 1;
+        }
+        int porCampo = a.campo().compareTo(b.campo());
+        return porCampo != 0 ? porCampo : Integer.compare(a.texto().length(), b.texto().length());
+    }
+
+    /**
+     * Palabras normalizadas de un texto (minúsculas, sin acentos ni signos).
+     */
+    private static List<String> palabras(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        List<String> palabras = new ArrayList<>();
+        for (String palabra : NO_ALFANUMERICO.split(sinAcentos(texto))) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    /**
+     * Documento o teléfono sin espacios, puntos ni guiones.
+     */
+    private static String compacto(String texto) {
+        return texto == null ? null : NO_ALFANUMERICO.matcher(sinAcentos(texto)).replaceAll("");
+    }
+
+    private static String sinAcentos(String texto) {
+        return ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static int longitud(String texto) {
+        return texto != null ? texto.length() : 0;
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Índice de un tenant. Las búsquedas leen sin bloquear; armado y cambios
+     * se hacen con el monitor del propio índice.
+     */
+    private static final class IndiceTenant {
+        private final ConcurrentSkipListSet<Clave> claves = new ConcurrentSkipListSet<>(ORDEN_CLAVES);
+        private final ConcurrentMap<Long, ClienteIndexado> clientes = new ConcurrentHashMap<>();
+        private volatile boolean listo;
+        private volatile long ultimoUso;
+        private volatile long peso;
+        private long noArmarHasta;
+    }
+}
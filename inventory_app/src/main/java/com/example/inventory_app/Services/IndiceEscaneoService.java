@@ -0,0 +1,455 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.Producto;
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import com.example.inventory_app.Repositories.ProductoRepository;
+import com.example.inventory_app.Repositories.ProductoRepository.ProductoEscaneoView;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Índice en memoria para el escaneo de códigos de barras en el POS.
+ *
+ * Por cada tenant mantiene una tabla hash de direccionamiento abierto con arreglos
+ * paralelos (código, nombre, id, precio en centavos, stock, activo): sin objetos por
+ * producto ni boxing, y lecturas con lectura optimista de StampedLock (sin bloqueo
+ * en el caso normal).
+ *
+ * Los eventos de dos commits concurrentes pueden llegar en cualquier orden: cada
+ * posición guarda la versión del producto y se ignoran los cambios más viejos.
+ *
+ * Ciclo de vida:
+ * - Se precarga en segundo plano cuando un empleado del tenant inicia sesión.
+ * - Se mantiene al día con {@link ProductoCambiadoEvent} (después del commit).
+ * - Mientras no está cargado, el endpoint de escaneo usa la ruta normal (caché/BD).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class IndiceEscaneoService {
+
+    private static final int CAPACIDAD_MINIMA = 64;
+    private static final int LOTE_CARGA = 2048;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private final ConcurrentMap<String, IndiceTenant> indices = new ConcurrentHashMap<>();
+
+    private final ExecutorService cargador = Executors.newFixedThreadPool(2, r -> {
+        Thread hilo = new Thread(r, "indice-escaneo");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder sinIndice = new LongAdder();
+
+    /**
+     * Producto tal como lo necesita la pantalla de caja.
+     */
+    public record ProductoEscaneo(long id, String codigo, String nombre, BigDecimal precioVenta,
+                                  int stock, boolean activo) { }
+
+    /**
+     * Inicia la carga del índice del tenant si todavía no existe (no bloquea).
+     *
+     * @param tenant Schema del tenant
+     */
+    public void precargar(String tenant) {
+        if (tenant == null || "public".equals(tenant)) {
+            return;
+        }
+        IndiceTenant nuevo = new IndiceTenant();
+        if (indices.putIfAbsent(tenant, nuevo) != null) {
+            return;
+        }
+        cargador.execute(() -> cargar(tenant, nuevo));
+    }
+
+    /**
+     * @return true si el índice del tenant está completamente cargado
+     */
+    public boolean estaCargado(String tenant) {
+        IndiceTenant indice = indices.get(tenant);
+        return indice != null && indice.cargado;
+    }
+
+    /**
+     * Busca un producto por código en el índice del tenant.
+     *
+     * @return Producto o null si no existe o el índice no está cargado
+     *         (usar {@link #estaCargado(String)} para distinguir)
+     */
+    public ProductoEscaneo buscar(String tenant, String codigo) {
+        consultas.increment();
+        IndiceTenant indice = indices.get(tenant);
+        if (indice == null || !indice.cargado) {
+            sinIndice.increment();
+            return null;
+        }
+        ProductoEscaneo producto = indice.buscar(codigo);
+        if (producto != null) {
+            aciertos.increment();
+        }
+        return producto;
+    }
+
+    /**
+     * Aplica los cambios confirmados de productos al índice del tenant (si existe).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoCambiado(ProductoCambiadoEvent evento) {
+        IndiceTenant indice = indices.get(evento.getTenant());
+        if (indice == null) {
+            return;
+        }
+
+        if (evento.esCatalogoCompleto()) {
+            // Cambio masivo: se descarta el índice y se vuelve a cargar
+            indices.remove(evento.getTenant(), indice);
+            precargar(evento.getTenant());
+            return;
+        }
+
+        Producto producto = evento.getProducto();
+        switch (evento.getTipo()) {
+            case ELIMINADO -> indice.eliminarPorId(evento.getProductoId());
+            // Un cambio de stock no modifica el código: basta con actualizar la posición
+            case STOCK -> indice.poner(producto);
+            // Actualización general: el código pudo cambiar, se reemplaza la posición anterior
+            default -> indice.reemplazar(producto);
+        }
+
+        Set<Long> tocados = indice.tocadosDuranteCarga;
+        if (tocados != null) {
+            tocados.add(evento.getProductoId());
+        }
+    }
+
+    /**
+     * Estadísticas del índice.
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Integer> productosPorTenant = new HashMap<>();
+        indices.forEach((tenant, indice) -> productosPorTenant.put(tenant, indice.tamano()));
+
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("tenants", indices.size());
+        estadisticas.put("productosPorTenant", productosPorTenant);
+        estadisticas.put("consultas", consultas.sum());
+        estadisticas.put("aciertos", aciertos.sum());
+        estadisticas.put("consultasSinIndice", sinIndice.sum());
+        return estadisticas;
+    }
+
+    @PreDestroy
+    public void detener() {
+        cargador.shutdownNow();
+    }
+
+    private void cargar(String tenant, IndiceTenant indice) {
+        long inicio = System.currentTimeMillis();
+        try {
+            List<ProductoEscaneoView> productos = TenantContext.ejecutarEnTenant(
+                    tenant, productoRepository::findAllParaEscaneo);
+
+            for (int desde = 0; desde < productos.size(); desde += LOTE_CARGA) {
+                indice.cargarLote(productos.subList(desde, Math.min(desde + LOTE_CARGA, productos.size())));
+            }
+            indice.tocadosDuranteCarga = null;
+            indice.cargado = true;
+
+            log.info("Índice de escaneo cargado para {}: {} productos en {} ms",
+                    tenant, indice.tamano(), System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("Error al cargar índice de escaneo para {}: {}", tenant, e.getMessage());
+            indices.remove(tenant, indice);
+        }
+    }
+
+    private static long aCentavos(BigDecimal precio) {
+        return precio == null ? 0L : precio.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static long version(Long version) {
+        return version != null ? version : 0L;
+    }
+
+    private static int hash(String codigo) {
+        int h = codigo.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Arreglos paralelos de una tabla. Se reemplazan juntos al redimensionar,
+     * así una lectura optimista nunca mezcla arreglos de tamaños distintos.
+     */
+    private static final class Tabla {
+        private final String[] codigos;
+        private final String[] nombres;
+        private final long[] ids;
+        private final long[] precios;
+        private final int[] stocks;
+        private final boolean[] activos;
+        private final long[] versiones;
+        private final int mascara;
+
+        private Tabla(int capacidad) {
+            codigos = new String[capacidad];
+            nombres = new String[capacidad];
+            ids = new long[capacidad];
+            precios = new long[capacidad];
+            stocks = new int[capacidad];
+            activos = new boolean[capacidad];
+            versiones = new long[capacidad];
+            mascara = capacidad - 1;
+        }
+    }
+
+    /**
+     * Índice de un tenant: direccionamiento abierto con sondeo lineal y factor de carga ≤ 0.5.
+     */
+    private static final class IndiceTenant {
+        private final StampedLock lock = new StampedLock();
+        private volatile Tabla tabla = new Tabla(CAPACIDAD_MINIMA);
+        private int tamano;
+
+        private volatile boolean cargado;
+
+        /**
+         * IDs modificados por eventos mientras se ejecutaba la carga inicial:
+         * sus filas de la carga (más viejas) se ignoran.
+         */
+        private volatile Set<Long> tocadosDuranteCarga = ConcurrentHashMap.newKeySet();
+
+        private ProductoEscaneo buscar(String codigo) {
+            int h = hash(codigo);
+            long stamp = lock.tryOptimisticRead();
+            ProductoEscaneo resultado = leer(codigo, h);
+            if (lock.validate(stamp)) {
+                return resultado;
+            }
+            stamp = lock.readLock();
+            try {
+                return leer(codigo, h);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private ProductoEscaneo leer(String codigo, int h) {
+            Tabla t = tabla;
+            for (int i = h & t.mascara, n = 0; n <= t.mascara; i = (i + 1) & t.mascara, n++) {
+                String actual = t.codigos[i];
+                if (actual == null) {
+                    return null;
+                }
+                if (actual.equals(codigo)) {
+                    return new ProductoEscaneo(t.ids[i], actual, t.nombres[i],
+                            BigDecimal.valueOf(t.precios[i], 2), t.stocks[i], t.activos[i]);
+                }
+            }
+            return null;
+        }
+
+        private void poner(Producto producto) {
+            if (producto == null || producto.getCodigo() == null || producto.getId() == null) {
+                return;
+            }
+            long stamp = lock.writeLock();
+            try {
+                ponerSinBloqueo(producto);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Reemplaza la posición del producto (buscándola por ID, el código pudo cambiar)
+         * salvo que el índice ya tenga una versión más nueva.
+         */
+        private void reemplazar(Producto producto) {
+            if (producto == null || producto.getCodigo() == null || producto.getId() == null) {
+                return;
+            }
+            long stamp = lock.writeLock();
+            try {
+                Tabla t = tabla;
+                int posicion = posicionDeId(t, producto.getId());
+                if (posicion >= 0) {
+                    if (t.versiones[posicion] > version(producto.getVersion())) {
+                        return;
+                    }
+                    eliminarPosicion(t, posicion);
+                }
+                ponerSinBloqueo(producto);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void ponerSinBloqueo(Producto producto) {
+            ponerSinBloqueo(producto.getId(), producto.getCodigo(), producto.getNombre(),
+                    aCentavos(producto.getPrecioVenta()),
+                    producto.getStock() != null ? producto.getStock() : 0,
+                    producto.isActivo(), version(producto.getVersion()));
+        }
+
+        private void cargarLote(List<ProductoEscaneoView> lote) {
+            Set<Long> tocados = tocadosDuranteCarga;
+            long stamp = lock.writeLock();
+            try {
+                for (ProductoEscaneoView p : lote) {
+                    if (p.getCodigo() == null || (tocados != null && tocados.contains(p.getId()))) {
+                        continue;
+                    }
+                    ponerSinBloqueo(p.getId(), p.getCodigo(), p.getNombre(), aCentavos(p.getPrecioVenta()),
+                            p.getStock() != null ? p.getStock() : 0, Boolean.TRUE.equals(p.getActivo()),
+                            version(p.getVersion()));
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void ponerSinBloqueo(long id, String codigo, String nombre, long precio, int stock,
+                                     boolean activo, long version) {
+            if ((tamano + 1) * 2 > tabla.codigos.length) {
+                redimensionar(tabla.codigos.length * 2);
+            }
+            Tabla t = tabla;
+            int i = hash(codigo) & t.mascara;
+            while (t.codigos[i] != null && !t.codigos[i].equals(codigo)) {
+                i = (i + 1) & t.mascara;
+            }
+            if (t.codigos[i] == null) {
+                tamano++;
+            } else if (t.versiones[i] > version) {
+                // Evento atrasado: el índice ya tiene un estado más nuevo
+                return;
+            }
+            t.codigos[i] = codigo;
+            t.nombres[i] = nombre;
+            t.ids[i] = id;
+            t.precios[i] = precio;
+            t.stocks[i] = stock;
+            t.activos[i] = activo;
+            t.versiones[i] = version;
+        }
+
+        /**
+         * Elimina por ID recorriendo la tabla. Sólo se usa en altas/bajas/ediciones
+         * (poco frecuentes); los cambios de stock actualizan por código.
+         */
+        private void eliminarPorId(Long id) {
+            if (id == null) {
+                return;
+            }
+            long stamp = lock.writeLock();
+            try {
+                Tabla t = tabla;
+                int posicion = posicionDeId(t, id);
+                if (posicion >= 0) {
+                    eliminarPosicion(t, posicion);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private int posicionDeId(Tabla t, long id) {
+            for (int i = 0; i <= t.mascara; i++) {
+                if (t.codigos[i] != null && t.ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Borrado con desplazamiento hacia atrás: no deja lápidas, así las
+         * búsquedas siguen cortando en la primera posición vacía.
+         */
+        private void eliminarPosicion(Tabla t, int hueco) {
+            int j = hueco;
+            while (true) {
+                j = (j + 1) & t.mascara;
+                if (t.codigos[j] == null) {
+                    break;
+                }
+                int ideal = hash(t.codigos[j]) & t.mascara;
+                boolean quedaEntre = hueco <= j
+                        ? (hueco < ideal && ideal <= j)
+                        : (hueco < ideal || ideal <= j);
+                if (quedaEntre) {
+                    continue;
+                }
+                t.codigos[hueco] = t.codigos[j];
+                t.nombres[hueco] = t.nombres[j];
+                t.ids[hueco] = t.ids[j];
+                t.precios[hueco] = t.precios[j];
+                t.stocks[hueco] = t.stocks[j];
+                t.activos[hueco] = t.activos[j];
+                t.versiones[hueco] = t.versiones[j];
+                hueco = j;
+            }
+            t.codigos[hueco] = null;
+            t.nombres[hueco] = null;
+            tamano--;
+        }
+
+        private void redimensionar(int capacidad) {
+            Tabla vieja = tabla;
+            Tabla nueva = new Tabla(capacidad);
+            for (int i = 0; i <= vieja.mascara; i++) {
+                String codigo = vieja.codigos[i];
+                if (codigo == null) {
+                    continue;
+                }
+                int j = hash(codigo) & nueva.mascara;
+                while (nueva.codigos[j] != null) {
+                    j = (j + 1) & nueva.mascara;
+                }
+                nueva.codigos[j] = codigo;
+                nueva.nombres[j] = vieja.nombres[i];
+                nueva.ids[j] = vieja.ids[i];
+                nueva.precios[j] = vieja.precios[i];
+                nueva.stocks[j] = vieja.stocks[i];
+                nueva.activos[j] = vieja.activos[i];
+                nueva.versiones[j] = vieja.versiones[i];
+            }
+            tabla = nueva;
+        }
+
+        private int tamano() {
+            long stamp = lock.readLock();
+            try {
+                return tamano;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Entities.TipoMovimientoStock;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Interface para el kardex: historial de movimientos de stock por producto.
+ *
+ * Los movimientos sólo se insertan (nunca se modifican) y se escriben en bloque
+ * al confirmar la transacción que cambió el stock.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface MovimientoStockService {
+
+    /**
+     * Registra un movimiento de stock. Dentro de una transacción se acumula y se
+     * inserta junto con los demás movimientos de esa transacción antes del commit;
+     * si la transacción se revierte, el movimiento no queda registrado.
+     * @param productoId ID del producto
+     * @param tipo Origen del movimiento
+     * @param cantidad Variación del stock (positiva entra, negativa sale)
+     * @param stockResultante Stock del producto después del movimiento
+     * @param referencia Referencia opcional (ej: número de factura)
+     */
+    void registrar(Long productoId, TipoMovimientoStock tipo, int cantidad, int stockResultante, String referencia);
+
+    /**
+     * Stock de un producto en un momento dado.
+     * @param productoId ID del producto
+     * @param fecha Momento consultado (inclusive)
+     * @return Stock en esa fecha; "stock" es null si el kardex no tiene historial anterior
+     */
+    Map<String, Object> obtenerStockEnFecha(Long productoId, LocalDateTime fecha);
+
+    /**
+     * Movimientos de un producto en un rango, con el stock al inicio y al final.
+     * @param productoId ID del producto
+     * @param desde Inicio del rango (inclusive)
+     * @param hasta Fin del rango (exclusivo)
+     * @param limite Cantidad máxima de movimientos
+     * @return Stock inicial, stock final y movimientos en orden cronológico
+     */
+    Map<String, Object> obtenerMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta, int limite);
+
+    /**
+     * Mantenimiento periódico de todas las empresas: crea las particiones mensuales
+     * siguientes y el snapshot de stock del mes actual.
+     */
+    void mantenerKardex();
+}
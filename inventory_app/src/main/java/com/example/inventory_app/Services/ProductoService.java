@@ -1,9 +1,14 @@
 package com.example.inventory_app.Services;
 
 import com.example.inventory_app.Entities.Producto;
+import com.example.inventory_app.Entities.TipoMovimientoStock;
+import com.example.inventory_app.Repositories.ProductoRepository;
+import com.example.inventory_app.Repositories.ProductoRepositoryCustom;
 import com.example.inventory_app.Entities.CategoriaProducto;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,6 +32,23 @@ public interface ProductoService {
      * @return Optional con el producto si existe
      */
     Optional<Producto> findById(Long id);
+
+    /**
+     * Busca varios productos por ID: los que no están en la caché de catálogo
+     * se leen en una sola consulta.
+     * @param ids IDs de los productos
+     * @return Productos encontrados por ID (los inexistentes no aparecen)
+     */
+    Map<Long, Producto> findByIds(Collection<Long> ids);
+
+    /**
+     * Busca productos por ID y por código a la vez (ej: lecturas de escáner):
+     * los que no están en la caché de catálogo se leen en una sola consulta.
+     * @param ids IDs de los productos
+     * @param codigos Códigos de los productos
+     * @return Productos encontrados (sin repetir)
+     */
+    List<Producto> findByIdsOCodigos(Collection<Long> ids, Collection<String> codigos);
     
     /**
      * Busca un producto por su código.
@@ -78,6 +100,12 @@ public interface ProductoService {
      * @return Lista de productos con stock bajo
      */
     List<Producto> findProductosConBajoStock();
+
+    /**
+     * Cuenta los productos con stock bajo el mínimo (sin cargarlos).
+     * @return Cantidad de productos con bajo stock
+     */
+    long contarProductosConBajoStock();
     
     /**
      * Busca productos por rango de precios.
@@ -94,4 +122,44 @@ public interface ProductoService {
      * @return Producto actualizado
      */
     Producto actualizarStock(Long id, int cantidad);
+
+    /**
+     * Actualiza el stock de un producto registrando el origen en el kardex.
+     * @param id ID del producto
+     * @param cantidad Cantidad a agregar (positiva) o restar (negativa)
+     * @param tipo Origen del movimiento (venta, anulación, ajuste...)
+     * @param referencia Referencia opcional del movimiento (ej: número de factura)
+     * @return Producto actualizado
+     */
+    Producto actualizarStock(Long id, int cantidad, TipoMovimientoStock tipo, String referencia);
+
+    /**
+     * Búsqueda rankeada (typeahead) por nombre, código y descripción.
+     * @param texto Texto ingresado por el usuario
+     * @param limite Máximo de resultados
+     * @return Resultados ordenados por relevancia (vacío si el texto es muy corto)
+     */
+    List<ProductoRepository.ProductoBusquedaView> buscar(String texto, int limite);
+
+    /**
+     * Página de productos con paginación por clave (cursor) y selección de campos.
+     * @param campos Campos separados por coma (null = todos)
+     * @param orden id | -id | nombre | -nombre (null = id)
+     * @param cursor Cursor devuelto por la página anterior (null = primera página)
+     * @param limite Tamaño de página
+     * @param filtro Filtros opcionales (categoría, activo, precio, stock)
+     * @return productos, siguienteCursor (null en la última página), campos y orden
+     * @throws IllegalArgumentException si un campo, el orden o el cursor no son válidos
+     */
+    Map<String, Object> listarPagina(String campos, String orden, String cursor, int limite,
+                                     ProductoRepositoryCustom.FiltroProductos filtro);
+
+    /**
+     * Exploración del catálogo: una página de productos activos más los conteos por
+     * categoría, rango de precio y con/sin stock (una sola consulta para las facetas).
+     * @return Lo mismo que listarPagina más facetas y totalCoincidencias
+     * @throws IllegalArgumentException si un campo, el orden o el cursor no son válidos
+     */
+    Map<String, Object> explorar(String campos, String orden, String cursor, int limite,
+                                 ProductoRepositoryCustom.FiltroProductos filtro);
 }
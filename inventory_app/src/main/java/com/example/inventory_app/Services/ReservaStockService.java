@@ -0,0 +1,391 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.CarritoCompra;
+import com.example.inventory_app.Entities.Empresa;
+import com.example.inventory_app.Repositories.CarritoCompraRepository;
+import com.example.inventory_app.Repositories.EmpresaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Libro de reservas de stock de los carritos, por tenant.
+ *
+ * Agregar un producto al carrito reserva la cantidad por un tiempo (TTL). El stock
+ * disponible para los demás carritos es el stock menos las reservas vigentes de otros
+ * empleados, así dos carritos no pueden tomar las mismas últimas unidades.
+ *
+ * Vencimientos: rueda de tiempo (timing wheel) de {@value #RANURAS} ranuras de 1 segundo.
+ * Cada segundo se procesa una sola ranura; no se consulta la BD ni se recorren todas
+ * las reservas. Una reserva renovada deja su entrada vieja en la rueda, que se descarta
+ * al comparar el vencimiento.
+ *
+ * Persistencia: la reserva ES el item del carrito (cantidad) más su columna
+ * reservado_hasta; al arrancar se reconstruye el libro desde esas filas.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class ReservaStockService {
+
+    private static final int RANURAS = 512;
+    private static final long MS_POR_TICK = 1000L;
+
+    @Value("${carrito.reserva.ttl-minutos:15}")
+    private long ttlMinutos;
+
+    @Autowired
+    private CarritoCompraRepository carritoRepository;
+
+    @Autowired
+    private EmpresaRepository empresaRepository;
+
+    private final ConcurrentMap<String, LibroTenant> libros = new ConcurrentHashMap<>();
+
+    /**
+     * Rueda de vencimientos. Protegida por su propio monitor.
+     */
+    private final List<ArrayDeque<EntradaRueda>> rueda = new ArrayList<>(RANURAS);
+
+    private long tickActual;
+
+    private ScheduledExecutorService reloj;
+
+    private final LongAdder reservasRealizadas = new LongAdder();
+    private final LongAdder reservasRechazadas = new LongAdder();
+    private final LongAdder reservasVencidas = new LongAdder();
+
+    @PostConstruct
+    public void iniciar() {
+        for (int i = 0; i < RANURAS; i++) {
+            rueda.add(new ArrayDeque<>());
+        }
+        reloj = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "reservas-stock");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        reloj.scheduleAtFixedRate(this::avanzar, MS_POR_TICK, MS_POR_TICK, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        reloj.shutdownNow();
+    }
+
+    /**
+     * Reserva (o cambia) la cantidad de un producto para el carrito de un empleado.
+     * La cantidad es absoluta: reemplaza la reserva anterior del mismo empleado.
+     * Si la transacción actual se revierte, se restaura la reserva anterior.
+     *
+     * @param stock Stock actual del producto
+     * @return Fecha de vencimiento de la reserva
+     * @throws RuntimeException si el stock no reservado por otros no alcanza
+     */
+    public Date reservar(Long productoId, Long empleadoId, int cantidad, int stock) {
+        String tenant = TenantContext.getCurrentTenant();
+        LibroTenant libro = libros.computeIfAbsent(tenant, t -> new LibroTenant());
+        long expiraEn = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ttlMinutos);
+
+        Reserva anterior;
+        Reserva nueva;
+        synchronized (libro) {
+            int disponible = stock - libro.reservadoPorOtros(productoId, empleadoId);
+            if (disponible < cantidad) {
+                reservasRechazadas.increment();
+                throw new RuntimeException("Stock insuficiente. Disponible: " + Math.max(disponible, 0));
+            }
+            nueva = new Reserva(tenant, productoId, empleadoId, cantidad, expiraEn);
+            anterior = libro.poner(nueva);
+        }
+        programar(nueva);
+        reservasRealizadas.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deshacer(libro, nueva, anterior);
+                    }
+                }
+            });
+        }
+        return new Date(expiraEn);
+    }
+
+    /**
+     * Libera la reserva de un producto del carrito de un empleado (al confirmar la transacción).
+     */
+    public void liberar(Long productoId, Long empleadoId) {
+        String tenant = TenantContext.getCurrentTenant();
+        alConfirmar(() -> {
+            LibroTenant libro = libros.get(tenant);
+            if (libro != null) {
+                synchronized (libro) {
+                    libro.quitar(productoId, empleadoId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Libera las reservas de varios productos de un empleado (ej: al facturar).
+     */
+    public void liberarProductos(Long empleadoId, Collection<Long> productoIds) {
+        String tenant = TenantContext.getCurrentTenant();
+        List<Long> ids = new ArrayList<>(productoIds);
+        alConfirmar(() -> {
+            LibroTenant libro = libros.get(tenant);
+            if (libro != null) {
+                synchronized (libro) {
+                    ids.forEach(productoId -> libro.quitar(productoId, empleadoId));
+                }
+            }
+        });
+    }
+
+    /**
+     * Libera todas las reservas del carrito de un empleado (al vaciarlo).
+     */
+    public void liberarEmpleado(Long empleadoId) {
+        String tenant = TenantContext.getCurrentTenant();
+        alConfirmar(() -> {
+            LibroTenant libro = libros.get(tenant);
+            if (libro != null) {
+                synchronized (libro) {
+                    libro.quitarEmpleado(empleadoId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stock disponible para un empleado: stock menos lo reservado por otros carritos.
+     */
+    public int disponible(Long productoId, Long empleadoId, int stock) {
+        LibroTenant libro = libros.get(TenantContext.getCurrentTenant());
+        if (libro == null) {
+            return stock;
+        }
+        synchronized (libro) {
+            return Math.max(stock - libro.reservadoPorOtros(productoId, empleadoId), 0);
+        }
+    }
+
+    /**
+     * Total reservado de un producto por todos los carritos vigentes del tenant actual.
+     */
+    public int reservado(Long productoId) {
+        LibroTenant libro = libros.get(TenantContext.getCurrentTenant());
+        if (libro == null) {
+            return 0;
+        }
+        synchronized (libro) {
+            return libro.totales.getOrDefault(productoId, 0);
+        }
+    }
+
+    /**
+     * Estadísticas del libro de reservas.
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Integer> reservasPorTenant = new HashMap<>();
+        libros.forEach((tenant, libro) -> {
+            synchronized (libro) {
+                reservasPorTenant.put(tenant, libro.cantidadReservas());
+            }
+        });
+
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("ttlMinutos", ttlMinutos);
+        estadisticas.put("reservasPorTenant", reservasPorTenant);
+        estadisticas.put("reservasRealizadas", reservasRealizadas.sum());
+        estadisticas.put("reservasRechazadas", reservasRechazadas.sum());
+        estadisticas.put("reservasVencidas", reservasVencidas.sum());
+        return estadisticas;
+    }
+
+    /**
+     * Reconstruye el libro desde los items de carrito con reserva vigente de cada empresa activa.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarReservas() {
+        Date ahora = new Date();
+        int total = 0;
+        for (Empresa empresa : empresaRepository.findByActivaTrue()) {
+            String schema = empresa.getSchemaName();
+            if (schema == null) {
+                continue;
+            }
+            try {
+                List<CarritoCompra> items = TenantContext.ejecutarEnTenant(
+                        schema, () -> carritoRepository.findByReservadoHastaAfter(ahora));
+                LibroTenant libro = libros.computeIfAbsent(schema, t -> new LibroTenant());
+                for (CarritoCompra item : items) {
+                    Reserva reserva = new Reserva(schema, item.getProductoId(), item.getEmpleadoId(),
+                            item.getCantidad(), item.getReservadoHasta().getTime());
+                    synchronized (libro) {
+                        libro.poner(reserva);
+                    }
+                    programar(reserva);
+                }
+                total += items.size();
+            } catch (Exception e) {
+                log.error("No se pudieron recuperar las reservas de {}: {}", schema, e.getMessage());
+            }
+        }
+        log.info("Reservas de stock recuperadas: {}", total);
+    }
+
+    /**
+     * Avanza la rueda un tick y vence las reservas de la ranura actual.
+     */
+    private void avanzar() {
+        List<EntradaRueda> vencidas = new ArrayList<>();
+        synchronized (rueda) {
+            tickActual++;
+            Iterator<EntradaRueda> it = rueda.get((int) (tickActual & (RANURAS - 1))).iterator();
+            while (it.hasNext()) {
+                EntradaRueda entrada = it.next();
+                if (entrada.tick <= tickActual) {
+                    vencidas.add(entrada);
+                    it.remove();
+                }
+            }
+        }
+
+        for (EntradaRueda entrada : vencidas) {
+            Reserva reserva = entrada.reserva;
+            LibroTenant libro = libros.get(reserva.tenant);
+            if (libro == null) {
+                continue;
+            }
+            synchronized (libro) {
+                // Sólo si sigue siendo la reserva vigente (no fue renovada ni liberada)
+                if (libro.obtener(reserva.productoId, reserva.empleadoId) == reserva) {
+                    libro.quitar(reserva.productoId, reserva.empleadoId);
+                    reservasVencidas.increment();
+                }
+            }
+        }
+    }
+
+    private void programar(Reserva reserva) {
+        long ticks = Math.max(1, (reserva.expiraEn - System.currentTimeMillis() + MS_POR_TICK - 1) / MS_POR_TICK);
+        synchronized (rueda) {
+            long destino = tickActual + ticks;
+            rueda.get((int) (destino & (RANURAS - 1))).add(new EntradaRueda(reserva, destino));
+        }
+    }
+
+    private void deshacer(LibroTenant libro, Reserva nueva, Reserva anterior) {
+        synchronized (libro) {
+            if (libro.obtener(nueva.productoId, nueva.empleadoId) != nueva) {
+                return;
+            }
+            libro.quitar(nueva.productoId, nueva.empleadoId);
+            if (anterior != null) {
+                libro.poner(anterior);
+            }
+        }
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Reserva de un producto por el carrito de un empleado. Inmutable: renovar o
+     * cambiar la cantidad crea una nueva.
+     */
+    private record Reserva(String tenant, Long productoId, Long empleadoId, int cantidad, long expiraEn) { }
+
+    private record EntradaRueda(Reserva reserva, long tick) { }
+
+    /**
+     * Reservas de un tenant: producto → (empleado → reserva) y total reservado por producto.
+     * Se accede con el monitor del propio libro.
+     */
+    private static final class LibroTenant {
+        private final Map<Long, Map<Long, Reserva>> porProducto = new HashMap<>();
+        private final Map<Long, Integer> totales = new HashMap<>();
+
+        private Reserva obtener(Long productoId, Long empleadoId) {
+            Map<Long, Reserva> reservas = porProducto.get(productoId);
+            return reservas != null ? reservas.get(empleadoId) : null;
+        }
+
+        private int reservadoPorOtros(Long productoId, Long empleadoId) {
+            Reserva propia = obtener(productoId, empleadoId);
+            return totales.getOrDefault(productoId, 0) - (propia != null ? propia.cantidad : 0);
+        }
+
+        private Reserva poner(Reserva reserva) {
+            Reserva anterior = porProducto.computeIfAbsent(reserva.productoId, p -> new HashMap<>())
+                    .put(reserva.empleadoId, reserva);
+            int delta = reserva.cantidad - (anterior != null ? anterior.cantidad : 0);
+            totales.merge(reserva.productoId, delta, Integer::sum);
+            return anterior;
+        }
+
+        private void quitar(Long productoId, Long empleadoId) {
+            Map<Long, Reserva> reservas = porProducto.get(productoId);
+            if (reservas == null) {
+                return;
+            }
+            Reserva anterior = reservas.remove(empleadoId);
+            if (anterior == null) {
+                return;
+            }
+            if (reservas.isEmpty()) {
+                porProducto.remove(productoId);
+                totales.remove(productoId);
+            } else {
+                totales.merge(productoId, -anterior.cantidad, Integer::sum);
+            }
+        }
+
+        private void quitarEmpleado(Long empleadoId) {
+            new ArrayList<>(porProducto.keySet()).forEach(productoId -> quitar(productoId, empleadoId));
+        }
+
+        private int cantidadReservas() {
+            return porProducto.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.inventory_app.Services;
 
+import com.example.inventory_app.Config.ResolutorTenantKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -9,6 +10,8 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Servicio para gestión de schemas de base de datos (Multi-Tenancy).
@@ -28,12 +31,20 @@ import java.sql.Statement;
 @Service
 public class SchemaManagementService {
 
+    /**
+     * Particiones mensuales del kardex que se mantienen creadas (mes actual incluido).
+     */
+    private static final int MESES_PARTICIONES_ADELANTE = 3;
+
     @Autowired
     private DataSource dataSource;
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private ResolutorTenantKey resolutorTenantKey;
+
     /**
      * Crea un schema dedicado para un tenant y clona la estructura desde template_schema.
      * 
@@ -77,6 +88,9 @@ public class SchemaManagementService {
                 crearEstructuraBasica(schemaName, statement);
             }
 
+            // Paso 3: Kardex particionado (LIKE no copia particiones)
+            crearKardex(schemaName, statement);
+
             System.out.println("[SCHEMA-SERVICE] Schema " + schemaName + " listo para usar");
 
         } catch (SQLException e) {
@@ -103,7 +117,12 @@ public class SchemaManagementService {
             "facturas",
             "detalle_facturas",
             "carrito_compras",
-            "cajas"
+            "carrito_cabeceras",
+            "cajas",
+            "caja_resumen_pagos",
+            "cliente_resumen",
+            "cliente_categorias",
+            "ventas_producto_diarias"
         };
 
         for (String tabla : tablas) {
@@ -122,6 +141,63 @@ public class SchemaManagementService {
         }
     }
 
+    /**
+     * Crea el kardex (movimientos_stock particionado por mes) y stock_snapshots,
+     * con las particiones del mes actual y los siguientes.
+     *
+     * @param schemaName Schema destino
+     * @param statement Statement SQL
+     * @throws SQLException si hay error
+     */
+    private void crearKardex(String schemaName, Statement statement) throws SQLException {
+        statement.execute(String.format(
+            "CREATE TABLE IF NOT EXISTS %s.movimientos_stock (" +
+            "  id BIGSERIAL NOT NULL, producto_id BIGINT NOT NULL, " +
+            "  fecha TIMESTAMP NOT NULL DEFAULT clock_timestamp(), tipo VARCHAR(20) NOT NULL, " +
+            "  cantidad INTEGER NOT NULL, stock_resultante INTEGER NOT NULL, referencia VARCHAR(100), " +
+            "  CONSTRAINT pk_movimientos_stock PRIMARY KEY (id, fecha)" +
+            ") PARTITION BY RANGE (fecha)", schemaName));
+        statement.execute(String.format(
+            "CREATE INDEX IF NOT EXISTS idx_movimientos_stock_producto_fecha " +
+            "ON %s.movimientos_stock (producto_id, fecha, id) INCLUDE (stock_resultante)", schemaName));
+        statement.execute(String.format(
+            "CREATE TABLE IF NOT EXISTS %s.movimientos_stock_default " +
+            "PARTITION OF %s.movimientos_stock DEFAULT", schemaName, schemaName));
+        statement.execute(String.format(
+            "CREATE TABLE IF NOT EXISTS %s.stock_snapshots (" +
+            "  producto_id BIGINT NOT NULL, fecha DATE NOT NULL, stock INTEGER NOT NULL, " +
+            "  CONSTRAINT pk_stock_snapshots PRIMARY KEY (producto_id, fecha))", schemaName));
+
+        LocalDate mes = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i < MESES_PARTICIONES_ADELANTE; i++) {
+            statement.execute(sqlParticionKardex(schemaName, mes.plusMonths(i)));
+        }
+        System.out.println("[SCHEMA-SERVICE]   ✓ Kardex creado (movimientos_stock particionado por mes)");
+    }
+
+    /**
+     * Asegura que existan las particiones del kardex del mes actual y los siguientes.
+     * Se llama periódicamente: un movimiento nunca debería caer en la partición por defecto.
+     *
+     * @param schemaName Schema de la empresa
+     */
+    public void asegurarParticionesKardex(String schemaName) {
+        if (!schemaName.matches("^[a-z0-9_]+$")) {
+            throw new IllegalArgumentException("Nombre de schema inválido: " + schemaName);
+        }
+        LocalDate mes = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i < MESES_PARTICIONES_ADELANTE; i++) {
+            jdbcTemplate.execute(sqlParticionKardex(schemaName, mes.plusMonths(i)));
+        }
+    }
+
+    private static String sqlParticionKardex(String schemaName, LocalDate mes) {
+        return String.format(
+            "CREATE TABLE IF NOT EXISTS %s.movimientos_stock_p%s PARTITION OF %s.movimientos_stock " +
+            "FOR VALUES FROM ('%s') TO ('%s')",
+            schemaName, mes.format(DateTimeFormatter.ofPattern("yyyyMM")), schemaName, mes, mes.plusMonths(1));
+    }
+
     /**
      * Crea la estructura básica de tablas si no existe template_schema.
      * 
@@ -172,6 +248,7 @@ public class SchemaManagementService {
 
             String dropSchemaSql = String.format("DROP SCHEMA IF EXISTS %s CASCADE", schemaName);
             statement.execute(dropSchemaSql);
+            resolutorTenantKey.invalidarSchema(schemaName);
 
             System.out.println("[SCHEMA-SERVICE] Schema eliminado: " + schemaName);
 
@@ -0,0 +1,22 @@
+package com.example.inventory_app.Services;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Interface para la valorización del inventario (cierre de mes).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+public interface ValorizacionInventarioService {
+
+    /**
+     * Valoriza el inventario por categoría y en total: stock × precio de compra
+     * (costo), stock × precio de venta y margen.
+     * @param fecha Día de cierre (stock al final de ese día, desde el kardex);
+     *              null, hoy o posterior = stock actual
+     * @return Valorización por categoría y total
+     */
+    Map<String, Object> valorizar(LocalDate fecha);
+}
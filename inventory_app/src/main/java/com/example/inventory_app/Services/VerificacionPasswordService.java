@@ -0,0 +1,290 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Verificación de contraseñas BCrypt en un pool de hilos propio y acotado.
+ *
+ * BCrypt es caro a propósito: al inicio de turno, decenas de logins simultáneos
+ * en los hilos del servidor ocupaban todos los núcleos y frenaban la caja. Aquí
+ * cada verificación corre en un pool de pocos hilos con una cola limitada:
+ * - El CPU que consume el login queda acotado a auth.password.hilos núcleos.
+ * - Con la cola llena, o si la verificación no empieza a tiempo, se rechaza de
+ *   inmediato con {@link SaturadoException} (el controller responde 503). Una
+ *   verificación que ya empezó siempre se espera hasta el final: el CPU ya se gastó.
+ *
+ * El costo de BCrypt es configurable (auth.bcrypt.costo). Tras un login correcto,
+ * si el hash guardado tiene otro costo se vuelve a codificar en segundo plano y
+ * se reemplaza sólo si nadie cambió la contraseña mientras tanto.
+ *
+ * Las estadísticas (percentiles de espera y duración, CPU de los hilos, rechazos)
+ * permiten medir el p99 del login y cuánto CPU se lleva.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+@Slf4j
+public class VerificacionPasswordService {
+
+    /**
+     * Últimas mediciones guardadas para calcular percentiles.
+     */
+    private static final int MUESTRAS = 2048;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${auth.bcrypt.costo:10}")
+    private int costo;
+
+    @Value("${auth.password.hilos:0}")
+    private int hilos;
+
+    @Value("${auth.password.cola:64}")
+    private int capacidadCola;
+
+    /**
+     * Tiempo máximo que un login espera en la cola su turno antes de rechazarse
+     * (no incluye la verificación en sí).
+     */
+    @Value("${auth.password.espera-max-ms:2000}")
+    private long esperaMaxMs;
+
+    private ThreadPoolExecutor pool;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final LongAdder verificaciones = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder vencidas = new LongAdder();
+    private final LongAdder reencriptadas = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+
+    private final AtomicLongArray esperasMicros = new AtomicLongArray(MUESTRAS);
+    private final AtomicLongArray duracionesMicros = new AtomicLongArray(MUESTRAS);
+    private final AtomicLong muestras = new AtomicLong();
+
+    /**
+     * La verificación no pudo hacerse por saturación del pool (cola llena o espera excedida).
+     */
+    public static class SaturadoException extends IllegalStateException {
+        public SaturadoException(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        int tamano = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+        pool = new ThreadPoolExecutor(tamano, tamano, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, capacidadCola)), r -> {
+                Thread hilo = new Thread(r, "verificacion-password-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        log.info("Verificación de contraseñas: {} hilos, cola {}, costo BCrypt {}", tamano, capacidadCola, costo);
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Compara una contraseña con su hash BCrypt en el pool de verificación.
+     * Bloquea el hilo actual (sin consumir CPU) hasta tener el resultado.
+     * @param password Contraseña en texto plano
+     * @param hash Hash guardado
+     * @return true si coincide
+     * @throws SaturadoException si el pool está saturado
+     */
+    public boolean verificar(String password, String hash) {
+        if (password == null || hash == null) {
+            return false;
+        }
+        long encolada = System.nanoTime();
+        // Quien lo marca primero decide: la tarea al empezar o el login al vencer la espera
+        AtomicBoolean tomada = new AtomicBoolean();
+        Future<Boolean> resultado;
+        try {
+            resultado = pool.submit(() -> {
+                if (!tomada.compareAndSet(false, true)) {
+                    return false;
+                }
+                long inicio = System.nanoTime();
+                long cpuInicio = cpuHiloActual();
+                try {
+                    return passwordEncoder.matches(password, hash);
+                } finally {
+                    long fin = System.nanoTime();
+                    cpuNanos.add(Math.max(0, cpuHiloActual() - cpuInicio));
+                    registrarMuestra((inicio - encolada) / 1000, (fin - encolada) / 1000);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            throw new SaturadoException("Demasiados inicios de sesión simultáneos, intente de nuevo");
+        }
+
+        try {
+            boolean coincide;
+            try {
+                coincide = resultado.get(esperaMaxMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (tomada.compareAndSet(false, true)) {
+                    // Todavía en la cola: se saca sin llegar a ejecutarse
+                    resultado.cancel(false);
+                    vencidas.increment();
+                    throw new SaturadoException("Demasiados inicios de sesión simultáneos, intente de nuevo");
+                }
+                // Ya empezó: se espera el resultado en vez de descartar el trabajo hecho
+                coincide = resultado.get();
+            }
+            verificaciones.increment();
+            return coincide;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.cancel(false);
+            throw new SaturadoException("Verificación de contraseña interrumpida");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al verificar la contraseña", e.getCause());
+        }
+    }
+
+    /**
+     * Tras un login correcto, si el hash tiene un costo distinto del configurado
+     * lo vuelve a codificar en segundo plano y lo guarda en el tenant indicado,
+     * dentro de una transacción. Con el pool saturado no hace nada (se reintenta
+     * en el próximo login).
+     * @param password Contraseña ya verificada
+     * @param hash Hash guardado
+     * @param tenant Schema donde se guarda el hash
+     * @param guardar Actualiza el hash; recibe el nuevo (debe reemplazar sólo si sigue el anterior)
+     */
+    public void reencriptarSiCorresponde(String password, String hash, String tenant, Consumer<String> guardar) {
+        if (costoDe(hash) == costo) {
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    String nuevo = passwordEncoder.encode(password);
+                    TenantContext.ejecutarEnTenant(tenant, () -> transactionTemplate.execute(estado -> {
+                        guardar.accept(nuevo);
+                        return null;
+                    }));
+                    reencriptadas.increment();
+                } catch (Exception e) {
+                    log.warn("No se pudo actualizar el costo del hash en {}: {}", tenant, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Pool de verificación saturado: se posterga la actualización del hash");
+        }
+    }
+
+    /**
+     * Estado del pool y métricas de latencia y CPU de las verificaciones.
+     * @return Estadísticas
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        int cantidad = (int) Math.min(muestras.get(), MUESTRAS);
+        long[] esperas = new long[cantidad];
+        long[] duraciones = new long[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            esperas[i] = esperasMicros.get(i);
+            duraciones[i] = duracionesMicros.get(i);
+        }
+        Arrays.sort(esperas);
+        Arrays.sort(duraciones);
+
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("hilos", pool.getMaximumPoolSize());
+        estadisticas.put("hilosActivos", pool.getActiveCount());
+        estadisticas.put("enCola", pool.getQueue().size());
+        estadisticas.put("capacidadCola", capacidadCola);
+        estadisticas.put("costoBcrypt", costo);
+        estadisticas.put("verificaciones", verificaciones.sum());
+        estadisticas.put("rechazadas", rechazadas.sum());
+        estadisticas.put("vencidas", vencidas.sum());
+        estadisticas.put("reencriptadas", reencriptadas.sum());
+        estadisticas.put("cpuMs", cpuNanos.sum() / 1_000_000);
+        estadisticas.put("muestras", cantidad);
+        estadisticas.put("esperaMs", percentiles(esperas));
+        estadisticas.put("duracionMs", percentiles(duraciones));
+        return estadisticas;
+    }
+
+    private void registrarMuestra(long esperaMicros, long duracionMicros) {
+        int posicion = (int) (muestras.getAndIncrement() % MUESTRAS);
+        esperasMicros.set(posicion, esperaMicros);
+        duracionesMicros.set(posicion, duracionMicros);
+    }
+
+    private static Map<String, Object> percentiles(long[] ordenados) {
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("p50", percentil(ordenados, 0.50));
+        valores.put("p95", percentil(ordenados, 0.95));
+        valores.put("p99", percentil(ordenados, 0.99));
+        valores.put("max", ordenados.length > 0 ? ordenados[ordenados.length - 1] / 1000.0 : 0.0);
+        return valores;
+    }
+
+    private static double percentil(long[] ordenados, double fraccion) {
+        if (ordenados.length == 0) {
+            return 0.0;
+        }
+        int indice = (int) Math.ceil(fraccion * ordenados.length) - 1;
+        return ordenados[Math.max(0, indice)] / 1000.0;
+    }
+
+    private long cpuHiloActual() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : 0L;
+    }
+
+    /**
+     * Costo de un hash BCrypt ("$2a$10$..."); -1 si no tiene ese formato.
+     */
+    private static int costoDe(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
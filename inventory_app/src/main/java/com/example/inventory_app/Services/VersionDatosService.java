@@ -0,0 +1,148 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio de versiones de datos por tenant y tabla.
+ *
+ * Cada escritura en una tabla (productos, clientes, ...) incrementa un contador
+ * en memoria para el schema actual. Los endpoints de listado derivan de ese
+ * contador un ETag fuerte y responden 304 Not Modified sin consultar la base de datos
+ * cuando el cliente ya tiene la última versión.
+ *
+ * IMPORTANTE:
+ * - El incremento se aplica DESPUÉS del commit; si se hiciera antes, una lectura
+ *   concurrente podría guardar datos viejos bajo el ETag nuevo.
+ * - Los contadores viven en memoria: el ETag incluye el instante de arranque para
+ *   que un reinicio invalide los ETags emitidos antes.
+ * - Con varias instancias detrás de un balanceador cada una tiene sus propios
+ *   contadores (el peor caso es un 200 de más, nunca un 304 incorrecto dentro de una instancia).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@Service
+public class VersionDatosService {
+
+    public static final String PRODUCTOS = "productos";
+    public static final String CLIENTES = "clientes";
+
+    private static final String RECURSO_PENDIENTES = VersionDatosService.class.getName() + ".pendientes";
+
+    /**
+     * Instante de arranque (base 36), parte de todos los ETags.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final long arranque = System.currentTimeMillis() / 1000 * 1000;
+
+    private final ConcurrentMap<String, VersionTabla> versiones = new ConcurrentHashMap<>();
+
+    /**
+     * Registra un cambio en la tabla para el tenant actual.
+     * Si hay una transacción activa, el incremento se aplica al confirmar
+     * (una sola vez por tabla y transacción); si no, se aplica de inmediato.
+     *
+     * @param tabla Nombre lógico de la tabla modificada
+     */
+    public void registrarCambio(String tabla) {
+        String clave = clave(TenantContext.getCurrentTenant(), tabla);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            incrementar(clave);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<String> pendientes = (Set<String>) TransactionSynchronizationManager.getResource(RECURSO_PENDIENTES);
+        if (pendientes == null) {
+            Set<String> nuevas = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(RECURSO_PENDIENTES, nuevas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    nuevas.forEach(VersionDatosService.this::incrementar);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RECURSO_PENDIENTES);
+                }
+            });
+            pendientes = nuevas;
+        }
+        pendientes.add(clave);
+    }
+
+    /**
+     * Calcula el ETag fuerte de una o más tablas del tenant actual.
+     *
+     * @param variante Distingue representaciones distintas sobre los mismos datos
+     *                 (ej: "todos", "bajo-stock")
+     * @param tablas Tablas de las que depende la respuesta
+     * @return ETag entre comillas
+     */
+    public String calcularEtag(String variante, String... tablas) {
+        String tenant = TenantContext.getCurrentTenant();
+        StringBuilder etag = new StringBuilder("\"")
+                .append(Integer.toHexString(tenant.hashCode()))
+                .append('-').append(epoch)
+                .append('-').append(variante);
+        for (String tabla : tablas) {
+            etag.append('-').append(Long.toString(obtener(clave(tenant, tabla)).version.get(), 36));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Instante (ms, redondeado a segundos) del último cambio confirmado
+     * en cualquiera de las tablas del tenant actual.
+     *
+     * @param tablas Tablas de las que depende la respuesta
+     * @return Epoch millis para Last-Modified
+     */
+    public long ultimaModificacion(String... tablas) {
+        String tenant = TenantContext.getCurrentTenant();
+        long ultima = arranque;
+        for (String tabla : tablas) {
+            ultima = Math.max(ultima, obtener(clave(tenant, tabla)).modificado);
+        }
+        return ultima;
+    }
+
+    private void incrementar(String clave) {
+        VersionTabla version = obtener(clave);
+        version.version.incrementAndGet();
+        // Last-Modified tiene resolución de segundos
+        version.modificado = Math.max(version.modificado, System.currentTimeMillis() / 1000 * 1000);
+    }
+
+    private VersionTabla obtener(String clave) {
+        return versiones.computeIfAbsent(clave, k -> new VersionTabla(arranque));
+    }
+
+    private static String clave(String tenant, String tabla) {
+        return tenant + ":" + tabla;
+    }
+
+    /**
+     * Versión y fecha de modificación de una tabla de un tenant.
+     */
+    private static final class VersionTabla {
+        private final AtomicLong version = new AtomicLong();
+        private volatile long modificado;
+
+        private VersionTabla(long modificado) {
+            this.modificado = modificado;
+        }
+    }
+}
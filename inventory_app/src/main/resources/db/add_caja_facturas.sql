@@ -0,0 +1,33 @@
+-- =========================================
+-- Script: Agregar caja_id a facturas
+-- Fecha: 2026-10-19
+-- Propósito: Cada factura queda asociada a la caja abierta del empleado que la
+--            emitió; el total de ventas de la caja se acumula con un UPDATE
+--            atómico en la misma transacción que la factura.
+--            Se aplica en template_schema y en todas las empresas existentes.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'ALTER TABLE %I.facturas ADD COLUMN IF NOT EXISTS caja_id BIGINT', s);
+
+        -- Ventas de una caja (arqueo y reporte de cierre)
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_facturas_caja
+                ON %I.facturas (caja_id) WHERE caja_id IS NOT NULL', s);
+
+        -- Búsqueda de la caja abierta de un empleado al facturar
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_cajas_empleado_abierta
+                ON %I.cajas (empleado_id) WHERE estado = ''ABIERTA''', s);
+
+        RAISE NOTICE 'caja_id en facturas listo en %', s;
+    END LOOP;
+END $$;
@@ -0,0 +1,26 @@
+-- =========================================
+-- Script: Índice parcial de productos con bajo stock
+-- Fecha: 2026-10-19
+-- Propósito: findProductosConBajoStock / countProductosConBajoStock
+--            (stock < stock_minimo AND activo) no pueden usar un índice común.
+--            El índice parcial contiene sólo los productos en bajo stock y se
+--            mantiene solo con cada UPDATE de stock o stock_minimo: la consulta
+--            lee tantas filas como productos haya en bajo stock.
+--            Se aplica en template_schema y en todas las empresas existentes.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_productos_bajo_stock
+                ON %I.productos (id) WHERE activo = true AND stock < stock_minimo', s);
+
+        RAISE NOTICE 'Índice de bajo stock listo en %', s;
+    END LOOP;
+END $$;
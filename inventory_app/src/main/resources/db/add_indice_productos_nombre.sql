@@ -0,0 +1,24 @@
+-- =========================================
+-- Script: Índice (nombre, id) de productos
+-- Fecha: 2026-10-19
+-- Propósito: Listado paginado por nombre (GET /api/productos?orden=nombre&cursor=...).
+--            La página siguiente se busca desde el último (nombre, id) devuelto:
+--            con este índice cada página cuesta lo mismo, sin importar cuántas
+--            páginas se hayan recorrido (no se usa OFFSET).
+--            Se aplica en template_schema y en todas las empresas existentes.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_productos_nombre_id ON %I.productos (nombre, id)', s);
+
+        RAISE NOTICE 'Índice (nombre, id) de productos listo en %', s;
+    END LOOP;
+END $$;
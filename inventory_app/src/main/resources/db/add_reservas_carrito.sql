@@ -0,0 +1,29 @@
+-- =========================================
+-- Script: Agregar reservado_hasta a carrito_compras
+-- Fecha: 2026-10-19
+-- Propósito: Reservas de stock con vencimiento para los carritos.
+--            El item del carrito es la reserva (producto, empleado, cantidad);
+--            esta columna guarda su vencimiento para reconstruir las reservas
+--            vigentes al reiniciar la aplicación.
+--            Se aplica en template_schema y en todas las empresas existentes.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'ALTER TABLE %I.carrito_compras ADD COLUMN IF NOT EXISTS reservado_hasta TIMESTAMP', s);
+
+        -- Sólo los items con reserva se leen al arrancar
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_carrito_reservado_hasta
+                ON %I.carrito_compras (reservado_hasta) WHERE reservado_hasta IS NOT NULL', s);
+
+        RAISE NOTICE 'Reservas de carrito listas en %', s;
+    END LOOP;
+END $$;
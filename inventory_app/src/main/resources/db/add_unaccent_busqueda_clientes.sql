@@ -0,0 +1,14 @@
+-- =========================================
+-- Script: Extensión unaccent para la búsqueda de clientes
+-- Fecha: 2026-10-19
+-- Propósito: El respaldo en BD del autocompletado de clientes
+--            (ClienteRepository.buscarPorPrefijo) normaliza igual que el índice
+--            en memoria: sin acentos, minúsculas y sin signos.
+--
+-- IMPORTANTE: la extensión se instala UNA sola vez en el schema public. Las
+-- conexiones de los tenants usan search_path = empresa_X (sin public), por eso la
+-- consulta califica la función y el diccionario: public.unaccent('public.unaccent', ...).
+-- Requiere permisos para CREATE EXTENSION (superusuario o dueño de la BD).
+-- =========================================
+
+CREATE EXTENSION IF NOT EXISTS unaccent SCHEMA public;
@@ -0,0 +1,23 @@
+-- =========================================
+-- Script: Agregar columna version a productos
+-- Fecha: 2026-10-19
+-- Propósito: Bloqueo optimista (@Version) en Producto. Las actualizaciones
+--            de stock son atómicas (UPDATE condicional) e incrementan la versión;
+--            las ediciones completas fallan con 409 si la versión quedó vieja.
+--            Se aplica en template_schema y en todas las empresas existentes.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'ALTER TABLE %I.productos ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0', s);
+
+        RAISE NOTICE 'Columna version agregada en %.productos', s;
+    END LOOP;
+END $$;
@@ -0,0 +1,36 @@
+-- =========================================
+-- Script: Índices trigram para búsqueda de productos
+-- Fecha: 2026-10-19
+-- Propósito: Búsqueda rankeada / typeahead sobre nombre, código y descripción
+--            (GET /api/productos/busqueda) sin escaneo secuencial.
+--
+-- IMPORTANTE: la extensión pg_trgm se instala UNA sola vez en el schema public.
+-- Las conexiones de los tenants usan search_path = empresa_X (sin public), por eso
+-- las consultas califican funciones y operadores: public.similarity(),
+-- OPERATOR(public.%), public.gin_trgm_ops.
+-- Requiere permisos para CREATE EXTENSION (superusuario o dueño de la BD).
+-- =========================================
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA public;
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_productos_nombre_trgm
+                ON %I.productos USING gin (lower(nombre) public.gin_trgm_ops)', s);
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_productos_codigo_trgm
+                ON %I.productos USING gin (lower(codigo) public.gin_trgm_ops)', s);
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_productos_descripcion_trgm
+                ON %I.productos USING gin (lower(descripcion) public.gin_trgm_ops)', s);
+
+        RAISE NOTICE 'Índices trigram de productos listos en %', s;
+    END LOOP;
+END $$;
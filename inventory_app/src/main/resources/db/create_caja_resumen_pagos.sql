@@ -0,0 +1,61 @@
+-- =========================================
+-- Script: Crear tabla caja_resumen_pagos y arqueo en cajas
+-- Fecha: 2026-10-19
+-- Propósito: Acumulados del turno por caja y método de pago (ventas, anulaciones,
+--            descuentos, impuestos), mantenidos al crear/anular facturas, para que
+--            el cierre de caja (reporte Z) no recorra las facturas del turno.
+--            Agrega a cajas el efectivo esperado y la diferencia del arqueo.
+--            Se aplica en template_schema y en todas las empresas existentes,
+--            y se carga con las facturas que ya tienen caja_id.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.caja_resumen_pagos (
+                caja_id BIGINT NOT NULL,
+                metodo_pago VARCHAR(50) NOT NULL,
+                ventas INTEGER NOT NULL DEFAULT 0,
+                total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                descuentos DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                impuestos DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                anuladas INTEGER NOT NULL DEFAULT 0,
+                total_anulado DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                CONSTRAINT pk_caja_resumen_pagos PRIMARY KEY (caja_id, metodo_pago)
+            )', s);
+
+        EXECUTE format(
+            'ALTER TABLE %I.cajas ADD COLUMN IF NOT EXISTS monto_esperado DECIMAL(12, 2)', s);
+        EXECUTE format(
+            'ALTER TABLE %I.cajas ADD COLUMN IF NOT EXISTS diferencia DECIMAL(12, 2)', s);
+
+        -- Carga inicial desde las facturas asociadas a una caja (sólo si la tabla está vacía)
+        EXECUTE format(
+            'INSERT INTO %1$I.caja_resumen_pagos
+                 (caja_id, metodo_pago, ventas, total, descuentos, impuestos, anuladas, total_anulado)
+             SELECT f.caja_id,
+                    COALESCE(NULLIF(upper(trim(f.metodo_pago)), ''''), ''SIN_ESPECIFICAR''),
+                    count(*) FILTER (WHERE f.estado <> ''ANULADA''),
+                    COALESCE(sum(f.total) FILTER (WHERE f.estado <> ''ANULADA''), 0),
+                    COALESCE(sum(COALESCE(f.descuento, 0) + COALESCE(d.descuentos, 0))
+                             FILTER (WHERE f.estado <> ''ANULADA''), 0),
+                    COALESCE(sum(COALESCE(f.impuesto, 0)) FILTER (WHERE f.estado <> ''ANULADA''), 0),
+                    count(*) FILTER (WHERE f.estado = ''ANULADA''),
+                    COALESCE(sum(f.total) FILTER (WHERE f.estado = ''ANULADA''), 0)
+             FROM %1$I.facturas f
+             LEFT JOIN (SELECT factura_id, sum(descuento) AS descuentos
+                        FROM %1$I.detalle_facturas GROUP BY factura_id) d ON d.factura_id = f.id
+             WHERE f.caja_id IS NOT NULL
+               AND NOT EXISTS (SELECT 1 FROM %1$I.caja_resumen_pagos)
+             GROUP BY 1, 2
+             ON CONFLICT (caja_id, metodo_pago) DO NOTHING', s);
+
+        RAISE NOTICE 'caja_resumen_pagos lista en %', s;
+    END LOOP;
+END $$;
@@ -0,0 +1,40 @@
+-- =========================================
+-- Script: Crear tabla carrito_cabeceras
+-- Fecha: 2026-10-19
+-- Propósito: Cabecera por empleado con la cantidad de items y el total de su
+--            carrito. Se escribe en la misma transacción que los items, así el
+--            resumen de un carrito se lee de una fila sin recorrer carrito_compras.
+--            Se crea en template_schema y en todas las empresas existentes,
+--            y se carga con los carritos actuales.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.carrito_cabeceras (
+                empleado_id BIGINT PRIMARY KEY,
+                cantidad_items INTEGER NOT NULL DEFAULT 0,
+                total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )', s);
+
+        -- Carga inicial desde los items existentes
+        EXECUTE format(
+            'INSERT INTO %1$I.carrito_cabeceras (empleado_id, cantidad_items, total)
+             SELECT empleado_id, COUNT(*), SUM(cantidad * precio_unitario)
+             FROM %1$I.carrito_compras
+             GROUP BY empleado_id
+             ON CONFLICT (empleado_id) DO UPDATE SET
+                 cantidad_items = EXCLUDED.cantidad_items,
+                 total = EXCLUDED.total,
+                 updated_at = CURRENT_TIMESTAMP', s);
+
+        RAISE NOTICE 'carrito_cabeceras lista en %', s;
+    END LOOP;
+END $$;
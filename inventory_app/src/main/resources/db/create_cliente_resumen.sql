@@ -0,0 +1,73 @@
+-- =========================================
+-- Script: Crear tablas cliente_resumen y cliente_categorias
+-- Fecha: 2026-10-19
+-- Propósito: Resumen de compras por cliente (valor total, visitas, primera y
+--            última compra) y acumulados por categoría (categorías favoritas),
+--            mantenidos al crear/anular facturas, para mostrar la ficha del
+--            cliente sin recorrer sus facturas. Agrega el índice
+--            (cliente_id, fecha, id) para el historial paginado.
+--            Se aplica en template_schema y en todas las empresas existentes,
+--            y se carga con las facturas completadas existentes.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.cliente_resumen (
+                cliente_id BIGINT PRIMARY KEY,
+                compras INTEGER NOT NULL DEFAULT 0,
+                total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                anuladas INTEGER NOT NULL DEFAULT 0,
+                primera_compra TIMESTAMP,
+                ultima_compra TIMESTAMP
+            )', s);
+
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.cliente_categorias (
+                cliente_id BIGINT NOT NULL,
+                categoria VARCHAR(50) NOT NULL,
+                compras INTEGER NOT NULL DEFAULT 0,
+                unidades INTEGER NOT NULL DEFAULT 0,
+                total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                CONSTRAINT pk_cliente_categorias PRIMARY KEY (cliente_id, categoria)
+            )', s);
+
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_facturas_cliente_fecha ON %I.facturas (cliente_id, fecha DESC, id DESC)', s);
+
+        -- Carga inicial (sólo si las tablas están vacías)
+        EXECUTE format(
+            'INSERT INTO %1$I.cliente_resumen
+                 (cliente_id, compras, total, anuladas, primera_compra, ultima_compra)
+             SELECT cliente_id,
+                    count(*) FILTER (WHERE estado <> ''ANULADA''),
+                    COALESCE(sum(total) FILTER (WHERE estado <> ''ANULADA''), 0),
+                    count(*) FILTER (WHERE estado = ''ANULADA''),
+                    min(fecha) FILTER (WHERE estado <> ''ANULADA''),
+                    max(fecha) FILTER (WHERE estado <> ''ANULADA'')
+             FROM %1$I.facturas
+             WHERE NOT EXISTS (SELECT 1 FROM %1$I.cliente_resumen)
+             GROUP BY cliente_id
+             ON CONFLICT (cliente_id) DO NOTHING', s);
+
+        EXECUTE format(
+            'INSERT INTO %1$I.cliente_categorias (cliente_id, categoria, compras, unidades, total)
+             SELECT f.cliente_id,
+                    COALESCE(NULLIF(upper(trim(d.producto_categoria)), ''''), ''SIN_CATEGORIA''),
+                    count(DISTINCT f.id), sum(d.cantidad), sum(d.subtotal)
+             FROM %1$I.facturas f
+             JOIN %1$I.detalle_facturas d ON d.factura_id = f.id
+             WHERE f.estado <> ''ANULADA''
+               AND NOT EXISTS (SELECT 1 FROM %1$I.cliente_categorias)
+             GROUP BY 1, 2
+             ON CONFLICT (cliente_id, categoria) DO NOTHING', s);
+
+        RAISE NOTICE 'cliente_resumen y cliente_categorias listas en %', s;
+    END LOOP;
+END $$;
@@ -0,0 +1,76 @@
+-- =========================================
+-- Script: Crear kardex (movimientos_stock) y stock_snapshots
+-- Fecha: 2026-10-19
+-- Propósito: Historial de movimientos de stock (venta, anulación, ajuste manual,
+--            edición, importación) que sólo recibe INSERTs, particionado por mes.
+--            stock_snapshots guarda el stock de cada producto al inicio de cada mes:
+--            "stock del producto X en la fecha D" lee un snapshot y, como mucho,
+--            la partición del mes de D, sin importar cuánto historial haya.
+--            La aplicación crea las particiones de los meses siguientes y los
+--            snapshots mensuales (MovimientoStockServiceImpl).
+--            Se crea en template_schema y en todas las empresas existentes; el
+--            stock actual de cada producto se registra como movimiento INICIAL.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+    mes DATE;
+    i INTEGER;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.movimientos_stock (
+                id BIGSERIAL NOT NULL,
+                producto_id BIGINT NOT NULL,
+                fecha TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
+                tipo VARCHAR(20) NOT NULL,
+                cantidad INTEGER NOT NULL,
+                stock_resultante INTEGER NOT NULL,
+                referencia VARCHAR(100),
+                CONSTRAINT pk_movimientos_stock PRIMARY KEY (id, fecha)
+            ) PARTITION BY RANGE (fecha)', s);
+
+        -- Hora real de cada inserción (CURRENT_TIMESTAMP es la del inicio de la transacción)
+        EXECUTE format(
+            'ALTER TABLE %I.movimientos_stock ALTER COLUMN fecha SET DEFAULT clock_timestamp()', s);
+
+        -- Historial por producto en un rango y último movimiento antes de una fecha
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_movimientos_stock_producto_fecha
+                ON %I.movimientos_stock (producto_id, fecha, id) INCLUDE (stock_resultante)', s);
+
+        -- Mes actual y los dos siguientes; lo que caiga fuera va a la partición por defecto
+        FOR i IN 0..2 LOOP
+            mes := (date_trunc('month', CURRENT_DATE) + make_interval(months => i))::DATE;
+            EXECUTE format(
+                'CREATE TABLE IF NOT EXISTS %I.%I PARTITION OF %I.movimientos_stock
+                    FOR VALUES FROM (%L) TO (%L)',
+                s, 'movimientos_stock_p' || to_char(mes, 'YYYYMM'), s,
+                mes, (mes + INTERVAL '1 month')::DATE);
+        END LOOP;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.movimientos_stock_default
+                PARTITION OF %I.movimientos_stock DEFAULT', s, s);
+
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.stock_snapshots (
+                producto_id BIGINT NOT NULL,
+                fecha DATE NOT NULL,
+                stock INTEGER NOT NULL,
+                CONSTRAINT pk_stock_snapshots PRIMARY KEY (producto_id, fecha)
+            )', s);
+
+        -- Punto de partida del historial (sólo si el kardex está vacío)
+        EXECUTE format(
+            'INSERT INTO %1$I.movimientos_stock (producto_id, tipo, cantidad, stock_resultante, referencia)
+             SELECT id, ''INICIAL'', stock, stock, ''migracion''
+             FROM %1$I.productos
+             WHERE NOT EXISTS (SELECT 1 FROM %1$I.movimientos_stock)', s);
+
+        RAISE NOTICE 'movimientos_stock listo en %', s;
+    END LOOP;
+END $$;
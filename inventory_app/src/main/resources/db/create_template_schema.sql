@@ -6,6 +6,11 @@
 -- 1. Crear el schema template
 CREATE SCHEMA IF NOT EXISTS template_schema;
 
+-- Extensión para búsqueda por similitud (se instala en public y se referencia calificada)
+CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA public;
+-- Quita acentos en la búsqueda de clientes (también en public, referenciada calificada)
+CREATE EXTENSION IF NOT EXISTS unaccent SCHEMA public;
+
 -- 2. Establecer el schema para las siguientes operaciones
 SET search_path TO template_schema;
 
@@ -24,7 +29,8 @@ CREATE TABLE IF NOT EXISTS productos (
     categoria VARCHAR(50) NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP,
-    activo BOOLEAN NOT NULL DEFAULT true
+    activo BOOLEAN NOT NULL DEFAULT true,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- ============================================
@@ -79,6 +85,7 @@ CREATE TABLE IF NOT EXISTS facturas (
     metodo_pago VARCHAR(50),
     estado VARCHAR(20) DEFAULT 'COMPLETADA',
     notas TEXT,
+    caja_id BIGINT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP,
     CONSTRAINT fk_factura_cliente FOREIGN KEY (cliente_id) REFERENCES clientes(id),
@@ -112,9 +119,21 @@ CREATE TABLE IF NOT EXISTS carrito_compras (
     cantidad INTEGER NOT NULL DEFAULT 1 CHECK (cantidad >= 1),
     precio_unitario DECIMAL(10, 2) NOT NULL CHECK (precio_unitario > 0),
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    reservado_hasta TIMESTAMP,
     CONSTRAINT uq_carrito_empleado_producto UNIQUE (empleado_id, producto_id)
 );
 
+-- ============================================
+-- TABLA: carrito_cabeceras
+-- Cantidad de items y total del carrito de cada empleado
+-- ============================================
+CREATE TABLE IF NOT EXISTS carrito_cabeceras (
+    empleado_id BIGINT PRIMARY KEY,
+    cantidad_items INTEGER NOT NULL DEFAULT 0,
+    total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- ============================================
 -- TABLA: detalle_carritos
 -- ============================================
@@ -142,11 +161,97 @@ CREATE TABLE IF NOT EXISTS cajas (
     monto_inicial DECIMAL(10, 2) NOT NULL,
     monto_final DECIMAL(10, 2),
     total_ventas DECIMAL(10, 2),
+    monto_esperado DECIMAL(12, 2),
+    diferencia DECIMAL(12, 2),
     estado VARCHAR(20),
     observaciones VARCHAR(500),
     CONSTRAINT fk_caja_empleado FOREIGN KEY (empleado_id) REFERENCES empleados(id)
 );
 
+-- ============================================
+-- TABLA: caja_resumen_pagos
+-- Acumulados del turno por caja y método de pago (reporte Z)
+-- ============================================
+CREATE TABLE IF NOT EXISTS caja_resumen_pagos (
+    caja_id BIGINT NOT NULL,
+    metodo_pago VARCHAR(50) NOT NULL,
+    ventas INTEGER NOT NULL DEFAULT 0,
+    total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    descuentos DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    impuestos DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    anuladas INTEGER NOT NULL DEFAULT 0,
+    total_anulado DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT pk_caja_resumen_pagos PRIMARY KEY (caja_id, metodo_pago)
+);
+
+-- ============================================
+-- TABLA: cliente_resumen
+-- Resumen de compras por cliente (ficha del cliente)
+-- ============================================
+CREATE TABLE IF NOT EXISTS cliente_resumen (
+    cliente_id BIGINT PRIMARY KEY,
+    compras INTEGER NOT NULL DEFAULT 0,
+    total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    anuladas INTEGER NOT NULL DEFAULT 0,
+    primera_compra TIMESTAMP,
+    ultima_compra TIMESTAMP
+);
+
+-- ============================================
+-- TABLA: cliente_categorias
+-- Compras por cliente y categoría (categorías favoritas)
+-- ============================================
+CREATE TABLE IF NOT EXISTS cliente_categorias (
+    cliente_id BIGINT NOT NULL,
+    categoria VARCHAR(50) NOT NULL,
+    compras INTEGER NOT NULL DEFAULT 0,
+    unidades INTEGER NOT NULL DEFAULT 0,
+    total DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT pk_cliente_categorias PRIMARY KEY (cliente_id, categoria)
+);
+
+-- ============================================
+-- TABLA: ventas_producto_diarias
+-- Acumulado diario por producto (rankings y ABC)
+-- ============================================
+CREATE TABLE IF NOT EXISTS ventas_producto_diarias (
+    producto_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    cantidad INTEGER NOT NULL DEFAULT 0,
+    monto DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT pk_ventas_producto_diarias PRIMARY KEY (producto_id, fecha)
+);
+
+-- ============================================
+-- TABLA: movimientos_stock (kardex)
+-- Historial de movimientos de stock, particionado por mes.
+-- No se clona con LIKE: SchemaManagementService la crea particionada
+-- en cada empresa y la aplicación agrega las particiones mensuales.
+-- ============================================
+CREATE TABLE IF NOT EXISTS movimientos_stock (
+    id BIGSERIAL NOT NULL,
+    producto_id BIGINT NOT NULL,
+    fecha TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
+    tipo VARCHAR(20) NOT NULL,
+    cantidad INTEGER NOT NULL,
+    stock_resultante INTEGER NOT NULL,
+    referencia VARCHAR(100),
+    CONSTRAINT pk_movimientos_stock PRIMARY KEY (id, fecha)
+) PARTITION BY RANGE (fecha);
+
+CREATE TABLE IF NOT EXISTS movimientos_stock_default PARTITION OF movimientos_stock DEFAULT;
+
+-- ============================================
+-- TABLA: stock_snapshots
+-- Stock de cada producto al inicio de cada mes
+-- ============================================
+CREATE TABLE IF NOT EXISTS stock_snapshots (
+    producto_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    stock INTEGER NOT NULL,
+    CONSTRAINT pk_stock_snapshots PRIMARY KEY (producto_id, fecha)
+);
+
 -- ============================================
 -- ÍNDICES PARA MEJORAR RENDIMIENTO
 -- ============================================
@@ -156,6 +261,11 @@ CREATE INDEX idx_productos_codigo ON productos(codigo);
 CREATE INDEX idx_productos_categoria ON productos(categoria);
 CREATE INDEX idx_productos_activo ON productos(activo);
 CREATE INDEX idx_productos_stock ON productos(stock);
+CREATE INDEX idx_productos_bajo_stock ON productos(id) WHERE activo = true AND stock < stock_minimo;
+CREATE INDEX idx_productos_nombre_id ON productos(nombre, id);
+CREATE INDEX idx_productos_nombre_trgm ON productos USING gin (lower(nombre) public.gin_trgm_ops);
+CREATE INDEX idx_productos_codigo_trgm ON productos USING gin (lower(codigo) public.gin_trgm_ops);
+CREATE INDEX idx_productos_descripcion_trgm ON productos USING gin (lower(descripcion) public.gin_trgm_ops);
 
 -- Clientes
 CREATE INDEX idx_clientes_documento ON clientes(documento);
@@ -171,9 +281,11 @@ CREATE INDEX idx_empleados_activo ON empleados(estado_activo);
 -- Facturas
 CREATE INDEX idx_facturas_numero ON facturas(numero_factura);
 CREATE INDEX idx_facturas_cliente ON facturas(cliente_id);
+CREATE INDEX idx_facturas_cliente_fecha ON facturas(cliente_id, fecha DESC, id DESC);
 CREATE INDEX idx_facturas_empleado ON facturas(empleado_id);
 CREATE INDEX idx_facturas_fecha ON facturas(fecha);
 CREATE INDEX idx_facturas_estado ON facturas(estado);
+CREATE INDEX idx_facturas_caja ON facturas(caja_id) WHERE caja_id IS NOT NULL;
 
 -- Detalle Facturas
 CREATE INDEX idx_detalle_facturas_factura ON detalle_facturas(factura_id);
@@ -182,11 +294,19 @@ CREATE INDEX idx_detalle_facturas_producto ON detalle_facturas(producto_id);
 -- Carrito Compras
 CREATE INDEX idx_carrito_empleado ON carrito_compras(empleado_id);
 CREATE INDEX idx_carrito_producto ON carrito_compras(producto_id);
+CREATE INDEX idx_carrito_reservado_hasta ON carrito_compras(reservado_hasta) WHERE reservado_hasta IS NOT NULL;
 
 -- Cajas
 CREATE INDEX idx_cajas_empleado ON cajas(empleado_id);
 CREATE INDEX idx_cajas_numero ON cajas(numero_caja);
 CREATE INDEX idx_cajas_estado ON cajas(estado);
+CREATE INDEX idx_cajas_empleado_abierta ON cajas(empleado_id) WHERE estado = 'ABIERTA';
+
+-- Ventas por producto
+CREATE INDEX idx_ventas_producto_diarias_fecha ON ventas_producto_diarias(fecha, producto_id) INCLUDE (cantidad, monto);
+
+-- Kardex
+CREATE INDEX idx_movimientos_stock_producto_fecha ON movimientos_stock(producto_id, fecha, id) INCLUDE (stock_resultante);
 
 -- ============================================
 -- RESTAURAR search_path
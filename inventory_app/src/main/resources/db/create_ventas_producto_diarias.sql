@@ -0,0 +1,45 @@
+-- =========================================
+-- Script: Crear tabla ventas_producto_diarias
+-- Fecha: 2026-10-19
+-- Propósito: Acumulados diarios de ventas por producto para rankings
+--            (top, baja rotación) y clasificación ABC sin recorrer detalle_facturas.
+--            Se crea en template_schema y en todas las empresas existentes,
+--            y se carga con el histórico de facturas COMPLETADAS.
+-- =========================================
+
+DO $$
+DECLARE
+    s TEXT;
+BEGIN
+    FOR s IN
+        SELECT schema_name FROM information_schema.schemata
+        WHERE schema_name = 'template_schema' OR schema_name LIKE 'empresa\_%'
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I.ventas_producto_diarias (
+                producto_id BIGINT NOT NULL,
+                fecha DATE NOT NULL,
+                cantidad INTEGER NOT NULL DEFAULT 0,
+                monto DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                CONSTRAINT pk_ventas_producto_diarias PRIMARY KEY (producto_id, fecha)
+            )', s);
+
+        -- Las ventanas filtran por fecha y agrupan por producto
+        EXECUTE format(
+            'CREATE INDEX IF NOT EXISTS idx_ventas_producto_diarias_fecha
+                ON %I.ventas_producto_diarias (fecha, producto_id) INCLUDE (cantidad, monto)', s);
+
+        -- Carga inicial desde el histórico (sólo si la tabla está vacía)
+        EXECUTE format(
+            'INSERT INTO %1$I.ventas_producto_diarias (producto_id, fecha, cantidad, monto)
+             SELECT d.producto_id, CAST(f.fecha AS DATE), SUM(d.cantidad), SUM(d.subtotal)
+             FROM %1$I.detalle_facturas d
+             JOIN %1$I.facturas f ON f.id = d.factura_id
+             WHERE f.estado = ''COMPLETADA'' AND d.producto_id IS NOT NULL
+               AND NOT EXISTS (SELECT 1 FROM %1$I.ventas_producto_diarias)
+             GROUP BY d.producto_id, CAST(f.fecha AS DATE)
+             ON CONFLICT (producto_id, fecha) DO NOTHING', s);
+
+        RAISE NOTICE 'ventas_producto_diarias lista en %', s;
+    END LOOP;
+END $$;
@@ -0,0 +1,166 @@
+package com.example.inventory_app;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.CategoriaProducto;
+import com.example.inventory_app.Entities.Producto;
+import com.example.inventory_app.Services.ContencionStockService;
+import com.example.inventory_app.Services.ProductoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de concurrencia y benchmark del ajuste atómico de stock:
+ * 50 hilos vendiendo el mismo producto.
+ *
+ * Necesita una base de datos con el schema del tenant creado, por eso sólo corre con:
+ * mvn test -Dpruebas.concurrencia=true [-Dpruebas.concurrencia.tenant=empresa_xxx]
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "pruebas.concurrencia", matches = "true")
+class ProductoStockConcurrenciaTests {
+
+    private static final int HILOS = 50;
+    private static final int VENTAS_POR_HILO = 20;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ContencionStockService contencionStockService;
+
+    private String tenant;
+    private Long productoId;
+
+    @BeforeEach
+    void crearProducto() {
+        tenant = System.getProperty("pruebas.concurrencia.tenant", "empresa_pruebas");
+        TenantContext.setCurrentTenant(tenant);
+
+        Producto producto = new Producto();
+        producto.setCodigo("CONC-" + System.nanoTime());
+        producto.setNombre("Producto prueba concurrencia");
+        producto.setPrecioCompra(new BigDecimal("1.00"));
+        producto.setPrecioVenta(new BigDecimal("2.00"));
+        producto.setStock(HILOS * VENTAS_POR_HILO);
+        producto.setStockMinimo(0);
+        producto.setCategoria(CategoriaProducto.values()[0]);
+        productoId = productoService.save(producto).getId();
+    }
+
+    @AfterEach
+    void eliminarProducto() {
+        TenantContext.setCurrentTenant(tenant);
+        productoService.delete(productoId);
+        TenantContext.clear();
+    }
+
+    @Test
+    void ventasConcurrentesNoPierdenActualizaciones() throws Exception {
+        List<Long> latencias = ejecutarEnParalelo(VENTAS_POR_HILO, 1, new AtomicInteger(), new AtomicInteger());
+
+        Producto producto = productoService.findById(productoId).orElseThrow();
+        assertEquals(0, producto.getStock());
+        assertFalse(producto.isActivo());
+        assertEquals(HILOS * VENTAS_POR_HILO, latencias.size());
+        assertThrows(RuntimeException.class, () -> productoService.actualizarStock(productoId, -1));
+
+        imprimirResultados("50 hilos x 20 ventas de 1 unidad", latencias);
+    }
+
+    @Test
+    void stockInsuficienteNoSeVendeDeMas() throws Exception {
+        // 1000 unidades, 50 hilos x 20 intentos de 3 unidades: sólo 333 ventas pueden aplicarse
+        AtomicInteger aplicadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        ejecutarEnParalelo(VENTAS_POR_HILO, 3, aplicadas, rechazadas);
+
+        int stockInicial = HILOS * VENTAS_POR_HILO;
+        Producto producto = productoService.findById(productoId).orElseThrow();
+        assertEquals(stockInicial / 3, aplicadas.get());
+        assertEquals(HILOS * VENTAS_POR_HILO - stockInicial / 3, rechazadas.get());
+        assertEquals(stockInicial % 3, producto.getStock());
+    }
+
+    /**
+     * Lanza HILOS hilos que arrancan a la vez y venden `unidades` cada uno `ventas` veces.
+     *
+     * @return Latencias (ns) de las ventas aplicadas
+     */
+    private List<Long> ejecutarEnParalelo(int ventas, int unidades, AtomicInteger aplicadas,
+                                          AtomicInteger rechazadas) throws Exception {
+        List<Long> latencias = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+
+        for (int h = 0; h < HILOS; h++) {
+            pool.execute(() -> {
+                TenantContext.setCurrentTenant(tenant);
+                try {
+                    largada.await();
+                    for (int i = 0; i < ventas; i++) {
+                        long inicio = System.nanoTime();
+                        try {
+                            productoService.actualizarStock(productoId, -unidades);
+                            latencias.add(System.nanoTime() - inicio);
+                            aplicadas.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            rechazadas.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    TenantContext.clear();
+                }
+            });
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES), "Los hilos no terminaron a tiempo");
+        long duracion = System.nanoTime() - inicio;
+
+        System.out.printf("[CONCURRENCIA] %d operaciones en %.1f ms (%.0f ops/s)%n",
+                aplicadas.get() + rechazadas.get(), duracion / 1e6,
+                (aplicadas.get() + rechazadas.get()) / (duracion / 1e9));
+        return latencias;
+    }
+
+    private void imprimirResultados(String escenario, List<Long> latencias) {
+        List<Long> ordenadas = new ArrayList<>(latencias);
+        Collections.sort(ordenadas);
+        System.out.println("[CONCURRENCIA] " + escenario);
+        System.out.printf("    p50: %.2f ms | p95: %.2f ms | p99: %.2f ms | max: %.2f ms%n",
+                percentil(ordenadas, 0.50), percentil(ordenadas, 0.95),
+                percentil(ordenadas, 0.99), ordenadas.get(ordenadas.size() - 1) / 1e6);
+        System.out.println("    contención: " + contencionStockService.obtenerMasContendidos(tenant, 1));
+    }
+
+    private static double percentil(List<Long> ordenadas, double p) {
+        int indice = (int) Math.ceil(p * ordenadas.size()) - 1;
+        return ordenadas.get(Math.max(indice, 0)) / 1e6;
+    }
+}
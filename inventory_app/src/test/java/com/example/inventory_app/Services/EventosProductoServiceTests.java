@@ -0,0 +1,266 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Events.ProductoCambiadoEvent;
+import com.example.inventory_app.Events.ProductoCambiadoEvent.TipoCambio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Pruebas del stream SSE de productos: reanudación desde el anillo del tenant,
+ * cola acotada por conexión y aislamiento de clientes lentos.
+ *
+ * Los emisores son de prueba: registran lo enviado y pueden quedar bloqueados
+ * en send() como un cliente que no lee.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+class EventosProductoServiceTests {
+
+    private static final String TENANT = "empresa_a";
+    private static final int BUFFER_TENANT = 4;
+    private static final int BUFFER_CONEXION = 3;
+
+    private EventosProductoService servicio;
+    private CountDownLatch bloqueoSiguiente;
+    private long siguienteProducto = 1;
+
+    @AfterEach
+    void detener() {
+        servicio.detener();
+    }
+
+    @Test
+    void reanudaDesdeElAnilloOPideRecargarElCatalogo() {
+        iniciar(2, 60_000);
+        EmitterDePrueba primero = suscribir(null);
+        // De a uno, para no desbordar la cola de la conexión
+        for (int i = 2; i <= 7; i++) {
+            int recibidos = i;
+            publicar(1);
+            esperar(() -> primero.eventos.size() == recibidos);
+        }
+        assertEquals(List.of("conectado", "producto", "producto", "producto", "producto", "producto", "producto"),
+            primero.nombres());
+        String arranque = primero.eventos.get(0).id().substring(0, primero.eventos.get(0).id().lastIndexOf('-'));
+        assertEquals(arranque + "-6", primero.eventos.get(6).id());
+
+        // El anillo guarda los 4 últimos (3..6): desde el 3 se reanuda
+        EmitterDePrueba reanudado = suscribir(arranque + "-3");
+        esperar(() -> reanudado.eventos.size() == 3);
+        assertEquals(List.of(arranque + "-4", arranque + "-5", arranque + "-6"), reanudado.ids());
+
+        // Al día: no recibe nada
+        EmitterDePrueba alDia = suscribir(arranque + "-6");
+
+        // El 2 ya salió del anillo, y los IDs de otro arranque no se pueden reanudar
+        EmitterDePrueba conHueco = suscribir(arranque + "-1");
+        EmitterDePrueba otroArranque = suscribir("zzz-5");
+        EmitterDePrueba futuro = suscribir(arranque + "-99");
+        esperar(() -> conHueco.eventos.size() == 1 && otroArranque.eventos.size() == 1 && futuro.eventos.size() == 1);
+        assertEquals(List.of("catalogo"), conHueco.nombres());
+        assertEquals(List.of("catalogo"), otroArranque.nombres());
+        assertEquals(List.of("catalogo"), futuro.nombres());
+
+        publicar(1);
+        esperar(() -> alDia.eventos.size() == 1);
+        assertEquals(List.of(arranque + "-7"), alDia.ids());
+        assertEquals(2L, servicio.obtenerEstadisticas().get("reanudaciones"));
+    }
+
+    @Test
+    void colaLlenaSeReemplazaPorCatalogo() {
+        iniciar(2, 60_000);
+        CountDownLatch liberar = bloquearSiguiente();
+        EmitterDePrueba lento = suscribir(null);
+        esperar(() -> lento.enviando);
+
+        // 3 entran en la cola; el cuarto la desborda
+        publicar(BUFFER_CONEXION + 1);
+        liberar.countDown();
+        esperar(() -> lento.eventos.size() == 2);
+        assertEquals(List.of("conectado", "catalogo"), lento.nombres());
+
+        // Ya al día: los siguientes llegan normalmente
+        publicar(2);
+        esperar(() -> lento.eventos.size() == 4);
+        Map<String, Object> estadisticas = servicio.obtenerEstadisticas();
+        assertEquals(1L, estadisticas.get("desbordes"));
+        assertEquals(0L, estadisticas.get("descartadas"));
+        assertEquals(1, estadisticas.get("conexiones"));
+        assertFalse(lento.completado);
+    }
+
+    @Test
+    void segundoDesbordeSinPonerseAlDiaCierraLaConexion() {
+        iniciar(2, 60_000);
+        CountDownLatch liberar = bloquearSiguiente();
+        EmitterDePrueba lento = suscribir(null);
+        esperar(() -> lento.enviando);
+
+        // Primer desborde: [catalogo]; dos más la vuelven a llenar y el siguiente la desborda otra vez
+        publicar(BUFFER_CONEXION + 1 + BUFFER_CONEXION);
+        Map<String, Object> estadisticas = servicio.obtenerEstadisticas();
+        assertEquals(2L, estadisticas.get("desbordes"));
+        assertEquals(1L, estadisticas.get("descartadas"));
+        assertEquals(0, estadisticas.get("conexiones"));
+
+        // Al terminar el envío bloqueado el hilo de envío cierra la conexión sin mandar lo descartado
+        liberar.countDown();
+        esperar(() -> lento.completado);
+        assertEquals(List.of("conectado"), lento.nombres());
+    }
+
+    @Test
+    void unEnvioBloqueadoNoFrenaALosDemas() {
+        // Un solo hilo de envío: sin la vigilancia, el cliente bloqueado lo ocuparía
+        iniciar(1, 100);
+        CountDownLatch liberar = bloquearSiguiente();
+        EmitterDePrueba bloqueado = suscribir(null);
+        esperar(() -> bloqueado.enviando);
+        EmitterDePrueba rapido = suscribir(null);
+
+        publicar(2);
+        esperar(() -> rapido.eventos.size() == 3);
+        assertEquals(List.of("conectado", "producto", "producto"), rapido.nombres());
+
+        Map<String, Object> estadisticas = servicio.obtenerEstadisticas();
+        assertEquals(1L, estadisticas.get("descartadas"));
+        assertEquals(1, estadisticas.get("enviosBloqueados"));
+        assertEquals(1, estadisticas.get("conexiones"));
+
+        // Cuando el envío bloqueado termina se devuelve el hilo extra y se cierra la conexión
+        liberar.countDown();
+        esperar(() -> bloqueado.completado);
+        esperar(() -> (int) servicio.obtenerEstadisticas().get("enviosBloqueados") == 0);
+        assertEquals(List.of("conectado"), bloqueado.nombres());
+
+        publicar(1);
+        esperar(() -> rapido.eventos.size() == 4);
+        assertEquals(List.of("conectado"), bloqueado.nombres());
+    }
+
+    private void iniciar(int hilosEnvio, long envioMaxMs) {
+        servicio = new EventosProductoService() {
+            @Override
+            SseEmitter crearEmitter(long timeoutMs) {
+                EmitterDePrueba emitter = new EmitterDePrueba(timeoutMs, bloqueoSiguiente);
+                bloqueoSiguiente = null;
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(servicio, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(servicio, "bufferTenant", BUFFER_TENANT);
+        ReflectionTestUtils.setField(servicio, "bufferConexion", BUFFER_CONEXION);
+        ReflectionTestUtils.setField(servicio, "maxConexiones", 100);
+        ReflectionTestUtils.setField(servicio, "timeoutMinutos", 1L);
+        ReflectionTestUtils.setField(servicio, "latidoSegundos", 3600L);
+        ReflectionTestUtils.setField(servicio, "hilosEnvio", hilosEnvio);
+        ReflectionTestUtils.setField(servicio, "envioMaxMs", envioMaxMs);
+        servicio.iniciar();
+    }
+
+    private CountDownLatch bloquearSiguiente() {
+        bloqueoSiguiente = new CountDownLatch(1);
+        return bloqueoSiguiente;
+    }
+
+    private EmitterDePrueba suscribir(String ultimoId) {
+        return (EmitterDePrueba) servicio.suscribir(TENANT, ultimoId);
+    }
+
+    private void publicar(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            servicio.onProductoCambiado(new ProductoCambiadoEvent(TENANT, siguienteProducto++, TipoCambio.ELIMINADO, null));
+        }
+    }
+
+    private static void esperar(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("La condición no se cumplió en 5 segundos");
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private record Enviado(String id, String nombre) { }
+
+    /**
+     * Emisor que registra los eventos enviados; con un latch, el primer envío
+     * queda bloqueado hasta liberarlo (cliente que no lee).
+     */
+    private static final class EmitterDePrueba extends SseEmitter {
+        private final List<Enviado> eventos = new CopyOnWriteArrayList<>();
+        private final CountDownLatch bloqueo;
+        private volatile boolean enviando;
+        private volatile boolean completado;
+
+        private EmitterDePrueba(long timeoutMs, CountDownLatch bloqueo) {
+            super(timeoutMs);
+            this.bloqueo = bloqueo;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            enviando = true;
+            if (bloqueo != null) {
+                try {
+                    bloqueo.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder texto = new StringBuilder();
+            for (DataWithMediaType parte : builder.build()) {
+                texto.append(parte.getData());
+            }
+            String id = null;
+            String nombre = "latido";
+            for (String linea : texto.toString().split("\n")) {
+                if (linea.startsWith("id:")) {
+                    id = linea.substring(3);
+                } else if (linea.startsWith("event:")) {
+                    nombre = linea.substring(6);
+                }
+            }
+            eventos.add(new Enviado(id, nombre));
+        }
+
+        @Override
+        public void complete() {
+            completado = true;
+            super.complete();
+        }
+
+        private List<String> nombres() {
+            return eventos.stream().map(Enviado::nombre).toList();
+        }
+
+        private List<String> ids() {
+            return eventos.stream().map(Enviado::id).toList();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.inventory_app.Services.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pruebas del cursor opaco de la paginación por clave de productos
+ * ("i:id" u "n:id:nombre" en Base64 URL).
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+class ProductoCursorTests {
+
+    @Test
+    void idaYVueltaPorId() {
+        String cursor = ProductoServiceImpl.codificarCursor(false, 1234L, "ignorado");
+
+        assertArrayEquals(new String[] {"i", "1234"}, ProductoServiceImpl.decodificarCursor(cursor, false));
+    }
+
+    @Test
+    void idaYVueltaPorNombreConSeparadoresYAcentos() {
+        for (String nombre : List.of("Agua 600ml", "Café: molido 500g", "Ñandú/„especial“ ?&=", "")) {
+            String cursor = ProductoServiceImpl.codificarCursor(true, 77L, nombre);
+
+            // Base64 URL sin relleno: se puede poner tal cual en la query string
+            assertTrue(cursor.matches("[A-Za-z0-9_-]*"), cursor);
+            assertArrayEquals(new String[] {"n", "77", nombre}, ProductoServiceImpl.decodificarCursor(cursor, true));
+        }
+    }
+
+    @Test
+    void rechazaCursorDeOtroOrden() {
+        String porId = ProductoServiceImpl.codificarCursor(false, 5L, null);
+        String porNombre = ProductoServiceImpl.codificarCursor(true, 5L, "Agua");
+
+        assertInvalido(porId, true);
+        assertInvalido(porNombre, false);
+    }
+
+    @Test
+    void rechazaCursorMalFormado() {
+        for (String cursor : List.of("", "%%%", "no es base64!", "aTox===", "aTox+/")) {
+            assertInvalido(cursor, false);
+            assertInvalido(cursor, true);
+        }
+    }
+
+    @Test
+    void rechazaCursorAlterado() {
+        for (String valor : List.of("i:", "i:abc", "i:12:extra", "i:99999999999999999999", "x:12",
+                "I:12", "i 12", ":12")) {
+            assertInvalido(codificar(valor), false);
+        }
+        for (String valor : List.of("n:", "n:12", "n:doce:Agua", "n::Agua", "i:12:Agua")) {
+            assertInvalido(codificar(valor), true);
+        }
+    }
+
+    private static String codificar(String valor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertInvalido(String cursor, boolean porNombre) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> ProductoServiceImpl.decodificarCursor(cursor, porNombre), cursor);
+        assertTrue(error.getMessage().startsWith("Cursor inválido"), error.getMessage());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.inventory_app.Services;
+
+import com.example.inventory_app.Config.TenantContext;
+import com.example.inventory_app.Entities.Cliente;
+import com.example.inventory_app.Repositories.ClienteRepository;
+import com.example.inventory_app.Services.IndiceClientesService.Campo;
+import com.example.inventory_app.Services.IndiceClientesService.Sugerencia;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas del índice de prefijos de clientes: búsqueda normalizada, desalojo por
+ * límite de memoria y paridad del respaldo en BD con el índice.
+ *
+ * @author DamianG
+ * @version 1.0
+ */
+class IndiceClientesServiceTests {
+
+    private static final String TENANT_A = "empresa_a";
+    private static final String TENANT_B = "empresa_b";
+
+    private final List<Cliente> clientesA = List.of(
+        cliente(1L, "José", "Pérez", "12.345.678", "(300) 555-0101", true),
+        cliente(2L, "María José", "Gómez", "87654321", "3105550202", true),
+        cliente(3L, "Joselito", "Ruiz", "11222333", null, true),
+        cliente(4L, "José", "Inactivo", "99887766", null, false));
+
+    private final List<Cliente> clientesB = List.of(
+        cliente(10L, "Ana", "Torres", "44556677", "3205550303", true),
+        cliente(11L, "Andrés", "Núñez", "55667788", null, true),
+        cliente(12L, "Ángela", "Ortiz", "66778899", null, true));
+
+    private ClienteRepository clienteRepository;
+    private IndiceClientesService servicio;
+
+    @BeforeEach
+    void crearServicio() {
+        clienteRepository = mock(ClienteRepository.class);
+        when(clienteRepository.findAll()).thenAnswer(invocacion ->
+            TENANT_B.equals(TenantContext.getCurrentTenant()) ? clientesB : clientesA);
+        servicio = nuevoServicio(clienteRepository, true, 32 * 1024 * 1024);
+        TenantContext.setCurrentTenant(TENANT_A);
+    }
+
+    @AfterEach
+    void limpiarTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void buscaPorPrefijoSinAcentosNiSignos() {
+        // Coincidencias exactas primero (por apellido), luego la más larga; nunca inactivos
+        assertEquals(List.of(2L, 1L, 3L), ids(servicio.sugerir("jose", 10)));
+        assertEquals(List.of(1L), ids(servicio.sugerir("PÉREZ jo", 10)));
+        assertEquals(List.of(2L), ids(servicio.sugerir("maria gomez", 10)));
+
+        List<Sugerencia> porDocumento = servicio.sugerir("12345", 10);
+        assertEquals(List.of(1L), ids(porDocumento));
+        assertEquals(Campo.DOCUMENTO, porDocumento.get(0).coincidencia());
+
+        List<Sugerencia> porTelefono = servicio.sugerir("3005550", 10);
+        assertEquals(List.of(1L), ids(porTelefono));
+        assertEquals(Campo.TELEFONO, porTelefono.get(0).coincidencia());
+
+        assertEquals(List.of(2L), ids(servicio.sugerir("jose", 1)));
+        assertTrue(servicio.sugerir("zz", 10).isEmpty());
+        assertTrue(servicio.sugerir(" -- ", 10).isEmpty());
+
+        // Se arma una sola vez y no se consulta la BD por búsqueda
+        verify(clienteRepository, times(1)).findAll();
+        verify(clienteRepository, never()).buscarPorPrefijo(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void aplicaAltasEdicionesYBajasSinReleer() {
+        servicio.sugerir("jose", 10);
+
+        servicio.actualizar(cliente(5L, "Josefina", "Álvarez", "10101010", null, true));
+        assertEquals(List.of(5L), ids(servicio.sugerir("alvarez", 10)));
+
+        servicio.actualizar(cliente(5L, "Josefina", "Benítez", "10101010", null, true));
+        assertTrue(servicio.sugerir("alvarez", 10).isEmpty());
+        assertEquals(List.of(5L), ids(servicio.sugerir("benitez", 10)));
+
+        servicio.quitar(5L);
+        assertTrue(servicio.sugerir("benitez", 10).isEmpty());
+        verify(clienteRepository, times(1)).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void desalojaElIndiceUsadoHaceMasTiempoAlSuperarElLimite() {
+        servicio.sugerir("jose", 10);
+        long pesoA = (long) servicio.obtenerEstadisticas().get("pesoBytes");
+
+        // Cada tenant entra solo, pero no los dos juntos
+        ReflectionTestUtils.setField(servicio, "maxBytes", pesoA + pesoA / 2);
+        TenantContext.setCurrentTenant(TENANT_B);
+        assertEquals(List.of(10L, 11L, 12L), ids(servicio.sugerir("an", 10)));
+
+        Map<String, Object> estadisticas = servicio.obtenerEstadisticas();
+        assertEquals(1L, estadisticas.get("descartes"));
+        assertEquals(List.of(TENANT_B), List.copyOf(((Map<String, Object>) estadisticas.get("tenants")).keySet()));
+
+        // Volver al tenant descartado lo arma de nuevo y desaloja al otro
+        TenantContext.setCurrentTenant(TENANT_A);
+        assertEquals(List.of(2L, 1L, 3L), ids(servicio.sugerir("jose", 10)));
+        assertEquals(2L, servicio.obtenerEstadisticas().get("descartes"));
+        verify(clienteRepository, times(3)).findAll();
+    }
+
+    @Test
+    void tenantQueExcedeElLimiteBuscaEnLaBdConPrefijoNormalizado() {
+        ReflectionTestUtils.setField(servicio, "maxBytes", 100L);
+        when(clienteRepository.buscarPorPrefijo(anyString(), anyString(), anyInt())).thenReturn(clientesA);
+
+        assertEquals(List.of(2L, 1L, 3L), ids(servicio.sugerir("  JOSÉ ", 10)));
+        assertEquals(List.of(1L), ids(servicio.sugerir("Pérez", 10)));
+
+        verify(clienteRepository).buscarPorPrefijo("jose%", "% jose%", 2000);
+        verify(clienteRepository).buscarPorPrefijo("perez%", "% perez%", 2000);
+        // No se reintenta armar el índice en cada búsqueda
+        verify(clienteRepository, times(1)).findAll();
+        assertEquals(2L, servicio.obtenerEstadisticas().get("busquedasEnBd"));
+    }
+
+    @Test
+    void elRespaldoEnBdDevuelveLoMismoQueElIndice() {
+        ClienteRepository sinIndiceRepository = mock(ClienteRepository.class);
+        // La BD devuelve los candidatos; orden y filtro final son los del índice
+        when(sinIndiceRepository.buscarPorPrefijo(anyString(), anyString(), anyInt())).thenReturn(clientesA);
+        IndiceClientesService sinIndice = nuevoServicio(sinIndiceRepository, false, 32 * 1024 * 1024);
+
+        for (String busqueda : List.of("jose", "José", "pérez", "perez j", "12.345", "3005550", "300 555",
+                "gomez maria", "ruiz", "inactivo", "zz")) {
+            assertEquals(servicio.sugerir(busqueda, 10), sinIndice.sugerir(busqueda, 10), busqueda);
+        }
+        verify(sinIndiceRepository, never()).findAll();
+    }
+
+    private static IndiceClientesService nuevoServicio(ClienteRepository repository, boolean habilitado,
+                                                       long maxBytes) {
+        IndiceClientesService servicio = new IndiceClientesService();
+        ReflectionTestUtils.setField(servicio, "clienteRepository", repository);
+        ReflectionTestUtils.setField(servicio, "habilitado", habilitado);
+        ReflectionTestUtils.setField(servicio, "maxBytes", maxBytes);
+        return servicio;
+    }
+
+    private static Cliente cliente(Long id, String nombre, String apellido, String documento,
+                                   String telefono, boolean activo) {
+        Cliente cliente = new Cliente();
+        cliente.setId(id);
+        cliente.setNombre(nombre);
+        cliente.setApellido(apellido);
+        cliente.setDocumento(documento);
+        cliente.setTelefono(telefono);
+        cliente.setActivo(activo);
+        return cliente;
+    }
+
+    private static List<Long> ids(List<Sugerencia> sugerencias) {
+        return sugerencias.stream().map(Sugerencia::id).toList();
+    }
+}